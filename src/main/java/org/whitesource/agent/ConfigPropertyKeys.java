@@ -27,11 +27,15 @@ public final class ConfigPropertyKeys {
     public static final String FORCE_UPDATE                                 = "forceUpdate";
     public static final String FORCE_UPDATE_FAIL_BUILD_ON_POLICY_VIOLATION  = "forceUpdate.failBuildOnPolicyViolation";
     public static final String FORCE_CHECK_ALL_DEPENDENCIES                 = "forceCheckAllDependencies"; // optional
+    public static final String CHECK_POLICIES_PER_PROJECT                   = "checkPolicies.perProject"; // optional
     public static final String UPDATE_INVENTORY                             = "updateInventory"; // optional
     public static final String ENABLE_IMPACT_ANALYSIS                       = "enableImpactAnalysis"; // optional
     public static final String IA_LANGUAGE                                  = "iaLanguage"; // optional
     public static final String CONNECTION_RETRIES                           = "connectionRetries";
     public static final String CONNECTION_RETRIES_INTERVALS                 = "connectionRetriesInterval";
+    public static final String UPDATE_REQUEST_MAX_DEPENDENCIES              = "updateRequest.maxDependencies"; // optional
+    public static final String UPDATE_REQUEST_PARALLELISM                   = "updateRequest.parallelism"; // optional
+    public static final String UPDATE_REQUEST_SNAPSHOTS_FOLDER              = "updateRequest.snapshotsFolder"; // optional
     public static final String ORG_TOKEN_PROPERTY_KEY                       = "apiKey";
     public static final String ORG_TOKEN_FILE                               = "apiKeyFile";
     public static final String USER_KEY_PROPERTY_KEY                        = "userKey";
@@ -75,6 +79,11 @@ public final class ConfigPropertyKeys {
     public static final String SCM_NPM_INSTALL                              = "scm.npmInstall";
     public static final String SCM_NPM_INSTALL_TIMEOUT_MINUTES              = "scm.npmInstallTimeoutMinutes";
     public static final String SCM_REPOSITORIES_FILE                        = "scm.repositoriesFile";
+    public static final String SCM_SPARSE_CHECKOUT                          = "scm.sparseCheckout";
+    public static final String SCM_HASH_BLOBS                               = "scm.hashBlobs";
+    public static final String SCM_MIRRORS_PATH                             = "scm.mirrorsPath";
+    public static final String SCM_CLONE_THREADS                            = "scm.cloneThreads";
+    public static final String SCM_SCAN_THREADS                             = "scm.scanThreads";
     public static final String EXCLUDED_COPYRIGHT_KEY                       = "copyright.excludes";
     public static final String LOG_LEVEL_KEY                                = "log.level";
     public static final String FOLLOW_SYMBOLIC_LINKS                        = "followSymbolicLinks";
@@ -120,6 +129,7 @@ public final class ConfigPropertyKeys {
     public static final String NUGET_IGNORE_SOURCE_FILES    = "nuget.ignoreSourceFiles";
     public static final String NUGET_RESOLVE_CS_PROJ_FILES  = "nuget.resolveCsProjFiles";
     public static final String NUGET_RESOLVE_PACKAGES_CONFIG_FILES = "nuget.resolvePackagesConfigFiles";
+    public static final String NUGET_RESTORE_PARALLELISM    = "nuget.restoreParallelism";
 
     public static final String MAVEN_IGNORED_SCOPES         = "maven.ignoredScopes";
     public static final String MAVEN_RESOLVE_DEPENDENCIES   = "maven.resolveDependencies";
@@ -134,9 +144,11 @@ public final class ConfigPropertyKeys {
     public static final String PROJECT_PER_SUBFOLDER        = "projectPerFolder";
     public static final String PROJECT_PER_FOLDER_INCLUDES  = "projectPerFolderIncludes";
     public static final String PROJECT_PER_FOLDER_EXCLUDES  = "projectPerFolderExcludes";
+    public static final String PROJECT_PER_FOLDER_PARALLELISM = "projectPerFolderParallelism";
     public static final String UPDATE_TYPE                  = "updateType";
     public static final String PROJECT_CONFIGURATION_PATH   = "configFilePath";
     public static final String SCAN_PACKAGE_MANAGER         = "scanPackageManager";
+    public static final String PACKAGE_MANAGER_ROOT_FOLDER  = "scanPackageManager.rootFolder";
     public static final String WHITESOURCE_FOLDER_PATH      = "whiteSourceFolderPath";
 
     public static final String ENDPOINT_ENABLED         = "endpoint.enabled";
@@ -144,6 +156,11 @@ public final class ConfigPropertyKeys {
     public static final String ENDPOINT_CERTIFICATE     = "endpoint.certificate";
     public static final String ENDPOINT_PASS            = "endpoint.pass";
     public static final String ENDPOINT_SSL_ENABLED     = "endpoint.ssl";
+    public static final String ENDPOINT_JOBS_PARALLELISM        = "endpoint.jobs.parallelism";
+    public static final String ENDPOINT_JOBS_QUEUE_SIZE         = "endpoint.jobs.queueSize";
+    public static final String ENDPOINT_JOBS_RETENTION_MINUTES  = "endpoint.jobs.retentionMinutes";
+    public static final String ENDPOINT_JOBS_CACHE_MINUTES      = "endpoint.jobs.cacheMinutes";
+    public static final String ENDPOINT_CACHE_MAX_FILES         = "endpoint.cache.maxFiles";
 
     public static final String GRADLE_RUN_PRE_STEP          = "gradle.runPreStep";
     public static final String GRADLE_RESOLVE_DEPENDENCIES  = "gradle.resolveDependencies";
@@ -205,6 +222,8 @@ public final class ConfigPropertyKeys {
 
     public static final String LOG_CONTEXT = "logContext";
 
+    public static final String METRICS_FILE = "metricsFile";
+
     public static final String REQUIRE_KNOWN_SHA1 = "requireKnownSha1";
 
     // Analysis multi module project for via
@@ -217,11 +236,16 @@ public final class ConfigPropertyKeys {
     public static final String SCAN_DOCKER_IMAGES                   = "docker.scanImages";
     public static final String SCAN_TAR_IMAGES                      = "docker.tarImages";
     public static final String DELETE_TAR_FILES                     = "docker.deleteTar";
+    public static final String DOCKER_LAYERS_CACHE_FOLDER           = "docker.layers.cacheFolder";
+    public static final String DOCKER_LAYERS_STREAMING              = "docker.layers.streaming";
+    public static final String DOCKER_SCAN_PARALLELISM              = "docker.scan.parallelism";
+    public static final String DOCKER_SCAN_DISK_BUDGET_MB           = "docker.scan.diskBudgetMB";
     public static final String DOCKER_PULL_ENABLE                   = "docker.pull.enable";
     public static final String DOCKER_PULL_IMAGES                   = "docker.pull.images";
     public static final String DOCKER_PULL_TAGS                     = "docker.pull.tags";
     public static final String DOCKER_PULL_DIGEST                   = "docker.pull.digest";
     public static final String DOCKER_PULL_MAX_IMAGES               = "docker.pull.maxImages";
+    public static final String DOCKER_PULL_PARALLELISM              = "docker.pull.parallelism";
     public static final String DOCKER_DELETE_FORCE                  = "docker.delete.force";
     public static final String DOCKER_LOGIN_SUDO                    = "docker.login.sudo";
     // TODO: Not implemented yet
@@ -1,6 +1,7 @@
 package org.whitesource.agent;
 
 import org.whitesource.agent.api.model.DependencyInfo;
+import org.whitesource.agent.utils.ScanMetrics;
 
 import java.io.File;
 import java.text.MessageFormat;
@@ -11,10 +12,16 @@ public class DependencyCalculator {
     private static final List<String> progressAnimation = Arrays.asList("|", "/", Constants.DASH, "\\");
     private static final int ANIMATION_FRAMES = progressAnimation.size();
     private final boolean showProgressBar;
+    private final FileHashCache fileHashCache;
     private int animationIndex = 0;
 
     public DependencyCalculator(boolean showProgressBar) {
+        this(showProgressBar, null);
+    }
+
+    public DependencyCalculator(boolean showProgressBar, FileHashCache fileHashCache) {
         this.showProgressBar = showProgressBar;
+        this.fileHashCache = fileHashCache;
         this.animationIndex = 0;
     }
 
@@ -31,15 +38,18 @@ public class DependencyCalculator {
         }
 
         int index = 1;
+        long hashedBytes = 0;
+        ScanMetrics.Timer hashingTimer = ScanMetrics.startTimer(ScanMetrics.HASHING);
         for (Map.Entry<File, Collection<String>> entry : fileMap.entrySet()) {
             for (String fileName : entry.getValue()) {
-                DependencyInfoFactory factory = new DependencyInfoFactory(excludedCopyrights, partialSha1Match, calculateHints, calculateMd5);
+                DependencyInfoFactory factory = new DependencyInfoFactory(excludedCopyrights, partialSha1Match, calculateHints, calculateMd5, fileHashCache);
                 DependencyInfo originalDependencyInfo = factory.createDependencyInfo(entry.getKey(), fileName);
                 if (originalDependencyInfo != null) {
                     if (scmConnector) {
                         originalDependencyInfo.setSystemPath(fileName.replace(Constants.BACK_SLASH, Constants.FORWARD_SLASH));
                     }
                     allDependencies.add(originalDependencyInfo);
+                    hashedBytes += new File(entry.getKey(), fileName).length();
                 }
                 if (showProgressBar) {
                     displayProgress(index, totalFiles);
@@ -47,6 +57,9 @@ public class DependencyCalculator {
                 index++;
             }
         }
+        hashingTimer.stop();
+        ScanMetrics.increment(ScanMetrics.HASHED_FILES, allDependencies.size());
+        ScanMetrics.increment(ScanMetrics.HASHED_BYTES, hashedBytes);
         return allDependencies;
     }
 
@@ -22,14 +22,13 @@ import org.whitesource.agent.api.model.ChecksumType;
 import org.whitesource.agent.api.model.CopyrightInfo;
 import org.whitesource.agent.api.model.DependencyHintsInfo;
 import org.whitesource.agent.api.model.DependencyInfo;
-import org.whitesource.agent.hash.ChecksumUtils;
-import org.whitesource.agent.hash.HashAlgorithm;
-import org.whitesource.agent.hash.HashCalculator;
-import org.whitesource.agent.hash.HintUtils;
+import org.whitesource.agent.hash.*;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.util.*;
 
 /**
@@ -54,6 +53,15 @@ public class DependencyInfoFactory {
     private static final String CONTAINS_YEAR_REGEX = ".*(\\d\\d\\d\\d)+.*";
 
     private static final String JAVA_SCRIPT_REGEX = ".*\\.js";
+    private static final String DEPENDENCY_HASHES = "dependency";
+
+    // the same rules as the hash calculator applies to files
+    private static final String PORTABLE_EXECUTABLE_REGEX = ".*\\.dll|.*\\.exe|.*\\.msi";
+    private static final int MIN_SUPER_HASH_SIZE = 512;
+    private static final int MAX_OTHER_PLATFORM_SIZE = 10 * 1024 * 1024;
+    private static final String CRLF = "\r\n";
+    private static final String LF = "\n";
+    private static final String EMPTY_SHA1 = "da39a3ee5e6b4b0d3255bfef95601890afd80709";
 
     private static final List<Character> MATH_SYMBOLS = Arrays.asList('+', '-', '=', '<', '>', '*', '/', '%', '^');
     private static final int MAX_VALID_CHAR_VALUE = 127;
@@ -80,6 +88,7 @@ public class DependencyInfoFactory {
     private final boolean partialSha1Match;
     private boolean calculateHints;
     private boolean calculateMd5;
+    private FileHashCache fileHashCache;
 
     /* --- Constructors --- */
 
@@ -99,14 +108,26 @@ public class DependencyInfoFactory {
         this.calculateMd5 = calculateMd5;
     }
 
+    /**
+     * @param fileHashCache the hashes of files kept across scans, null to always calculate them
+     */
+    public DependencyInfoFactory(Collection<String> excludedCopyrights, boolean partialSha1Match, boolean calculateHints, boolean calculateMd5,
+                                 FileHashCache fileHashCache) {
+        this(excludedCopyrights, partialSha1Match, calculateHints, calculateMd5);
+        this.fileHashCache = fileHashCache;
+    }
+
     /* --- Public methods --- */
 
     public DependencyInfo createDependencyInfo(File basedir, String filename) {
         DependencyInfo dependency;
         try {
             File dependencyFile = new File(basedir, filename);
-            String sha1 = ChecksumUtils.calculateSHA1(dependencyFile);
-            dependency = new DependencyInfo(sha1);
+            if (fileHashCache == null) {
+                dependency = calculateHashes(dependencyFile);
+            } else {
+                dependency = copyHashes(fileHashCache.get(dependencyFile, getHashesType(), this::calculateHashes));
+            }
             dependency.setArtifactId(dependencyFile.getName());
             dependency.setFilename(dependencyFile.getName());
 
@@ -116,48 +137,208 @@ public class DependencyInfoFactory {
             } catch (IOException e) {
                 dependency.setSystemPath(dependencyFile.getAbsolutePath());
             }
+        } catch (IOException e) {
+            logger.warn("Failed to create dependency " + filename + " to dependency list: {}", e.getMessage());
+            dependency = null;
+        }
+        return dependency;
+    }
+
+    /**
+     * Creates the dependency of a file which isn't read from the disk, like a git blob.
+     *
+     * @param file          where the file would be, for its name and system path
+     * @param contentId     identifies the content, files with the same content and name are hashed once
+     * @param contentLoader reads the content when it isn't cached
+     */
+    public DependencyInfo createDependencyInfo(File file, String contentId, FileHashCache.ContentLoader<byte[]> contentLoader) {
+        String fileName = file.getName();
+        return createContentDependencyInfo(file, contentId, () -> calculateHashes(fileName, contentLoader.load()));
+    }
+
+    /**
+     * Like {@link #createDependencyInfo(File, String, FileHashCache.ContentLoader)}, for content too large to be read into memory.
+     *
+     * @param contentWriter writes the content to a temp file, with the name of the file, when it isn't cached
+     */
+    public DependencyInfo createDependencyInfo(File file, String contentId, ContentWriter contentWriter) {
+        String fileName = file.getName();
+        return createContentDependencyInfo(file, contentId, () -> calculateHashes(fileName, contentWriter));
+    }
 
-            // populate hints
-            if (calculateHints) {
-                DependencyHintsInfo hints = HintUtils.getHints(dependencyFile.getPath());
-                dependency.setHints(hints);
+    /* --- Private methods --- */
+
+    private DependencyInfo createContentDependencyInfo(File file, String contentId, FileHashCache.ContentLoader<DependencyInfo> hashesLoader) {
+        DependencyInfo dependency;
+        String fileName = file.getName();
+        try {
+            if (fileHashCache == null) {
+                dependency = hashesLoader.load();
+            } else {
+                // the hashes depend on the name too, only javascript files get javascript hashes
+                dependency = copyHashes(fileHashCache.get(contentId + Constants.FORWARD_SLASH + fileName, getHashesType(), hashesLoader));
             }
+            dependency.setArtifactId(fileName);
+            dependency.setFilename(fileName);
+            dependency.setSystemPath(file.getPath());
+        } catch (IOException e) {
+            logger.warn("Failed to create dependency " + file.getPath() + " to dependency list: {}", e.getMessage());
+            dependency = null;
+        }
+        return dependency;
+    }
+
+    // the hashes depend only on the content of the file, so they can be kept in the file hash cache
+    private DependencyInfo calculateHashes(File dependencyFile) throws IOException {
+        String sha1 = ChecksumUtils.calculateSHA1(dependencyFile);
+        DependencyInfo dependency = new DependencyInfo(sha1);
+
+        // populate hints
+        if (calculateHints) {
+            DependencyHintsInfo hints = HintUtils.getHints(dependencyFile.getPath());
+            dependency.setHints(hints);
+        }
 
-            // additional sha1s
-            // MD5
-            if (calculateMd5) {
-                String md5 = ChecksumUtils.calculateHash(dependencyFile, HashAlgorithm.MD5);
-                dependency.addChecksum(ChecksumType.MD5, md5);
+        // additional sha1s
+        // MD5
+        if (calculateMd5) {
+            String md5 = ChecksumUtils.calculateHash(dependencyFile, HashAlgorithm.MD5);
+            dependency.addChecksum(ChecksumType.MD5, md5);
+        }
+
+        // handle JavaScript files
+        if (dependencyFile.getName().toLowerCase().matches(JAVA_SCRIPT_REGEX)) {
+            Map<ChecksumType, String> javaScriptChecksums;
+            try {
+                javaScriptChecksums = new HashCalculator().calculateJavaScriptHashes(dependencyFile);
+                if (javaScriptChecksums == null || javaScriptChecksums.isEmpty()) {
+                    logger.debug("Failed to calculate javaScript hash: {}", dependencyFile.getPath());
+                }
+                for (Map.Entry<ChecksumType, String> entry : javaScriptChecksums.entrySet()) {
+                    dependency.addChecksum(entry.getKey(), entry.getValue());
+                }
+            } catch (Exception e) {
+                logger.warn("Failed to calculate javaScript hash for file: {}, error: {}", dependencyFile.getPath(), e.getMessage());
+                logger.debug("Failed to calculate javaScript hash for file: {}, error: {}", dependencyFile.getPath(), e.getStackTrace());
             }
+        }
+        // other platform SHA1, calculated in memory since the file based one of the library shares a single temp folder between threads
+        if (dependencyFile.length() <= MAX_OTHER_PLATFORM_SIZE) {
+            dependency.setOtherPlatformSha1(calculateOtherPlatformSha1(new HashCalculator(), FileUtils.readFileToByteArray(dependencyFile)));
+        }
+        // super hash
+        ChecksumUtils.calculateSuperHash(dependency, dependencyFile);
+        return dependency;
+    }
 
-            // handle JavaScript files
-            if (filename.toLowerCase().matches(JAVA_SCRIPT_REGEX)) {
-                Map<ChecksumType, String> javaScriptChecksums;
-                try {
-                    javaScriptChecksums = new HashCalculator().calculateJavaScriptHashes(dependencyFile);
-                    if (javaScriptChecksums == null || javaScriptChecksums.isEmpty()) {
-                        logger.debug("Failed to calculate javaScript hash: {}", dependencyFile.getPath());
-                    }
+    // the same hashes as calculated for a file, from its content
+    private DependencyInfo calculateHashes(String fileName, byte[] content) throws IOException {
+        HashCalculator hashCalculator = new HashCalculator();
+        DependencyInfo dependency = new DependencyInfo(hashCalculator.calculateByteArraySHA1(content));
+
+        // populate hints
+        if (calculateHints) {
+            dependency.setHints(getHints(fileName, content));
+        }
+
+        // MD5
+        if (calculateMd5) {
+            dependency.addChecksum(ChecksumType.MD5, hashCalculator.calculateByteArrayHash(content, HashAlgorithm.MD5));
+        }
+
+        // handle JavaScript files
+        if (fileName.toLowerCase().matches(JAVA_SCRIPT_REGEX)) {
+            try {
+                Map<ChecksumType, String> javaScriptChecksums = hashCalculator.calculateJavaScriptHashes(content);
+                if (javaScriptChecksums == null || javaScriptChecksums.isEmpty()) {
+                    logger.debug("Failed to calculate javaScript hash: {}", fileName);
+                } else {
                     for (Map.Entry<ChecksumType, String> entry : javaScriptChecksums.entrySet()) {
                         dependency.addChecksum(entry.getKey(), entry.getValue());
                     }
-                } catch (Exception e) {
-                    logger.warn("Failed to calculate javaScript hash for file: {}, error: {}", dependencyFile.getPath(), e.getMessage());
-                    logger.debug("Failed to calculate javaScript hash for file: {}, error: {}", dependencyFile.getPath(), e.getStackTrace());
                 }
+            } catch (Exception e) {
+                logger.warn("Failed to calculate javaScript hash for file: {}, error: {}", fileName, e.getMessage());
+            }
+        }
+
+        // other platform SHA1
+        dependency.setOtherPlatformSha1(calculateOtherPlatformSha1(hashCalculator, content));
+
+        // super hash
+        if (content.length > MIN_SUPER_HASH_SIZE && !fileName.toLowerCase().matches(FileExtensions.BINARY_FILE_EXTENSION_REGEX)) {
+            HashCalculationResult superHash = hashCalculator.calculateSuperHash(content);
+            if (superHash != null) {
+                dependency.setFullHash(superHash.getFullHash());
+                dependency.setMostSigBitsHash(superHash.getMostSigBitsHash());
+                dependency.setLeastSigBitsHash(superHash.getLeastSigBitsHash());
             }
-            // other platform SHA1
-            ChecksumUtils.calculateOtherPlatformSha1(dependency, dependencyFile);
-            // super hash
-            ChecksumUtils.calculateSuperHash(dependency, dependencyFile);
-        } catch (IOException e) {
-            logger.warn("Failed to create dependency " + filename + " to dependency list: {}", e.getMessage());
-            dependency = null;
         }
         return dependency;
     }
 
-    /* --- Private methods --- */
+    // content too large for the memory is hashed as a temp file
+    private DependencyInfo calculateHashes(String fileName, ContentWriter contentWriter) throws IOException {
+        File folder = Files.createTempDirectory(DEPENDENCY_HASHES).toFile();
+        try {
+            File file = new File(folder, fileName);
+            contentWriter.write(file);
+            return calculateHashes(file);
+        } finally {
+            FileUtils.deleteQuietly(folder);
+        }
+    }
+
+    // the hints of portable executables are read from their headers, which needs a file
+    private DependencyHintsInfo getHints(String fileName, byte[] content) throws IOException {
+        if (!fileName.matches(PORTABLE_EXECUTABLE_REGEX)) {
+            return null;
+        }
+        File folder = Files.createTempDirectory(DEPENDENCY_HASHES).toFile();
+        try {
+            File file = new File(folder, fileName);
+            FileUtils.writeByteArrayToFile(file, content);
+            return HintUtils.getHints(file.getPath());
+        } finally {
+            FileUtils.deleteQuietly(folder);
+        }
+    }
+
+    // the sha1 of the content with the line endings of the other platform, null for content without line endings
+    private String calculateOtherPlatformSha1(HashCalculator hashCalculator, byte[] content) throws IOException {
+        if (content.length > MAX_OTHER_PLATFORM_SIZE) {
+            return null;
+        }
+        String text = new String(content, Charset.defaultCharset());
+        String otherPlatformText;
+        if (text.contains(CRLF)) {
+            otherPlatformText = text.replace(CRLF, LF);
+        } else if (text.contains(LF)) {
+            otherPlatformText = text.replace(LF, CRLF);
+        } else {
+            return null;
+        }
+        String sha1 = hashCalculator.calculateByteArraySHA1(otherPlatformText.getBytes(Charset.defaultCharset()));
+        return EMPTY_SHA1.equals(sha1) ? null : sha1;
+    }
+
+    // a cached dependency is shared by the scans, each one gets a copy of its hashes
+    private DependencyInfo copyHashes(DependencyInfo hashes) {
+        DependencyInfo dependency = new DependencyInfo(hashes.getSha1());
+        dependency.setHints(hashes.getHints());
+        for (Map.Entry<ChecksumType, String> entry : hashes.getChecksums().entrySet()) {
+            dependency.addChecksum(entry.getKey(), entry.getValue());
+        }
+        dependency.setOtherPlatformSha1(hashes.getOtherPlatformSha1());
+        dependency.setFullHash(hashes.getFullHash());
+        dependency.setMostSigBitsHash(hashes.getMostSigBitsHash());
+        dependency.setLeastSigBitsHash(hashes.getLeastSigBitsHash());
+        return dependency;
+    }
+
+    private String getHashesType() {
+        return DEPENDENCY_HASHES + Constants.DASH + calculateHints + Constants.DASH + calculateMd5;
+    }
 
     private Collection<CopyrightInfo> extractCopyrights(File file) {
         Collection<CopyrightInfo> copyrights = new ArrayList<>();
@@ -421,4 +602,11 @@ public class DependencyInfoFactory {
             }
         }
     }
-}
\ No newline at end of file
+
+    /* --- Nested classes --- */
+
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(File file) throws IOException;
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2014 WhiteSource Ltd.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.whitesource.agent;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hashes of files kept across scans, so later scans of the same trees don't read unchanged files again.
+ * An entry is valid as long as the modification time and size of its file are the same,
+ * the least recently used entries are dropped once there are more than the max files.
+ */
+public class FileHashCache {
+
+    /* --- Members --- */
+
+    private final int maxFiles;
+    private final Map<String, Entry> entries;
+    private long hits;
+    private long misses;
+
+    /* --- Constructors --- */
+
+    public FileHashCache(int maxFiles) {
+        this.maxFiles = maxFiles;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > FileHashCache.this.maxFiles;
+            }
+        };
+    }
+
+    /* --- Public methods --- */
+
+    /**
+     * @param type   the kind of hashes, files hashed in different ways are kept apart
+     * @param loader calculates the hashes when the file isn't cached or was changed since
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(File file, String type, HashLoader<T> loader) throws IOException {
+        String key = type + Constants.COLON + file.getAbsolutePath();
+        long lastModified = file.lastModified();
+        long length = file.length();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.lastModified == lastModified && entry.length == length) {
+                hits++;
+                return (T) entry.value;
+            }
+            misses++;
+        }
+        // calculated outside the lock, a file hashed by two scans at once is just hashed twice
+        T value = loader.load(file);
+        if (value != null) {
+            synchronized (entries) {
+                entries.put(key, new Entry(lastModified, length, value));
+            }
+        }
+        return value;
+    }
+
+    /**
+     * For content which never changes, like git blobs, the entries are valid as long as they are kept.
+     *
+     * @param contentId identifies the content, e.g. the blob id
+     * @param loader    calculates the hashes when the content isn't cached
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String contentId, String type, ContentLoader<T> loader) throws IOException {
+        String key = type + Constants.COLON + contentId;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                return (T) entry.value;
+            }
+            misses++;
+        }
+        T value = loader.load();
+        if (value != null) {
+            synchronized (entries) {
+                entries.put(key, new Entry(0, 0, value));
+            }
+        }
+        return value;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        synchronized (entries) {
+            return hits;
+        }
+    }
+
+    public long getMisses() {
+        synchronized (entries) {
+            return misses;
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /* --- Nested classes --- */
+
+    @FunctionalInterface
+    public interface HashLoader<T> {
+        T load(File file) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface ContentLoader<T> {
+        T load() throws IOException;
+    }
+
+    private static class Entry {
+        private final long lastModified;
+        private final long length;
+        private final Object value;
+
+        private Entry(long lastModified, long length, Object value) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.value = value;
+        }
+    }
+}
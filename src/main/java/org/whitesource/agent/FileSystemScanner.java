@@ -28,12 +28,14 @@ import org.whitesource.agent.dependency.resolver.ResolutionResult;
 import org.whitesource.agent.utils.FilesUtils;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.utils.MemoryUsageHelper;
+import org.whitesource.agent.utils.ScanMetrics;
 import org.whitesource.fs.FSAConfiguration;
 import org.whitesource.fs.FileSystemAgent;
 import org.whitesource.fs.Main;
 import org.whitesource.fs.StatusCode;
 import org.whitesource.fs.configuration.AgentConfiguration;
 import org.whitesource.fs.configuration.ResolverConfiguration;
+import org.whitesource.scm.GitBlobScanner;
 
 import java.io.File;
 import java.io.IOException;
@@ -64,22 +66,46 @@ public class FileSystemScanner {
     private ViaLanguage iaLanguage;
     private DependencyResolutionService dependencyResolutionService;
     private String sha1;
+    private final TempFolders tempFolders;
+    private FileHashCache fileHashCache;
 
     /* --- Constructors --- */
 
     public FileSystemScanner(ResolverConfiguration resolver, AgentConfiguration agentConfiguration, boolean enableImpactAnalysis) {
-        this.dependencyResolutionService = new DependencyResolutionService(resolver);
+        this(resolver, agentConfiguration, enableImpactAnalysis, new TempFolders());
+    }
+
+    public FileSystemScanner(ResolverConfiguration resolver, AgentConfiguration agentConfiguration, boolean enableImpactAnalysis, ViaLanguage iaLanguage) {
+        this(resolver, agentConfiguration, enableImpactAnalysis, iaLanguage, new TempFolders());
+    }
+
+    /**
+     * @param tempFolders the temp folders of the scan, archives are extracted and dependencies resolved under them
+     */
+    public FileSystemScanner(ResolverConfiguration resolver, AgentConfiguration agentConfiguration, boolean enableImpactAnalysis, TempFolders tempFolders) {
+        this.tempFolders = tempFolders;
+        this.dependencyResolutionService = new DependencyResolutionService(resolver, tempFolders);
         this.isSeparateProjects = dependencyResolutionService.isSeparateProjects();
         this.agent = agentConfiguration;
         this.showProgressBar = agentConfiguration.isShowProgressBar();
         this.enableImpactAnalysis = enableImpactAnalysis;
     }
 
-    public FileSystemScanner(ResolverConfiguration resolver, AgentConfiguration agentConfiguration, boolean enableImpactAnalysis, ViaLanguage iaLanguage) {
-        this(resolver, agentConfiguration, enableImpactAnalysis);
+    public FileSystemScanner(ResolverConfiguration resolver, AgentConfiguration agentConfiguration, boolean enableImpactAnalysis, ViaLanguage iaLanguage,
+                             TempFolders tempFolders) {
+        this(resolver, agentConfiguration, enableImpactAnalysis, tempFolders);
         this.iaLanguage = iaLanguage;
     }
 
+    /**
+     * @param fileHashCache the hashes of files kept across scans, null to always calculate them
+     */
+    public FileSystemScanner(ResolverConfiguration resolver, AgentConfiguration agentConfiguration, boolean enableImpactAnalysis, ViaLanguage iaLanguage,
+                             TempFolders tempFolders, FileHashCache fileHashCache) {
+        this(resolver, agentConfiguration, enableImpactAnalysis, iaLanguage, tempFolders);
+        this.fileHashCache = fileHashCache;
+    }
+
     /* --- Public methods --- */
 
     /**
@@ -179,10 +205,15 @@ public class FileSystemScanner {
         AgentConfiguration agentConfiguration = projectConfiguration.getAgentConfiguration();
         if (agentConfiguration.getArchiveExtractionDepth() > 0) {
             ArchiveExtractor archiveExtractor = new ArchiveExtractor(agentConfiguration.getArchiveIncludes(), agentConfiguration.getArchiveExcludes(),
-                    agentConfiguration.getExcludes(), agentConfiguration.isArchiveFastUnpack());
+                    agentConfiguration.getExcludes(), agentConfiguration.isArchiveFastUnpack(), tempFolders);
             logger.info("Starting Archive Extraction (may take a few minutes)");
             for (String scannerBaseDir : new LinkedHashSet<>(pathsToScan)) {
-                unpackDirectory = archiveExtractor.extractArchives(scannerBaseDir, agentConfiguration.getArchiveExtractionDepth(), archiveDirectories);
+                ScanMetrics.Timer extractionTimer = ScanMetrics.startTimer(ScanMetrics.ARCHIVE_EXTRACTION);
+                try {
+                    unpackDirectory = archiveExtractor.extractArchives(scannerBaseDir, agentConfiguration.getArchiveExtractionDepth(), archiveDirectories);
+                } finally {
+                    extractionTimer.stop();
+                }
                 if (unpackDirectory != null) {
                     archiveExtraction = true;
                     String parentFileUrl = new File(scannerBaseDir).getParent();
@@ -335,13 +366,22 @@ public class FileSystemScanner {
 
         String[] excludesExtended = excludeFileSystemAgent(excludes);
         logger.info("Scanning directories {} for matching Files (may take a few minutes)", pathsToScan);
-        Map<File, Collection<String>> fileMap = new FilesUtils().fillFilesMap(pathsToScan, agentConfiguration.getIncludes(), excludesExtended,
-                agentConfiguration.isFollowSymlinks(), agentConfiguration.getGlobCaseSensitive());
+        ScanMetrics.Timer walkTimer = ScanMetrics.startTimer(ScanMetrics.DIRECTORY_WALK);
+        Map<File, Collection<String>> fileMap;
+        try {
+            fileMap = new FilesUtils().fillFilesMap(pathsToScan, agentConfiguration.getIncludes(), excludesExtended,
+                    agentConfiguration.isFollowSymlinks(), agentConfiguration.getGlobCaseSensitive());
+        } finally {
+            walkTimer.stop();
+        }
+        final Collection<DependencyInfo> filesDependencies = new LinkedList<>();
+        if (!isIgnoreSourceFiles && !projectConfiguration.getGitBlobDirs().isEmpty()) {
+            filesDependencies.addAll(createBlobDependencies(projectConfiguration.getGitBlobDirs(), fileMap, excludesExtended, agentConfiguration));
+        }
         long filesCount = fileMap.entrySet().stream().flatMap(folder -> folder.getValue().stream()).count();
         totalFiles += filesCount;
-        logger.info(MessageFormat.format("Total files found according to the includes/excludes pattern: {0}", totalFiles));
-        DependencyCalculator dependencyCalculator = new DependencyCalculator(showProgressBar);
-        final Collection<DependencyInfo> filesDependencies = new LinkedList<>();
+        logger.info(MessageFormat.format("Total files found according to the includes/excludes pattern: {0}", totalFiles + filesDependencies.size()));
+        DependencyCalculator dependencyCalculator = new DependencyCalculator(showProgressBar, fileHashCache);
 
         if (!isIgnoreSourceFiles) {
             filesDependencies.addAll(dependencyCalculator.createDependencies(
@@ -491,6 +531,26 @@ public class FileSystemScanner {
         return appPathsToDependencyDirs;
     }
 
+    private Collection<DependencyInfo> createBlobDependencies(Collection<String> gitBlobDirs, Map<File, Collection<String>> fileMap, String[] excludes,
+                                                              AgentConfiguration agentConfiguration) {
+        // without a cache kept across scans, the blobs are still hashed once in this scan
+        FileHashCache blobHashCache = fileHashCache == null ? new FileHashCache(Integer.MAX_VALUE) : fileHashCache;
+        DependencyInfoFactory factory = new DependencyInfoFactory(agentConfiguration.getExcludedCopyrights(), agentConfiguration.isPartialSha1Match(),
+                agentConfiguration.isCalculateHints(), agentConfiguration.isCalculateMd5(), blobHashCache);
+        Collection<DependencyInfo> dependencies = new LinkedList<>();
+        for (String gitBlobDir : getCanonicalPaths(gitBlobDirs)) {
+            logger.info("Scanning the object database of {} for matching Files", gitBlobDir);
+            GitBlobScanner gitBlobScanner = new GitBlobScanner(gitBlobDir, factory);
+            dependencies.addAll(gitBlobScanner.createDependencies(agentConfiguration.getIncludes(), excludes, agentConfiguration.getGlobCaseSensitive()));
+            // the checked out files were hashed from their blobs, files created in the clone by the resolvers are still hashed from the disk
+            Collection<String> files = fileMap.get(new File(gitBlobDir));
+            if (files != null) {
+                files.removeAll(gitBlobScanner.getTrackedPaths());
+            }
+        }
+        return dependencies;
+    }
+
     private Set<String> getCanonicalPaths(Collection<String> scannerBaseDirs) {
         // use canonical paths to resolve '.' in path
         Set<String> pathsToScan = new HashSet<>();
@@ -0,0 +1,246 @@
+/**
+ * Copyright (C) 2014 WhiteSource Ltd.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.whitesource.agent;
+
+import com.google.gson.FieldAttributes;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.ExclusionStrategy;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.whitesource.agent.api.dispatch.UpdateType;
+import org.whitesource.agent.api.model.AgentProjectInfo;
+import org.whitesource.agent.api.model.Coordinates;
+import org.whitesource.agent.api.model.DependencyInfo;
+import org.whitesource.agent.utils.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Keeps a local snapshot of the last inventory that was successfully sent for each project, to send only what changed since.
+ * A dependency is identified by a checksum of all of its details (including its children), so a changed dependency is
+ * seen as a removed one and an added one.
+ * Unchanged projects are not sent at all. Changed projects are sent in full, unless the update type is APPEND, in which
+ * case only their added dependencies are sent (removed dependencies are kept by the server on APPEND anyway).
+ */
+public class InventorySnapshots {
+
+    /* --- Static members --- */
+
+    private static final Logger logger = LoggerFactory.getLogger(InventorySnapshots.class);
+
+    private static final String JSON_SUFFIX = ".json";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String SHA_1 = "SHA-1";
+    // the modification time of a file doesn't change the dependency
+    private static final String LAST_MODIFIED = "lastModified";
+
+    /* --- Members --- */
+
+    private final File snapshotsFolder;
+    private final String productKey;
+    private final Gson gson = new Gson();
+    private final Gson checksumGson = new GsonBuilder().setExclusionStrategies(new ExclusionStrategy() {
+        @Override
+        public boolean shouldSkipField(FieldAttributes field) {
+            return field.getDeclaringClass() == DependencyInfo.class && LAST_MODIFIED.equals(field.getName());
+        }
+
+        @Override
+        public boolean shouldSkipClass(Class<?> clazz) {
+            return false;
+        }
+    }).create();
+
+    /* --- Constructors --- */
+
+    /**
+     * @param snapshotsFolder - snapshots are disabled when blank
+     * @param productKey      - identifies the organization and product of the projects, snapshots of other products are never used
+     */
+    public InventorySnapshots(String snapshotsFolder, String productKey) {
+        if (StringUtils.isNotBlank(snapshotsFolder)) {
+            this.snapshotsFolder = new File(snapshotsFolder);
+            if (!this.snapshotsFolder.isDirectory() && !this.snapshotsFolder.mkdirs()) {
+                logger.warn("Could not create inventory snapshots folder {}, the full inventory will be sent", snapshotsFolder);
+            }
+        } else {
+            this.snapshotsFolder = null;
+        }
+        this.productKey = productKey;
+    }
+
+    /* --- Public methods --- */
+
+    public boolean isEnabled() {
+        return snapshotsFolder != null && snapshotsFolder.isDirectory();
+    }
+
+    /**
+     * @return the projects to send, compared to their snapshots
+     */
+    public Collection<AgentProjectInfo> getChangedProjects(Collection<AgentProjectInfo> projects, UpdateType updateType) {
+        if (!isEnabled()) {
+            return projects;
+        }
+        Collection<AgentProjectInfo> changedProjects = new LinkedList<>();
+        for (AgentProjectInfo project : projects) {
+            String projectName = getProjectName(project);
+            ProjectSnapshot snapshot = readSnapshot(project);
+            if (snapshot == null) {
+                changedProjects.add(project);
+                continue;
+            }
+            Map<String, DependencyInfo> dependencies = getDependencies(project);
+            List<DependencyInfo> added = new LinkedList<>();
+            dependencies.forEach((checksum, dependency) -> {
+                if (!snapshot.dependencies.containsKey(checksum)) {
+                    added.add(dependency);
+                }
+            });
+            Set<String> removedCoordinates = new HashSet<>();
+            snapshot.dependencies.forEach((checksum, coordinates) -> {
+                if (!dependencies.containsKey(checksum)) {
+                    removedCoordinates.add(coordinates);
+                }
+            });
+            int removed = (int) snapshot.dependencies.keySet().stream().filter(checksum -> !dependencies.containsKey(checksum)).count();
+            // an added dependency with the coordinates of a removed one was changed
+            int changed = (int) added.stream().filter(dependency -> removedCoordinates.contains(getCoordinates(dependency))).count();
+            if (added.isEmpty() && removed == 0) {
+                logger.info("Project {} didn't change since the last update", projectName);
+            } else if (updateType == UpdateType.APPEND) {
+                logger.info("Project {} changed since the last update: {} added, {} removed, {} changed, appending {} dependencies",
+                        projectName, added.size() - changed, Math.max(0, removed - changed), changed, added.size());
+                if (!added.isEmpty()) {
+                    changedProjects.add(ProjectsSender.copyProject(project, new ArrayList<>(added)));
+                }
+            } else {
+                logger.info("Project {} changed since the last update: {} added, {} removed, {} changed",
+                        projectName, added.size() - changed, Math.max(0, removed - changed), changed);
+                changedProjects.add(project);
+            }
+        }
+        return changedProjects;
+    }
+
+    /**
+     * Keeps the snapshots of projects which were sent successfully.
+     */
+    public void save(Collection<AgentProjectInfo> projects) {
+        if (!isEnabled()) {
+            return;
+        }
+        for (AgentProjectInfo project : projects) {
+            ProjectSnapshot snapshot = new ProjectSnapshot();
+            getDependencies(project).forEach((checksum, dependency) -> snapshot.dependencies.put(checksum, getCoordinates(dependency)));
+            snapshot.checksum = getChecksum(new TreeSet<>(snapshot.dependencies.keySet()).toString());
+            writeSnapshot(project, snapshot);
+        }
+    }
+
+    /* --- Private methods --- */
+
+    private Map<String, DependencyInfo> getDependencies(AgentProjectInfo project) {
+        Map<String, DependencyInfo> dependencies = new LinkedHashMap<>();
+        for (DependencyInfo dependency : project.getDependencies()) {
+            dependencies.putIfAbsent(getChecksum(checksumGson.toJson(dependency)), dependency);
+        }
+        return dependencies;
+    }
+
+    private ProjectSnapshot readSnapshot(AgentProjectInfo project) {
+        File snapshotFile = getSnapshotFile(project);
+        if (!snapshotFile.isFile()) {
+            logger.debug("No snapshot of project {}, sending all of it", getProjectName(project));
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(snapshotFile.toPath(), StandardCharsets.UTF_8)) {
+            ProjectSnapshot snapshot = gson.fromJson(reader, ProjectSnapshot.class);
+            if (snapshot == null || snapshot.dependencies == null ||
+                    !getChecksum(new TreeSet<>(snapshot.dependencies.keySet()).toString()).equals(snapshot.checksum)) {
+                logger.warn("Snapshot of project {} is inconsistent, sending all of it", getProjectName(project));
+                return null;
+            }
+            return snapshot;
+        } catch (Exception e) {
+            logger.warn("Failed to read snapshot of project {}, sending all of it: {}", getProjectName(project), e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeSnapshot(AgentProjectInfo project, ProjectSnapshot snapshot) {
+        File snapshotFile = getSnapshotFile(project);
+        // write to a temporary file first, so a failure never leaves a partial snapshot
+        Path tmpFile = null;
+        try {
+            tmpFile = Files.createTempFile(snapshotsFolder.toPath(), snapshotFile.getName(), TMP_SUFFIX);
+            try (Writer writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+                gson.toJson(snapshot, writer);
+            }
+            Files.move(tmpFile, snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Failed to save snapshot of project {}: {}", getProjectName(project), e.getMessage());
+            if (tmpFile != null) {
+                FileUtils.deleteQuietly(tmpFile.toFile());
+            }
+        }
+    }
+
+    private File getSnapshotFile(AgentProjectInfo project) {
+        Coordinates coordinates = project.getCoordinates();
+        String projectKey = StringUtils.isNotBlank(project.getProjectToken()) ? project.getProjectToken() :
+                coordinates == null ? Constants.EMPTY_STRING : coordinates.getArtifactId() + Constants.COLON + coordinates.getVersion();
+        return new File(snapshotsFolder, getChecksum(productKey + Constants.NEW_LINE + projectKey) + JSON_SUFFIX);
+    }
+
+    private String getProjectName(AgentProjectInfo project) {
+        return project.getCoordinates() != null ? project.getCoordinates().getArtifactId() : project.getProjectToken();
+    }
+
+    private String getCoordinates(DependencyInfo dependency) {
+        return dependency.getGroupId() + Constants.COLON + dependency.getArtifactId() + Constants.COLON + dependency.getVersion();
+    }
+
+    private String getChecksum(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance(SHA_1).digest(value.getBytes(StandardCharsets.UTF_8));
+            return new BigInteger(1, digest).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(value.hashCode());
+        }
+    }
+
+    /* --- Nested classes --- */
+
+    private static class ProjectSnapshot {
+        // dependency checksum -> dependency coordinates
+        private Map<String, String> dependencies = new HashMap<>();
+        private String checksum;
+    }
+}
@@ -15,6 +15,7 @@ public class ProjectConfiguration {
     private List<String>  scannerBaseDirs;
     private Map<String, Set<String>> appPathsToDependencyDirs;
     private boolean scmConnector;
+    private Collection<String> gitBlobDirs = new LinkedList<>();
 
 
     /* --- Constructors --- */
@@ -66,4 +67,15 @@ public class ProjectConfiguration {
     public void setScmConnector(boolean scmConnector) {
         this.scmConnector = scmConnector;
     }
+
+    /**
+     * @return the git clones whose files are hashed from the object database, only their manifests are checked out
+     */
+    public Collection<String> getGitBlobDirs() {
+        return gitBlobDirs;
+    }
+
+    public void setGitBlobDirs(Collection<String> gitBlobDirs) {
+        this.gitBlobDirs = gitBlobDirs;
+    }
 }
@@ -18,7 +18,6 @@ package org.whitesource.agent;
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import com.google.common.collect.Lists;
-import com.google.gson.Gson;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.whitesource.agent.api.dispatch.*;
@@ -27,20 +26,20 @@ import org.whitesource.agent.api.model.Coordinates;
 import org.whitesource.agent.api.model.DependencyInfo;
 import org.whitesource.agent.client.WhitesourceService;
 import org.whitesource.agent.client.WssServiceException;
-import org.whitesource.agent.report.OfflineUpdateRequest;
 import org.whitesource.agent.report.PolicyCheckReport;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.utils.Pair;
+import org.whitesource.agent.utils.ScanMetrics;
 import org.whitesource.contracts.PluginInfo;
 import org.whitesource.fs.LogMapAppender;
 import org.whitesource.fs.Main;
+import org.whitesource.fs.OfflineRequestWriter;
 import org.whitesource.fs.ProjectsDetails;
 import org.whitesource.fs.StatusCode;
 import org.whitesource.fs.configuration.OfflineConfiguration;
 import org.whitesource.fs.configuration.RequestConfiguration;
 import org.whitesource.fs.configuration.SenderConfiguration;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
@@ -50,7 +49,10 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -65,6 +67,12 @@ public class ProjectsSender {
     private static final String DATE_FORMAT = "HH:mm:ss";
     public static final String PROJECT_URL_PREFIX = "Wss/WSS.html#!project;id=";
     protected static final int MAX_LOG_EVENTS = 1000;
+    private static final long MAX_RETRIES_INTERVAL = 60 * 1000;
+    private static final String REQUEST_LABEL = "request";
+    private static final String UPDATE_REQUEST = "update";
+    private static final String CHECK_POLICIES_REQUEST = "checkPolicies";
+    private static final String OUTPUT_LABEL = "output";
+    private static final String OFFLINE_OUTPUT = "offline";
     /* --- Members --- */
     private final Logger logger = LoggerFactory.getLogger(ProjectsSender.class);
     private final SenderConfiguration senderConfig;
@@ -89,10 +97,6 @@ public class ProjectsSender {
         logger.info("Initializing WhiteSource Client");
         Collection<AgentProjectInfo> projects = projectsDetails.getProjects();
 
-        if (checkDependenciesUpbound(projects)) {
-            return new Pair<>("Number of dependencies exceeded the maximum supported", StatusCode.SERVER_FAILURE);
-        }
-
         WhitesourceService service = createService();
         String resultInfo = Constants.EMPTY_STRING;
         if (offlineConfig.isOffline()) {
@@ -115,41 +119,28 @@ public class ProjectsSender {
             } else if (!senderConfig.isEnableImpactAnalysis()) {
                 //todo return logs when needed would be enabled for all WSE-342
             }
-            int retries = senderConfig.getConnectionRetries();
-            while (retries-- > -1) {
-                try {
-                    statusCode = checkPolicies(service, projects);
+            try {
+                if (isPolicyCheckPerProject(projects)) {
+                    Pair<String, StatusCode> result = checkPoliciesAndUpdatePerProject(service, projects);
+                    resultInfo = result.getKey();
+                    statusCode = result.getValue();
+                } else {
+                    statusCode = sendWithRetries("Check policies request", () -> checkPolicies(service, projects));
                     if (senderConfig.isUpdateInventory()) {
                         if (statusCode == StatusCode.SUCCESS || (senderConfig.isForceUpdate() && senderConfig.isForceUpdateFailBuildOnPolicyViolation())) {
                             resultInfo = update(service, projects);
                         }
                     }
-                    break;
-                } catch (WssServiceException e) {
-                    if (e.getCause() != null &&
-                            e.getCause().getClass().getCanonicalName().substring(0,
-                                    e.getCause().getClass().getCanonicalName().lastIndexOf(Constants.DOT)).equals(Constants.JAVA_NETWORKING)) {
-                        statusCode = StatusCode.CONNECTION_FAILURE;
-                        logger.error("Trying " + (retries + 1) + " more time" + (retries != 0 ? "s" : Constants.EMPTY_STRING));
-                    } else {
-                        statusCode = StatusCode.SERVER_FAILURE;
-                        retries = -1;
-                    }
-                    resultInfo = "Failed to send request to WhiteSource server: " + e.getMessage();
-                    logger.error(resultInfo, e.getMessage());
-                    logger.debug(resultInfo, e);
-                    if (retries > -1) {
-                        try {
-                            Thread.sleep(senderConfig.getConnectionRetriesIntervals());
-                        } catch (InterruptedException e1) {
-                            logger.error("Failed to sleep while retrying to connect to server " + e1.getMessage(), e1);
-                        }
-                    }
-                    String requestToken = e.getRequestToken();
-                    if (StringUtils.isNotBlank(requestToken)) {
-                        resultInfo += Constants.NEW_LINE + "Support token: " + requestToken;
-                        logger.info("Support token: {}", requestToken);
-                    }
+                }
+            } catch (WssServiceException e) {
+                statusCode = isConnectionFailure(e) ? StatusCode.CONNECTION_FAILURE : StatusCode.SERVER_FAILURE;
+                resultInfo = "Failed to send request to WhiteSource server: " + e.getMessage();
+                logger.error(resultInfo, e.getMessage());
+                logger.debug(resultInfo, e);
+                String requestToken = e.getRequestToken();
+                if (StringUtils.isNotBlank(requestToken)) {
+                    resultInfo += Constants.NEW_LINE + "Support token: " + requestToken;
+                    logger.info("Support token: {}", requestToken);
                 }
             }
             if (service != null) {
@@ -162,6 +153,10 @@ public class ProjectsSender {
         }
     }
 
+    private boolean isPolicyCheckPerProject(Collection<AgentProjectInfo> projects) {
+        return senderConfig.isCheckPoliciesPerProject() && senderConfig.isCheckPolicies() && senderConfig.isUpdateInventory() && projects.size() > 1;
+    }
+
     private void runViaAnalysis(ProjectsDetails projectsDetails, WhitesourceService service) {
         try {
             Class<?> vulnerabilitiesAnalysisClass = Class.forName("whitesource.analysis.vulnerabilities.VulnerabilitiesAnalysis");
@@ -247,15 +242,6 @@ public class ProjectsSender {
         }
     }
 
-    private boolean checkDependenciesUpbound(Collection<AgentProjectInfo> projects) {
-        int numberOfDependencies = projects.stream().map(x -> x.getDependencies()).mapToInt(x -> x.size()).sum();
-        if (numberOfDependencies > Constants.MAX_NUMBER_OF_DEPENDENCIES) {
-            logger.warn("Number of dependencies: {} exceeded the maximum supported: {}", numberOfDependencies, Constants.MAX_NUMBER_OF_DEPENDENCIES);
-            return true;
-        }
-        return false;
-    }
-
     protected WhitesourceService createService() {
         logger.info("Service URL is " + senderConfig.getServiceUrl());
         boolean setProxy = false;
@@ -272,92 +258,385 @@ public class ProjectsSender {
     }
 
     private StatusCode checkPolicies(WhitesourceService service, Collection<AgentProjectInfo> projects) throws WssServiceException {
-        boolean policyCompliance = true;
         if (senderConfig.isCheckPolicies() || !senderConfig.isUpdateInventory()) {
             logger.info("Checking policies");
-            CheckPolicyComplianceResult checkPoliciesResult;
-            if (senderConfig.isSendLogsToWss()) {
-                String logData = getLogData();
-                checkPoliciesResult = service.checkPolicyCompliance(requestConfig.getApiToken(), requestConfig.getProductName(),
-                        requestConfig.getProductVersion(), projects, senderConfig.isForceCheckAllDependencies(), requestConfig.getUserKey(),
-                        requestConfig.getRequesterEmail(), logData, requestConfig.getProductToken());
-            } else {
-                checkPoliciesResult = service.checkPolicyCompliance(requestConfig.getApiToken(), requestConfig.getProductName(),
-                        requestConfig.getProductVersion(), projects, senderConfig.isForceCheckAllDependencies(), requestConfig.getUserKey(),
-                        requestConfig.getRequesterEmail(), null, requestConfig.getProductToken());
-            }
-            if (checkPoliciesResult.hasRejections()) {
-                if (senderConfig.isForceUpdate() && senderConfig.isUpdateInventory()) {
-                    logger.info("Some dependencies violate open source policies, however all were force " +
-                            "updated to organization inventory.");
-                    if (senderConfig.isForceUpdateFailBuildOnPolicyViolation()) {
-                        policyCompliance = false;
-                    }
-                } else if (!senderConfig.isUpdateInventory()) {
-                    logger.info("Some dependencies did not conform with open source policies, review report for details");
-                    policyCompliance = false;
-                } else {
-                    logger.info("Some dependencies did not conform with open source policies, review report for details");
-                    logger.info("=== UPDATE ABORTED ===");
+            String logData = senderConfig.isSendLogsToWss() ? getLogData() : null;
+            return processPolicyCheckResult(requestPolicyCheck(service, projects, logData), false);
+        }
+        return StatusCode.SUCCESS;
+    }
+
+    private CheckPolicyComplianceResult requestPolicyCheck(WhitesourceService service, Collection<AgentProjectInfo> projects, String logData) throws WssServiceException {
+        ScanMetrics.Timer uploadTimer = ScanMetrics.startTimer(ScanMetrics.UPLOAD, REQUEST_LABEL, CHECK_POLICIES_REQUEST);
+        try {
+            return service.checkPolicyCompliance(requestConfig.getApiToken(), requestConfig.getProductName(),
+                    requestConfig.getProductVersion(), projects, senderConfig.isForceCheckAllDependencies(), requestConfig.getUserKey(),
+                    requestConfig.getRequesterEmail(), logData, requestConfig.getProductToken());
+        } finally {
+            uploadTimer.stop();
+        }
+    }
+
+    private StatusCode processPolicyCheckResult(CheckPolicyComplianceResult checkPoliciesResult, boolean perProject) {
+        boolean policyCompliance = true;
+        if (checkPoliciesResult.hasRejections()) {
+            if (senderConfig.isForceUpdate() && senderConfig.isUpdateInventory()) {
+                logger.info("Some dependencies violate open source policies, however all were force " +
+                        "updated to organization inventory.");
+                if (senderConfig.isForceUpdateFailBuildOnPolicyViolation()) {
                     policyCompliance = false;
                 }
+            } else if (!senderConfig.isUpdateInventory()) {
+                logger.info("Some dependencies did not conform with open source policies, review report for details");
+                policyCompliance = false;
+            } else if (perProject) {
+                logger.info("Some dependencies did not conform with open source policies, review report for details");
+                logger.info("=== PROJECTS WITH VIOLATIONS WERE NOT UPDATED ===");
+                policyCompliance = false;
             } else {
-                logger.info("All dependencies conform with open source policies.");
-            }
-            String requestToken = checkPoliciesResult.getRequestToken();
-            if (StringUtils.isNotBlank(requestToken)) {
-                logger.info("Check Policies Support Token: {}", requestToken);
-            }
-            try {
-                // generate report
-                PolicyCheckReport report = new PolicyCheckReport(checkPoliciesResult);
-                File outputDir = new File(offlineConfig.getWhiteSourceFolderPath());
-                report.generate(outputDir, false);
-                report.generateJson(outputDir);
-                logger.info("Policies report generated successfully");
-            } catch (IOException e) {
-                logger.error("Error generating check policies report: " + e.getMessage(), e);
+                logger.info("Some dependencies did not conform with open source policies, review report for details");
+                logger.info("=== UPDATE ABORTED ===");
+                policyCompliance = false;
             }
+        } else {
+            logger.info("All dependencies conform with open source policies.");
+        }
+        String requestToken = checkPoliciesResult.getRequestToken();
+        if (StringUtils.isNotBlank(requestToken)) {
+            logger.info("Check Policies Support Token: {}", requestToken);
+        }
+        try {
+            // generate report
+            PolicyCheckReport report = new PolicyCheckReport(checkPoliciesResult);
+            File outputDir = new File(offlineConfig.getWhiteSourceFolderPath());
+            report.generate(outputDir, false);
+            report.generateJson(outputDir);
+            logger.info("Policies report generated successfully");
+        } catch (IOException e) {
+            logger.error("Error generating check policies report: " + e.getMessage(), e);
         }
         return policyCompliance ? StatusCode.SUCCESS : StatusCode.POLICY_VIOLATION;
     }
 
     protected String update(WhitesourceService service, Collection<AgentProjectInfo> projects) throws WssServiceException {
         logger.info("Sending Update");
-        UpdateInventoryResult updateResult;
         //--------------------------------
         if (requestConfig.getViaDebug().equals("SAVE") || Boolean.valueOf(requestConfig.getViaDebug())) {
             saveRequestToFile(projects);
         }
         //--------------------------------
-        if (senderConfig.isSendLogsToWss()) {
-            String logData = getLogData();
-            updateResult = service.update(requestConfig.getApiToken(), requestConfig.getRequesterEmail(), UpdateType.valueOf(senderConfig.getUpdateTypeValue()),
-                    requestConfig.getProductName(), requestConfig.getProductVersion(), projects, requestConfig.getUserKey(),
-                    logData, requestConfig.getScanComment(), requestConfig.getProductToken());
+        UpdateType updateType = UpdateType.valueOf(senderConfig.getUpdateTypeValue());
+        InventorySnapshots snapshots = new InventorySnapshots(senderConfig.getUpdateRequestSnapshotsFolder(), getProductKey());
+        Collection<AgentProjectInfo> changedProjects = snapshots.getChangedProjects(projects, updateType);
+        if (changedProjects.isEmpty() && !projects.isEmpty()) {
+            String resultInfo = "No changes since the last update, the update request was not sent";
+            logger.info(resultInfo);
+            return resultInfo;
+        }
+        String logData = senderConfig.isSendLogsToWss() ? getLogData() : null;
+        UpdateInventoryResult updateResult = sendUpdateRequests(service, changedProjects, updateType, logData, senderConfig.getUpdateRequestParallelism());
+        snapshots.save(projects);
+        return getResultInfo(updateResult);
+    }
+
+    /**
+     * Checks the policies of each project and updates it right away, instead of checking all the projects before updating any.
+     * The same project collection is used for both requests, and at most 'updateRequest.parallelism' projects are sent at a time.
+     * Unless 'forceUpdate' is set, a project that violates the policies is not updated, while the other projects are.
+     */
+    private Pair<String, StatusCode> checkPoliciesAndUpdatePerProject(WhitesourceService service, Collection<AgentProjectInfo> projects) throws WssServiceException {
+        logger.info("Checking policies and sending update per project");
+        //--------------------------------
+        if (requestConfig.getViaDebug().equals("SAVE") || Boolean.valueOf(requestConfig.getViaDebug())) {
+            saveRequestToFile(projects);
+        }
+        //--------------------------------
+        UpdateType updateType = UpdateType.valueOf(senderConfig.getUpdateTypeValue());
+        InventorySnapshots snapshots = new InventorySnapshots(senderConfig.getUpdateRequestSnapshotsFolder(), getProductKey());
+        String logData = senderConfig.isSendLogsToWss() ? getLogData() : null;
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(senderConfig.getUpdateRequestParallelism(), projects.size()));
+        List<Future<ProjectSendResult>> futures = new LinkedList<>();
+        for (AgentProjectInfo project : projects) {
+            Collection<AgentProjectInfo> projectPayload = Collections.singletonList(project);
+            String projectName = project.getCoordinates() != null ? project.getCoordinates().getArtifactId() : project.getProjectToken();
+            // the log data is sent only once
+            String projectLogData = futures.isEmpty() ? logData : null;
+            futures.add(executorService.submit(() -> {
+                ProjectSendResult result = new ProjectSendResult(project);
+                result.policyCheckResult = sendWithRetries("Check policies request of project " + projectName,
+                        () -> requestPolicyCheck(service, projectPayload, projectLogData));
+                if (!result.policyCheckResult.hasRejections() || senderConfig.isForceUpdate()) {
+                    Collection<AgentProjectInfo> changedProjects = snapshots.getChangedProjects(projectPayload, updateType);
+                    if (!changedProjects.isEmpty()) {
+                        // the project is already sent concurrently with the others, so its chunks are sent one by one
+                        result.updateResult = sendUpdateRequests(service, changedProjects, updateType, projectLogData, 1);
+                    }
+                    result.updated = true;
+                } else {
+                    logger.info("Project {} did not conform with open source policies, it was not updated", projectName);
+                }
+                return result;
+            }));
+        }
+        CheckPolicyComplianceResult policyCheckResult = null;
+        UpdateInventoryResult updateResult = null;
+        Collection<AgentProjectInfo> updatedProjects = new LinkedList<>();
+        try {
+            for (Future<ProjectSendResult> future : futures) {
+                ProjectSendResult result = future.get();
+                if (policyCheckResult == null) {
+                    policyCheckResult = result.policyCheckResult;
+                } else {
+                    mergePolicyCheckResults(policyCheckResult, result.policyCheckResult);
+                }
+                if (result.updateResult != null) {
+                    if (updateResult == null) {
+                        updateResult = result.updateResult;
+                    } else {
+                        mergeResults(updateResult, result.updateResult);
+                    }
+                }
+                if (result.updated) {
+                    updatedProjects.add(result.project);
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted while sending projects");
+            Thread.currentThread().interrupt();
+            throw new WssServiceException("Interrupted while sending projects", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof WssServiceException ? (WssServiceException) cause : new WssServiceException(cause);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            executorService.shutdownNow();
+        }
+        StatusCode statusCode = processPolicyCheckResult(policyCheckResult, true);
+        snapshots.save(updatedProjects);
+        String resultInfo;
+        if (updateResult != null) {
+            resultInfo = getResultInfo(updateResult);
+        } else if (updatedProjects.isEmpty()) {
+            resultInfo = "No project was updated";
+        } else {
+            resultInfo = "No changes since the last update, the update request was not sent";
+        }
+        logger.info(resultInfo);
+        return new Pair<>(resultInfo, statusCode);
+    }
+
+    private void mergePolicyCheckResults(CheckPolicyComplianceResult policyCheckResult, CheckPolicyComplianceResult projectResult) {
+        policyCheckResult.getNewProjects().putAll(projectResult.getNewProjects());
+        policyCheckResult.getExistingProjects().putAll(projectResult.getExistingProjects());
+        if (projectResult.getProjectNewResources() != null) {
+            if (policyCheckResult.getProjectNewResources() == null) {
+                policyCheckResult.setProjectNewResources(new HashMap<>());
+            }
+            policyCheckResult.getProjectNewResources().putAll(projectResult.getProjectNewResources());
+        }
+        if (StringUtils.isNotBlank(projectResult.getRequestToken())) {
+            policyCheckResult.setRequestToken(StringUtils.isBlank(policyCheckResult.getRequestToken()) ? projectResult.getRequestToken() :
+                    policyCheckResult.getRequestToken() + Constants.COMMA + projectResult.getRequestToken());
+        }
+    }
 
+    private UpdateInventoryResult sendUpdateRequests(WhitesourceService service, Collection<AgentProjectInfo> projects, UpdateType updateType,
+                                                     String logData, int parallelism) throws WssServiceException {
+        UpdateInventoryResult updateResult;
+        List<UpdateRequestChunk> chunks = new LinkedList<>();
+        List<UpdateRequestChunk> appendChunks = new LinkedList<>();
+        splitToChunks(projects, updateType, chunks, appendChunks);
+        if (chunks.size() == 1 && appendChunks.isEmpty()) {
+            updateResult = sendWithRetries("Update request", () -> sendUpdate(service, chunks.get(0), logData));
         } else {
-            updateResult = service.update(requestConfig.getApiToken(), requestConfig.getRequesterEmail(), UpdateType.valueOf(senderConfig.getUpdateTypeValue()),
-                    requestConfig.getProductName(), requestConfig.getProductVersion(), projects, requestConfig.getUserKey(), null,
-                    requestConfig.getScanComment(), requestConfig.getProductToken());
+            logger.info("Splitting the inventory into {} update requests of up to {} dependencies", chunks.size() + appendChunks.size(),
+                    senderConfig.getUpdateRequestMaxDependencies());
+            ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size() + appendChunks.size()));
+            try {
+                // the rest of a split project can only be appended once its first part was sent
+                updateResult = sendChunks(executorService, service, chunks, logData);
+                if (!appendChunks.isEmpty()) {
+                    mergeResults(updateResult, sendChunks(executorService, service, appendChunks, null));
+                }
+            } finally {
+                executorService.shutdownNow();
+            }
         }
+        return updateResult;
+    }
+
+    private String getResultInfo(UpdateInventoryResult updateResult) {
         String resultInfo = logResult(updateResult);
         // remove line separators
-        resultInfo = resultInfo.replace(System.lineSeparator(), Constants.EMPTY_STRING);
-        return resultInfo;
+        return resultInfo.replace(System.lineSeparator(), Constants.EMPTY_STRING);
+    }
+
+    private String getProductKey() {
+        String product = StringUtils.isNotBlank(requestConfig.getProductToken()) ? requestConfig.getProductToken() :
+                requestConfig.getProductName() + Constants.COLON + requestConfig.getProductVersion();
+        return senderConfig.getServiceUrl() + Constants.NEW_LINE + requestConfig.getApiToken() + Constants.NEW_LINE + product;
+    }
+
+    /**
+     * Groups whole projects into chunks of up to 'updateRequest.maxDependencies' dependencies.
+     * A larger project is split to parts, its first part keeps the update type and the other parts are appended to it.
+     */
+    private void splitToChunks(Collection<AgentProjectInfo> projects, UpdateType updateType,
+                               List<UpdateRequestChunk> chunks, List<UpdateRequestChunk> appendChunks) {
+        int maxDependencies = senderConfig.getUpdateRequestMaxDependencies();
+        UpdateRequestChunk chunk = new UpdateRequestChunk(updateType);
+        for (AgentProjectInfo project : projects) {
+            int dependenciesCount = project.getDependencies().size();
+            if (dependenciesCount > maxDependencies) {
+                List<DependencyInfo> dependencies = new ArrayList<>(project.getDependencies());
+                for (int from = 0; from < dependenciesCount; from += maxDependencies) {
+                    List<DependencyInfo> part = new ArrayList<>(dependencies.subList(from, Math.min(from + maxDependencies, dependenciesCount)));
+                    if (from == 0) {
+                        chunks.add(new UpdateRequestChunk(updateType).add(copyProject(project, part)));
+                    } else {
+                        appendChunks.add(new UpdateRequestChunk(UpdateType.APPEND).add(copyProject(project, part)));
+                    }
+                }
+            } else {
+                if (!chunk.projects.isEmpty() && chunk.dependenciesCount + dependenciesCount > maxDependencies) {
+                    chunks.add(chunk);
+                    chunk = new UpdateRequestChunk(updateType);
+                }
+                chunk.add(project);
+            }
+        }
+        // an empty inventory is still sent
+        if (!chunk.projects.isEmpty() || chunks.isEmpty()) {
+            chunks.add(chunk);
+        }
+    }
+
+    static AgentProjectInfo copyProject(AgentProjectInfo project, List<DependencyInfo> dependencies) {
+        AgentProjectInfo projectPart = new AgentProjectInfo();
+        projectPart.setDependencies(dependencies);
+        projectPart.setProjectSetupDescription(project.getProjectSetupDescription());
+        projectPart.setCoordinates(project.getCoordinates());
+        projectPart.setProjectToken(project.getProjectToken());
+        projectPart.setProjectSetupStatus(project.getProjectSetupStatus());
+        projectPart.setParentCoordinates(project.getParentCoordinates());
+        return projectPart;
+    }
+
+    private UpdateInventoryResult sendChunks(ExecutorService executorService, WhitesourceService service,
+                                             List<UpdateRequestChunk> chunks, String logData) throws WssServiceException {
+        List<Future<UpdateInventoryResult>> futures = new LinkedList<>();
+        int index = 0;
+        for (UpdateRequestChunk chunk : chunks) {
+            String requestName = "Update request " + ++index + "/" + chunks.size();
+            // the log data is sent only once
+            String chunkLogData = index == 1 ? logData : null;
+            futures.add(executorService.submit(() -> sendWithRetries(requestName, () -> sendUpdate(service, chunk, chunkLogData))));
+        }
+        UpdateInventoryResult updateResult = null;
+        try {
+            for (Future<UpdateInventoryResult> future : futures) {
+                UpdateInventoryResult chunkResult = future.get();
+                if (updateResult == null) {
+                    updateResult = chunkResult;
+                } else {
+                    mergeResults(updateResult, chunkResult);
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.warn("Interrupted while sending update requests");
+            Thread.currentThread().interrupt();
+            throw new WssServiceException("Interrupted while sending update requests", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof WssServiceException ? (WssServiceException) cause : new WssServiceException(cause);
+        } finally {
+            // a failed chunk fails the whole update, there is no point to send the rest
+            futures.forEach(future -> future.cancel(true));
+        }
+        return updateResult;
+    }
+
+    private UpdateInventoryResult sendUpdate(WhitesourceService service, UpdateRequestChunk chunk, String logData) throws WssServiceException {
+        ScanMetrics.Timer uploadTimer = ScanMetrics.startTimer(ScanMetrics.UPLOAD, REQUEST_LABEL, UPDATE_REQUEST);
+        try {
+            return service.update(requestConfig.getApiToken(), requestConfig.getRequesterEmail(), chunk.updateType,
+                    requestConfig.getProductName(), requestConfig.getProductVersion(), chunk.projects, requestConfig.getUserKey(),
+                    logData, requestConfig.getScanComment(), requestConfig.getProductToken());
+        } finally {
+            uploadTimer.stop();
+        }
+    }
+
+    private void mergeResults(UpdateInventoryResult updateResult, UpdateInventoryResult chunkResult) {
+        Set<String> createdProjects = new LinkedHashSet<>(updateResult.getCreatedProjects());
+        createdProjects.addAll(chunkResult.getCreatedProjects());
+        Set<String> updatedProjects = new LinkedHashSet<>(updateResult.getUpdatedProjects());
+        updatedProjects.addAll(chunkResult.getUpdatedProjects());
+        // the appended parts of a new project are reported as updates
+        updatedProjects.removeAll(createdProjects);
+        updateResult.setCreatedProjects(createdProjects);
+        updateResult.setUpdatedProjects(updatedProjects);
+        if (chunkResult.getProjectNamesToIds() != null) {
+            if (updateResult.getProjectNamesToIds() == null) {
+                updateResult.setProjectNamesToIds(new HashMap<>());
+            }
+            updateResult.getProjectNamesToIds().putAll(chunkResult.getProjectNamesToIds());
+        }
+        if (StringUtils.isBlank(updateResult.getOrganization())) {
+            updateResult.setOrganization(chunkResult.getOrganization());
+        }
+        if (StringUtils.isNotBlank(chunkResult.getRequestToken())) {
+            updateResult.setRequestToken(StringUtils.isBlank(updateResult.getRequestToken()) ? chunkResult.getRequestToken() :
+                    updateResult.getRequestToken() + Constants.COMMA + chunkResult.getRequestToken());
+        }
+    }
+
+    /**
+     * Retries requests that failed on connection errors, doubling the interval between the attempts.
+     */
+    private <T> T sendWithRetries(String requestName, ServiceCall<T> serviceCall) throws WssServiceException {
+        int retries = senderConfig.getConnectionRetries();
+        long interval = senderConfig.getConnectionRetriesIntervals();
+        while (true) {
+            try {
+                return serviceCall.call();
+            } catch (WssServiceException e) {
+                if (retries-- <= 0 || !isConnectionFailure(e)) {
+                    throw e;
+                }
+                logger.error("{} failed: {}, trying {} more time{} in {} ms", requestName, e.getMessage(), retries + 1,
+                        retries != 0 ? "s" : Constants.EMPTY_STRING, interval);
+                try {
+                    Thread.sleep(interval);
+                } catch (InterruptedException e1) {
+                    logger.warn("Interrupted while retrying to connect to server");
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+                interval = Math.min(interval * 2, MAX_RETRIES_INTERVAL);
+            }
+        }
+    }
+
+    private boolean isConnectionFailure(WssServiceException e) {
+        if (e.getCause() == null) {
+            return false;
+        }
+        String causeClassName = e.getCause().getClass().getName();
+        return causeClassName.substring(0, causeClassName.lastIndexOf(Constants.DOT)).equals(Constants.JAVA_NETWORKING);
     }
 
     private void saveRequestToFile(Collection<AgentProjectInfo> projects) {
         String fileName = "jsonOut" + Constants.DASH + requestConfig.getProductName() + Constants.DASH +
                 requestConfig.getProjectName() + ".json";
         RequestFactory requestFactory = new RequestFactory(pluginInfo.getAgentType(), pluginInfo.getAgentVersion(), pluginInfo.getPluginVersion());
-        String updateJson = new Gson().toJson(requestFactory.newUpdateInventoryRequest(requestConfig.getApiToken(),
+        UpdateInventoryRequest updateRequest = requestFactory.newUpdateInventoryRequest(requestConfig.getApiToken(),
                 UpdateType.valueOf(senderConfig.getUpdateTypeValue()), requestConfig.getRequesterEmail(),
                 requestConfig.getProductName(), requestConfig.getProductVersion(), projects,
-                requestConfig.getUserKey(), (String) null, (String) null, (String) requestConfig.getProductToken()));
+                requestConfig.getUserKey(), (String) null, (String) null, (String) requestConfig.getProductToken());
         Path path = Paths.get(fileName);
-        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
-            writer.write(updateJson);
+        try {
+            new OfflineRequestWriter().write(updateRequest, Files.newOutputStream(path), false, false);
         } catch (Exception e) {
             logger.debug("couldn't create via debug file {}", e.getMessage());
         }
@@ -377,7 +656,6 @@ public class ProjectsSender {
             updateRequest.setProductToken(requestConfig.getProductToken());
         }
         try {
-            OfflineUpdateRequest offlineUpdateRequest = new OfflineUpdateRequest(updateRequest);
             UpdateType updateTypeFinal;
             // if the update type was forced by command or config -> set it
             if (StringUtils.isNotBlank(senderConfig.getUpdateTypeValue())) {
@@ -397,7 +675,13 @@ public class ProjectsSender {
             if (!outputDir.exists() && !outputDir.mkdir()) {
                 throw new IOException("Unable to make output directory: " + outputDir);
             }
-            File file = offlineUpdateRequest.generate(outputDir, offlineConfig.isZip(), offlineConfig.isPrettyJson());
+            File file;
+            ScanMetrics.Timer serializationTimer = ScanMetrics.startTimer(ScanMetrics.SERIALIZATION, OUTPUT_LABEL, OFFLINE_OUTPUT);
+            try {
+                file = new OfflineRequestWriter().write(updateRequest, outputDir, offlineConfig.isZip(), offlineConfig.isPrettyJson());
+            } finally {
+                serializationTimer.stop();
+            }
             resultInfo = "Offline request generated successfully at " + file.getPath();
             logger.info(resultInfo);
         } catch (IOException e) {
@@ -460,20 +744,58 @@ public class ProjectsSender {
     }
 
     private String getLogData() {
-        String logs = Constants.EMPTY_STRING;
         ch.qos.logback.classic.Logger setLog = (ch.qos.logback.classic.Logger) org.slf4j.LoggerFactory.getLogger(Constants.MAP_LOG_NAME);
-        ConcurrentSkipListMap<Long, ILoggingEvent> collectToSet = ((LogMapAppender) setLog.getAppender(Constants.MAP_APPENDER_NAME)).getLogEvents();
+        LogMapAppender appender = (LogMapAppender) setLog.getAppender(Constants.MAP_APPENDER_NAME);
+        if (appender == null) {
+            return Constants.EMPTY_STRING;
+        }
         // going over all the collected events, filtering out the empty ones, and writing them to a long string
         SimpleDateFormat simpleDateFormat = new SimpleDateFormat(DATE_FORMAT);
-        List<ILoggingEvent> events = collectToSet.values().stream().filter(iLoggingEvent -> !iLoggingEvent.getMessage().isEmpty() &&
+        List<ILoggingEvent> events = appender.getLogEvents().stream().filter(iLoggingEvent -> !iLoggingEvent.getMessage().isEmpty() &&
                 !iLoggingEvent.getMessage().equals(Constants.NEW_LINE)).collect(Collectors.toList());
-        if (events.size() > MAX_LOG_EVENTS) {
-            events = events.stream().filter(iLoggingEvent -> iLoggingEvent.getLevel().levelInt >= Level.INFO.levelInt).collect(Collectors.toList());
-        }
+        boolean infoOnly = events.size() > MAX_LOG_EVENTS;
+        StringBuilder logs = new StringBuilder();
         for (ILoggingEvent event : events) {
-            logs = logs.concat("[" + event.getLevel() + "] " + simpleDateFormat.format(new Date(event.getTimeStamp()))
-                    + " - " + event.getFormattedMessage()).concat(Constants.NEW_LINE);
+            if (infoOnly && event.getLevel().levelInt < Level.INFO.levelInt) {
+                continue;
+            }
+            logs.append("[").append(event.getLevel()).append("] ").append(simpleDateFormat.format(new Date(event.getTimeStamp())))
+                    .append(" - ").append(event.getFormattedMessage()).append(Constants.NEW_LINE);
+        }
+        return logs.toString();
+    }
+
+    /* --- Nested classes --- */
+
+    @FunctionalInterface
+    private interface ServiceCall<T> {
+        T call() throws WssServiceException;
+    }
+
+    private static class ProjectSendResult {
+        private final AgentProjectInfo project;
+        private CheckPolicyComplianceResult policyCheckResult;
+        private UpdateInventoryResult updateResult;
+        private boolean updated = false;
+
+        private ProjectSendResult(AgentProjectInfo project) {
+            this.project = project;
+        }
+    }
+
+    private static class UpdateRequestChunk {
+        private final UpdateType updateType;
+        private final List<AgentProjectInfo> projects = new LinkedList<>();
+        private int dependenciesCount = 0;
+
+        private UpdateRequestChunk(UpdateType updateType) {
+            this.updateType = updateType;
+        }
+
+        private UpdateRequestChunk add(AgentProjectInfo project) {
+            projects.add(project);
+            dependenciesCount += project.getDependencies().size();
+            return this;
         }
-        return logs;
     }
-}
\ No newline at end of file
+}
@@ -36,4 +36,14 @@ public class SingleFileScanner extends DirectoryScanner {
     public boolean isIncluded(File file) {
         return isIncluded(file.getAbsolutePath());
     }
+
+    /**
+     * Checks a file which isn't on the disk against both the includes and the excludes.
+     *
+     * @param path of the file, relative to the base directory of the scan
+     * @return weather the file should be scanned or not
+     */
+    public boolean isScanned(String path) {
+        return isIncluded(path) && !isExcluded(path);
+    }
 }
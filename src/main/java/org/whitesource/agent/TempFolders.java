@@ -1,63 +1,78 @@
 package org.whitesource.agent;
 
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
 import org.whitesource.agent.utils.FilesUtils;
+import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.utils.UniqueNamesGenerator;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 
-
+/**
+ * The temp folders of a single scan, all under a root folder of their own, so concurrent scans never share them.
+ */
 public class TempFolders {
 
     /* --- Static members --- */
 
+    private static final Logger logger = LoggerFactory.getLogger(TempFolders.class);
+
     private static final String PATH_TO_TEMP_DIR = System.getProperty("java.io.tmpdir");
-    private static final String WHITESOURCE_ARCHIVE_EXTRACTOR = "WhiteSource-ArchiveExtractor";
-    private static final String WHITE_BUILD_GRADLE_FOLDER = "WhiteSource-Build-Gradle";
-    private static final String WHITESOURCE_HTML_RESOLVER = "WhiteSource-html-resolver";
-    private static final String WHITESOURCE_DOTNET_RESOLVER = "WhiteSource-DotnetRestore";
-    private static final String WHITESOURCE_DOCKER = "WhiteSource-Docker";
-    private static final String WHITESOURCE_SCM_CONNECTOR_TMP_DIRECTORY = "WhiteSource-ScmConnector";
-    private static final String WHITESOURCE_PLATFORM_DEPENDENT_TMP_DIR = "WhiteSource-PlatformDependentFiles";
-    private static final String WHITESOURCE_PYTHON_TEMP_FOLDER = "Whitesource_python_resolver";
-
-    public static final String UNIQUE_HTML_TEMP_FOLDER = UniqueNamesGenerator.createUniqueName(WHITESOURCE_HTML_RESOLVER, Constants.EMPTY_STRING);
-    public static final String UNIQUE_GRADLE_TEMP_FOLDER = UniqueNamesGenerator.createUniqueName(WHITE_BUILD_GRADLE_FOLDER, Constants.EMPTY_STRING);
-    public static final String UNIQUE_DOTNET_TEMP_FOLDER = UniqueNamesGenerator.createUniqueName(WHITESOURCE_DOTNET_RESOLVER, Constants.EMPTY_STRING);
-    public static final String UNIQUE_PYTHON_TEMP_FOLDER = UniqueNamesGenerator.createUniqueName(WHITESOURCE_PYTHON_TEMP_FOLDER, Constants.EMPTY_STRING);
-    public static final String UNIQUE_DOCKER_TEMP_FOLDER = UniqueNamesGenerator.createUniqueName(WHITESOURCE_DOCKER, Constants.EMPTY_STRING);
-    public static final String UNIQUE_SCM_TEMP_FOLDER = UniqueNamesGenerator.createUniqueName(WHITESOURCE_SCM_CONNECTOR_TMP_DIRECTORY, Constants.EMPTY_STRING);
-    public static final String UNIQUE_PLATFORM_DEPENDENT_TEMP_FOLDER = UniqueNamesGenerator.createUniqueName(WHITESOURCE_PLATFORM_DEPENDENT_TMP_DIR, Constants.EMPTY_STRING);
-    public static final String UNIQUE_WHITESOURCE_ARCHIVE_EXTRACTOR_TEMP_FOLDER = UniqueNamesGenerator.createUniqueName(WHITESOURCE_ARCHIVE_EXTRACTOR, Constants.EMPTY_STRING);
-
-    private static final String PATH_TO_UNIQUE_HTML_TEMP_FOLDER = Paths.get(PATH_TO_TEMP_DIR, UNIQUE_HTML_TEMP_FOLDER).toString();
-    private static final String PATH_TO_UNIQUE_GRADLE_TEMP_FOLDER = Paths.get(PATH_TO_TEMP_DIR, UNIQUE_GRADLE_TEMP_FOLDER).toString();
-    private static final String PATH_TO_UNIQUE_DOTNET_TEMP_FOLDER = Paths.get(PATH_TO_TEMP_DIR, UNIQUE_DOTNET_TEMP_FOLDER).toString();
-    private static final String PATH_TO_UNIQUE_PYTHON_TEMP_FOLDER = Paths.get(PATH_TO_TEMP_DIR, UNIQUE_PYTHON_TEMP_FOLDER).toString();
-    private static final String PATH_TO_UNIQUE_DOCKER_TEMP_FOLDER = Paths.get(PATH_TO_TEMP_DIR, UNIQUE_DOCKER_TEMP_FOLDER).toString();
-    private static final String PATH_TO_SCM_CONNECTOR_TMP_DIRECTORY = Paths.get(PATH_TO_TEMP_DIR, UNIQUE_SCM_TEMP_FOLDER).toString();
-    private static final String PATH_TO_UNIQUE_ARCHIVE_EXTRACTOR_TEMP_FOLDER = Paths.get(PATH_TO_TEMP_DIR, UNIQUE_WHITESOURCE_ARCHIVE_EXTRACTOR_TEMP_FOLDER).toString();
-
-    // Agents api temp folder - CheckSumUtils folder :: calculateOtherPlatformSha1 method
-    private static final String PATH_TO_PLATFORM_DEPENDENT_TMP_DIR = Paths.get(PATH_TO_TEMP_DIR, UNIQUE_PLATFORM_DEPENDENT_TEMP_FOLDER).toString();
+    private static final String WHITESOURCE_SCAN = "WhiteSource-Scan";
+    private static final String CREATION_DATE_FORMAT = "yyyyMMddHHmmss";
+
+    public static final String WHITESOURCE_ARCHIVE_EXTRACTOR = "WhiteSource-ArchiveExtractor";
+    public static final String WHITE_BUILD_GRADLE_FOLDER = "WhiteSource-Build-Gradle";
+    public static final String WHITESOURCE_HTML_RESOLVER = "WhiteSource-html-resolver";
+    public static final String WHITESOURCE_DOTNET_RESOLVER = "WhiteSource-DotnetRestore";
+    public static final String WHITESOURCE_DOCKER = "WhiteSource-Docker";
+    public static final String WHITESOURCE_SCM_CONNECTOR_TMP_DIRECTORY = "WhiteSource-ScmConnector";
+    public static final String WHITESOURCE_PYTHON_TEMP_FOLDER = "Whitesource_python_resolver";
+
+    /* --- Members --- */
+
+    private final String tempRoot;
 
     /* --- Constructors --- */
 
     public TempFolders() {
-
+        this.tempRoot = Paths.get(PATH_TO_TEMP_DIR, UniqueNamesGenerator.createUniqueName(WHITESOURCE_SCAN, Constants.EMPTY_STRING)).toString();
     }
 
     /* --- Methods --- */
 
+    /**
+     * @return the path of the folder with the given name under the root of this scan, the folder isn't created
+     */
+    public String getTempFolder(String nameOfFolder) {
+        return Paths.get(tempRoot, nameOfFolder).toString();
+    }
+
+    /**
+     * Creates a new folder under the folder with the given name, like {@link FilesUtils#createTmpFolder}.
+     *
+     * @return the path of the created folder, or null if it could not be created
+     */
+    public String createTempFolder(boolean addCharToEndOfUrl, String nameOfFolder) {
+        String tempFolder = Paths.get(getTempFolder(nameOfFolder), new SimpleDateFormat(CREATION_DATE_FORMAT).format(new Date())).toString();
+        if (addCharToEndOfUrl) {
+            tempFolder = tempFolder + "1";
+        }
+        try {
+            FileUtils.forceMkdir(new File(tempFolder));
+        } catch (IOException e) {
+            logger.warn("Failed to create temp folder : " + e.getMessage());
+            tempFolder = null;
+        }
+        return tempFolder;
+    }
+
     public void deleteTempFolders() {
-        deleteTempFoldersHelper(PATH_TO_UNIQUE_HTML_TEMP_FOLDER);
-        deleteTempFoldersHelper(PATH_TO_UNIQUE_GRADLE_TEMP_FOLDER);
-        deleteTempFoldersHelper(PATH_TO_UNIQUE_DOTNET_TEMP_FOLDER);
-        deleteTempFoldersHelper(PATH_TO_UNIQUE_PYTHON_TEMP_FOLDER);
-        deleteTempFoldersHelper(PATH_TO_UNIQUE_DOCKER_TEMP_FOLDER);
-        deleteTempFoldersHelper(PATH_TO_SCM_CONNECTOR_TMP_DIRECTORY);
-        deleteTempFoldersHelper(PATH_TO_PLATFORM_DEPENDENT_TMP_DIR);
-        deleteTempFoldersHelper(PATH_TO_UNIQUE_ARCHIVE_EXTRACTOR_TEMP_FOLDER);
+        deleteTempFoldersHelper(tempRoot);
     }
 
     public void deleteTempFoldersHelper(String path) {
@@ -69,5 +84,7 @@ public class TempFolders {
         }
     }
 
-
+    public String getTempRoot() {
+        return tempRoot;
+    }
 }
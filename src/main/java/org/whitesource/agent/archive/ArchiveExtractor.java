@@ -70,7 +70,6 @@ public class ArchiveExtractor {
     public static final String GLOB_PREFIX = "glob:";
     public static final String NULL_HEADER = "mainheader is null";
 
-    private final String JAVA_TEMP_DIR = System.getProperty("java.io.tmpdir");
 
 
     public static final List<String> ZIP_EXTENSIONS = Arrays.asList("jar", "war", "aar", "ear", "egg", "zip", "whl", "sca", "sda", "nupkg");
@@ -127,9 +126,18 @@ public class ArchiveExtractor {
     private String randomString;
     private String tempFolderNoDepth;
     private boolean fastUnpack = false;
+    private TempFolders tempFolders = new TempFolders();
 
     /* --- Constructors --- */
 
+    /**
+     * @param tempFolders the temp folders of the scan, archives are extracted under them
+     */
+    public ArchiveExtractor(String[] archiveIncludes, String[] archiveExcludes, String[] filesExcludes, boolean fastUnpack, TempFolders tempFolders) {
+        this(archiveIncludes, archiveExcludes, filesExcludes, fastUnpack);
+        this.tempFolders = tempFolders;
+    }
+
     public ArchiveExtractor(String[] archiveIncludes, String[] archiveExcludes, String[] filesExcludes, boolean fastUnpack) {
         this(archiveIncludes, archiveExcludes, filesExcludes);
         this.fastUnpack = fastUnpack;
@@ -148,8 +156,7 @@ public class ArchiveExtractor {
 
     private String getTempFolder(String scannerBaseDir) {
         String creationDate = new SimpleDateFormat("yyyyMMddHHmmss").format(new Date());
-        String tempFolder = JAVA_TEMP_DIR.endsWith(File.separator) ? JAVA_TEMP_DIR + TempFolders.UNIQUE_WHITESOURCE_ARCHIVE_EXTRACTOR_TEMP_FOLDER + File.separator + creationDate :
-                JAVA_TEMP_DIR + File.separator + TempFolders.UNIQUE_WHITESOURCE_ARCHIVE_EXTRACTOR_TEMP_FOLDER + File.separator + creationDate;
+        String tempFolder = tempFolders.getTempFolder(TempFolders.WHITESOURCE_ARCHIVE_EXTRACTOR) + File.separator + creationDate;
         String destDirectory = tempFolder + Constants.UNDERSCORE + this.randomString;
         int separatorIndex = scannerBaseDir.lastIndexOf(File.separator);
 
@@ -248,6 +255,15 @@ public class ArchiveExtractor {
         }
     }
 
+    // extract a single level of a docker image (the saved image tar or one of its layer.tar files), without extracting inner layers
+    public boolean extractDockerTar(File tarFile, File extractionDir) {
+        boolean success = unTar(tarFile.getName().toLowerCase(), extractionDir.getAbsolutePath(), tarFile.getPath());
+        if (!success) {
+            logger.warn("Was not able to extract {} (docker TAR file)", tarFile.getName());
+        }
+        return success;
+    }
+
     private String getDepthFolder(int depth) {
         return this.tempFolderNoDepth + DEPTH + depth;
     }
@@ -17,6 +17,7 @@ package org.whitesource.agent.dependency.resolver;
 
 import org.slf4j.Logger;
 import org.whitesource.agent.Constants;
+import org.whitesource.agent.TempFolders;
 import org.whitesource.agent.api.model.AgentProjectInfo;
 import org.whitesource.agent.api.model.DependencyType;
 import org.whitesource.agent.dependency.resolver.CocoaPods.CocoaPodsDependencyResolver;
@@ -37,6 +38,7 @@ import org.whitesource.agent.dependency.resolver.ruby.RubyDependencyResolver;
 import org.whitesource.agent.dependency.resolver.sbt.SbtDependencyResolver;
 import org.whitesource.agent.utils.FilesScanner;
 import org.whitesource.agent.utils.LoggerFactory;
+import org.whitesource.agent.utils.ScanMetrics;
 import org.whitesource.fs.configuration.ResolverConfiguration;
 
 import java.nio.file.Path;
@@ -66,10 +68,18 @@ public class DependencyResolutionService {
     /* --- Static members --- */
 
     public static final List<DependencyType> multiModuleDependencyTypes = Arrays.asList(DependencyType.MAVEN, DependencyType.GRADLE);
+    private static final String RESOLVER_LABEL = "resolver";
 
     /* --- Constructors --- */
 
     public DependencyResolutionService(ResolverConfiguration config) {
+        this(config, new TempFolders());
+    }
+
+    /**
+     * @param tempFolders the temp folders of the scan, used by the resolvers which need temp folders
+     */
+    public DependencyResolutionService(ResolverConfiguration config, TempFolders tempFolders) {
         final boolean npmRunPreStep = config.isNpmRunPreStep();
         final boolean npmIgnoreScripts = config.isNpmIgnoreScripts();
         final boolean npmResolveDependencies = config.isNpmResolveDependencies();
@@ -90,6 +100,7 @@ public class DependencyResolutionService {
         final boolean nugetIgnoreSourceFiles = config.isNugetIgnoreSourceFiles();
         final boolean nugetResolveCsProjFiles = config.isNugetResolveCsProjFiles();
         final boolean nugetResolvePackagesConfigFiles = config.isNugetResolvePackagesConfigFiles();
+        final int nugetRestoreParallelism = config.getNugetRestoreParallelism();
 
         final boolean mavenResolveDependencies = config.isMavenResolveDependencies();
         final String[] mavenIgnoredScopes = config.getMavenIgnoredScopes();
@@ -165,10 +176,12 @@ public class DependencyResolutionService {
         if (nugetResolveDependencies) {
             String whitesourceConfiguration = config.getWhitesourceConfiguration();
             if (nugetResolvePackagesConfigFiles) {
-                dependencyResolvers.add(new NugetDependencyResolver(whitesourceConfiguration, NugetConfigFileType.CONFIG_FILE_TYPE, nugetRunPreStep, nugetIgnoreSourceFiles));
+                dependencyResolvers.add(new NugetDependencyResolver(whitesourceConfiguration, NugetConfigFileType.CONFIG_FILE_TYPE, nugetRunPreStep, nugetIgnoreSourceFiles, nugetRestoreParallelism,
+                        tempFolders));
             }
             if (nugetResolveCsProjFiles) {
-                dependencyResolvers.add(new DotNetDependencyResolver(whitesourceConfiguration, NugetConfigFileType.CSPROJ_TYPE, nugetRestoreDependencies, nugetIgnoreSourceFiles));
+                dependencyResolvers.add(new DotNetDependencyResolver(whitesourceConfiguration, NugetConfigFileType.CSPROJ_TYPE, nugetRestoreDependencies, nugetIgnoreSourceFiles, nugetRestoreParallelism,
+                        tempFolders));
             }
         }
         if (mavenResolveDependencies) {
@@ -179,12 +192,12 @@ public class DependencyResolutionService {
         if (pythonResolveDependencies) {
             dependencyResolvers.add(new PythonDependencyResolver(config.getPythonPath(), config.getPipPath(),
                     config.isPythonIgnorePipInstallErrors(), config.isPythonInstallVirtualenv(), config.isPythonResolveHierarchyTree(), pythonRequirementsFileIncludes,
-                    pythonIgnoreSourceFiles, ignorePipEnvInstallErrors, runPipenvPreStep, pipenvInstallDevDependencies));
+                    pythonIgnoreSourceFiles, ignorePipEnvInstallErrors, runPipenvPreStep, pipenvInstallDevDependencies, tempFolders));
         }
 
         if (gradleResolveDependencies) {
             dependencyResolvers.add(new GradleDependencyResolver(config.isGradleRunAssembleCommand(), gradleIgnoreSourceFiles, gradleAggregateModules,
-                    config.getGradlePreferredEnvironment(), gradleIgnoredScopes, gradleLocalRepositoryPath, gradleRunPreStep));
+                    config.getGradlePreferredEnvironment(), gradleIgnoredScopes, gradleLocalRepositoryPath, gradleRunPreStep, tempFolders));
             this.gradleAggregateModules = gradleAggregateModules;
         }
 
@@ -206,7 +219,7 @@ public class DependencyResolutionService {
         }
 
         if (htmlResolveDependencies) {
-            dependencyResolvers.add(new HtmlDependencyResolver());
+            dependencyResolvers.add(new HtmlDependencyResolver(tempFolders));
         }
 
         if (sbtResolveDependencies) {
@@ -299,11 +312,14 @@ public class DependencyResolutionService {
                 }
                 logger.debug("topFolder = " + topFolder);
                 ResolutionResult result = null;
+                ScanMetrics.Timer resolverTimer = ScanMetrics.startTimer(ScanMetrics.RESOLVER, RESOLVER_LABEL, dependencyResolver.getDependencyTypeName());
                 try {
                     result = dependencyResolver.resolveDependencies(resolvedFolder.getOriginalScanFolder(), topFolder, bomFiles);
                 } catch (Exception e) {
                     logger.error(e.getMessage());
                     logger.debug("{}", e.getStackTrace());
+                } finally {
+                    resolverTimer.stop();
                 }
                 if (result != null) {
                     resolutionResults.add(result);
@@ -363,6 +379,21 @@ public class DependencyResolutionService {
         return dependencyResolvers;
     }
 
+    /**
+     * @return glob patterns of the manifest files of the resolvers, in any folder
+     */
+    public Collection<String> getManifestPatterns() {
+        Collection<String> manifestPatterns = new LinkedHashSet<>();
+        for (AbstractDependencyResolver dependencyResolver : dependencyResolvers) {
+            for (String manifestFile : dependencyResolver.getManifestFiles()) {
+                // manifests given by their extension (.csproj, .go) match any file name
+                manifestPatterns.add(manifestFile.startsWith(Constants.DOT) ? Constants.PATTERN + manifestFile
+                        : AbstractDependencyResolver.GLOB_PATTERN + manifestFile);
+            }
+        }
+        return manifestPatterns;
+    }
+
     /* --- Private methods --- */
     private void reduceDependencies(Map<ResolvedFolder, AbstractDependencyResolver> topFolderResolverMap) {
         //reduce the dependencies and duplicates files
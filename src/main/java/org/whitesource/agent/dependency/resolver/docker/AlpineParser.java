@@ -3,6 +3,8 @@ package org.whitesource.agent.dependency.resolver.docker;
 import org.apache.commons.lang.StringUtils;
 import org.whitesource.agent.Constants;
 import org.whitesource.agent.api.model.DependencyInfo;
+import org.whitesource.agent.dependency.resolver.packageManger.ApkDatabaseReader;
+import org.whitesource.agent.dependency.resolver.packageManger.Package;
 
 import java.io.*;
 import java.text.MessageFormat;
@@ -17,54 +19,31 @@ public class AlpineParser extends AbstractParser {
 
     /* --- Static members --- */
 
-    private static final String PACKAGE = "P";
-    private static final String VERSION = "V";
-    private static final String ARCHITECTURE = "A";
     private static final String ALPINE_PACKAGE_PATTERN = "{0}.apk";
 
     /* --- Overridden methods --- */
 
     @Override
     public Collection<DependencyInfo> parse(File file) {
-        BufferedReader br = null;
-        FileReader fr = null;
+        try (InputStream inputStream = new FileInputStream(file.getAbsoluteFile())) {
+            return parse(inputStream);
+        } catch (IOException e) {
+            logger.error(e.getMessage());
+            return new LinkedList<>();
+        }
+    }
+
+    /**
+     * Parse the packages of an apk installed database, i.e. read from a docker layer stream
+     */
+    public Collection<DependencyInfo> parse(InputStream inputStream) {
         Collection<DependencyInfo> dependencyInfos = new LinkedList<>();
         try {
-            fr = new FileReader(file.getAbsoluteFile());
-            br = new BufferedReader(fr);
-            String line = null;
-            Package packageInfo = new Package();
             // Create Alpine package - package-version-architecture.apk
-            while ((line = br.readLine()) != null) {
-                if (!line.isEmpty()) {
-                    if (packageInfo.getPackageName() == null || packageInfo.getVersion() == null || packageInfo.getArchitecture() == null) {
-                        String[] lineSplit = line.split(Constants.COLON);
-                        String dependencyParameter = lineSplit[1].trim();
-                        switch (lineSplit[0]) {
-                            case PACKAGE:
-                                packageInfo.setPackageName(dependencyParameter);
-                                break;
-                            case VERSION:
-                                packageInfo.setVersion(dependencyParameter);
-                                break;
-                            case ARCHITECTURE:
-                                packageInfo.setArchitecture(dependencyParameter);
-                                break;
-                            default:
-                                break;
-                        }
-                    }
-                } else {
-                    DependencyInfo dependencyInfo = createDependencyInfo(packageInfo);
-                    packageInfo = new Package();
-                    dependencyInfos.add(dependencyInfo);
-                }
-            }
-        } catch (Exception e) {
+            new ApkDatabaseReader().read(inputStream, packageInfo -> dependencyInfos.add(createDependencyInfo(packageInfo)));
+        } catch (IOException e) {
             logger.error(e.getMessage());
             logger.debug("{}", e.getStackTrace());
-        } finally {
-            closeStream(br, fr);
         }
         return dependencyInfos;
     }
@@ -4,6 +4,8 @@ import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.api.model.DependencyInfo;
+import org.whitesource.agent.dependency.resolver.packageManger.Package;
+import org.whitesource.agent.dependency.resolver.packageManger.PacmanDescReader;
 
 import java.io.*;
 import java.text.MessageFormat;
@@ -19,9 +21,6 @@ public class ArchLinuxParser extends AbstractParser {
     /* --- Static members --- */
     private final Logger logger = LoggerFactory.getLogger(ArchLinuxParser.class);
 
-    private static final String PACKAGE = "%NAME%";
-    private static final String VERSION = "%VERSION%";
-    private static final String ARCHITECTURE = "%ARCH%";
     private static final String DESC = "desc";
     private static final String ARCH_LINUX_PACKAGE_PATTERN = "{0}-{1}-{2}.pkg.tar.xz";
 
@@ -29,43 +28,16 @@ public class ArchLinuxParser extends AbstractParser {
 
     @Override
     public Collection<DependencyInfo> parse(File dir) {
-        BufferedReader br = null;
-        FileReader fr = null;
         Collection<DependencyInfo> dependencyInfos = new LinkedList<>();
         if (dir.isDirectory()) {
             Collection<File> files = new LinkedList<>();
             getDescFiles(dir, files);
             if (!files.isEmpty()) {
                 for (File file : files) {
-                    try {
-                        DependencyInfo dependencyInfo = null;
-                        Package packageInfo = new Package();
-                        fr = new FileReader(file);
-                        br = new BufferedReader(fr);
-                        String line = null;
-                        // Create Arch Linux package - package-version-architecture.pkg.tar.xz
-                        while ((line = br.readLine()) != null) {
-                            switch (line) {
-                                case PACKAGE:
-                                    packageInfo.setPackageName(br.readLine());
-                                    break;
-                                case VERSION:
-                                    packageInfo.setVersion(br.readLine());
-                                    break;
-                                case ARCHITECTURE:
-                                    packageInfo.setArchitecture(br.readLine());
-                                    break;
-                                default:
-                                    break;
-                            }
-                        }
-                        dependencyInfos.add(createDependencyInfo(packageInfo));
-                    } catch (FileNotFoundException e) {
-                        logger.error("Error getting package data", e.getMessage());
+                    try (InputStream inputStream = new FileInputStream(file)) {
+                        dependencyInfos.add(parseDesc(inputStream));
                     } catch (IOException e) {
                         logger.error("Error getting package data", e.getMessage());
-                    } finally {
-                        closeStream(br, fr);
                     }
                 }
             }
@@ -73,6 +45,14 @@ public class ArchLinuxParser extends AbstractParser {
         return dependencyInfos;
     }
 
+    /**
+     * Parse the desc file of a single installed package, i.e. read from a docker layer stream
+     */
+    public DependencyInfo parseDesc(InputStream inputStream) throws IOException {
+        // Create Arch Linux package - package-version-architecture.pkg.tar.xz
+        return createDependencyInfo(new PacmanDescReader().read(inputStream));
+    }
+
     /**
      * @param files                      - list of files to look for
      * @param pathToPackageManagerFolder the relevant path for the folder with all the installed packages
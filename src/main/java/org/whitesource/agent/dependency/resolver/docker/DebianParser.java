@@ -5,6 +5,8 @@ import org.slf4j.Logger;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.Constants;
 import org.whitesource.agent.api.model.DependencyInfo;
+import org.whitesource.agent.dependency.resolver.packageManger.DpkgDatabaseReader;
+import org.whitesource.agent.dependency.resolver.packageManger.Package;
 
 import java.io.*;
 import java.text.MessageFormat;
@@ -19,9 +21,6 @@ public class DebianParser extends AbstractParser {
     /* --- Static members --- */
 
     private final Logger logger = LoggerFactory.getLogger(DebianParser.class);
-    private static final String PACKAGE = "Package";
-    private static final String VERSION = "Version";
-    private static final String ARCHITECTURE = "Architecture";
     private static final String DEBIAN_PACKAGE_PATTERN = "{0}_{1}_{2}.deb";
 
     /* --- Overridden methods --- */
@@ -32,55 +31,24 @@ public class DebianParser extends AbstractParser {
      */
     @Override
     public Collection<DependencyInfo> parse(File file) {
-        BufferedReader br = null;
-        FileReader fr = null;
+        try (InputStream inputStream = new FileInputStream(file.getAbsoluteFile())) {
+            return parse(inputStream);
+        } catch (IOException e) {
+            logger.error("Error getting package data {}", e.getMessage());
+            return new LinkedList<>();
+        }
+    }
+
+    /**
+     * Parse the packages of an available (or status) file, i.e. read from a docker layer stream
+     */
+    public Collection<DependencyInfo> parse(InputStream inputStream) {
         Collection<DependencyInfo> dependencyInfos = new LinkedList<>();
         try {
-            fr = new FileReader(file.getAbsoluteFile());
-            br = new BufferedReader(fr);
-            String line = null;
-            Package packageInfo = new Package();
             // Create Debian package - package-version-architecture.deb
-            while ((line = br.readLine()) != null) {
-                // Some fields (like 'Description') can be extended over several lines (which don't have ":")
-                // We don't need to parse these lines
-                if (!line.isEmpty() && line.contains(Constants.COLON)) {
-                    String[] lineSplit = line.split(Constants.COLON);
-                    // To prevent checking lines that look like - "Text:"
-                    if (lineSplit.length > 1) {
-                        String dependencyParameter = lineSplit[1].trim();
-                        switch (lineSplit[0]) {
-                            case PACKAGE:
-                                packageInfo.setPackageName(dependencyParameter);
-                                break;
-                            case VERSION:
-                                if (packageInfo.getPackageName() != null) {
-                                    packageInfo.setVersion(dependencyParameter);
-                                }
-                                break;
-                            case ARCHITECTURE:
-                                if (packageInfo.getPackageName() != null) {
-                                    packageInfo.setArchitecture(dependencyParameter);
-                                }
-                                break;
-                            default:
-                                break;
-                        }
-                    }
-                } else {
-                    if (packageInfo.getPackageName() != null) {
-                        DependencyInfo dependencyInfo = createDependencyInfo(packageInfo);
-                        packageInfo = new Package();
-                        dependencyInfos.add(dependencyInfo);
-                    }
-                }
-            }
-        } catch (FileNotFoundException e) {
-            logger.error("Error getting package data {}", e.getMessage());
+            new DpkgDatabaseReader().read(inputStream, packageInfo -> dependencyInfos.add(createDependencyInfo(packageInfo)));
         } catch (IOException e) {
             logger.error("Error getting package data {}", e.getMessage());
-        } finally {
-            closeStream(br, fr);
         }
         return dependencyInfos;
     }
@@ -101,15 +69,14 @@ public class DebianParser extends AbstractParser {
         DependencyInfo dependencyInfo = null;
         if (StringUtils.isNotBlank(packageInfo.getPackageName()) && StringUtils.isNotBlank(packageInfo.getVersion()) &&
                 StringUtils.isNotBlank(packageInfo.getArchitecture())) {
-            if (packageInfo.getVersion().contains(Constants.PLUS)) {
-                dependencyInfo = new DependencyInfo(
-                        null, MessageFormat.format(DEBIAN_PACKAGE_PATTERN, packageInfo.getPackageName(),
-                        packageInfo.getVersion().substring(0, packageInfo.getVersion().lastIndexOf(Constants.PLUS)), packageInfo.getArchitecture()), packageInfo.getVersion());
-            } else {
-                dependencyInfo = new DependencyInfo(
-                        null, MessageFormat.format(DEBIAN_PACKAGE_PATTERN, packageInfo.getPackageName(),
-                        packageInfo.getVersion(), packageInfo.getArchitecture()), packageInfo.getVersion());
+            // package file names don't include the version epoch (i.e. '1:2.8.4')
+            String fileVersion = packageInfo.getVersion().substring(packageInfo.getVersion().indexOf(Constants.COLON) + 1);
+            if (fileVersion.contains(Constants.PLUS)) {
+                fileVersion = fileVersion.substring(0, fileVersion.lastIndexOf(Constants.PLUS));
             }
+            dependencyInfo = new DependencyInfo(
+                    null, MessageFormat.format(DEBIAN_PACKAGE_PATTERN, packageInfo.getPackageName(),
+                    fileVersion, packageInfo.getArchitecture()), packageInfo.getVersion());
         }
         if (dependencyInfo != null) {
             return dependencyInfo;
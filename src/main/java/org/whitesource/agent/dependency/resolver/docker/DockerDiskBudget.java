@@ -0,0 +1,51 @@
+package org.whitesource.agent.dependency.resolver.docker;
+
+/**
+ * Limits the temporary disk space used by docker images that are saved and extracted concurrently.
+ * An image that needs more than the whole budget is still handled, but only when no other image holds any space.
+ */
+public class DockerDiskBudget {
+
+    /* --- Members --- */
+
+    private final long budgetInBytes;
+    private long usedBytes;
+
+    /* --- Constructors --- */
+
+    /**
+     * @param budgetInBytes - the total space images may use, 0 or less for no limit
+     */
+    public DockerDiskBudget(long budgetInBytes) {
+        this.budgetInBytes = budgetInBytes;
+    }
+
+    /* --- Public methods --- */
+
+    /**
+     * Wait until the requested space is available and reserve it
+     *
+     * @param bytes - the space to reserve, more than the budget (i.e. when the required space is unknown) reserves the whole budget
+     * @return the reserved space, to be released when the image files are deleted
+     */
+    public synchronized long acquire(long bytes) throws InterruptedException {
+        if (budgetInBytes <= 0) {
+            return 0;
+        }
+        long reservedBytes = Math.min(bytes, budgetInBytes);
+        while (usedBytes > 0 && usedBytes + reservedBytes > budgetInBytes) {
+            wait();
+        }
+        usedBytes += reservedBytes;
+        return reservedBytes;
+    }
+
+    public synchronized void release(long bytes) {
+        usedBytes -= bytes;
+        notifyAll();
+    }
+
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+}
@@ -12,6 +12,8 @@ public class DockerImage {
     private String repository;
     private String tag;
     private String id;
+    // the image size reported by 'docker images', in bytes (0 if unknown)
+    private long size;
 
     /* --- Constructors --- */
 
@@ -76,4 +78,12 @@ public class DockerImage {
     public void setId(String id) {
         this.id = id;
     }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
 }
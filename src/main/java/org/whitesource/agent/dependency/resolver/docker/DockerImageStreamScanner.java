@@ -0,0 +1,299 @@
+package org.whitesource.agent.dependency.resolver.docker;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.xz.XZCompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+import org.slf4j.Logger;
+import org.whitesource.agent.Constants;
+import org.whitesource.agent.api.model.ChecksumType;
+import org.whitesource.agent.api.model.DependencyInfo;
+import org.whitesource.agent.dependency.resolver.packageManger.ApkDatabaseReader;
+import org.whitesource.agent.dependency.resolver.packageManger.DpkgDatabaseReader;
+import org.whitesource.agent.utils.LoggerFactory;
+import org.whitesource.fs.configuration.AgentConfiguration;
+
+import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Scans a saved docker image (the output of 'docker save') as a stream, without extracting it to the disk.
+ * Layer entries are read in order, matching files are hashed and package databases are parsed in memory while the data flows through.
+ * Unlike the extracted scan, files are only hashed - archives inside the image are not extracted and package managers are not resolved.
+ * Since the layers order is known only at the end of the stream, files hidden by upper layers are scanned too and removed when the image is composed.
+ */
+public class DockerImageStreamScanner {
+
+    /* --- Static members --- */
+
+    private static final Logger logger = LoggerFactory.getLogger(DockerImageStreamScanner.class);
+
+    private static final String MANIFEST_JSON = "manifest.json";
+    private static final String LAYERS = "Layers";
+    private static final String LAYER_TAR = "layer.tar";
+    private static final String BLOBS_SHA256 = "blobs/sha256/";
+    private static final String SHA256 = "SHA-256";
+    private static final String SHA1 = "SHA-1";
+    private static final String MD5 = "MD5";
+    private static final String SHA256_PREFIX = "sha256:";
+    private static final int GZIP_MAGIC_1 = 0x1f;
+    private static final int GZIP_MAGIC_2 = 0x8b;
+    private static final int JSON_START = '{';
+    private static final int JSON_ARRAY_START = '[';
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String DEBIAN_AVAILABLE = "var/lib/dpkg/available";
+    private static final String DEBIAN_STATUS = DpkgDatabaseReader.STATUS_FILE;
+    private static final String DEBIAN_EIPP_LOG = "var/log/apt/eipp.log.xz";
+    private static final String ALPINE_INSTALLED = ApkDatabaseReader.INSTALLED_FILE;
+    private static final Pattern ARCH_LINUX_DESC = Pattern.compile("var/lib/pacman/local/[^/]+/desc");
+    private static final Pattern RPM_YUM_DB_PACKAGE = Pattern.compile("(var/lib/yum/yumdb/[^/]+/([^/]+))(/.*)?");
+
+    /* --- Members --- */
+
+    private final DockerLayerCache layersCache;
+    private final String[] includes;
+    private final String[] excludes;
+    private final boolean globCaseSensitive;
+    private final boolean calculateMd5;
+
+    /* --- Constructors --- */
+
+    public DockerImageStreamScanner(AgentConfiguration agentConfiguration, DockerLayerCache layersCache) {
+        this.layersCache = layersCache;
+        this.includes = normalizePatterns(agentConfiguration.getIncludes());
+        this.excludes = normalizePatterns(agentConfiguration.getExcludes());
+        this.globCaseSensitive = agentConfiguration.getGlobCaseSensitive();
+        this.calculateMd5 = agentConfiguration.isCalculateMd5();
+    }
+
+    /* --- Public methods --- */
+
+    /**
+     * Scan a saved image stream.
+     *
+     * @param imageStream - the saved image tar stream
+     * @return the results of the image layers, from the base layer to the top layer
+     */
+    public List<DockerLayerScanResult> scan(InputStream imageStream) throws IOException {
+        Map<String, DockerLayerScanResult> layersByPath = new LinkedHashMap<>();
+        byte[] manifest = null;
+        int cachedLayers = 0;
+        TarArchiveInputStream imageTar = new TarArchiveInputStream(imageStream);
+        TarArchiveEntry entry;
+        while ((entry = imageTar.getNextTarEntry()) != null) {
+            String name = entry.getName();
+            if (!entry.isFile()) {
+                continue;
+            }
+            if (name.equals(MANIFEST_JSON)) {
+                manifest = IOUtils.toByteArray(imageTar);
+            } else if (name.endsWith(LAYER_TAR) || name.startsWith(BLOBS_SHA256)) {
+                BufferedInputStream layerStream = new BufferedInputStream(imageTar, BUFFER_SIZE);
+                layerStream.mark(2);
+                int first = layerStream.read();
+                int second = layerStream.read();
+                layerStream.reset();
+                if (first == JSON_START || first == JSON_ARRAY_START) {
+                    // image config or manifest blobs of oci layout images, the layers are listed in manifest.json
+                    continue;
+                }
+                boolean compressed = first == GZIP_MAGIC_1 && second == GZIP_MAGIC_2;
+                // the blob name of an uncompressed layer is its diff id, so a cached layer doesn't have to be read at all
+                String diffId = !compressed && name.startsWith(BLOBS_SHA256) ? SHA256_PREFIX + name.substring(BLOBS_SHA256.length()) : null;
+                DockerLayerScanResult layerResult = layersCache.get(diffId);
+                if (layerResult != null) {
+                    cachedLayers++;
+                } else {
+                    layerResult = scanLayer(compressed ? new GzipCompressorInputStream(layerStream) : layerStream);
+                    layersCache.put(layerResult);
+                }
+                layersByPath.put(name, layerResult);
+            }
+        }
+        logger.debug("Read {} layers from the image stream ({} layers were already scanned)", layersByPath.size(), cachedLayers);
+        return orderLayers(layersByPath, manifest);
+    }
+
+    /* --- Private methods --- */
+
+    private DockerLayerScanResult scanLayer(InputStream layerStream) throws IOException {
+        MessageDigest diffIdDigest = getDigest(SHA256);
+        DigestInputStream digestStream = new DigestInputStream(layerStream, diffIdDigest);
+        DockerLayerScanResult result = new DockerLayerScanResult();
+        TarArchiveInputStream layerTar = new TarArchiveInputStream(digestStream);
+        TarArchiveEntry entry;
+        DockerLayerFiles whiteouts = new DockerLayerFiles();
+        while ((entry = layerTar.getNextTarEntry()) != null) {
+            String path = DockerLayerFiles.normalizePath(entry.getName());
+            if (DockerLayerFiles.isWhiteout(path)) {
+                whiteouts.addEntry(path, entry.isDirectory());
+                continue;
+            }
+            Matcher rpmMatcher = RPM_YUM_DB_PACKAGE.matcher(path);
+            if (rpmMatcher.matches()) {
+                addRpmPackage(rpmMatcher.group(1), rpmMatcher.group(2), result);
+            }
+            if (!entry.isFile() || path.isEmpty()) {
+                continue;
+            }
+            try {
+                if (!scanPackageDatabase(path, layerTar, result) && isIncluded(path)) {
+                    result.addFileDependency(path, createDependencyInfo(path, layerTar));
+                }
+            } catch (IOException e) {
+                // a broken entry of the layer (i.e. a bad xz file) shouldn't fail the whole image
+                logger.warn("Failed to read {} from docker layer: {}", path, e.getMessage());
+            }
+        }
+        // read the rest of the layer (tar padding) to complete the diff id
+        IOUtils.copy(digestStream, new NullOutputStream());
+        result.setDiffId(SHA256_PREFIX + toHex(diffIdDigest.digest()));
+        result.getWhiteouts().addAll(whiteouts.getWhiteouts());
+        result.getOpaqueFolders().addAll(whiteouts.getOpaqueFolders());
+        logger.debug("Layer {}: {} package databases, {} files", result.getDiffId(), result.getPackages().size(), result.getFiles().size());
+        return result;
+    }
+
+    private boolean scanPackageDatabase(String path, InputStream entryStream, DockerLayerScanResult result) throws IOException {
+        if (path.equals(DEBIAN_AVAILABLE) || path.equals(DEBIAN_STATUS)) {
+            result.addPackages(path, removeNulls(new DebianParser().parse(entryStream)));
+        } else if (path.equals(DEBIAN_EIPP_LOG)) {
+            result.addPackages(path, removeNulls(new DebianParser().parse(new XZCompressorInputStream(entryStream))));
+        } else if (path.equals(ALPINE_INSTALLED)) {
+            result.addPackages(path, removeNulls(new AlpineParser().parse(entryStream)));
+        } else if (ARCH_LINUX_DESC.matcher(path).matches()) {
+            DependencyInfo dependencyInfo = new ArchLinuxParser().parseDesc(entryStream);
+            if (dependencyInfo != null) {
+                result.addPackages(path, Collections.singletonList(dependencyInfo));
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    // every installed rpm package has its own yumdb folder (the folder may not have an entry of its own, only its files)
+    private void addRpmPackage(String packageFolder, String packageFolderName, DockerLayerScanResult result) {
+        if (result.getPackages().containsKey(packageFolder)) {
+            return;
+        }
+        try {
+            DependencyInfo dependencyInfo = new RpmParser().parsePackageDirectory(new File(packageFolderName));
+            if (dependencyInfo != null) {
+                result.addPackages(packageFolder, Collections.singletonList(dependencyInfo));
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to parse {} : {}", packageFolder, e.getMessage());
+        }
+    }
+
+    private DependencyInfo createDependencyInfo(String path, InputStream entryStream) throws IOException {
+        MessageDigest sha1 = getDigest(SHA1);
+        MessageDigest md5 = calculateMd5 ? getDigest(MD5) : null;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = entryStream.read(buffer)) != -1) {
+            sha1.update(buffer, 0, read);
+            if (md5 != null) {
+                md5.update(buffer, 0, read);
+            }
+        }
+        String fileName = path.substring(path.lastIndexOf(Constants.FORWARD_SLASH) + 1);
+        DependencyInfo dependency = new DependencyInfo(toHex(sha1.digest()));
+        dependency.setArtifactId(fileName);
+        dependency.setFilename(fileName);
+        dependency.setSystemPath(Constants.FORWARD_SLASH + path);
+        if (md5 != null) {
+            dependency.addChecksum(ChecksumType.MD5, toHex(md5.digest()));
+        }
+        return dependency;
+    }
+
+    private List<DockerLayerScanResult> orderLayers(Map<String, DockerLayerScanResult> layersByPath, byte[] manifest) {
+        if (manifest != null) {
+            try {
+                JsonArray layerPaths = new JsonParser().parse(new String(manifest, StandardCharsets.UTF_8))
+                        .getAsJsonArray().get(0).getAsJsonObject().getAsJsonArray(LAYERS);
+                List<DockerLayerScanResult> layers = new LinkedList<>();
+                for (int i = 0; i < layerPaths.size(); i++) {
+                    DockerLayerScanResult layerResult = layersByPath.get(layerPaths.get(i).getAsString());
+                    if (layerResult != null) {
+                        layers.add(layerResult);
+                    }
+                }
+                return layers;
+            } catch (Exception e) {
+                logger.warn("Failed to read docker manifest: {}", e.getMessage());
+            }
+        }
+        // without a manifest, keep the order of the stream
+        return new LinkedList<>(layersByPath.values());
+    }
+
+    private boolean isIncluded(String path) {
+        String systemPath = path.replace(Constants.FORWARD_SLASH, File.separator);
+        return matchesAny(systemPath, includes) && !matchesAny(systemPath, excludes);
+    }
+
+    private boolean matchesAny(String path, String[] patterns) {
+        for (String pattern : patterns) {
+            if (SelectorUtils.matchPath(pattern, path, globCaseSensitive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // same normalization as the directory scanner - a pattern that ends with a separator matches everything under it
+    private String[] normalizePatterns(String[] patterns) {
+        List<String> normalized = new LinkedList<>();
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                if (pattern == null || pattern.trim().isEmpty()) {
+                    continue;
+                }
+                String normalizedPattern = pattern.trim().replace(Constants.FORWARD_SLASH, File.separator).replace(Constants.BACK_SLASH, File.separator);
+                if (normalizedPattern.endsWith(File.separator)) {
+                    normalizedPattern += "**";
+                }
+                normalized.add(normalizedPattern);
+            }
+        }
+        return normalized.toArray(new String[0]);
+    }
+
+    private Collection<DependencyInfo> removeNulls(Collection<DependencyInfo> dependencyInfos) {
+        dependencyInfos.removeIf(Objects::isNull);
+        return dependencyInfos;
+    }
+
+    private MessageDigest getDigest(String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toHex(byte[] digest) {
+        String hex = new BigInteger(1, digest).toString(16);
+        StringBuilder result = new StringBuilder();
+        for (int i = hex.length(); i < digest.length * 2; i++) {
+            result.append('0');
+        }
+        return result.append(hex).toString();
+    }
+}
@@ -0,0 +1,53 @@
+package org.whitesource.agent.dependency.resolver.docker;
+
+import java.io.File;
+
+/**
+ * A single layer of a saved docker image.
+ * The diff id is the digest of the uncompressed layer content, so the same base layer has the same diff id in every image.
+ */
+public class DockerLayer {
+
+    /* --- Members --- */
+
+    private String diffId;
+    private File layerTar;
+
+    /* --- Constructors --- */
+
+    public DockerLayer() {
+    }
+
+    public DockerLayer(String diffId, File layerTar) {
+        this.diffId = diffId;
+        this.layerTar = layerTar;
+    }
+
+    /* --- Overridden methods --- */
+
+    @Override
+    public String toString() {
+        return "DockerLayer{" +
+                "diffId='" + diffId + '\'' +
+                ", layerTar=" + layerTar +
+                '}';
+    }
+
+    /* --- Getters / Setters --- */
+
+    public String getDiffId() {
+        return diffId;
+    }
+
+    public void setDiffId(String diffId) {
+        this.diffId = diffId;
+    }
+
+    public File getLayerTar() {
+        return layerTar;
+    }
+
+    public void setLayerTar(File layerTar) {
+        this.layerTar = layerTar;
+    }
+}
@@ -0,0 +1,136 @@
+package org.whitesource.agent.dependency.resolver.docker;
+
+import com.google.gson.Gson;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.whitesource.agent.Constants;
+import org.whitesource.agent.utils.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the scan results of docker layers by their diff id, so a layer shared by several images is scanned only once.
+ * Results are kept in memory for the current run and, when a cache folder is configured, also on disk for the next runs.
+ * Disk entries are kept under a fingerprint of the scan configuration, so changing the configuration doesn't reuse stale results.
+ */
+public class DockerLayerCache {
+
+    /* --- Static members --- */
+
+    private static final Logger logger = LoggerFactory.getLogger(DockerLayerCache.class);
+
+    private static final String JSON_SUFFIX = ".json";
+    private static final String TMP_SUFFIX = ".tmp";
+    private static final String SHA_1 = "SHA-1";
+
+    /* --- Members --- */
+
+    private final Map<String, DockerLayerScanResult> layers = new ConcurrentHashMap<>();
+    private final File cacheFolder;
+    private final Gson gson = new Gson();
+
+    /* --- Constructors --- */
+
+    public DockerLayerCache(String cacheFolder, String scanConfiguration) {
+        if (StringUtils.isNotBlank(cacheFolder)) {
+            this.cacheFolder = new File(cacheFolder, getFingerprint(scanConfiguration));
+            if (!this.cacheFolder.isDirectory() && !this.cacheFolder.mkdirs()) {
+                logger.warn("Could not create docker layer cache folder {}, layers will be cached for this run only", this.cacheFolder.getPath());
+            }
+        } else {
+            this.cacheFolder = null;
+        }
+    }
+
+    /* --- Public methods --- */
+
+    public DockerLayerScanResult get(String diffId) {
+        if (StringUtils.isBlank(diffId)) {
+            return null;
+        }
+        DockerLayerScanResult result = layers.get(diffId);
+        if (result == null) {
+            result = readFromDisk(diffId);
+            if (result != null) {
+                layers.putIfAbsent(diffId, result);
+            }
+        }
+        return result;
+    }
+
+    public void put(DockerLayerScanResult result) {
+        if (StringUtils.isBlank(result.getDiffId())) {
+            return;
+        }
+        layers.put(result.getDiffId(), result);
+        writeToDisk(result);
+    }
+
+    /* --- Private methods --- */
+
+    private DockerLayerScanResult readFromDisk(String diffId) {
+        File layerFile = getLayerFile(diffId);
+        if (layerFile == null || !layerFile.isFile()) {
+            return null;
+        }
+        try (Reader reader = Files.newBufferedReader(layerFile.toPath(), StandardCharsets.UTF_8)) {
+            DockerLayerScanResult result = gson.fromJson(reader, DockerLayerScanResult.class);
+            logger.debug("Read cached results of layer {} from {}", diffId, layerFile.getPath());
+            return result;
+        } catch (Exception e) {
+            logger.warn("Failed to read cached results of layer {}: {}", diffId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(DockerLayerScanResult result) {
+        File layerFile = getLayerFile(result.getDiffId());
+        if (layerFile == null || !cacheFolder.isDirectory()) {
+            return;
+        }
+        // write to a temporary file first, so a concurrent reader (or another agent) never sees a partial entry
+        Path tmpFile = null;
+        try {
+            tmpFile = Files.createTempFile(cacheFolder.toPath(), layerFile.getName(), TMP_SUFFIX);
+            try (Writer writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+                gson.toJson(result, writer);
+            }
+            Files.move(tmpFile, layerFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Failed to cache results of layer {}: {}", result.getDiffId(), e.getMessage());
+            if (tmpFile != null) {
+                FileUtils.deleteQuietly(tmpFile.toFile());
+            }
+        }
+    }
+
+    private String getFingerprint(String scanConfiguration) {
+        try {
+            byte[] digest = MessageDigest.getInstance(SHA_1).digest(scanConfiguration.getBytes(StandardCharsets.UTF_8));
+            return new BigInteger(1, digest).toString(16);
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(scanConfiguration.hashCode());
+        }
+    }
+
+    private File getLayerFile(String diffId) {
+        if (cacheFolder == null) {
+            return null;
+        }
+        // diff ids are of the form 'sha256:<hex>'
+        return new File(cacheFolder, diffId.replace(Constants.COLON, Constants.DASH) + JSON_SUFFIX);
+    }
+}
@@ -0,0 +1,107 @@
+package org.whitesource.agent.dependency.resolver.docker;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.whitesource.agent.Constants;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The paths a docker layer adds and removes, read from the layer tar headers only.
+ * Deleted paths are marked by OCI whiteout files - '.wh.<name>' removes 'name' and '.wh..wh..opq' hides
+ * everything the lower layers have in its folder.
+ */
+public class DockerLayerFiles {
+
+    /* --- Static members --- */
+
+    public static final String WHITEOUT_PREFIX = ".wh.";
+    public static final String OPAQUE_WHITEOUT = ".wh..wh..opq";
+
+    /* --- Members --- */
+
+    private final Set<String> files = new HashSet<>();
+    private final Set<String> whiteouts = new HashSet<>();
+    private final Set<String> opaqueFolders = new HashSet<>();
+
+    /* --- Public static methods --- */
+
+    public static DockerLayerFiles read(File layerTar) throws IOException {
+        DockerLayerFiles layerFiles = new DockerLayerFiles();
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(layerTar))) {
+            TarArchiveInputStream tarStream = new TarArchiveInputStream(inputStream);
+            TarArchiveEntry entry;
+            while ((entry = tarStream.getNextTarEntry()) != null) {
+                layerFiles.addEntry(normalizePath(entry.getName()), entry.isDirectory());
+            }
+        }
+        return layerFiles;
+    }
+
+    // layer entries are named 'usr/lib/x', './usr/lib/x' or '/usr/lib/x'
+    public static String normalizePath(String name) {
+        String path = name;
+        if (path.startsWith(Constants.DOT + Constants.FORWARD_SLASH)) {
+            path = path.substring(2);
+        }
+        while (path.startsWith(Constants.FORWARD_SLASH)) {
+            path = path.substring(1);
+        }
+        if (path.endsWith(Constants.FORWARD_SLASH)) {
+            path = path.substring(0, path.length() - 1);
+        }
+        return path;
+    }
+
+    public static boolean isWhiteout(String path) {
+        return getFileName(path).startsWith(WHITEOUT_PREFIX);
+    }
+
+    /* --- Public methods --- */
+
+    /**
+     * @param path        - normalized path of the layer entry
+     * @param isDirectory - whether the entry is a directory
+     */
+    public void addEntry(String path, boolean isDirectory) {
+        if (path.isEmpty()) {
+            return;
+        }
+        String fileName = getFileName(path);
+        String folder = path.length() > fileName.length() ? path.substring(0, path.length() - fileName.length() - 1) : Constants.EMPTY_STRING;
+        if (fileName.equals(OPAQUE_WHITEOUT)) {
+            opaqueFolders.add(folder);
+        } else if (fileName.startsWith(WHITEOUT_PREFIX)) {
+            String deletedName = fileName.substring(WHITEOUT_PREFIX.length());
+            whiteouts.add(folder.isEmpty() ? deletedName : folder + Constants.FORWARD_SLASH + deletedName);
+        } else if (!isDirectory) {
+            files.add(path);
+        }
+    }
+
+    /* --- Private static methods --- */
+
+    private static String getFileName(String path) {
+        return path.substring(path.lastIndexOf(Constants.FORWARD_SLASH) + 1);
+    }
+
+    /* --- Getters --- */
+
+    public Set<String> getFiles() {
+        return files;
+    }
+
+    public Set<String> getWhiteouts() {
+        return whiteouts;
+    }
+
+    public Set<String> getOpaqueFolders() {
+        return opaqueFolders;
+    }
+}
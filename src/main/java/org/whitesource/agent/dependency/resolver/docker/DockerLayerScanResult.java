@@ -0,0 +1,90 @@
+package org.whitesource.agent.dependency.resolver.docker;
+
+import org.whitesource.agent.api.model.DependencyInfo;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+
+/**
+ * The scan results of a single docker layer.
+ * Dependencies are kept by their path inside the layer so that an image can be composed from its layers,
+ * with files of upper layers replacing the same files of lower layers.
+ */
+public class DockerLayerScanResult {
+
+    /* --- Members --- */
+
+    private String diffId;
+    // dependencies found by scanning the layer files, by file path
+    private Map<String, Collection<DependencyInfo>> files = new HashMap<>();
+    // operating system packages, by the path of the package database file they were read from
+    private Map<String, Collection<DependencyInfo>> packages = new HashMap<>();
+    // dependencies without a path in the layer (i.e. resolved by a package manager)
+    private Collection<DependencyInfo> unattributed = new LinkedList<>();
+    // paths of the lower layers deleted by this layer, and folders whose lower layers content is hidden
+    private Collection<String> whiteouts = new LinkedList<>();
+    private Collection<String> opaqueFolders = new LinkedList<>();
+    // files that were not scanned since the upper layers of the scanned image hide them
+    private Collection<String> skippedPaths = new LinkedList<>();
+
+    /* --- Constructors --- */
+
+    public DockerLayerScanResult() {
+    }
+
+    public DockerLayerScanResult(String diffId) {
+        this.diffId = diffId;
+    }
+
+    /* --- Public methods --- */
+
+    public void addFileDependency(String path, DependencyInfo dependencyInfo) {
+        files.computeIfAbsent(path, key -> new LinkedList<>()).add(dependencyInfo);
+    }
+
+    public void addPackages(String path, Collection<DependencyInfo> dependencyInfos) {
+        if (!dependencyInfos.isEmpty()) {
+            packages.computeIfAbsent(path, key -> new LinkedList<>()).addAll(dependencyInfos);
+        }
+    }
+
+    /* --- Getters / Setters --- */
+
+    public String getDiffId() {
+        return diffId;
+    }
+
+    public void setDiffId(String diffId) {
+        this.diffId = diffId;
+    }
+
+    public Map<String, Collection<DependencyInfo>> getFiles() {
+        return files;
+    }
+
+    public Map<String, Collection<DependencyInfo>> getPackages() {
+        return packages;
+    }
+
+    public Collection<DependencyInfo> getUnattributed() {
+        return unattributed;
+    }
+
+    public Collection<String> getWhiteouts() {
+        return whiteouts;
+    }
+
+    public Collection<String> getOpaqueFolders() {
+        return opaqueFolders;
+    }
+
+    public Collection<String> getSkippedPaths() {
+        return skippedPaths;
+    }
+
+    public void setSkippedPaths(Collection<String> skippedPaths) {
+        this.skippedPaths = skippedPaths;
+    }
+}
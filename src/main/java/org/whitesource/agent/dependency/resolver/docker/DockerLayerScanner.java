@@ -0,0 +1,209 @@
+package org.whitesource.agent.dependency.resolver.docker;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.whitesource.agent.FileSystemScanner;
+import org.whitesource.agent.ProjectConfiguration;
+import org.whitesource.agent.TempFolders;
+import org.whitesource.agent.api.model.AgentProjectInfo;
+import org.whitesource.agent.api.model.DependencyInfo;
+import org.whitesource.agent.archive.ArchiveExtractor;
+import org.whitesource.agent.dependency.resolver.packageManger.DpkgDatabaseReader;
+import org.whitesource.agent.hash.FileExtensions;
+import org.whitesource.agent.utils.FilesScanner;
+import org.whitesource.agent.utils.LoggerFactory;
+import org.whitesource.fs.FSAConfiguration;
+import org.whitesource.fs.configuration.AgentConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.whitesource.agent.Constants.*;
+
+/**
+ * Scans the extracted content of a single docker layer - the operating system packages and the layer files.
+ */
+public class DockerLayerScanner {
+
+    /* --- Static members --- */
+
+    private static final Logger logger = LoggerFactory.getLogger(DockerLayerScanner.class);
+
+    private static final String DEBIAN_PATTERN = "**/*eipp.log.xz";
+    private static final String ARCH_LINUX_PATTERN = "**/*desc";
+    private static final String ALPINE_PATTERN = "**/*installed";
+    private static final String DEBIAN_PATTERN_AVAILABLE = "**/*available";
+    private static final String DEBIAN_PATTERN_STATUS = "**/" + DpkgDatabaseReader.STATUS_FILE;
+    private static final String[] scanIncludes = {DEBIAN_PATTERN, ARCH_LINUX_PATTERN, ALPINE_PATTERN, DEBIAN_PATTERN_AVAILABLE, DEBIAN_PATTERN_STATUS};
+    private static final String[] scanExcludes = {};
+    private static final String[] WHITEOUT_INCLUDES = {"**/" + DockerLayerFiles.WHITEOUT_PREFIX + "*"};
+    private static final String ARCH_LINUX_DESC_FOLDERS = VAR + File.separator + LIB + File.separator + "pacman" + File.separator + "local";
+    private static final String RPM_YUM_DB_FOLDER_DEFAULT_PATH = VAR + File.separator + LIB + File.separator + YUM + File.separator + YUM_DB;
+    private static final String DEBIAN_LIST_PACKAGES_FILE = File.separator + "eipp.log.xz";
+    private static final String ALPINE_LIST_PACKAGES_FILE = File.separator + "installed";
+    private static final String DEBIAN_LIST_PACKAGES_FILE_AVAILABLE = File.separator + "available";
+    private static final String DEBIAN_LIST_PACKAGES_FILE_STATUS = File.separator + DpkgDatabaseReader.STATUS_FILE.replace(FORWARD_SLASH, File.separator);
+    private static final String DESC = "desc";
+    private static final String PACKAGE_LOG_TXT = "packageLog.txt";
+    private static final boolean PARTIAL_SHA1_MATCH = false;
+
+    /* --- Members --- */
+
+    private final FSAConfiguration config;
+    private final ArchiveExtractor archiveExtractor;
+    private final TempFolders tempFolders;
+    private final AgentConfiguration layerAgent;
+
+    /* --- Constructors --- */
+
+    public DockerLayerScanner(FSAConfiguration config, ArchiveExtractor archiveExtractor, TempFolders tempFolders) {
+        this.config = config;
+        this.tempFolders = tempFolders;
+        this.archiveExtractor = archiveExtractor;
+        this.layerAgent = getLayerAgent(config.getAgent());
+    }
+
+    /* --- Public methods --- */
+
+    public DockerLayerScanResult scan(String diffId, File layerDir) {
+        DockerLayerScanResult result = new DockerLayerScanResult(diffId);
+        String layerPath = getCanonicalPath(layerDir);
+        scanWhiteouts(layerDir, result);
+        scanPackages(layerDir, layerPath, result);
+        scanFiles(layerDir, layerPath, result);
+        logger.debug("Layer {}: {} package databases, {} files", diffId, result.getPackages().size(), result.getFiles().size());
+        return result;
+    }
+
+    /* --- Private methods --- */
+
+    // check for dependencies for each docker operating system (Debian,Arch-Linux,Alpine,Rpm)
+    private void scanPackages(File layerDir, String layerPath, DockerLayerScanResult result) {
+        String[] fileNames = new FilesScanner().getDirectoryContent(layerDir.getPath(), scanIncludes, scanExcludes, true, false);
+        for (int i = 0; i < fileNames.length; i++) {
+            fileNames[i] = layerDir.getPath() + File.separator + fileNames[i];
+        }
+
+        DebianParser debianParser = new DebianParser();
+        File file = debianParser.findFile(fileNames, DEBIAN_LIST_PACKAGES_FILE);
+        if (file != null) {
+            // extract .xz file to read the package log file
+            File packagesLogFile = new File(file.getParent(), PACKAGE_LOG_TXT);
+            archiveExtractor.unXz(file, packagesLogFile.getPath());
+            result.addPackages(getRelativePath(layerPath, file), removeNulls(debianParser.parse(packagesLogFile)));
+            FileUtils.deleteQuietly(packagesLogFile);
+        }
+        for (String debianPackagesFile : new String[]{DEBIAN_LIST_PACKAGES_FILE_AVAILABLE, DEBIAN_LIST_PACKAGES_FILE_STATUS}) {
+            file = debianParser.findFile(fileNames, debianPackagesFile);
+            if (file != null) {
+                result.addPackages(getRelativePath(layerPath, file), removeNulls(debianParser.parse(file)));
+            }
+        }
+
+        // every installed arch linux package has its own folder with a desc file
+        ArchLinuxParser archLinuxParser = new ArchLinuxParser();
+        File archLinuxFolder = archLinuxParser.findFile(fileNames, ARCH_LINUX_DESC_FOLDERS);
+        if (archLinuxFolder != null) {
+            File[] packageFolders = archLinuxFolder.listFiles(File::isDirectory);
+            for (File packageFolder : packageFolders == null ? new File[0] : packageFolders) {
+                result.addPackages(getRelativePath(layerPath, new File(packageFolder, DESC)), removeNulls(archLinuxParser.parse(packageFolder)));
+            }
+        }
+
+        AlpineParser alpineParser = new AlpineParser();
+        file = alpineParser.findFile(fileNames, ALPINE_LIST_PACKAGES_FILE);
+        if (file != null) {
+            result.addPackages(getRelativePath(layerPath, file), removeNulls(alpineParser.parse(file)));
+        }
+
+        // every installed rpm package has its own yumdb folder
+        RpmParser rpmParser = new RpmParser();
+        Collection<String> yumDbFoldersPath = new LinkedList<>();
+        RpmParser.findFolder(layerDir, YUM_DB, yumDbFoldersPath);
+        File yumDbFolder = rpmParser.checkFolders(yumDbFoldersPath, RPM_YUM_DB_FOLDER_DEFAULT_PATH);
+        if (yumDbFolder != null) {
+            File[] letterFolders = yumDbFolder.listFiles(File::isDirectory);
+            for (File letterFolder : letterFolders == null ? new File[0] : letterFolders) {
+                File[] packageFolders = letterFolder.listFiles(File::isDirectory);
+                for (File packageFolder : packageFolders == null ? new File[0] : packageFolders) {
+                    try {
+                        DependencyInfo dependencyInfo = rpmParser.parsePackageDirectory(packageFolder);
+                        if (dependencyInfo != null) {
+                            result.addPackages(getRelativePath(layerPath, packageFolder), Collections.singletonList(dependencyInfo));
+                        }
+                    } catch (Exception e) {
+                        logger.warn("Failed to parse {} : {}", packageFolder, e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    // whiteout files of the layer mark files of the lower layers that were deleted
+    private void scanWhiteouts(File layerDir, DockerLayerScanResult result) {
+        String[] whiteoutFiles = new FilesScanner().getDirectoryContent(layerDir.getPath(), WHITEOUT_INCLUDES, scanExcludes, false, true);
+        DockerLayerFiles whiteouts = new DockerLayerFiles();
+        for (String whiteoutFile : whiteoutFiles) {
+            whiteouts.addEntry(whiteoutFile.replace(BACK_SLASH, FORWARD_SLASH), false);
+        }
+        result.getWhiteouts().addAll(whiteouts.getWhiteouts());
+        result.getOpaqueFolders().addAll(whiteouts.getOpaqueFolders());
+    }
+
+    private void scanFiles(File layerDir, String layerPath, DockerLayerScanResult result) {
+        String extractPath = layerDir.getPath();
+        Set<String> setDirs = new HashSet<>();
+        setDirs.add(extractPath);
+        Map<String, Set<String>> appPathsToDependencyDirs = new HashMap<>();
+        appPathsToDependencyDirs.put(FSAConfiguration.DEFAULT_KEY, setDirs);
+        ProjectConfiguration projectConfiguration = new ProjectConfiguration(layerAgent, Arrays.asList(extractPath), appPathsToDependencyDirs, false);
+        Collection<AgentProjectInfo> projects = new FileSystemScanner(config.getResolver(), config.getAgent(), false, tempFolders).createProjects(projectConfiguration).keySet();
+        List<DependencyInfo> dependencyInfos = projects.stream().flatMap(project -> project.getDependencies().stream()).collect(Collectors.toList());
+
+        for (DependencyInfo dependencyInfo : dependencyInfos) {
+            String relativePath = dependencyInfo.getSystemPath() == null ? null : getRelativePath(layerPath, new File(dependencyInfo.getSystemPath()));
+            if (relativePath != null) {
+                if (!DockerLayerFiles.isWhiteout(relativePath)) {
+                    result.addFileDependency(relativePath, dependencyInfo);
+                }
+            } else {
+                result.getUnattributed().add(dependencyInfo);
+            }
+        }
+    }
+
+    // the files of the layer are scanned with the default archive patterns, without hints and md5
+    private AgentConfiguration getLayerAgent(AgentConfiguration agent) {
+        return new AgentConfiguration(agent.getIncludes(), agent.getExcludes(), new String[]{}, new String[]{}, agent.getArchiveExtractionDepth(),
+                FileExtensions.ARCHIVE_INCLUDES, FileExtensions.ARCHIVE_EXCLUDES, false, agent.isFollowSymlinks(), PARTIAL_SHA1_MATCH, false, false,
+                agent.isShowProgressBar(), agent.getGlobCaseSensitive(), false, agent.getExcludedCopyrights(), new String[]{}, new String[]{},
+                agent.getPythonRequirementsFileIncludes(), EMPTY_STRING);
+    }
+
+    // path of a file inside the layer, with forward slashes (i.e. 'var/lib/dpkg/available')
+    private String getRelativePath(String layerPath, File file) {
+        String filePath = file.getAbsolutePath();
+        if (!filePath.startsWith(layerPath + File.separator)) {
+            filePath = getCanonicalPath(file);
+        }
+        if (filePath.startsWith(layerPath + File.separator)) {
+            return filePath.substring(layerPath.length() + 1).replace(BACK_SLASH, FORWARD_SLASH);
+        }
+        return null;
+    }
+
+    private String getCanonicalPath(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    private Collection<DependencyInfo> removeNulls(Collection<DependencyInfo> dependencyInfos) {
+        dependencyInfos.removeIf(Objects::isNull);
+        return dependencyInfos;
+    }
+}
@@ -0,0 +1,80 @@
+package org.whitesource.agent.dependency.resolver.docker;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.slf4j.Logger;
+import org.whitesource.agent.utils.FilesScanner;
+import org.whitesource.agent.utils.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.whitesource.agent.archive.ArchiveExtractor.LAYER_TAR;
+
+/**
+ * Reads the ordered layers of an image saved with 'docker save' from its manifest.json and image config.
+ */
+public class DockerManifestReader {
+
+    /* --- Static members --- */
+
+    private static final Logger logger = LoggerFactory.getLogger(DockerManifestReader.class);
+
+    private static final String MANIFEST_JSON = "manifest.json";
+    private static final String CONFIG = "Config";
+    private static final String LAYERS = "Layers";
+    private static final String ROOTFS = "rootfs";
+    private static final String DIFF_IDS = "diff_ids";
+
+    /* --- Public methods --- */
+
+    /**
+     * Get the layers of an extracted image, from the base layer to the top layer.
+     * If the manifest can't be read the layer.tar files are returned without diff ids (and so are never cached).
+     *
+     * @param imageExtractionDir - the folder the image tar was extracted to
+     * @return the image layers
+     */
+    public List<DockerLayer> readLayers(File imageExtractionDir) {
+        List<DockerLayer> layers = new LinkedList<>();
+        File manifestFile = new File(imageExtractionDir, MANIFEST_JSON);
+        if (manifestFile.isFile()) {
+            try {
+                JsonObject manifest = readJson(manifestFile).getAsJsonArray().get(0).getAsJsonObject();
+                JsonArray layerPaths = manifest.getAsJsonArray(LAYERS);
+                JsonArray diffIds = readJson(new File(imageExtractionDir, manifest.get(CONFIG).getAsString()))
+                        .getAsJsonObject().getAsJsonObject(ROOTFS).getAsJsonArray(DIFF_IDS);
+                if (layerPaths.size() == diffIds.size()) {
+                    for (int i = 0; i < layerPaths.size(); i++) {
+                        layers.add(new DockerLayer(diffIds.get(i).getAsString(), new File(imageExtractionDir, layerPaths.get(i).getAsString())));
+                    }
+                    return layers;
+                }
+                logger.warn("Image manifest has {} layers but the image config has {} diff ids", layerPaths.size(), diffIds.size());
+            } catch (Exception e) {
+                logger.warn("Failed to read docker manifest {}: {}", manifestFile.getPath(), e.getMessage());
+                logger.debug("Failed to read docker manifest", e);
+            }
+        }
+        String[] layerTars = new FilesScanner().getDirectoryContent(imageExtractionDir.getAbsolutePath(), new String[]{LAYER_TAR}, new String[]{}, true, false);
+        for (String layerTar : layerTars) {
+            layers.add(new DockerLayer(null, new File(imageExtractionDir, layerTar)));
+        }
+        return layers;
+    }
+
+    /* --- Private methods --- */
+
+    private JsonElement readJson(File file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return new JsonParser().parse(reader);
+        }
+    }
+}
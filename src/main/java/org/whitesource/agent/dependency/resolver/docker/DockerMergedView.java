@@ -0,0 +1,114 @@
+package org.whitesource.agent.dependency.resolver.docker;
+
+import org.whitesource.agent.Constants;
+import org.whitesource.agent.api.model.DependencyInfo;
+
+import java.util.*;
+
+/**
+ * The effective file system of a docker image, as seen after applying its layers in order.
+ * A file in an upper layer replaces the same file in the lower layers, and whiteouts remove files of the lower layers.
+ * <p>
+ * Layers are added from the top layer down, so before a layer is scanned it is known which of its files are not visible in the image.
+ */
+public class DockerMergedView {
+
+    /* --- Static members --- */
+
+    private static final char MAX_PATH_CHAR = Character.MAX_VALUE;
+
+    /* --- Members --- */
+
+    private final Set<String> upperFiles = new HashSet<>();
+    private final Set<String> deletedPaths = new HashSet<>();
+    private final Set<String> opaqueFolders = new HashSet<>();
+
+    /* --- Public static methods --- */
+
+    /**
+     * Compose the dependencies of an image from the results of its layers (ordered from the base layer to the top layer),
+     * only files and package databases that are visible in the final image are kept.
+     */
+    public static Collection<DependencyInfo> compose(List<DockerLayerScanResult> layerResults) {
+        TreeMap<String, Collection<DependencyInfo>> files = new TreeMap<>();
+        TreeMap<String, Collection<DependencyInfo>> packages = new TreeMap<>();
+        Collection<DependencyInfo> unattributed = new LinkedList<>();
+        for (DockerLayerScanResult layerResult : layerResults) {
+            for (String whiteout : layerResult.getWhiteouts()) {
+                removePath(files, whiteout, true);
+                removePath(packages, whiteout, true);
+            }
+            for (String opaqueFolder : layerResult.getOpaqueFolders()) {
+                removePath(files, opaqueFolder, false);
+                removePath(packages, opaqueFolder, false);
+            }
+            files.putAll(layerResult.getFiles());
+            packages.putAll(layerResult.getPackages());
+            unattributed.addAll(layerResult.getUnattributed());
+        }
+
+        // the same package can be listed in several package databases (i.e. debian eipp.log.xz and available), remove duplicates
+        Map<String, DependencyInfo> packagesByArtifactId = new LinkedHashMap<>();
+        for (Collection<DependencyInfo> packageDependencies : packages.values()) {
+            for (DependencyInfo dependencyInfo : packageDependencies) {
+                packagesByArtifactId.putIfAbsent(dependencyInfo.getArtifactId(), dependencyInfo);
+            }
+        }
+        Collection<DependencyInfo> dependencyInfos = new LinkedList<>(packagesByArtifactId.values());
+        for (Collection<DependencyInfo> fileDependencies : files.values()) {
+            dependencyInfos.addAll(fileDependencies);
+        }
+        dependencyInfos.addAll(unattributed);
+        return dependencyInfos;
+    }
+
+    /* --- Public methods --- */
+
+    /**
+     * Add the paths of a layer that is above all the layers checked next
+     */
+    public void addUpperLayer(DockerLayerFiles layerFiles) {
+        upperFiles.addAll(layerFiles.getFiles());
+        deletedPaths.addAll(layerFiles.getWhiteouts());
+        opaqueFolders.addAll(layerFiles.getOpaqueFolders());
+    }
+
+    /**
+     * @param path - path of a file in a lower layer
+     * @return true if the file is replaced or deleted by one of the upper layers
+     */
+    public boolean isHidden(String path) {
+        if (upperFiles.contains(path) || deletedPaths.contains(path)) {
+            return true;
+        }
+        // a deleted folder or an opaque folder hides everything under it
+        int separatorIndex = path.lastIndexOf(Constants.FORWARD_SLASH);
+        while (separatorIndex > 0) {
+            String folder = path.substring(0, separatorIndex);
+            if (deletedPaths.contains(folder) || opaqueFolders.contains(folder)) {
+                return true;
+            }
+            separatorIndex = folder.lastIndexOf(Constants.FORWARD_SLASH);
+        }
+        return opaqueFolders.contains(Constants.EMPTY_STRING);
+    }
+
+    public boolean isHiddenAll(Collection<String> paths) {
+        for (String path : paths) {
+            if (!isHidden(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* --- Private static methods --- */
+
+    private static void removePath(TreeMap<String, Collection<DependencyInfo>> pathsMap, String path, boolean includingPath) {
+        if (includingPath) {
+            pathsMap.remove(path);
+        }
+        String prefix = path.isEmpty() ? path : path + Constants.FORWARD_SLASH;
+        pathsMap.subMap(prefix, true, prefix + MAX_PATH_CHAR, false).clear();
+    }
+}
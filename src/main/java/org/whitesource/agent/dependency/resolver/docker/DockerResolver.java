@@ -1,25 +1,27 @@
 package org.whitesource.agent.dependency.resolver.docker;
 
-import org.apache.commons.collections.map.HashedMap;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.whitesource.agent.Constants;
-import org.whitesource.agent.FileSystemScanner;
 import org.whitesource.agent.TempFolders;
 import org.whitesource.agent.api.model.AgentProjectInfo;
 import org.whitesource.agent.api.model.Coordinates;
 import org.whitesource.agent.api.model.DependencyInfo;
 import org.whitesource.agent.archive.ArchiveExtractor;
 import org.whitesource.agent.dependency.resolver.docker.remotedocker.RemoteDockersManager;
-import org.whitesource.agent.hash.FileExtensions;
-import org.whitesource.agent.utils.FilesScanner;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.fs.FSAConfiguration;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -35,38 +37,56 @@ public class DockerResolver {
 
     private static final Logger logger = LoggerFactory.getLogger(DockerResolver.class);
 
-    private static final String TEMP_FOLDER = System.getProperty("java.io.tmpdir") + File.separator + TempFolders.UNIQUE_DOCKER_TEMP_FOLDER;
     private static final String DOCKER_SAVE_IMAGE_COMMAND = "docker save";
     private static final String O_PARAMETER = "-o";
+    private static final String DOCKER = "docker";
+    private static final String SAVE = "save";
+    private static final String LOG_EXTENSION = ".log";
+    private static final String IMAGE = "image";
+    private static final String INSPECT = "inspect";
+    private static final String FORMAT_PARAMETER = "--format";
+    private static final String ROOTFS_LAYERS_FORMAT = "{{json .RootFS.Layers}}";
     private static final String REPOSITORY = "REPOSITORY";
     private static final String SPACES_REGEX = "\\s+";
     private static final String DOCKER_NAME_FORMAT_STRING = "{0} {1} ({2})";
     private static final MessageFormat DOCKER_NAME_FORMAT = new MessageFormat(DOCKER_NAME_FORMAT_STRING);
     private static final String DOCKER_IMAGES = "docker images";
-    private static final String DEBIAN_PATTERN = "**/*eipp.log.xz";
-    private static final String ARCH_LINUX_PATTERN = "**/*desc";
-    private static final String ALPINE_PATTERN = "**/*installed";
-    private static final String DEBIAN_PATTERN_AVAILABLE = "**/*available";
-    private static final String RPM_PATTERN = "**" + VAR + File.separator + LIB + File.separator + YUM + File.separator + YUM_DB + "/**";
-    private static final String[] scanIncludes = {DEBIAN_PATTERN, ARCH_LINUX_PATTERN, ALPINE_PATTERN, RPM_PATTERN, DEBIAN_PATTERN_AVAILABLE};
-    private static final String[] scanExcludes = {};
-    private static final String ARCH_LINUX_DESC_FOLDERS = VAR + File.separator + LIB + File.separator + "pacman" + File.separator + "local";
-    private static final String RPM_YUM_DB_FOLDER_DEFAULT_PATH = VAR + File.separator + LIB + File.separator + YUM + File.separator + YUM_DB;
-    private static final String DEBIAN_LIST_PACKAGES_FILE = File.separator + "eipp.log.xz";
-    private static final String ALPINE_LIST_PACKAGES_FILE = File.separator + "installed";
-    private static final String DEBIAN_LIST_PACKAGES_FILE_AVAILABLE = File.separator + "available";
-    private static final String PACKAGE_LOG_TXT = "packageLog.txt";
-    private static final boolean PARTIAL_SHA1_MATCH = false;
+    private static final String LAYERS_FOLDER = "layers";
+    private static final long MEGA_BYTE = 1048576; // 1024*1024
+    private static final Pattern IMAGE_SIZE_PATTERN = Pattern.compile("([\\d.]+)([kMGT]?B)");
+    private static final String IMAGE_SIZE_UNITS = "BkMGT";
 
     /* --- Members --- */
 
     private FSAConfiguration config;
-    private static Collection<AgentProjectInfo> projects = new LinkedList<>();
+    private final Collection<AgentProjectInfo> projects = new LinkedList<>();
+    private final TempFolders tempFolders;
+    private final String dockerTempFolder;
+    private final DockerLayerCache layersCache;
+    private final DockerDiskBudget diskBudget;
+    private ExecutorService imagesExecutor;
+    private final List<Future<Void>> imageScans = Collections.synchronizedList(new LinkedList<>());
+    // ids of the images that are scanned, an image can be listed locally and pulled as well
+    private final Set<String> scannedImageIds = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger imagesCounter = new AtomicInteger();
 
     /* --- Constructor --- */
 
     public DockerResolver(FSAConfiguration config) {
+        this(config, new TempFolders());
+    }
+
+    /**
+     * @param tempFolders the temp folders of the scan, images are saved and extracted under them
+     */
+    public DockerResolver(FSAConfiguration config, TempFolders tempFolders) {
         this.config = config;
+        this.tempFolders = tempFolders;
+        this.dockerTempFolder = tempFolders.getTempFolder(TempFolders.WHITESOURCE_DOCKER);
+        // streaming and extracted scans produce different layer results, don't share them
+        this.layersCache = new DockerLayerCache(config.getDockerLayersCacheFolder(),
+                String.valueOf(config.getAgent()) + config.getResolver() + config.isDockerLayersStreaming());
+        this.diskBudget = new DockerDiskBudget(config.getDockerScanDiskBudgetMB() * MEGA_BYTE);
     }
 
     /* --- Public methods --- */
@@ -83,7 +103,9 @@ public class DockerResolver {
         // Before calling resolveDockerImages() there is a check for isScanDockerImages()
         // If we create RemoteDockersManager outside of resolveDockerImages then we have to check isScanDockerImages()
         RemoteDockersManager remoteDockersManager = new RemoteDockersManager(config.getRemoteDocker());
-        remoteDockersManager.pullRemoteDockerImages();
+        // images are scanned by up to 'docker.scan.parallelism' workers, so that saving one image overlaps with scanning the others
+        imagesExecutor = Executors.newFixedThreadPool(config.getDockerScanParallelism());
+        logger.info("Scanning docker images, {} at a time", config.getDockerScanParallelism());
 
         String line = null;
         Collection<DockerImage> dockerImages = new LinkedList<>();
@@ -103,7 +125,10 @@ public class DockerResolver {
                     if (!line.startsWith(REPOSITORY)) {
                         String[] dockerImageString = line.split(SPACES_REGEX);
                         if (dockerImageString.length > 2) {
-                            dockerImages.add(new DockerImage(dockerImageString[0], dockerImageString[1], dockerImageString[2]));
+                            DockerImage dockerImage = new DockerImage(dockerImageString[0], dockerImageString[1], dockerImageString[2]);
+                            // the size is the last column
+                            dockerImage.setSize(parseImageSize(dockerImageString[dockerImageString.length - 1]));
+                            dockerImages.add(dockerImage);
                         } else {
                             logger.info("Docker line content is ignored: {}", line);
                         }
@@ -114,10 +139,12 @@ public class DockerResolver {
                     // filter docker images using includes & excludes parameter
                     dockerImagesToScan = filterDockerImagesToScan(dockerImages, config.getAgent().getDockerIncludes(), config.getAgent().getDockerExcludes());
                     if (!dockerImagesToScan.isEmpty()) {
-                        saveDockerImages(dockerImagesToScan, projects);
+                        saveDockerImages(dockerImagesToScan);
                     }
                 }
                 br.close();
+                // the local images were listed before pulling, each pulled image is scanned as soon as its pull finishes
+                remoteDockersManager.pullRemoteDockerImages(this::scanPulledDockerImage);
             } else {
                 Collection<File> tarFiles = new HashSet<>();
                 FilenameFilter filenameFilter = new FilenameFilter() {
@@ -138,8 +165,9 @@ public class DockerResolver {
                     }
                 }
                 Collection<File> tarImagesToScan = filterTarImagesToScan(tarFiles, config.getAgent().getDockerIncludes(), config.getAgent().getDockerExcludes());
-                scanTarList(tarImagesToScan, projects);
+                scanTarList(tarImagesToScan);
             }
+            waitForImageScans();
         } catch (IOException e) {
             logger.error("IO exception : {}", e.getMessage());
             logger.debug("IO exception : {}", e.getStackTrace());
@@ -153,7 +181,9 @@ public class DockerResolver {
             if (process != null) {
                 process.destroy();
             }
+            imagesExecutor.shutdownNow();
         }
+        // only the images pulled by the agent are removed, after all the images were scanned
         remoteDockersManager.removePulledRemoteDockerImages();
         return projects;
     }
@@ -169,19 +199,19 @@ public class DockerResolver {
         Collection<String> imageIncludesList = Arrays.asList(dockerImageIncludes);
         Collection<String> imageExcludesList = Arrays.asList(dockerImageExcludes);
         for (DockerImage dockerImage : dockerImages) {
-            String dockerImageString = dockerImage.getRepository() + Constants.WHITESPACE + dockerImage.getTag() + Constants.WHITESPACE + dockerImage.getId();
-            // add images to scan according to dockerIncludes pattern
-            if (isMatchingPattern(dockerImageString, imageIncludesList)) {
+            if (isDockerImageToScan(dockerImage, imageIncludesList, imageExcludesList)) {
                 dockerImagesToScan.add(dockerImage);
             }
-            // remove images from scan according to dockerExcludes pattern
-            if (isMatchingPattern(dockerImageString, imageExcludesList)) {
-                dockerImagesToScan.remove(dockerImage);
-            }
         }
         return dockerImagesToScan;
     }
 
+    // add images to scan according to dockerIncludes pattern, and remove them according to dockerExcludes pattern
+    private boolean isDockerImageToScan(DockerImage dockerImage, Collection<String> imageIncludesList, Collection<String> imageExcludesList) {
+        String dockerImageString = dockerImage.getRepository() + Constants.WHITESPACE + dockerImage.getTag() + Constants.WHITESPACE + dockerImage.getId();
+        return isMatchingPattern(dockerImageString, imageIncludesList) && !isMatchingPattern(dockerImageString, imageExcludesList);
+    }
+
     private Collection<File> filterTarImagesToScan(Collection<File> dockerImages, String[] dockerImageIncludes, String[] dockerImageExcludes) {
         logger.info("Filtering docker images list by includes and excludes lists");
         Collection<File> dockerImagesToScan = new LinkedList<>();
@@ -217,19 +247,44 @@ public class DockerResolver {
     /**
      * Save docker images and scan files
      */
-    private void saveDockerImages(Collection<DockerImage> dockerImages, Collection<AgentProjectInfo> projects) throws IOException {
+    private void saveDockerImages(Collection<DockerImage> dockerImages) {
         logger.info("Saving {} docker images", dockerImages.size());
-        int counter = 1;
-        int imagesCount = dockerImages.size();
         for (DockerImage dockerImage : dockerImages) {
-            logger.info("Image {} of {} Images", counter, imagesCount);
-            //saveDockerImage(dockerImage, projects);
-            manageDockerImage(dockerImage, projects);
-            counter++;
+            submitDockerImage(dockerImage);
         }
     }
 
-    private void scanTarList (Collection<File> tarFilesName, Collection<AgentProjectInfo> projects) {
+    private void scanPulledDockerImage(DockerImage dockerImage) {
+        if (!isDockerImageToScan(dockerImage, Arrays.asList(config.getAgent().getDockerIncludes()), Arrays.asList(config.getAgent().getDockerExcludes()))) {
+            logger.debug("Pulled image {} {} is not included in the scan", dockerImage.getRepository(), dockerImage.getTag());
+            return;
+        }
+        submitDockerImage(dockerImage);
+    }
+
+    private void submitDockerImage(DockerImage dockerImage) {
+        if (!scannedImageIds.add(dockerImage.getId())) {
+            logger.debug("Image {} {} is already scanned", dockerImage.getRepository(), dockerImage.getTag());
+            return;
+        }
+        // create agent project info, images listed locally keep their order even though they are scanned concurrently
+        AgentProjectInfo projectInfo = new AgentProjectInfo();
+        projectInfo.setCoordinates(new Coordinates(null, DOCKER_NAME_FORMAT.format(DOCKER_NAME_FORMAT_STRING, dockerImage.getId(),
+                dockerImage.getRepository(), dockerImage.getTag()), null));
+        synchronized (projects) {
+            projects.add(projectInfo);
+        }
+
+        int imageNumber = imagesCounter.incrementAndGet();
+        // the saved image and its extracted layers take about twice the image size, streamed images are not written to the disk
+        long requiredSpace = config.isDockerLayersStreaming() ? 0 : dockerImage.getSize() > 0 ? dockerImage.getSize() * 2 : Long.MAX_VALUE;
+        submitImageScan(requiredSpace, () -> {
+            logger.info("Image {} - {} {}", imageNumber, dockerImage.getRepository(), dockerImage.getTag());
+            manageDockerImage(dockerImage, projectInfo);
+        });
+    }
+
+    private void scanTarList (Collection<File> tarFilesName) {
         int i=0;
         for (File tarFile:tarFilesName) {
             String tar = tarFile.getAbsolutePath();
@@ -251,38 +306,100 @@ public class DockerResolver {
                         repository, tag), null));
                 projects.add(projectInfo);
                 File imageTarFile = new File(tar);
-                File imageExtractionDir = new File(TEMP_FOLDER, imageTarFile.getName());
-                imageExtractionDir.mkdirs();
-                extractAndBuildImage(imageTarFile, imageExtractionDir, projectInfo, config.deleteTarImages());
-                scanImage(imageExtractionDir, projectInfo);
-                deleteDockerArchiveFiles(null, imageExtractionDir);
+                // the image is already saved, only its extracted layers take more space
+                long requiredSpace = config.isDockerLayersStreaming() ? 0 : imageTarFile.length();
+                submitImageScan(requiredSpace, () -> scanImageTar(imageTarFile, projectInfo));
             } else {
                 logger.info("file {} name is not in format 'Hash Name (Tag)'", tar);
             }
         }
     }
 
-    private void manageDockerImage(DockerImage dockerImage, Collection<AgentProjectInfo> projects) throws IOException {
+    private void scanImageTar(File imageTarFile, AgentProjectInfo projectInfo) {
+        if (config.isDockerLayersStreaming()) {
+            streamImageTar(imageTarFile, projectInfo);
+            if (config.deleteTarImages() && !imageTarFile.delete()) {
+                logger.warn("Was not able to delete {} (docker image TAR file)", imageTarFile.getName());
+            }
+            return;
+        }
+        File imageExtractionDir = new File(dockerTempFolder, imageTarFile.getName());
+        imageExtractionDir.mkdirs();
+        scanImageLayers(imageTarFile, imageExtractionDir, projectInfo, config.deleteTarImages());
+        deleteDockerArchiveFiles(null, imageExtractionDir);
+    }
+
+    private void manageDockerImage(DockerImage dockerImage, AgentProjectInfo projectInfo) {
         logger.debug("Saving image {} {}", dockerImage.getRepository(), dockerImage.getTag());
-        // create agent project info
-        AgentProjectInfo projectInfo = new AgentProjectInfo();
-        projectInfo.setCoordinates(new Coordinates(null, DOCKER_NAME_FORMAT.format(DOCKER_NAME_FORMAT_STRING, dockerImage.getId(),
-                dockerImage.getRepository(), dockerImage.getTag()), null));
-        projects.add(projectInfo);
+        if (config.isDockerLayersStreaming()) {
+            streamDockerImage(dockerImage, projectInfo);
+            return;
+        }
 
-        File imageTarFile = new File(TEMP_FOLDER, dockerImage.getRepository() + TAR_SUFFIX);
-        File imageExtractionDir = new File(TEMP_FOLDER, dockerImage.getRepository());
+        // images are saved concurrently, so the temp files are named by the image id and not by its repository
+        File imageTarFile = new File(dockerTempFolder, dockerImage.getId() + TAR_SUFFIX);
+        File imageExtractionDir = new File(dockerTempFolder, dockerImage.getId());
         imageExtractionDir.mkdirs();
 
         boolean saved = saveImage(dockerImage, imageTarFile);
         if (saved) {
-            extractAndBuildImage(imageTarFile, imageExtractionDir, projectInfo, config.deleteTarImages());
-            scanImage(imageExtractionDir, projectInfo);
+            scanImageLayers(imageTarFile, imageExtractionDir, projectInfo, config.deleteTarImages());
         }
 
         deleteDockerArchiveFiles(imageTarFile, imageExtractionDir);
     }
 
+    /**
+     * Create a task that scans a single image once the space it needs on the disk is available
+     */
+    private Callable<Void> createImageTask(long requiredSpace, Runnable imageScan) {
+        return () -> {
+            long reservedSpace = diskBudget.acquire(requiredSpace);
+            try {
+                imageScan.run();
+            } catch (Exception e) {
+                logger.error("Failed to scan docker image: {}", e.getMessage());
+                logger.debug("Failed to scan docker image", e);
+            } finally {
+                diskBudget.release(reservedSpace);
+            }
+            return null;
+        };
+    }
+
+    private void submitImageScan(long requiredSpace, Runnable imageScan) {
+        imageScans.add(imagesExecutor.submit(createImageTask(requiredSpace, imageScan)));
+    }
+
+    private void waitForImageScans() throws InterruptedException {
+        List<Future<Void>> submittedScans;
+        synchronized (imageScans) {
+            submittedScans = new ArrayList<>(imageScans);
+        }
+        for (Future<Void> imageScan : submittedScans) {
+            try {
+                imageScan.get();
+            } catch (ExecutionException e) {
+                logger.debug("Failed to scan docker image", e);
+            }
+        }
+    }
+
+    // parse the size column of 'docker images' (i.e. '73.9MB'), docker uses decimal units
+    private long parseImageSize(String size) {
+        Matcher matcher = IMAGE_SIZE_PATTERN.matcher(size);
+        if (!matcher.matches()) {
+            return 0;
+        }
+        try {
+            double value = Double.parseDouble(matcher.group(1));
+            int unit = IMAGE_SIZE_UNITS.indexOf(matcher.group(2).charAt(0));
+            return (long) (value * Math.pow(1000, Math.max(unit, 0)));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     private boolean saveImage(DockerImage dockerImage, File imageTarFile) {
         Process process = null;
         try {
@@ -303,81 +420,184 @@ public class DockerResolver {
         return false;
     }
 
-    private void extractAndBuildImage (File imageTarFile, File imageExtractionDir, AgentProjectInfo projectInfo, Boolean fromTarList) {
-        ArchiveExtractor archiveExtractor = new ArchiveExtractor(config.getAgent().getArchiveIncludes(), config.getAgent().getArchiveExcludes(), config.getAgent().getIncludes());
+    /**
+     * Scan the output of 'docker save' while it is written, without saving or extracting the image on the disk.
+     * If all the layers of the image were already scanned, the image is not saved at all.
+     */
+    private void streamDockerImage(DockerImage dockerImage, AgentProjectInfo projectInfo) {
+        List<DockerLayerScanResult> cachedLayers = getCachedLayers(dockerImage);
+        if (cachedLayers != null) {
+            projectInfo.getDependencies().addAll(DockerMergedView.compose(cachedLayers));
+            logger.info("Found {} dependencies in {} layers (all layers were already scanned)", projectInfo.getDependencies().size(), cachedLayers.size());
+            return;
+        }
+        Process process = null;
+        File errorFile = null;
+        try {
+            // written to a file, a full error pipe would block 'docker save' while the image is read
+            errorFile = File.createTempFile(DOCKER + DASH + SAVE, LOG_EXTENSION);
+            process = new ProcessBuilder(DOCKER, SAVE, dockerImage.getId()).redirectError(errorFile).start();
+            List<DockerLayerScanResult> layerResults;
+            try (InputStream imageStream = process.getInputStream()) {
+                layerResults = new DockerImageStreamScanner(config.getAgent(), layersCache).scan(imageStream);
+            }
+            if (process.waitFor() != 0) {
+                logger.error("Error exporting image {}: {}", dockerImage.getRepository(), FileUtils.readFileToString(errorFile, StandardCharsets.UTF_8));
+                return;
+            }
+            projectInfo.getDependencies().addAll(DockerMergedView.compose(layerResults));
+            logger.info("Found {} dependencies in {} layers", projectInfo.getDependencies().size(), layerResults.size());
+        } catch (InterruptedException e) {
+            logger.error(e.getMessage());
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            logger.error("Error exporting image {}: {}", dockerImage.getRepository(), e.getMessage());
+            logger.debug("Error exporting image {}", dockerImage.getRepository(), e);
+        } finally {
+            if (process != null) {
+                process.destroy();
+            }
+            FileUtils.deleteQuietly(errorFile);
+        }
+    }
+
+    private void streamImageTar(File imageTarFile, AgentProjectInfo projectInfo) {
+        try (InputStream imageStream = new BufferedInputStream(new FileInputStream(imageTarFile))) {
+            List<DockerLayerScanResult> layerResults = new DockerImageStreamScanner(config.getAgent(), layersCache).scan(imageStream);
+            projectInfo.getDependencies().addAll(DockerMergedView.compose(layerResults));
+            logger.info("Found {} dependencies in {} layers", projectInfo.getDependencies().size(), layerResults.size());
+        } catch (IOException e) {
+            logger.error("Error reading image {}: {}", imageTarFile.getName(), e.getMessage());
+            logger.debug("Error reading image {}", imageTarFile.getName(), e);
+        }
+    }
+
+    /**
+     * Get the cached results of all the image layers, using the diff ids reported by 'docker image inspect'
+     *
+     * @return the layers results, or null if one of the layers wasn't scanned yet
+     */
+    private List<DockerLayerScanResult> getCachedLayers(DockerImage dockerImage) {
+        Process process = null;
+        try {
+            process = new ProcessBuilder(DOCKER, IMAGE, INSPECT, FORMAT_PARAMETER, ROOTFS_LAYERS_FORMAT, dockerImage.getId()).start();
+            String output = IOUtils.toString(process.getInputStream(), StandardCharsets.UTF_8);
+            if (process.waitFor() != 0) {
+                return null;
+            }
+            List<DockerLayerScanResult> layerResults = new LinkedList<>();
+            for (JsonElement diffId : new JsonParser().parse(output).getAsJsonArray()) {
+                DockerLayerScanResult layerResult = layersCache.get(diffId.getAsString());
+                if (layerResult == null) {
+                    return null;
+                }
+                layerResults.add(layerResult);
+            }
+            return layerResults.isEmpty() ? null : layerResults;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.debug("Could not get the layers of image {}: {}", dockerImage.getRepository(), e.getMessage());
+        } finally {
+            if (process != null) {
+                process.destroy();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Scan the image layer by layer. Layers that were already scanned (by another image, or in a previous run when a layers
+     * cache folder is configured) are not extracted again, and the image dependencies are composed from the results of its layers.
+     */
+    private void scanImageLayers(File imageTarFile, File imageExtractionDir, AgentProjectInfo projectInfo, boolean deleteTarFile) {
+        ArchiveExtractor archiveExtractor = new ArchiveExtractor(config.getAgent().getArchiveIncludes(), config.getAgent().getArchiveExcludes(), config.getAgent().getIncludes(),
+                false, tempFolders);
         try {
-            int megaByte = 1048576; // 1024*1024
             long tarSizeInBytes = imageTarFile.length();
-            long tarSizeInMBs = tarSizeInBytes/megaByte;
+            long tarSizeInMBs = tarSizeInBytes/MEGA_BYTE;
             long freeDiskSpaceInBytes = imageTarFile.getFreeSpace();
-            long freeDiskSpaceInMBs = imageTarFile.getFreeSpace()/megaByte;
+            long freeDiskSpaceInMBs = imageTarFile.getFreeSpace()/MEGA_BYTE;
 
             logger.info("Extracting file {} - Size {} Bytes ({} MBs)- Free Space {} Bytes ({} MBs)",
                     imageTarFile.getCanonicalPath(), tarSizeInBytes, tarSizeInMBs, freeDiskSpaceInBytes, freeDiskSpaceInMBs);
         } catch (Exception ex){
             logger.error("Could not get file size - {}", ex);
         }
-        archiveExtractor.extractDockerImageLayers(imageTarFile, imageExtractionDir, fromTarList);
-        FilesScanner filesScanner = new FilesScanner();
-        String[] fileNames = filesScanner.getDirectoryContent(imageExtractionDir.getParent(), scanIncludes, scanExcludes, true, false);
-
-        // build the full path correctly
-        for (int i = 0; i < fileNames.length; i++) {
-            fileNames[i] = imageExtractionDir.getParent() + File.separator + fileNames[i];
+        boolean extracted = archiveExtractor.extractDockerTar(imageTarFile, imageExtractionDir);
+        if (deleteTarFile && !imageTarFile.delete()) {
+            logger.warn("Was not able to delete {} (docker image TAR file)", imageTarFile.getName());
+        }
+        if (!extracted) {
+            return;
         }
 
-        // check for dependencies for each docker operating system (Debian,Arch-Linux,Alpine,Rpm)
-        AbstractParser parser = new DebianParser();
-        File file = parser.findFile(fileNames, DEBIAN_LIST_PACKAGES_FILE);
-
-        // extract .xz file to read the package log file
-        if (file != null) {
-            file = getPackagesLogFile(file, archiveExtractor);
+        DockerLayerScanner layerScanner = new DockerLayerScanner(config, archiveExtractor, tempFolders);
+        List<DockerLayer> layers = new DockerManifestReader().readLayers(imageExtractionDir);
+        DockerLayerScanResult[] layerResults = new DockerLayerScanResult[layers.size()];
+        // layers are scanned from the top layer down, so files hidden by the upper layers are known before scanning a layer
+        DockerMergedView mergedView = new DockerMergedView();
+        int cachedLayers = 0;
+        int skippedFiles = 0;
+        for (int i = layers.size() - 1; i >= 0; i--) {
+            DockerLayer layer = layers.get(i);
+            DockerLayerFiles layerFiles = readLayerFiles(layer);
+            DockerLayerScanResult layerResult = layersCache.get(layer.getDiffId());
+            // a cached layer that skipped files which are visible in this image has to be scanned again, this time completely
+            boolean scanAllFiles = layerResult != null;
+            if (layerResult != null && mergedView.isHiddenAll(layerResult.getSkippedPaths())) {
+                logger.debug("Layer {} was already scanned", layer.getDiffId());
+                cachedLayers++;
+            } else {
+                layerResult = null;
+                File layerDir = new File(imageExtractionDir, LAYERS_FOLDER + File.separator + i);
+                if (archiveExtractor.extractDockerTar(layer.getLayerTar(), layerDir)) {
+                    // the layer tar is not needed anymore, free its space before scanning
+                    FileUtils.deleteQuietly(layer.getLayerTar());
+                    Collection<String> hiddenFiles = scanAllFiles || layerFiles == null ?
+                            new LinkedList<>() : removeHiddenFiles(layerDir, layerFiles, mergedView);
+                    skippedFiles += hiddenFiles.size();
+                    layerResult = layerScanner.scan(layer.getDiffId(), layerDir);
+                    layerResult.setSkippedPaths(hiddenFiles);
+                    layersCache.put(layerResult);
+                }
+                FileUtils.deleteQuietly(layerDir);
+            }
+            layerResults[i] = layerResult;
+            if (layerFiles != null) {
+                mergedView.addUpperLayer(layerFiles);
+            }
         }
-        parseProjectInfo(projectInfo, parser, file);
-        file = parser.findFile(fileNames, DEBIAN_LIST_PACKAGES_FILE_AVAILABLE);
-        if (file != null) {
-            parseProjectInfo(projectInfo, parser, file);
+        List<DockerLayerScanResult> scannedLayers = new LinkedList<>();
+        for (DockerLayerScanResult layerResult : layerResults) {
+            if (layerResult != null) {
+                scannedLayers.add(layerResult);
+            }
         }
+        projectInfo.getDependencies().addAll(DockerMergedView.compose(scannedLayers));
+        logger.info("Found {} dependencies in {} layers ({} layers were already scanned, {} files hidden by upper layers were skipped)",
+                projectInfo.getDependencies().size(), layers.size(), cachedLayers, skippedFiles);
+    }
 
-        // try to find duplicates and clear them
-        Collection<DependencyInfo> debianDependencyInfos = mergeDependencyInfos(projectInfo);
-        if (debianDependencyInfos != null && !debianDependencyInfos.isEmpty()) {
-            projectInfo.getDependencies().clear();
-            projectInfo.getDependencies().addAll(debianDependencyInfos);
+    private DockerLayerFiles readLayerFiles(DockerLayer layer) {
+        try {
+            return DockerLayerFiles.read(layer.getLayerTar());
+        } catch (IOException e) {
+            logger.warn("Failed to read the files of layer {}: {}", layer.getLayerTar().getPath(), e.getMessage());
+            return null;
         }
-        logger.info("Found {} Debian Packages", debianDependencyInfos.size());
-
-        parser = new ArchLinuxParser();
-        file = parser.findFile(fileNames, ARCH_LINUX_DESC_FOLDERS);
-        int archLinuxPackages = parseProjectInfo(projectInfo, parser, file);
-        logger.info("Found {} Arch linux Packages", archLinuxPackages);
-
-        parser = new AlpineParser();
-        file = parser.findFile(fileNames, ALPINE_LIST_PACKAGES_FILE);
-        int alpinePackages = parseProjectInfo(projectInfo, parser, file);
-        logger.info("Found {} Alpine Packages", alpinePackages);
-
-        RpmParser rpmParser = new RpmParser();
-        Collection<String> yumDbFoldersPath = new LinkedList<>();
-        RpmParser.findFolder(imageExtractionDir, YUM_DB, yumDbFoldersPath);
-        File yumDbFolder = rpmParser.checkFolders(yumDbFoldersPath, RPM_YUM_DB_FOLDER_DEFAULT_PATH);
-        int rpmPackages = parseProjectInfo(projectInfo, rpmParser, yumDbFolder);
-        logger.info("Found {} Rpm Packages", rpmPackages);
     }
 
-    private void scanImage (File imageExtractionDir, AgentProjectInfo projectInfo) {
-        String extractPath = imageExtractionDir.getPath();
-        Set<String> setDirs = new HashSet<>();
-        setDirs.add(extractPath);
-        Map<String, Set<String>> appPathsToDependencyDirs = new HashMap<>();
-        appPathsToDependencyDirs.put(FSAConfiguration.DEFAULT_KEY, setDirs);
-        List<DependencyInfo> dependencyInfos = new FileSystemScanner(config.getResolver(), config.getAgent(), false).createProjects(
-                Arrays.asList(extractPath), appPathsToDependencyDirs, false, config.getAgent().getIncludes(), config.getAgent().getExcludes(),
-                config.getAgent().getGlobCaseSensitive(), config.getAgent().getArchiveExtractionDepth(), FileExtensions.ARCHIVE_INCLUDES,
-                FileExtensions.ARCHIVE_EXCLUDES, false, config.getAgent().isFollowSymlinks(), config.getAgent().getExcludedCopyrights(), PARTIAL_SHA1_MATCH, config.getAgent().getPythonRequirementsFileIncludes());
-
-        projectInfo.getDependencies().addAll(dependencyInfos);
+    // remove the files of an extracted layer that are replaced or deleted by the upper layers, they are not part of the image
+    private Collection<String> removeHiddenFiles(File layerDir, DockerLayerFiles layerFiles, DockerMergedView mergedView) {
+        Collection<String> hiddenFiles = new LinkedList<>();
+        for (String path : layerFiles.getFiles()) {
+            if (mergedView.isHidden(path)) {
+                FileUtils.deleteQuietly(new File(layerDir, path));
+                hiddenFiles.add(path);
+            }
+        }
+        return hiddenFiles;
     }
 
     /*
@@ -487,39 +707,6 @@ public class DockerResolver {
         }
     }*/
 
-    private Collection<DependencyInfo> mergeDependencyInfos(AgentProjectInfo projectInfo) {
-        Map<String, DependencyInfo> infoMap = new HashedMap();
-        Collection<DependencyInfo> dependencyInfos = new LinkedList<>();
-        if (projectInfo != null) {
-            Collection<DependencyInfo> dependencies = projectInfo.getDependencies();
-            for (DependencyInfo dependencyInfo : dependencies) {
-                infoMap.putIfAbsent(dependencyInfo.getArtifactId(), dependencyInfo);
-            }
-        }
-        for (Map.Entry<String, DependencyInfo> entry : infoMap.entrySet()) {
-            if (entry.getValue() != null) {
-                dependencyInfos.add(entry.getValue());
-            }
-        }
-        return dependencyInfos;
-    }
-
-    private File getPackagesLogFile(File file, ArchiveExtractor archiveExtractor) {
-        archiveExtractor.unXz(file, file.getParent() + File.separator + PACKAGE_LOG_TXT);
-        return new File(file.getParent() + File.separator + PACKAGE_LOG_TXT);
-    }
-
-    private int parseProjectInfo(AgentProjectInfo projectInfo, AbstractParser parser, File file) {
-        if (file != null) {
-            Collection<DependencyInfo> packageManagerPackages = parser.parse(file);
-            if (!packageManagerPackages.isEmpty()) {
-                projectInfo.getDependencies().addAll(packageManagerPackages);
-            }
-            return packageManagerPackages.size();
-        }
-        return 0;
-    }
-
     private void deleteDockerArchiveFiles(File imageTarFile, File imageTarExtractDir) {
         FileUtils.deleteQuietly(imageTarFile);
         FileUtils.deleteQuietly(imageTarExtractDir);
@@ -35,20 +35,8 @@ public class RpmParser extends AbstractParser {
             for (File directory : files) {
                 File[] packageDirectories = directory.listFiles();
                 for (File packageDirectory : packageDirectories) {
-                    // parse the package name from package directory
-                    // get the start index of package name
-                    // package Directory Name for
-                    int firstHyphenIndex = packageDirectory.getName().indexOf(Constants.DASH);
-                    String packageInfoString = packageDirectory.getName().substring(firstHyphenIndex + 1, packageDirectory.getName().length());
-                    // change rpm pattern name to application pattern
-                    int lastIndexOfHyphen = packageInfoString.lastIndexOf(Constants.DASH);
-                    packageInfoString = packageInfoString.substring(0, lastIndexOfHyphen) + Constants.DOT + packageInfoString.substring(lastIndexOfHyphen + 1);
-                    // create dependencyInfo object
-                    DependencyInfo dependencyInfo = null;
-                    String packVersion = getPackageVersion(packageInfoString);
-                    if (packVersion != null) {
-                        dependencyInfo = new DependencyInfo(
-                                null, MessageFormat.format(RPM_PACKAGE_PATTERN, packageInfoString), packVersion);
+                    DependencyInfo dependencyInfo = parsePackageDirectory(packageDirectory);
+                    if (dependencyInfo != null) {
                         dependencyInfos.add(dependencyInfo);
                     }
                 }
@@ -61,6 +49,25 @@ public class RpmParser extends AbstractParser {
         return dependencyInfos;
     }
 
+    /**
+     * Create the dependency of a single yumdb package directory (i.e. yumdb/a/<checksum>-audit-libs-2.7.6-3.el7-x86_64)
+     */
+    public DependencyInfo parsePackageDirectory(File packageDirectory) {
+        // parse the package name from package directory
+        // get the start index of package name
+        int firstHyphenIndex = packageDirectory.getName().indexOf(Constants.DASH);
+        String packageInfoString = packageDirectory.getName().substring(firstHyphenIndex + 1, packageDirectory.getName().length());
+        // change rpm pattern name to application pattern
+        int lastIndexOfHyphen = packageInfoString.lastIndexOf(Constants.DASH);
+        packageInfoString = packageInfoString.substring(0, lastIndexOfHyphen) + Constants.DOT + packageInfoString.substring(lastIndexOfHyphen + 1);
+        // create dependencyInfo object
+        String packVersion = getPackageVersion(packageInfoString);
+        if (packVersion != null) {
+            return new DependencyInfo(null, MessageFormat.format(RPM_PACKAGE_PATTERN, packageInfoString), packVersion);
+        }
+        return null;
+    }
+
     // get rpm package version
     private String getPackageVersion(String packageInfoString) {
         // packageInfoString for example - audit-libs-2.7.6-3.el7-x86_64
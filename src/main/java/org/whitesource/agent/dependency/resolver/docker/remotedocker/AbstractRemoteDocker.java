@@ -3,6 +3,7 @@ package org.whitesource.agent.dependency.resolver.docker.remotedocker;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.whitesource.agent.Constants;
+import org.whitesource.agent.dependency.resolver.docker.DockerImage;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.utils.Pair;
 import org.whitesource.fs.configuration.RemoteDockerConfiguration;
@@ -13,6 +14,9 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -25,8 +29,13 @@ public abstract class AbstractRemoteDocker {
     protected static final String DOCKER_CLI_LOGIN  = "docker login";
     protected static final String DOCKER_CLI_REMOVE_IMAGE = "docker rmi ";
     protected static final String DOCKER_CLI_PULL = "docker pull ";
+    protected static final String DOCKER_CLI_INSPECT_IMAGE = "docker image inspect --format={{.Id}}|{{.Size}} ";
     protected static final String LINUX_PREFIX_SUDO = "sudo ";
     protected static final String WS_SCANNED_TAG = "WS.Scanned";
+    private static final String SHA256_PREFIX = "sha256:";
+    private static final String INSPECT_SEPARATOR = "|";
+    private static final String LATEST_TAG = "latest";
+    private static final int SHORT_IMAGE_ID_LENGTH = 12;
 
     // This is a set of the pulled images only - Users may require to pull existing images - but they are not saved
     // in this set because we will remove the images that we pulled here (we don't want to remove the existing images
@@ -37,8 +46,8 @@ public abstract class AbstractRemoteDocker {
 
     protected RemoteDockerConfiguration config;
 
-    private int pulledImagesCount;
-    private int existingImagesCount;
+    private final AtomicInteger pulledImagesCount = new AtomicInteger();
+    private final AtomicInteger existingImagesCount = new AtomicInteger();
     private int maxScanImagesCount;
     private int scannedImagesCount;
 
@@ -46,20 +55,24 @@ public abstract class AbstractRemoteDocker {
 
     public AbstractRemoteDocker(RemoteDockerConfiguration config) {
         this.config = config;
-        pulledImagesCount = 0;
-        existingImagesCount = 0;
         maxScanImagesCount = config.getMaxScanImages();
         scannedImagesCount = 0;
     }
 
     /* --- Public methods --- */
 
-    public Set<AbstractRemoteDockerImage> pullRemoteDockerImages() {
+    /**
+     * Pull the required images of the remote registry
+     *
+     * @param pulledImageConsumer - receives each image as soon as it is pulled, while other images are still being pulled
+     * @return the images pulled by the agent (images that were up to date are not included)
+     */
+    public Set<AbstractRemoteDockerImage> pullRemoteDockerImages(Consumer<DockerImage> pulledImageConsumer) {
         if (isAllSoftwareRequiredInstalled()) {
              if (loginToRemoteRegistry()) {
                  imagesFound = getRemoteRegistryImagesList();
                  if (imagesFound != null && !imagesFound.isEmpty()) {
-                     imagesPulled = pullImagesFromRemoteRegistry();
+                     imagesPulled = pullImagesFromRemoteRegistry(pulledImageConsumer);
                  }
                  logger.info("{} New images were pulled", pulledImagesCount);
                  logger.info("{} Images are up to date (not pulled)", existingImagesCount);
@@ -104,31 +117,115 @@ public abstract class AbstractRemoteDocker {
 
     protected abstract String getImageFullURL(AbstractRemoteDockerImage image);
 
-    private Set<AbstractRemoteDockerImage> pullImagesFromRemoteRegistry() {
-        Set<AbstractRemoteDockerImage> pulledImagesList = new HashSet<>();
+    /**
+     * Pull the required images, each registry is pulled by up to 'docker.pull.parallelism' concurrent workers
+     */
+    private Set<AbstractRemoteDockerImage> pullImagesFromRemoteRegistry(Consumer<DockerImage> pulledImageConsumer) {
+        Set<AbstractRemoteDockerImage> pulledImagesList = ConcurrentHashMap.newKeySet();
         int maxPullImages = config.getMaxPullImages();
-        int pullImagesCounter = 0;
         if (maxPullImages < 1) {
             logger.info("No images will be pull - Configuration 'docker.pull.maxImages' is equal to {} ", maxPullImages);
             return pulledImagesList;
         }
+        AtomicInteger remainingPulls = new AtomicInteger(maxPullImages);
+        Map<String, ExecutorService> registriesExecutors = new HashMap<>();
+        List<Future<?>> pulls = new LinkedList<>();
         for (AbstractRemoteDockerImage image : imagesFound) {
             // Check if image meets the required name/tag/digest
             if (isImagePullRequired(image)) {
                 String imageURL = getImageFullURL(image);
-                if (pullImageWithFullUrl(imageURL)) {
-                    pulledImagesList.add(image);
-                    pullImagesCounter++;
-                }
+                ExecutorService registryExecutor = registriesExecutors.computeIfAbsent(getRegistry(imageURL),
+                        registry -> Executors.newFixedThreadPool(config.getPullParallelism()));
+                pulls.add(registryExecutor.submit(() -> pullImage(image, imageURL, remainingPulls, pulledImagesList, pulledImageConsumer)));
             }
-            if (pullImagesCounter >= maxPullImages) {
-                logger.info("Reached maximum images pull count of {} - will not pull any more images", pullImagesCounter);
-                break;
+        }
+        try {
+            // a failed pull doesn't stop the others, every pull is waited for
+            for (Future<?> pull : pulls) {
+                try {
+                    pull.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() == null ? e : e.getCause();
+                    logger.warn("Failed to pull image: {}", cause.getMessage());
+                    logger.debug("Failed to pull image", cause);
+                }
             }
+        } catch (InterruptedException e) {
+            logger.warn("Pulling images was interrupted: {}", e.getMessage());
+            Thread.currentThread().interrupt();
+        } finally {
+            // the pulls are all done by now, unless waiting for them was interrupted
+            registriesExecutors.values().forEach(ExecutorService::shutdownNow);
+        }
+        if (remainingPulls.get() <= 0) {
+            logger.info("Reached maximum images pull count of {} - will not pull any more images", maxPullImages);
         }
         return pulledImagesList;
     }
 
+    private void pullImage(AbstractRemoteDockerImage image, String imageURL, AtomicInteger remainingPulls,
+                           Set<AbstractRemoteDockerImage> pulledImagesList, Consumer<DockerImage> pulledImageConsumer) {
+        // take a pull slot before pulling and give it back if no new image was downloaded, so no more than 'docker.pull.maxImages' are pulled
+        if (remainingPulls.getAndUpdate(remaining -> Math.max(remaining - 1, 0)) <= 0) {
+            logger.debug("Reached maximum images pull count - image {} will not be pulled", imageURL);
+            return;
+        }
+        if (!pullImageWithFullUrl(imageURL)) {
+            remainingPulls.incrementAndGet();
+            return;
+        }
+        pulledImagesList.add(image);
+        DockerImage dockerImage = getPulledDockerImage(imageURL);
+        if (dockerImage != null) {
+            try {
+                pulledImageConsumer.accept(dockerImage);
+            } catch (Exception e) {
+                logger.warn("Failed to handle pulled image {}: {}", imageURL, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get the local image of a pulled image url ('registry/repository:tag'), with its id and size as listed by 'docker images'
+     */
+    private DockerImage getPulledDockerImage(String imageURL) {
+        String repository = imageURL;
+        String tag = LATEST_TAG;
+        int tagIndex = imageURL.lastIndexOf(Constants.COLON);
+        if (tagIndex > imageURL.lastIndexOf(Constants.FORWARD_SLASH)) {
+            repository = imageURL.substring(0, tagIndex);
+            tag = imageURL.substring(tagIndex + 1);
+        }
+        Pair<Integer, InputStream> result = executeCommand(DOCKER_CLI_INSPECT_IMAGE + imageURL);
+        if (result == null || result.getValue() == null) {
+            logger.warn("Could not find pulled image {}", imageURL);
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(result.getValue(), StandardCharsets.UTF_8))) {
+            String line = reader.readLine();
+            if (result.getKey() != 0 || StringUtils.isBlank(line)) {
+                logger.warn("Could not find pulled image {}", imageURL);
+                return null;
+            }
+            String[] idAndSize = line.trim().split(Pattern.quote(INSPECT_SEPARATOR));
+            String id = idAndSize[0].startsWith(SHA256_PREFIX) ? idAndSize[0].substring(SHA256_PREFIX.length()) : idAndSize[0];
+            DockerImage dockerImage = new DockerImage(repository, tag, id.substring(0, Math.min(id.length(), SHORT_IMAGE_ID_LENGTH)));
+            if (idAndSize.length > 1 && StringUtils.isNumeric(idAndSize[1])) {
+                dockerImage.setSize(Long.parseLong(idAndSize[1]));
+            }
+            return dockerImage;
+        } catch (IOException e) {
+            logger.warn("Could not find pulled image {}: {}", imageURL, e.getMessage());
+            return null;
+        }
+    }
+
+    // the registry of an image url is the host before the first '/'
+    private String getRegistry(String imageURL) {
+        int separatorIndex = imageURL == null ? -1 : imageURL.indexOf(Constants.FORWARD_SLASH);
+        return separatorIndex > 0 ? imageURL.substring(0, separatorIndex) : Constants.EMPTY_STRING;
+    }
+
     private boolean isAllSoftwareRequiredInstalled() {
         return isDockerInstalled() && isRegistryCliInstalled();
     }
@@ -275,7 +372,8 @@ public abstract class AbstractRemoteDocker {
                 try (final BufferedReader reader
                              = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
                     for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                        System.out.println(line);
+                        // images are pulled concurrently, so the progress lines are not printed to the console
+                        logger.debug(line);
                         resultText.append(line);
                     }
                 }
@@ -287,10 +385,10 @@ public abstract class AbstractRemoteDocker {
                         String status = resultText.substring(index);
                         logger.info("{}", status);
                         if (status.contains("Image is up to date for")) {
-                            existingImagesCount++;
+                            existingImagesCount.incrementAndGet();
                             result = false; // The image was not pulled
                         } else if (status.contains("Downloaded newer image for")) {
-                            pulledImagesCount++;
+                            pulledImagesCount.incrementAndGet();
                         }
                     }
                 } else {
@@ -1,10 +1,12 @@
 package org.whitesource.agent.dependency.resolver.docker.remotedocker;
 
+import org.whitesource.agent.dependency.resolver.docker.DockerImage;
 import org.whitesource.agent.dependency.resolver.docker.remotedocker.amazon.RemoteDockerAmazonECR;
 import org.whitesource.agent.dependency.resolver.docker.remotedocker.azure.AzureRemoteDocker;
 import org.whitesource.fs.configuration.RemoteDockerConfiguration;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 public class RemoteDockersManager {
 
@@ -27,12 +29,15 @@ public class RemoteDockersManager {
         }
     }
 
-    public Set<AbstractRemoteDockerImage> pullRemoteDockerImages() {
+    /**
+     * @param pulledImageConsumer - receives each pulled image as soon as its pull finishes, so it can be scanned while other images are pulled
+     */
+    public Set<AbstractRemoteDockerImage> pullRemoteDockerImages(Consumer<DockerImage> pulledImageConsumer) {
         if (!remoteDockersEnabled) {
             return Collections.emptySet();
         }
         for (AbstractRemoteDocker remoteDocker : remoteDockersList) {
-            Set<AbstractRemoteDockerImage> pulledImages = remoteDocker.pullRemoteDockerImages();
+            Set<AbstractRemoteDockerImage> pulledImages = remoteDocker.pullRemoteDockerImages(pulledImageConsumer);
             if (pulledImages != null) {
                 pulledDockerImages.addAll(pulledImages);
             }
@@ -1,5 +1,6 @@
 package org.whitesource.agent.dependency.resolver.dotNet;
 
+import org.whitesource.agent.TempFolders;
 import org.whitesource.agent.api.model.AgentProjectInfo;
 import org.whitesource.agent.api.model.DependencyInfo;
 import org.whitesource.agent.dependency.resolver.ResolutionResult;
@@ -23,10 +24,15 @@ public class DotNetDependencyResolver extends NugetDependencyResolver {
 
     /* --- Constructor --- */
 
-    public DotNetDependencyResolver(String whitesourceConfiguration, NugetConfigFileType nugetConfigFileType, boolean nugetRestoreDependencies, boolean ignoreSourceFiles) {
-        super(whitesourceConfiguration, nugetConfigFileType, nugetRestoreDependencies, ignoreSourceFiles);
+    public DotNetDependencyResolver(String whitesourceConfiguration, NugetConfigFileType nugetConfigFileType, boolean nugetRestoreDependencies, boolean ignoreSourceFiles, int restoreParallelism) {
+        this(whitesourceConfiguration, nugetConfigFileType, nugetRestoreDependencies, ignoreSourceFiles, restoreParallelism, new TempFolders());
+    }
+
+    public DotNetDependencyResolver(String whitesourceConfiguration, NugetConfigFileType nugetConfigFileType, boolean nugetRestoreDependencies, boolean ignoreSourceFiles, int restoreParallelism,
+                                    TempFolders tempFolders) {
+        super(whitesourceConfiguration, nugetConfigFileType, nugetRestoreDependencies, ignoreSourceFiles, restoreParallelism, tempFolders);
         this.nugetRestoreDependencies = nugetRestoreDependencies;
-        this.resolveCollector = new DotNetRestoreCollector();
+        this.resolveCollector = new DotNetRestoreCollector(restoreParallelism, tempFolders);
     }
 
     /* --- Overridden methods --- */
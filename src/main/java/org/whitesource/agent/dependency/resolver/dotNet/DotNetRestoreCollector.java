@@ -1,8 +1,19 @@
 package org.whitesource.agent.dependency.resolver.dotNet;
 
+import org.apache.commons.io.FileUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
 import org.whitesource.agent.TempFolders;
+import org.whitesource.agent.utils.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * @author raz.nitzan
@@ -11,18 +22,53 @@ public class DotNetRestoreCollector extends RestoreCollector {
 
     /* --- Statics Members --- */
 
-    private static final String DOTNET_RESTORE_TMP_DIRECTORY = Paths.get(System.getProperty("java.io.tmpdir"), TempFolders.UNIQUE_DOTNET_TEMP_FOLDER).toString();
+    private static final Logger logger = LoggerFactory.getLogger(DotNetRestoreCollector.class);
+
     private static final String DOTNET_COMMAND = "dotnet";
     private static final String PACKAGES = "--packages";
+    private static final String OBJ = "obj";
+    private static final String PROJECT_ASSETS_JSON = "project.assets.json";
+    private static final String LIBRARIES = "libraries";
+    private static final String TYPE = "type";
+    private static final String PACKAGE = "package";
+    private static final String PATH = "path";
 
     /* --- Constructors --- */
 
-    public DotNetRestoreCollector() {
-        super(DOTNET_RESTORE_TMP_DIRECTORY, DOTNET_COMMAND);
+    public DotNetRestoreCollector(int restoreParallelism, TempFolders tempFolders) {
+        super(tempFolders.getTempFolder(TempFolders.WHITESOURCE_DOTNET_RESOLVER), DOTNET_COMMAND, restoreParallelism);
     }
 
     @Override
     protected String[] getInstallParams(String pathToDownloadPackages, String csprojFile) {
         return new String[]{DOTNET_COMMAND, RESTORE, csprojFile, PACKAGES, pathToDownloadPackages};
     }
+
+    /**
+     * The restore writes obj/project.assets.json next to the csproj, its 'libraries' section holds the
+     * relative path of every restored package inside the packages folder (i.e. 'newtonsoft.json/12.0.1').
+     */
+    @Override
+    protected Collection<String> getRestoredPackages(String projectFile) {
+        Set<String> packages = new HashSet<>();
+        File assetsFile = Paths.get(new File(projectFile).getParent(), OBJ, PROJECT_ASSETS_JSON).toFile();
+        if (!assetsFile.isFile()) {
+            logger.debug("Could not find {} of {}", PROJECT_ASSETS_JSON, projectFile);
+            return packages;
+        }
+        try {
+            JSONObject libraries = new JSONObject(FileUtils.readFileToString(assetsFile, StandardCharsets.UTF_8)).optJSONObject(LIBRARIES);
+            if (libraries != null) {
+                for (String library : libraries.keySet()) {
+                    JSONObject libraryJson = libraries.getJSONObject(library);
+                    if (PACKAGE.equals(libraryJson.optString(TYPE)) && libraryJson.has(PATH)) {
+                        packages.add(libraryJson.getString(PATH).toLowerCase());
+                    }
+                }
+            }
+        } catch (IOException | JSONException e) {
+            logger.warn("Could not read {}: {}", assetsFile.getPath(), e.getMessage());
+        }
+        return packages;
+    }
 }
@@ -15,8 +15,15 @@ import org.whitesource.agent.utils.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
+ * Restores all project files into one shared packages store, so that packages used by several projects
+ * are downloaded and hashed only once and then attributed back to every project that references them.
+ *
  * @author raz.nitzan
  */
 public abstract class RestoreCollector extends DependencyCollector {
@@ -28,21 +35,26 @@ public abstract class RestoreCollector extends DependencyCollector {
     public static final String NUPKG = ".nupkg";
     public static final String RESTORE = "restore";
     public static final String BACK_SLASH = isWindows() ? Constants.BACK_SLASH : Constants.FORWARD_SLASH;
+    public static final int DEFAULT_RESTORE_PARALLELISM = 1;
+    private static final String PACKAGES_STORE = "packages";
     private static String[] includes = {"**/*" + NUPKG};
     private static String[] excludes = {};
 
     /* --- Members --- */
 
-    private int serialNumber = 0;
-    private Map<String, String> tempPathToPackagesFile = new HashMap<>();
-    private String tempDirectory;
-    private String command;
+    private final Map<String, Set<String>> packageToProjectFiles = new ConcurrentHashMap<>();
+    private final String tempDirectory;
+    private final String packagesDirectory;
+    private final String command;
+    private final int restoreParallelism;
 
     /* --- Constructors --- */
 
-    public RestoreCollector(String tempDirectory, String command) {
+    public RestoreCollector(String tempDirectory, String command, int restoreParallelism) {
         this.tempDirectory = tempDirectory;
+        this.packagesDirectory = tempDirectory + BACK_SLASH + PACKAGES_STORE;
         this.command = command;
+        this.restoreParallelism = restoreParallelism > 0 ? restoreParallelism : DEFAULT_RESTORE_PARALLELISM;
     }
 
     /* --- Public methods --- */
@@ -50,39 +62,45 @@ public abstract class RestoreCollector extends DependencyCollector {
     @Override
     public Collection<AgentProjectInfo> collectDependencies(String rootDirectory) {
         Collection<DependencyInfo> dependencies = new LinkedList<>();
-        Map<File, Collection<String>> folderMapToFiles = new FilesUtils().fillFilesMap(this.tempPathToPackagesFile.keySet(), this.includes,
-                this.excludes,true, false);
+        Map<File, Collection<String>> folderMapToFiles = new FilesUtils().fillFilesMap(Collections.singletonList(this.packagesDirectory),
+                this.includes, this.excludes, true, false);
         for (File file : folderMapToFiles.keySet()) {
             for (String shortPath : folderMapToFiles.get(file)) {
                 String nugetFilePath = file.getAbsolutePath() + BACK_SLASH + shortPath;
-                DependencyInfo dependency = getDependency(nugetFilePath, this.tempPathToPackagesFile.get(file.getPath()));
-                dependencies.add(dependency);
+                // every distinct package is hashed once, no matter how many projects restored it
+                String sha1 = getSha1(nugetFilePath);
+                Set<String> projectFiles = this.packageToProjectFiles.get(getPackageKey(shortPath));
+                if (projectFiles == null || projectFiles.isEmpty()) {
+                    dependencies.add(getDependency(nugetFilePath, sha1, null));
+                } else {
+                    for (String projectFile : projectFiles) {
+                        dependencies.add(getDependency(nugetFilePath, sha1, projectFile));
+                    }
+                }
             }
         }
+        this.packageToProjectFiles.clear();
         deleteDirectories();
         logger.debug("Finish deleting directories of {} {}", this.command, RESTORE);
         return getSingleProjectList(dependencies);
     }
 
     public void executeRestore(String folder, Set<String> files) {
+        if (files.isEmpty()) {
+            return;
+        }
+        Collection<Callable<Boolean>> restoreTasks = new LinkedList<>();
         for (String file : files) {
-            String pathToDownloadPackages = tempDirectory + BACK_SLASH + getNameOfFolderPackages(file) + this.serialNumber;
-            this.serialNumber++;
-            String[] command = getInstallParams(pathToDownloadPackages, file);
-            String commandString = String.join(Constants.WHITESPACE, command);
-            logger.debug("Running command : '{}'", commandString);
-            CommandLineProcess restoreCommandLine = new CommandLineProcess(folder, command);
-            try {
-                restoreCommandLine.executeProcess();
-            } catch (IOException e) {
-                logger.warn("Could not run '{}' in folder: {}", commandString, folder);
-            }
-            if (!restoreCommandLine.isErrorInProcess()) {
-                logger.debug("Finish to run '{}'", commandString);
-                this.tempPathToPackagesFile.put(pathToDownloadPackages, file);
-            } else {
-                logger.warn("Could not run '{}' in folder: {}", commandString, folder);
-            }
+            restoreTasks.add(() -> restoreSingleFile(folder, file));
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(this.restoreParallelism, files.size()));
+        try {
+            executorService.invokeAll(restoreTasks);
+        } catch (InterruptedException e) {
+            logger.warn("One of the {} {} threads was interrupted: {}", this.command, RESTORE, e.getMessage());
+            Thread.currentThread().interrupt();
+        } finally {
+            executorService.shutdown();
         }
     }
 
@@ -94,17 +112,42 @@ public abstract class RestoreCollector extends DependencyCollector {
 
     protected abstract String[] getInstallParams(String pathToDownloadPackages, String csprojFile);
 
+    /**
+     * Get the packages restored for a single project file.
+     *
+     * @param projectFile - the restored csproj or packages.config file
+     * @return the keys of the restored packages, as relative folders in the packages store (lower case, '/' separated)
+     */
+    protected abstract Collection<String> getRestoredPackages(String projectFile);
+
     /* --- Private methods --- */
 
-    private String getNameOfFolderPackages(String filePath) {
-        File file = new File(filePath);
-        String nameWithExtension = file.getName();
-        int indexLastDot = nameWithExtension.indexOf(Constants.DOT);
-        if (indexLastDot > -1) {
-            return nameWithExtension.substring(0, indexLastDot);
-        } else {
-            return nameWithExtension;
+    private boolean restoreSingleFile(String folder, String file) {
+        String[] command = getInstallParams(this.packagesDirectory, file);
+        String commandString = String.join(Constants.WHITESPACE, command);
+        logger.debug("Running command : '{}'", commandString);
+        CommandLineProcess restoreCommandLine = new CommandLineProcess(folder, command);
+        try {
+            restoreCommandLine.executeProcess();
+        } catch (IOException e) {
+            logger.warn("Could not run '{}' in folder: {}", commandString, folder);
+            return false;
+        }
+        if (restoreCommandLine.isErrorInProcess()) {
+            logger.warn("Could not run '{}' in folder: {}", commandString, folder);
+            return false;
         }
+        logger.debug("Finish to run '{}'", commandString);
+        for (String packageKey : getRestoredPackages(file)) {
+            this.packageToProjectFiles.computeIfAbsent(packageKey, key -> ConcurrentHashMap.newKeySet()).add(file);
+        }
+        return true;
+    }
+
+    private String getPackageKey(String shortPath) {
+        String normalizedPath = shortPath.replace(Constants.BACK_SLASH, Constants.FORWARD_SLASH);
+        int lastSlash = normalizedPath.lastIndexOf(Constants.FORWARD_SLASH);
+        return lastSlash > -1 ? normalizedPath.substring(0, lastSlash).toLowerCase() : Constants.EMPTY_STRING;
     }
 
     private void deleteDirectories() {
@@ -121,7 +164,7 @@ public abstract class RestoreCollector extends DependencyCollector {
         }
     }
 
-    private DependencyInfo getDependency(String nugetFilePath, String systemPath) {
+    private DependencyInfo getDependency(String nugetFilePath, String sha1, String systemPath) {
         DependencyInfo dependency = new DependencyInfo();
         // TODO to fix the issue with the dependency type
         // dependency.setDependencyType(DependencyType.NUGET);
@@ -129,7 +172,6 @@ public abstract class RestoreCollector extends DependencyCollector {
         if (StringUtils.isNotEmpty(systemPath)) {
             dependency.setSystemPath(systemPath);
         }
-        String sha1 = getSha1(nugetFilePath);
         dependency.setSha1(sha1);
         return dependency;
     }
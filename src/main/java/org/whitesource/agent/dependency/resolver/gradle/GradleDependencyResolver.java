@@ -12,7 +12,6 @@ import org.whitesource.agent.api.model.DependencyInfo;
 import org.whitesource.agent.api.model.DependencyType;
 import org.whitesource.agent.dependency.resolver.AbstractDependencyResolver;
 import org.whitesource.agent.dependency.resolver.ResolutionResult;
-import org.whitesource.agent.utils.FilesUtils;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.fs.Main;
 
@@ -52,6 +51,7 @@ public class GradleDependencyResolver extends AbstractDependencyResolver {
     private boolean gradleAggregateModules;
     private boolean gradleRunPreStep;
     private HashMap<String, List<String>> dependencyTrees;
+    private final TempFolders tempFolders;
 
 
     private final Logger logger = LoggerFactory.getLogger(GradleDependencyResolver.class);
@@ -60,7 +60,14 @@ public class GradleDependencyResolver extends AbstractDependencyResolver {
 
     public GradleDependencyResolver(boolean runAssembleCommand, boolean ignoreSourceCode, boolean gradleAggregateModules, String gradlePreferredEnvironment, String[] gradleIgnoredScopes,
                                     String gradleLocalRepositoryPath, boolean gradleRunPreStep) {
+        this(runAssembleCommand, ignoreSourceCode, gradleAggregateModules, gradlePreferredEnvironment, gradleIgnoredScopes, gradleLocalRepositoryPath,
+                gradleRunPreStep, new TempFolders());
+    }
+
+    public GradleDependencyResolver(boolean runAssembleCommand, boolean ignoreSourceCode, boolean gradleAggregateModules, String gradlePreferredEnvironment, String[] gradleIgnoredScopes,
+                                    String gradleLocalRepositoryPath, boolean gradleRunPreStep, TempFolders tempFolders) {
         super();
+        this.tempFolders = tempFolders;
         gradleCli = new GradleCli(gradlePreferredEnvironment);
         gradleLinesParser = new GradleLinesParser(runAssembleCommand, gradleCli, gradleLocalRepositoryPath);
         this.ignoredScopes = gradleIgnoredScopes;
@@ -247,7 +254,7 @@ public class GradleDependencyResolver extends AbstractDependencyResolver {
     // copy all the bom files (build.gradle) to temp folder and run the command "gradle copyDependencies"
     private void downloadMissingDependencies(String projectFolder) {
         logger.debug("running pre-steps on folder {}", projectFolder);
-        String tempFolder = new FilesUtils().createTmpFolder(false, TempFolders.UNIQUE_GRADLE_TEMP_FOLDER);
+        String tempFolder = tempFolders.createTempFolder(false, TempFolders.WHITE_BUILD_GRADLE_FOLDER);
         File buildGradleTempDirectory = new File(tempFolder);
         if (copyProjectFolder(projectFolder, buildGradleTempDirectory)) {
             try {
@@ -267,7 +274,7 @@ public class GradleDependencyResolver extends AbstractDependencyResolver {
                 logger.warn("Couldn't list all 'build.gradle' files, error: {}", e.getMessage());
                 logger.debug("Error: {}", e.getStackTrace());
             } finally {
-                new TempFolders().deleteTempFoldersHelper(Paths.get(System.getProperty("java.io.tmpdir"), TempFolders.UNIQUE_GRADLE_TEMP_FOLDER).toString());
+                tempFolders.deleteTempFoldersHelper(tempFolder);
             }
         }
     }
@@ -23,7 +23,6 @@ import javax.ws.rs.core.MediaType;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.nio.file.Paths;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -45,10 +44,16 @@ public class HtmlDependencyResolver extends AbstractDependencyResolver {
     private final Pattern patternOfFirstLetter = Pattern.compile("[a-zA-Z].*");
     private final Pattern patternOfLegitSrcUrl = Pattern.compile("<%.*%>");
     private Map<String, String> urlResponseMap = new HashMap<>();
+    private final TempFolders tempFolders;
 
     /* --- Constructors --- */
 
     public HtmlDependencyResolver() {
+        this(new TempFolders());
+    }
+
+    public HtmlDependencyResolver(TempFolders tempFolders) {
+        this.tempFolders = tempFolders;
         int i = 0;
         for (String extension : htmlTypeExtensions) {
             this.includesPattern[i++] = Constants.PATTERN + Constants.DOT + extension;
@@ -86,7 +91,7 @@ public class HtmlDependencyResolver extends AbstractDependencyResolver {
 
         // delete parent folder of HTML Resolver
         try {
-            new TempFolders().deleteTempFoldersHelper(Paths.get(System.getProperty("java.io.tmpdir"), TempFolders.UNIQUE_HTML_TEMP_FOLDER).toString());
+            tempFolders.deleteTempFoldersHelper(tempFolders.getTempFolder(TempFolders.WHITESOURCE_HTML_RESOLVER));
         } catch (Exception e) {
             logger.debug("Failed to delete HTML Dependency Resolver Folder{}", e.getMessage());
         }
@@ -113,7 +118,7 @@ public class HtmlDependencyResolver extends AbstractDependencyResolver {
     private List<DependencyInfo> collectJsFilesAndCalcHashes(List<String> scriptUrls, String htmlFilePath, Map<String, String> urlResponseMap) {
         List<DependencyInfo> dependencies = new LinkedList<>();
         String body = null;
-        String tempFolder = new FilesUtils().createTmpFolder(false, TempFolders.UNIQUE_HTML_TEMP_FOLDER);
+        String tempFolder = tempFolders.createTempFolder(false, TempFolders.WHITESOURCE_HTML_RESOLVER);
         File tempFolderFile = new File(tempFolder);
         String dependencyFileName = null;
         if (tempFolder != null) {
@@ -18,6 +18,7 @@ package org.whitesource.agent.dependency.resolver.nuget;
 import org.slf4j.Logger;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.Constants;
+import org.whitesource.agent.TempFolders;
 import org.whitesource.agent.api.model.AgentProjectInfo;
 import org.whitesource.agent.api.model.DependencyInfo;
 import org.whitesource.agent.api.model.DependencyType;
@@ -50,15 +51,24 @@ public class NugetDependencyResolver extends AbstractDependencyResolver{
     private final NugetConfigFileType nugetConfigFileType;
     private boolean runPreStep;
     private boolean ignoreSourceFiles;
+    private int restoreParallelism;
+    protected final TempFolders tempFolders;
 
     /* --- Constructor --- */
 
-    public NugetDependencyResolver(String whitesourceConfiguration, NugetConfigFileType nugetConfigFileType, boolean runPreStep,boolean ignoreSourceFiles) {
+    public NugetDependencyResolver(String whitesourceConfiguration, NugetConfigFileType nugetConfigFileType, boolean runPreStep, boolean ignoreSourceFiles, int restoreParallelism) {
+        this(whitesourceConfiguration, nugetConfigFileType, runPreStep, ignoreSourceFiles, restoreParallelism, new TempFolders());
+    }
+
+    public NugetDependencyResolver(String whitesourceConfiguration, NugetConfigFileType nugetConfigFileType, boolean runPreStep, boolean ignoreSourceFiles, int restoreParallelism,
+                                   TempFolders tempFolders) {
         super();
+        this.tempFolders = tempFolders;
         this.whitesourceConfiguration = whitesourceConfiguration;
         this.nugetConfigFileType = nugetConfigFileType;
         this.runPreStep = runPreStep;
         this.ignoreSourceFiles=ignoreSourceFiles;
+        this.restoreParallelism = restoreParallelism;
         if (this.nugetConfigFileType == NugetConfigFileType.CONFIG_FILE_TYPE) {
             bomPattern = Constants.PATTERN + CONFIG;
         } else {
@@ -74,7 +84,7 @@ public class NugetDependencyResolver extends AbstractDependencyResolver{
     protected ResolutionResult resolveDependencies(String projectFolder, String topLevelFolder, Set<String> configFiles) {
         if (this.nugetConfigFileType == NugetConfigFileType.CONFIG_FILE_TYPE && this.runPreStep) {
             logger.debug("Trying to run pre step on packages.config files");
-            NugetRestoreCollector nugetRestoreCollector = new NugetRestoreCollector();
+            NugetRestoreCollector nugetRestoreCollector = new NugetRestoreCollector(this.restoreParallelism, tempFolders);
             nugetRestoreCollector.executeRestore(projectFolder, configFiles);
             Collection<AgentProjectInfo> projects = nugetRestoreCollector.collectDependencies(projectFolder);
             Collection<DependencyInfo> dependencies = projects.stream().flatMap(project -> project.getDependencies().stream()).collect(Collectors.toList());
@@ -130,24 +140,24 @@ public class NugetDependencyResolver extends AbstractDependencyResolver{
     }
 
     protected Collection<DependencyInfo> parseNugetPackageFiles(Set<String> nugetDependencyFiles, boolean getDependenciesFromReferenceTag) {
-        // get configuration file path
-        Set<DependencyInfo> dependencies = new HashSet<>();
-        for (String nugetDependencyFile : nugetDependencyFiles) {
-            // don't scan the whitesource configuration file
-            // sometimes FSA is called from outside and there is no config file
-            if (whitesourceConfiguration == null || !new File(whitesourceConfiguration).getAbsolutePath().equals(nugetDependencyFile)) {
-                File configFile = new File(nugetDependencyFile);
-                // check filename again (just in case)
-                if (!configFile.getName().equals(CommandLineArgs.CONFIG_FILE_NAME)) {
-                    NugetPackagesConfigXmlParser parser = new NugetPackagesConfigXmlParser(configFile, this.nugetConfigFileType);
-                    Set<DependencyInfo> dependenciesFromSingleFile = parser.parsePackagesConfigFile(getDependenciesFromReferenceTag, nugetDependencyFile);
-                    if (!dependenciesFromSingleFile.isEmpty()) {
-                        dependencies.addAll(dependenciesFromSingleFile);
-                    }
-                }
+        // files are independent of each other, parse them concurrently
+        return nugetDependencyFiles.parallelStream()
+                .flatMap(nugetDependencyFile -> parseNugetPackageFile(nugetDependencyFile, getDependenciesFromReferenceTag).stream())
+                .collect(Collectors.toSet());
+    }
+
+    private Set<DependencyInfo> parseNugetPackageFile(String nugetDependencyFile, boolean getDependenciesFromReferenceTag) {
+        // don't scan the whitesource configuration file
+        // sometimes FSA is called from outside and there is no config file
+        if (whitesourceConfiguration == null || !new File(whitesourceConfiguration).getAbsolutePath().equals(nugetDependencyFile)) {
+            File configFile = new File(nugetDependencyFile);
+            // check filename again (just in case)
+            if (!configFile.getName().equals(CommandLineArgs.CONFIG_FILE_NAME)) {
+                NugetPackagesConfigXmlParser parser = new NugetPackagesConfigXmlParser(configFile, this.nugetConfigFileType);
+                return parser.parsePackagesConfigFile(getDependenciesFromReferenceTag, nugetDependencyFile);
             }
         }
-        return dependencies;
+        return Collections.emptySet();
     }
 
     @Override
@@ -1,9 +1,16 @@
 package org.whitesource.agent.dependency.resolver.nuget;
 
+import org.whitesource.agent.Constants;
 import org.whitesource.agent.TempFolders;
+import org.whitesource.agent.api.model.DependencyInfo;
 import org.whitesource.agent.dependency.resolver.dotNet.RestoreCollector;
+import org.whitesource.agent.dependency.resolver.nuget.packagesConfig.NugetConfigFileType;
+import org.whitesource.agent.dependency.resolver.nuget.packagesConfig.NugetPackagesConfigXmlParser;
 
-import java.nio.file.Paths;
+import java.io.File;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * @author raz.nitzan
@@ -13,18 +20,29 @@ public class NugetRestoreCollector extends RestoreCollector {
 
     /* --- Statics Members --- */
 
-    private static final String NUGET_RESTORE_TMP_DIRECTORY = Paths.get(System.getProperty("java.io.tmpdir"), TempFolders.UNIQUE_DOTNET_TEMP_FOLDER).toString();
     private static final String NUGET_COMMAND = "nuget";
     private static final String PACKAGES_DIRECTORY = "-PackagesDirectory";
 
     /* --- Constructors --- */
 
-    public NugetRestoreCollector() {
-        super(NUGET_RESTORE_TMP_DIRECTORY, NUGET_COMMAND);
+    public NugetRestoreCollector(int restoreParallelism, TempFolders tempFolders) {
+        super(tempFolders.getTempFolder(TempFolders.WHITESOURCE_DOTNET_RESOLVER), NUGET_COMMAND, restoreParallelism);
     }
 
     @Override
     protected String[] getInstallParams(String pathToDownloadPackages, String csprojFile) {
         return new String[]{NUGET_COMMAND, RESTORE, csprojFile, PACKAGES_DIRECTORY, pathToDownloadPackages};
     }
+
+    /**
+     * Packages restored from packages.config are placed in '{id}.{version}' folders of the packages directory.
+     */
+    @Override
+    protected Collection<String> getRestoredPackages(String projectFile) {
+        NugetPackagesConfigXmlParser parser = new NugetPackagesConfigXmlParser(new File(projectFile), NugetConfigFileType.CONFIG_FILE_TYPE);
+        Set<DependencyInfo> dependencies = parser.parsePackagesConfigFile(false, projectFile);
+        return dependencies.stream()
+                .map(dependency -> (dependency.getArtifactId() + Constants.DOT + dependency.getVersion()).toLowerCase())
+                .collect(Collectors.toSet());
+    }
 }
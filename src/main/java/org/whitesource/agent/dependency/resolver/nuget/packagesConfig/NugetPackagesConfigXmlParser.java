@@ -16,14 +16,21 @@
 package org.whitesource.agent.dependency.resolver.nuget.packagesConfig;
 
 import org.apache.commons.lang.StringUtils;
-import org.simpleframework.xml.core.Persister;
 import org.slf4j.Logger;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.DependencyInfoFactory;
 import org.whitesource.agent.api.model.DependencyInfo;
 import org.whitesource.agent.api.model.DependencyType;
+import org.whitesource.agent.utils.XmlStreamUtils;
 
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.Serializable;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
@@ -41,6 +48,16 @@ public class NugetPackagesConfigXmlParser implements Serializable {
 
     private final Logger logger = LoggerFactory.getLogger(NugetPackagesConfigXmlParser.class);
 
+    private static final String PACKAGE = "package";
+    private static final String ID = "id";
+    private static final String VERSION = "version";
+    private static final String ITEM_GROUP = "ItemGroup";
+    private static final String PACKAGE_REFERENCE = "PackageReference";
+    private static final String REFERENCE = "Reference";
+    private static final String INCLUDE = "Include";
+    private static final String VERSION_ATTRIBUTE = "Version";
+    private static final String HINT_PATH = "HintPath";
+
     /* --- Members --- */
 
     private File xml;
@@ -63,18 +80,17 @@ public class NugetPackagesConfigXmlParser implements Serializable {
      * @return Set of DependencyInfos
      */
     public Set<DependencyInfo> parsePackagesConfigFile(boolean getDependenciesFromReferenceTag, String nugetDependencyFile) {
-        Persister persister = new Persister();
         Set<DependencyInfo> dependencies = new HashSet<>();
         try {
             // case of packages.config file
             if (this.nugetConfigFileType == NugetConfigFileType.CONFIG_FILE_TYPE) {
-                NugetPackages packages = persister.read(NugetPackages.class, xml);
+                NugetPackages packages = readPackagesConfig();
                 if (!getDependenciesFromReferenceTag) {
                     dependencies.addAll(collectDependenciesFromNugetConfig(packages, nugetDependencyFile));
                 }
                 // case of csproj file
             } else {
-                NugetCsprojPackages csprojPackages = persister.read(NugetCsprojPackages.class, xml);
+                NugetCsprojPackages csprojPackages = readCsproj();
                 NugetPackages packages = getNugetPackagesFromCsproj(csprojPackages);
                 if (!getDependenciesFromReferenceTag) {
                     dependencies.addAll(collectDependenciesFromNugetConfig(packages, nugetDependencyFile));
@@ -88,6 +104,69 @@ public class NugetPackagesConfigXmlParser implements Serializable {
         return dependencies;
     }
 
+    // stream the packages.config file and keep only the 'package' elements
+    private NugetPackages readPackagesConfig() throws IOException, XMLStreamException {
+        List<NugetPackage> nugetPackages = new LinkedList<>();
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(this.xml))) {
+            XMLStreamReader reader = XmlStreamUtils.createReader(inputStream);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamConstants.START_ELEMENT && PACKAGE.equals(reader.getLocalName())) {
+                        nugetPackages.add(new NugetPackage(XmlStreamUtils.getAttribute(reader, ID), XmlStreamUtils.getAttribute(reader, VERSION)));
+                    }
+                }
+            } finally {
+                XmlStreamUtils.closeQuietly(reader);
+            }
+        }
+        NugetPackages packages = new NugetPackages();
+        packages.setNugetPackages(nugetPackages);
+        return packages;
+    }
+
+    // stream the csproj file and keep only the 'PackageReference' and 'Reference' elements of each 'ItemGroup'
+    private NugetCsprojPackages readCsproj() throws IOException, XMLStreamException {
+        List<NugetCsprojItemGroup> itemGroups = new LinkedList<>();
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(this.xml))) {
+            XMLStreamReader reader = XmlStreamUtils.createReader(inputStream);
+            try {
+                NugetCsprojItemGroup currentItemGroup = null;
+                ReferenceTag currentReference = null;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String localName = reader.getLocalName();
+                        if (ITEM_GROUP.equals(localName)) {
+                            currentItemGroup = new NugetCsprojItemGroup(new LinkedList<>(), new LinkedList<>());
+                            itemGroups.add(currentItemGroup);
+                        } else if (currentItemGroup != null && PACKAGE_REFERENCE.equals(localName)) {
+                            currentItemGroup.getPackageReference().add(new PackageReference(XmlStreamUtils.getAttribute(reader, INCLUDE),
+                                    XmlStreamUtils.getAttribute(reader, VERSION_ATTRIBUTE)));
+                        } else if (currentItemGroup != null && REFERENCE.equals(localName)) {
+                            currentReference = new ReferenceTag(XmlStreamUtils.getAttribute(reader, INCLUDE),
+                                    XmlStreamUtils.getAttribute(reader, VERSION_ATTRIBUTE), null);
+                            currentItemGroup.getReferences().add(currentReference);
+                        } else if (currentReference != null && HINT_PATH.equals(localName)) {
+                            currentReference.setHintPath(reader.getElementText().trim());
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        String localName = reader.getLocalName();
+                        if (ITEM_GROUP.equals(localName)) {
+                            currentItemGroup = null;
+                        } else if (REFERENCE.equals(localName)) {
+                            currentReference = null;
+                        }
+                    }
+                }
+            } finally {
+                XmlStreamUtils.closeQuietly(reader);
+            }
+        }
+        NugetCsprojPackages csprojPackages = new NugetCsprojPackages();
+        csprojPackages.setNugetItemGroups(itemGroups);
+        return csprojPackages;
+    }
+
     private NugetPackages getNugetPackagesFromCsproj(NugetCsprojPackages csprojPackages) {
         List<NugetPackage> nugetPackages = new LinkedList<>();
         for (NugetCsprojItemGroup csprojPackage : csprojPackages.getNugetItemGroups()) {
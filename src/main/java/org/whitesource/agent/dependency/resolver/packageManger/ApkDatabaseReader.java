@@ -0,0 +1,63 @@
+package org.whitesource.agent.dependency.resolver.packageManger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Reads the packages of the apk installed database ('/lib/apk/db/installed') in a single pass.
+ * Each package is a block of 'X:value' lines (P - name, V - version, A - architecture), blocks are separated by empty lines.
+ */
+public class ApkDatabaseReader {
+
+    /* --- Static members --- */
+
+    public static final String INSTALLED_FILE = "lib/apk/db/installed";
+
+    private static final char PACKAGE = 'P';
+    private static final char VERSION = 'V';
+    private static final char ARCHITECTURE = 'A';
+    private static final char FIELD_SEPARATOR = ':';
+
+    /* --- Public methods --- */
+
+    /**
+     * @param inputStream     - the database content, not closed by the reader
+     * @param packageConsumer - receives each package
+     */
+    public void read(InputStream inputStream, Consumer<Package> packageConsumer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        Package packageInfo = new Package();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (packageInfo.getPackageName() != null) {
+                    packageConsumer.accept(packageInfo);
+                }
+                packageInfo = new Package();
+            } else if (line.length() > 1 && line.charAt(1) == FIELD_SEPARATOR) {
+                String value = line.substring(2).trim();
+                switch (line.charAt(0)) {
+                    case PACKAGE:
+                        packageInfo.setPackageName(value);
+                        break;
+                    case VERSION:
+                        packageInfo.setVersion(value);
+                        break;
+                    case ARCHITECTURE:
+                        packageInfo.setArchitecture(value);
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        // the last block may not end with an empty line
+        if (packageInfo.getPackageName() != null) {
+            packageConsumer.accept(packageInfo);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.whitesource.agent.dependency.resolver.packageManger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Reads the packages of a dpkg database file ('/var/lib/dpkg/status', 'available' or an apt 'eipp.log') in a single pass.
+ * Each package is a paragraph of 'Field: value' lines, paragraphs are separated by empty lines.
+ */
+public class DpkgDatabaseReader {
+
+    /* --- Static members --- */
+
+    public static final String STATUS_FILE = "var/lib/dpkg/status";
+
+    private static final String PACKAGE = "Package";
+    private static final String VERSION = "Version";
+    private static final String ARCHITECTURE = "Architecture";
+    private static final String STATUS = "Status";
+    private static final String INSTALLED = "installed";
+    private static final char FIELD_SEPARATOR = ':';
+
+    /* --- Public methods --- */
+
+    /**
+     * @param inputStream     - the database content, not closed by the reader
+     * @param packageConsumer - receives each package, packages that are listed but not installed are skipped
+     */
+    public void read(InputStream inputStream, Consumer<Package> packageConsumer) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        Package packageInfo = new Package();
+        boolean installed = true;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                if (installed && packageInfo.getPackageName() != null) {
+                    packageConsumer.accept(packageInfo);
+                }
+                packageInfo = new Package();
+                installed = true;
+                continue;
+            }
+            // multi-line fields (i.e. 'Description') continue on lines starting with a whitespace
+            int separatorIndex = line.indexOf(FIELD_SEPARATOR);
+            if (Character.isWhitespace(line.charAt(0)) || separatorIndex < 1) {
+                continue;
+            }
+            String value = line.substring(separatorIndex + 1).trim();
+            switch (line.substring(0, separatorIndex)) {
+                case PACKAGE:
+                    packageInfo.setPackageName(value);
+                    break;
+                case VERSION:
+                    packageInfo.setVersion(value);
+                    break;
+                case ARCHITECTURE:
+                    packageInfo.setArchitecture(value);
+                    break;
+                case STATUS:
+                    // 'want flag status', i.e. 'install ok installed' or 'deinstall ok config-files'
+                    installed = value.substring(value.lastIndexOf(' ') + 1).equals(INSTALLED);
+                    break;
+                default:
+                    break;
+            }
+        }
+        // the last paragraph may not end with an empty line
+        if (installed && packageInfo.getPackageName() != null) {
+            packageConsumer.accept(packageInfo);
+        }
+    }
+}
@@ -1,4 +1,4 @@
-package org.whitesource.agent.dependency.resolver.docker;
+package org.whitesource.agent.dependency.resolver.packageManger;
 
 import java.util.Objects;
 
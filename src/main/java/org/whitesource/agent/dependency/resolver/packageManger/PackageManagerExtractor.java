@@ -8,10 +8,7 @@ import org.whitesource.agent.Constants;
 import org.whitesource.agent.api.model.AgentProjectInfo;
 import org.whitesource.agent.api.model.DependencyInfo;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.*;
 import java.text.MessageFormat;
 import java.util.*;
 
@@ -24,124 +21,72 @@ public class PackageManagerExtractor {
 
     private final Logger logger = LoggerFactory.getLogger(PackageManagerExtractor.class);
 
-    private static final int DEBIAN_PACKAGE_NAME_INDEX = 0;
-    private static final int DEBIAN_PACKAGE_VERSION_INDEX = 1;
-    private static final int DEBIAN_PACKAGE_ARCH_INDEX = 2;
-    private static final String DEBIAN_INSTALLED_PACKAGE_PREFIX = "ii";
     private static final String DEBIAN_PACKAGE_PATTERN = "{0}_{1}_{2}.deb";
     private static final String RPM_PACKAGE_PATTERN = "{0}.rpm";
     private static final String ALPINE_PACKAGE_PATTERN = "{0}.apk";
-    private static final String ALPINE_PACKAGE_SPLIT_PATTERN = " - ";
     private static final String ARCH_LINUX_PACKAGE_PATTERN = "{0}-{1}-{2}.pkg.tar.xz";
-    private static final List<String> SYSTEM_ARCHITECTURES = Arrays.asList("x86_64", "i686", "any");
-    private static final String ARCH_LINUX_PACKAGE_SPLIT_PATTERN = " ";
     private static final String NEW_LINE = "\\r?\\n";
-    private static final String NON_ASCII_CHARS = "[^\\x20-\\x7e]";
-    private static final String ARCH_LINUX_ARCHITECTURE_COMMAND = "uname -m";
+    private static final String ROOT_FOLDER = "/";
+    private static final String RPM_ROOT_PARAMETER = "--root";
+
+    /* --- Members --- */
+
+    private final File rootFolder;
 
     /* --- Constructors --- */
 
     public PackageManagerExtractor() {
+        this(ROOT_FOLDER);
+    }
+
+    /**
+     * @param rootFolder - the root of the file system to read the installed packages from, i.e. a mounted file system
+     */
+    public PackageManagerExtractor(String rootFolder) {
+        this.rootFolder = new File(StringUtils.isBlank(rootFolder) ? ROOT_FOLDER : rootFolder);
     }
 
     /* --- Public methods --- */
 
     public Collection<AgentProjectInfo> createProjects() {
-        List<DependencyInfo> packages = new LinkedList<>();
         Collection<AgentProjectInfo> projectInfos = new LinkedList<>();
-        InputStream inputStream = null;
-        byte[] bytes = null;
-        Process process = null;
         logger.info("File System Agent is resolving package manger dependencies only");
-        //For each flavor command check installed packages
+        // the installed packages databases are read directly, only rpm (whose database is binary) is queried by its command
         for (LinuxPkgManagerCommand linuxPkgManagerCommand : LinuxPkgManagerCommand.values()) {
-            try {
-                logger.debug("Trying to run command {}", linuxPkgManagerCommand.getCommand());
-                process = Runtime.getRuntime().exec(linuxPkgManagerCommand.getCommand());
-                inputStream = process.getInputStream();
-                if (inputStream.read() == -1) {
-                    logger.error("Unable to execute - {} , unix flavor does not support this command ", linuxPkgManagerCommand.getCommand());
-                } else {
-                    bytes = ByteStreams.toByteArray(inputStream);
-                    //Get the installed packages (name,version,architecture) from inputStream
-                    logger.info("Succeed to run the command - {} ", linuxPkgManagerCommand.getCommand());
-                    switch (linuxPkgManagerCommand) {
-                        case DEBIAN:
-                            logger.debug("Getting Debian installed Packages");
-                            createDebianProject(bytes, packages);
-                            break;
-                        case RPM:
-                            logger.debug("Getting RPM installed Packages");
-                            createRpmProject(bytes, packages);
-                            break;
-                        case ARCH_LINUX:
-                            logger.debug("Getting Arch Linux installed Packages");
-                            createArchLinuxProject(bytes, packages);
-                            break;
-                        case ALPINE:
-                            logger.debug("Getting Alpine installed Packages");
-                            createAlpineProject(bytes, packages);
-                            break;
-                        default:
-                            break;
-                    }
-                }
-                // Create new AgentProjectInfo object and add it into a list of AgentProjectInfo
-                if (packages.size() > 0) {
-                    logger.debug("Creating new AgentProjectInfo object");
-                    AgentProjectInfo projectInfo = new AgentProjectInfo();
-                    projectInfo.setDependencies(packages);
-                    projectInfos.add(projectInfo);
-                    packages = new LinkedList<>();
-                } else {
-                    logger.info("Couldn't find unix package manager dependencies");
-                }
-            } catch (IOException e) {
-                logger.warn("Couldn't resolve : {}", linuxPkgManagerCommand.name());
+            List<DependencyInfo> packages = new LinkedList<>();
+            switch (linuxPkgManagerCommand) {
+                case DEBIAN:
+                    logger.debug("Getting Debian installed Packages");
+                    readDebianPackages(packages);
+                    break;
+                case RPM:
+                    logger.debug("Getting RPM installed Packages");
+                    readRpmPackages(packages);
+                    break;
+                case ARCH_LINUX:
+                    logger.debug("Getting Arch Linux installed Packages");
+                    readArchLinuxPackages(packages);
+                    break;
+                case ALPINE:
+                    logger.debug("Getting Alpine installed Packages");
+                    readAlpinePackages(packages);
+                    break;
+                default:
+                    break;
             }
-        }
-        try {
-            if (inputStream != null) {
-                inputStream.close();
+            // Create new AgentProjectInfo object and add it into a list of AgentProjectInfo
+            if (packages.size() > 0) {
+                logger.debug("Creating new AgentProjectInfo object");
+                AgentProjectInfo projectInfo = new AgentProjectInfo();
+                projectInfo.setDependencies(packages);
+                projectInfos.add(projectInfo);
+            } else {
+                logger.info("Couldn't find {} package manager dependencies", linuxPkgManagerCommand.name());
             }
-        } catch (IOException e) {
-            logger.error("InputStream exception : {}", e.getMessage());
         }
         return projectInfos;
     }
 
-    public void createDebianProject(byte[] bytes, List<DependencyInfo> packages) {
-        logger.info("Trying to resolve debian packages");
-        String linesStr = new String(bytes);
-        String[] lines = linesStr.split(NEW_LINE);
-        for (String line : lines) {
-            line = line.replaceAll(NON_ASCII_CHARS, Constants.EMPTY_STRING);
-            if (line.startsWith(DEBIAN_INSTALLED_PACKAGE_PREFIX)) {
-                List<String> args = new ArrayList<>();
-                for (String s : line.split(Constants.WHITESPACE)) {
-                    if (StringUtils.isNotBlank(s) && !s.equals(DEBIAN_INSTALLED_PACKAGE_PREFIX)) {
-                        args.add(s);
-                    }
-                }
-                if (args.size() >= 3) {
-                    // names may contain the arch (i.e. package_name:amd64) - remove it
-                    String name = args.get(DEBIAN_PACKAGE_NAME_INDEX);
-                    if (name.contains(Constants.COLON)) {
-                        name = name.substring(0, name.indexOf(Constants.COLON));
-                    }
-                    // versions may contain a
-                    String version = args.get(DEBIAN_PACKAGE_VERSION_INDEX);
-                    if (version.contains(Constants.COLON)) {
-                        version = version.substring(version.indexOf(Constants.COLON) + 1);
-                    }
-                    String arch = args.get(DEBIAN_PACKAGE_ARCH_INDEX);
-                    packages.add(new DependencyInfo(
-                            null, MessageFormat.format(DEBIAN_PACKAGE_PATTERN, name, version, arch), version));
-                }
-            }
-        }
-    }
-
     public void createRpmProject(byte[] bytes, List<DependencyInfo> packages) {
         logger.info("Trying to resolve RPM packages");
         String linesStr = new String(bytes);
@@ -153,63 +98,95 @@ public class PackageManagerExtractor {
         }
     }
 
-    public void createArchLinuxProject(byte[] bytes, List<DependencyInfo> packages) {
-        logger.info("Trying to resolve Arch Linux packages");
-        String linesStr = new String(bytes);
-        String[] lines = linesStr.split(NEW_LINE);
-        String arch = getSystemArchitecture();
-        if (StringUtils.isNotBlank(arch)) {
-            for (String line : lines) {
-                line = line.replaceAll(NON_ASCII_CHARS, Constants.EMPTY_STRING);
-                String[] split = line.split(ARCH_LINUX_PACKAGE_SPLIT_PATTERN);
-                logger.info(split[0]);
-                if (split.length == 2) {
-                    packages.add(new DependencyInfo(null, MessageFormat.format(ARCH_LINUX_PACKAGE_PATTERN,
-                            split[0], split[1], arch), null));
+    /* --- Private  methods --- */
 
+    private void readDebianPackages(List<DependencyInfo> packages) {
+        File statusFile = new File(rootFolder, DpkgDatabaseReader.STATUS_FILE);
+        if (!statusFile.isFile()) {
+            return;
+        }
+        logger.info("Trying to resolve debian packages");
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(statusFile))) {
+            new DpkgDatabaseReader().read(inputStream, packageInfo -> {
+                if (packageInfo.getVersion() != null && packageInfo.getArchitecture() != null) {
+                    // versions may contain an epoch (i.e. 1:2.8.4) - remove it
+                    String version = packageInfo.getVersion().substring(packageInfo.getVersion().indexOf(Constants.COLON) + 1);
+                    packages.add(new DependencyInfo(null, MessageFormat.format(DEBIAN_PACKAGE_PATTERN,
+                            packageInfo.getPackageName(), version, packageInfo.getArchitecture()), version));
                 }
-            }
+            });
+        } catch (IOException e) {
+            logger.warn("Couldn't read {} : {}", statusFile.getPath(), e.getMessage());
         }
     }
 
-    public void createAlpineProject(byte[] bytes, List<DependencyInfo> packages) {
+    private void readAlpinePackages(List<DependencyInfo> packages) {
+        File installedFile = new File(rootFolder, ApkDatabaseReader.INSTALLED_FILE);
+        if (!installedFile.isFile()) {
+            return;
+        }
         logger.info("Trying to resolve Alpine packages");
-        String linesStr = new String(bytes);
-        String[] lines = linesStr.split(NEW_LINE);
-        for (String line : lines) {
-            line = line.replaceAll(NON_ASCII_CHARS, Constants.EMPTY_STRING);
-            if (line.contains(ALPINE_PACKAGE_SPLIT_PATTERN)) {
-                String[] split = line.split(ALPINE_PACKAGE_SPLIT_PATTERN);
-                if (split.length > 0) {
-                    packages.add(new DependencyInfo(null, MessageFormat.format(ALPINE_PACKAGE_PATTERN, split[0]), null));
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(installedFile))) {
+            new ApkDatabaseReader().read(inputStream, packageInfo -> {
+                if (packageInfo.getVersion() != null) {
+                    packages.add(new DependencyInfo(null, MessageFormat.format(ALPINE_PACKAGE_PATTERN,
+                            packageInfo.getPackageName() + Constants.DASH + packageInfo.getVersion()), null));
                 }
-            }
+            });
+        } catch (IOException e) {
+            logger.warn("Couldn't read {} : {}", installedFile.getPath(), e.getMessage());
         }
     }
 
+    // every installed package has its own folder with a desc file
+    private void readArchLinuxPackages(List<DependencyInfo> packages) {
+        File[] packageFolders = new File(rootFolder, PacmanDescReader.LOCAL_DATABASE_FOLDER).listFiles(File::isDirectory);
+        if (packageFolders == null) {
+            return;
+        }
+        logger.info("Trying to resolve Arch Linux packages");
+        PacmanDescReader descReader = new PacmanDescReader();
+        for (File packageFolder : packageFolders) {
+            File descFile = new File(packageFolder, PacmanDescReader.DESC);
+            if (!descFile.isFile()) {
+                continue;
+            }
+            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(descFile))) {
+                Package packageInfo = descReader.read(inputStream);
+                if (packageInfo.getPackageName() != null && packageInfo.getVersion() != null && packageInfo.getArchitecture() != null) {
+                    packages.add(new DependencyInfo(null, MessageFormat.format(ARCH_LINUX_PACKAGE_PATTERN,
+                            packageInfo.getPackageName(), packageInfo.getVersion(), packageInfo.getArchitecture()), null));
+                }
+            } catch (IOException e) {
+                logger.warn("Couldn't read {} : {}", descFile.getPath(), e.getMessage());
+            }
+        }
+    }
 
-    /* --- Private  methods --- */
-
-    private String getSystemArchitecture() {
-        String arch = Constants.EMPTY_STRING;
-        String outputStr = null;
-        BufferedReader bufferedReader = null;
+    private void readRpmPackages(List<DependencyInfo> packages) {
+        List<String> command = new LinkedList<>(Arrays.asList(LinuxPkgManagerCommand.RPM.getCommand().split(Constants.WHITESPACE)));
+        command.add(RPM_ROOT_PARAMETER);
+        command.add(rootFolder.getPath());
         Process process = null;
         try {
-            process = Runtime.getRuntime().exec(ARCH_LINUX_ARCHITECTURE_COMMAND);
-            process.waitFor();
-            bufferedReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            outputStr = bufferedReader.readLine();
-            if (StringUtils.isNotBlank(outputStr) && SYSTEM_ARCHITECTURES.contains(outputStr)) {
-                arch = outputStr;
+            logger.debug("Trying to run command {}", command);
+            process = new ProcessBuilder(command).start();
+            byte[] bytes;
+            try (InputStream inputStream = process.getInputStream()) {
+                bytes = ByteStreams.toByteArray(inputStream);
+            }
+            if (bytes.length == 0) {
+                logger.error("Unable to execute - {} , unix flavor does not support this command ", LinuxPkgManagerCommand.RPM.getCommand());
+            } else {
+                logger.info("Succeed to run the command - {} ", LinuxPkgManagerCommand.RPM.getCommand());
+                createRpmProject(bytes, packages);
             }
-            bufferedReader.close();
         } catch (IOException e) {
-            logger.warn("Error processing arch linux command {}, error : {}", LinuxPkgManagerCommand.ARCH_LINUX, e.getMessage());
-        } catch (InterruptedException e) {
-            logger.warn("Error InterruptedException {}, error : {}", LinuxPkgManagerCommand.ARCH_LINUX, e.getMessage());
+            logger.warn("Couldn't resolve : {}", LinuxPkgManagerCommand.RPM.name());
+        } finally {
+            if (process != null) {
+                process.destroy();
+            }
         }
-        return arch;
     }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package org.whitesource.agent.dependency.resolver.packageManger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the desc file of a single installed pacman package ('/var/lib/pacman/local/{package}/desc').
+ * Each field is a '%NAME%' line followed by its value lines.
+ */
+public class PacmanDescReader {
+
+    /* --- Static members --- */
+
+    public static final String LOCAL_DATABASE_FOLDER = "var/lib/pacman/local";
+    public static final String DESC = "desc";
+
+    private static final String PACKAGE = "%NAME%";
+    private static final String VERSION = "%VERSION%";
+    private static final String ARCHITECTURE = "%ARCH%";
+
+    /* --- Public methods --- */
+
+    /**
+     * @param inputStream - the desc file content, not closed by the reader
+     * @return the package, its fields are null if they are missing in the file
+     */
+    public Package read(InputStream inputStream) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        Package packageInfo = new Package();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            switch (line) {
+                case PACKAGE:
+                    packageInfo.setPackageName(reader.readLine());
+                    break;
+                case VERSION:
+                    packageInfo.setVersion(reader.readLine());
+                    break;
+                case ARCHITECTURE:
+                    packageInfo.setArchitecture(reader.readLine());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return packageInfo;
+    }
+}
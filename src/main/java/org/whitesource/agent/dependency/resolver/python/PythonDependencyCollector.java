@@ -48,6 +48,7 @@ public class PythonDependencyCollector extends DependencyCollector {
     private AtomicInteger counterFolders = new AtomicInteger(0);
     private DependenciesFileType dependencyFileType;
     private String tempDirDirectPackages;
+    private TempFolders tempFolders;
 
 
     private final Logger logger = LoggerFactory.getLogger(org.whitesource.agent.dependency.resolver.python.PythonDependencyResolver.class);
@@ -93,8 +94,10 @@ public class PythonDependencyCollector extends DependencyCollector {
     /* --- Constructors --- */
 
     public PythonDependencyCollector(String pythonPath, String pipPath, boolean installVirtualEnv, boolean resolveHierarchyTree, boolean ignorePipInstallErrors,
-                                     String requirementsTxtOrSetupPyPath, String tempDirPackages, String tempDirVirtualEnv, String tempDirDirectPackages) {
+                                     String requirementsTxtOrSetupPyPath, String tempDirPackages, String tempDirVirtualEnv, String tempDirDirectPackages,
+                                     TempFolders tempFolders) {
         super();
+        this.tempFolders = tempFolders;
         this.pythonPath = pythonPath;
         this.pipPath = pipPath;
         this.installVirtualEnv = installVirtualEnv;
@@ -112,8 +115,10 @@ public class PythonDependencyCollector extends DependencyCollector {
         this.ignorePipInstallErrors = ignorePipInstallErrors;
     }
 
-    public PythonDependencyCollector(boolean ignorePipEnvInstallErrors, boolean runPipEnvPreStep, String tempDirPackages, String pythonPath, String pipPath, boolean pipenvInstallDevDependencies) {
+    public PythonDependencyCollector(boolean ignorePipEnvInstallErrors, boolean runPipEnvPreStep, String tempDirPackages, String pythonPath, String pipPath,
+                                     boolean pipenvInstallDevDependencies, TempFolders tempFolders) {
         super();
+        this.tempFolders = tempFolders;
         this.pythonPath = pythonPath;
         this.pipPath = pipPath;
         this.ignorePipEnvInstallErrors = ignorePipEnvInstallErrors;
@@ -187,7 +192,7 @@ public class PythonDependencyCollector extends DependencyCollector {
                 if (failed && this.ignorePipInstallErrors && this.dependencyFileType == DependenciesFileType.REQUIREMENTS_TXT) {
                     logger.info("Try to download each dependency in " + this.requirementsTxtOrSetupPyPath + " file one by one. It might take a few minutes.");
                     FilesUtils.deleteDirectory(new File(tempDirPackages));
-                    this.tempDirPackages = new FilesUtils().createTmpFolder(false, TempFolders.UNIQUE_PYTHON_TEMP_FOLDER);
+                    this.tempDirPackages = tempFolders.createTempFolder(false, TempFolders.WHITESOURCE_PYTHON_TEMP_FOLDER);
                     if (this.tempDirPackages != null) {
                         downloadLineByLine(this.requirementsTxtOrSetupPyPath);
                         dependencies = collectDependencies(new File(tempDirPackages), this.requirementsTxtOrSetupPyPath);
@@ -599,8 +604,7 @@ public class PythonDependencyCollector extends DependencyCollector {
     }
 
     private String createScript(String requirementsTxtPath) {
-        FilesUtils filesUtils = new FilesUtils();
-        String path = filesUtils.createTmpFolder(false, TempFolders.UNIQUE_PYTHON_TEMP_FOLDER);
+        String path = tempFolders.createTempFolder(false, TempFolders.WHITESOURCE_PYTHON_TEMP_FOLDER);
         String scriptPath = null;
         if (path != null) {
             scriptPath = path + SCRIPT_SH;
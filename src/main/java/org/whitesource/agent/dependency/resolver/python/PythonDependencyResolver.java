@@ -47,6 +47,7 @@ public class PythonDependencyResolver extends AbstractDependencyResolver {
     private boolean installVirutalenv;
     private boolean resolveHierarchyTree;
     private String[] pythonRequirementsFileIncludes;
+    private final TempFolders tempFolders;
     public String PYTHON_REGEX = "\\\\";
     /* --- Static members --- */
 
@@ -58,7 +59,15 @@ public class PythonDependencyResolver extends AbstractDependencyResolver {
 
     public PythonDependencyResolver(String pythonPath, String pipPath, boolean ignorePipInstallErrors,
                                     boolean installVirtualEnv, boolean resolveHierarchyTree, String[] pythonRequirementsFileIncludes, boolean ignoreSourceFiles, boolean ignorePipEnvInstallErrors, boolean runPipenvPreStep, boolean pipenvInstallDevDependencies) {
+        this(pythonPath, pipPath, ignorePipInstallErrors, installVirtualEnv, resolveHierarchyTree, pythonRequirementsFileIncludes, ignoreSourceFiles,
+                ignorePipEnvInstallErrors, runPipenvPreStep, pipenvInstallDevDependencies, new TempFolders());
+    }
+
+    public PythonDependencyResolver(String pythonPath, String pipPath, boolean ignorePipInstallErrors,
+                                    boolean installVirtualEnv, boolean resolveHierarchyTree, String[] pythonRequirementsFileIncludes, boolean ignoreSourceFiles,
+                                    boolean ignorePipEnvInstallErrors, boolean runPipenvPreStep, boolean pipenvInstallDevDependencies, TempFolders tempFolders) {
         super();
+        this.tempFolders = tempFolders;
         this.pythonPath = pythonPath;
         this.pipPath = pipPath;
         this.ignorePipInstallErrors = ignorePipInstallErrors;
@@ -94,14 +103,14 @@ public class PythonDependencyResolver extends AbstractDependencyResolver {
     private Collection<DependencyInfo> runPipAlgorithm(FilesUtils filesUtils, Set<String> dependenciesFiles) {
         LinkedList<DependencyInfo> resultDependencies = new LinkedList<>();
         for (String dependencyFile : dependenciesFiles) {
-            String tempDirVirtualEnv = filesUtils.createTmpFolder(true, TempFolders.UNIQUE_PYTHON_TEMP_FOLDER);
-            String tempDirPackages = filesUtils.createTmpFolder(false, TempFolders.UNIQUE_PYTHON_TEMP_FOLDER);
-            String tempDirDirectPackages = filesUtils.createTmpFolder(false, TempFolders.UNIQUE_PYTHON_TEMP_FOLDER + DIRECT);
+            String tempDirVirtualEnv = tempFolders.createTempFolder(true, TempFolders.WHITESOURCE_PYTHON_TEMP_FOLDER);
+            String tempDirPackages = tempFolders.createTempFolder(false, TempFolders.WHITESOURCE_PYTHON_TEMP_FOLDER);
+            String tempDirDirectPackages = tempFolders.createTempFolder(false, TempFolders.WHITESOURCE_PYTHON_TEMP_FOLDER + DIRECT);
             PythonDependencyCollector pythonDependencyCollector;
             Collection<DependencyInfo> dependencies = new LinkedList<>();
             if (tempDirVirtualEnv != null && tempDirPackages != null) {
                 pythonDependencyCollector = new PythonDependencyCollector(this.pythonPath, this.pipPath, this.installVirutalenv, this.resolveHierarchyTree, this.ignorePipInstallErrors,
-                        dependencyFile, tempDirPackages, tempDirVirtualEnv, tempDirDirectPackages);
+                        dependencyFile, tempDirPackages, tempDirVirtualEnv, tempDirDirectPackages, tempFolders);
                 String currentTopLevelFolder = dependencyFile.substring(0, dependencyFile.replaceAll(PYTHON_REGEX,
                         Constants.FORWARD_SLASH).lastIndexOf(Constants.FORWARD_SLASH));
                 Collection<AgentProjectInfo> projects = pythonDependencyCollector.collectDependencies(currentTopLevelFolder);
@@ -120,10 +129,10 @@ public class PythonDependencyResolver extends AbstractDependencyResolver {
         String tempDirPackages = null;
         Collection<DependencyInfo> dependencies = new LinkedList<>();
         try {
-            tempDirPackages = filesUtils.createTmpFolder(true, TempFolders.UNIQUE_PYTHON_TEMP_FOLDER);
+            tempDirPackages = tempFolders.createTempFolder(true, TempFolders.WHITESOURCE_PYTHON_TEMP_FOLDER);
             String dependencyFile = pipfilePath;
             PythonDependencyCollector pythonDependencyCollector;
-            pythonDependencyCollector = new PythonDependencyCollector(ignorePipEnvInstallErrors, runPipenvPreStep, tempDirPackages, pythonPath, pipPath, pipenvInstallDevDependencies);
+            pythonDependencyCollector = new PythonDependencyCollector(ignorePipEnvInstallErrors, runPipenvPreStep, tempDirPackages, pythonPath, pipPath, pipenvInstallDevDependencies, tempFolders);
             String currentTopLevelFolder = dependencyFile.substring(0, dependencyFile.replaceAll(PYTHON_REGEX, Constants.FORWARD_SLASH).lastIndexOf(Constants.FORWARD_SLASH));
             Collection<AgentProjectInfo> projects = pythonDependencyCollector.collectDependencies(currentTopLevelFolder);
             dependencies = projects.stream().flatMap(project -> project.getDependencies().stream()).collect(Collectors.toList());
@@ -0,0 +1,18 @@
+package org.whitesource.agent.dependency.resolver.sbt;
+
+class Artifact {
+
+    private String location;
+
+    /* --- Constructors --- */
+
+    Artifact(String location) {
+        this.location = location;
+    }
+
+    /* --- Getters --- */
+
+    public String getPathToJar() {
+        return location;
+    }
+}
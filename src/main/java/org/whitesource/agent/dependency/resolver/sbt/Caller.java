@@ -0,0 +1,32 @@
+package org.whitesource.agent.dependency.resolver.sbt;
+
+class Caller {
+
+    private String organisation;
+
+    private String name;
+
+    private String callerrev;
+
+    /* --- Constructors --- */
+
+    Caller(String organisation, String name, String callerrev) {
+        this.organisation = organisation;
+        this.name = name;
+        this.callerrev = callerrev;
+    }
+
+    /* --- Getters --- */
+
+    public String getGroupId() {
+        return organisation;
+    }
+
+    public String getArtifactId() {
+        return name;
+    }
+
+    public String getVersion() {
+        return callerrev;
+    }
+}
@@ -0,0 +1,32 @@
+package org.whitesource.agent.dependency.resolver.sbt;
+
+class Info {
+
+    private String organisation;
+
+    private String module;
+
+    private String revision;
+
+    /* --- Constructors --- */
+
+    Info(String organisation, String module, String revision) {
+        this.organisation = organisation;
+        this.module = module;
+        this.revision = revision;
+    }
+
+    /* --- Getters --- */
+
+    public String getGroupId() {
+        return organisation;
+    }
+
+    public String getArtifactId() {
+        return module;
+    }
+
+    public String getVersion() {
+        return revision;
+    }
+}
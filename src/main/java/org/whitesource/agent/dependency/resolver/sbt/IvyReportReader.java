@@ -0,0 +1,124 @@
+package org.whitesource.agent.dependency.resolver.sbt;
+
+import org.apache.commons.lang.StringUtils;
+import org.whitesource.agent.utils.XmlStreamUtils;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Streaming reader of ivy '*-compile.xml' reports, picking only the info, module, revision, caller and artifact elements.
+ */
+public class IvyReportReader {
+
+    /* --- Static members --- */
+
+    private static final String INFO = "info";
+    private static final String MODULE = "module";
+    private static final String REVISION = "revision";
+    private static final String CALLER = "caller";
+    private static final String ARTIFACT = "artifact";
+    private static final String ORGANISATION = "organisation";
+    private static final String NAME = "name";
+    private static final String POSITION = "position";
+    private static final String CALLER_REV = "callerrev";
+    private static final String LOCATION = "location";
+
+    /* --- Public methods --- */
+
+    public IvyReport read(File reportFile) throws IOException, XMLStreamException {
+        return read(reportFile, false);
+    }
+
+    /**
+     * Read only the project's info, the rest of the report is not parsed.
+     */
+    public Info readInfo(File reportFile) throws IOException, XMLStreamException {
+        return read(reportFile, true).getInfo();
+    }
+
+    /* --- Private methods --- */
+
+    private IvyReport read(File reportFile, boolean infoOnly) throws IOException, XMLStreamException {
+        Info info = null;
+        List<Module> modules = new LinkedList<>();
+        Module currentModule = null;
+        Revision currentRevision = null;
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(reportFile))) {
+            XMLStreamReader reader = XmlStreamUtils.createReader(inputStream);
+            try {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        switch (reader.getLocalName()) {
+                            case INFO:
+                                info = new Info(XmlStreamUtils.getAttribute(reader, ORGANISATION),
+                                        XmlStreamUtils.getAttribute(reader, MODULE), XmlStreamUtils.getAttribute(reader, REVISION));
+                                if (infoOnly) {
+                                    return new IvyReport(info, modules);
+                                }
+                                break;
+                            case MODULE:
+                                currentModule = new Module(XmlStreamUtils.getAttribute(reader, ORGANISATION), XmlStreamUtils.getAttribute(reader, NAME));
+                                modules.add(currentModule);
+                                break;
+                            case REVISION:
+                                if (currentModule != null) {
+                                    currentRevision = new Revision(XmlStreamUtils.getAttribute(reader, NAME), getPosition(reader));
+                                    currentModule.getRevisions().add(currentRevision);
+                                }
+                                break;
+                            case CALLER:
+                                String callerOrganisation = XmlStreamUtils.getAttribute(reader, ORGANISATION);
+                                String callerName = XmlStreamUtils.getAttribute(reader, NAME);
+                                if (currentRevision != null && callerOrganisation != null && callerName != null) {
+                                    currentRevision.getParentsList().add(new Caller(callerOrganisation, callerName, XmlStreamUtils.getAttribute(reader, CALLER_REV)));
+                                }
+                                break;
+                            case ARTIFACT:
+                                String location = XmlStreamUtils.getAttribute(reader, LOCATION);
+                                if (currentRevision != null && location != null) {
+                                    currentRevision.getArtifacts().add(new Artifact(location));
+                                }
+                                break;
+                            default:
+                                break;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        if (MODULE.equals(reader.getLocalName())) {
+                            currentModule = null;
+                        } else if (REVISION.equals(reader.getLocalName())) {
+                            currentRevision = null;
+                        }
+                    }
+                }
+            } finally {
+                XmlStreamUtils.closeQuietly(reader);
+            }
+        }
+        if (info == null) {
+            throw new XMLStreamException("Missing " + INFO + " element in " + reportFile.getPath());
+        }
+        return new IvyReport(info, modules);
+    }
+
+    private int getPosition(XMLStreamReader reader) {
+        String position = XmlStreamUtils.getAttribute(reader, POSITION);
+        if (StringUtils.isNotBlank(position)) {
+            try {
+                return Integer.parseInt(position.trim());
+            } catch (NumberFormatException e) {
+                // treat as a used revision
+            }
+        }
+        return 0;
+    }
+}
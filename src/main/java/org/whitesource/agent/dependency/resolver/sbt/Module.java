@@ -0,0 +1,34 @@
+package org.whitesource.agent.dependency.resolver.sbt;
+
+import java.util.LinkedList;
+import java.util.List;
+
+class Module {
+
+    private String organisation;
+
+    private String name;
+
+    private List<Revision> revisionsList = new LinkedList<>();
+
+    /* --- Constructors --- */
+
+    Module(String organisation, String name) {
+        this.organisation = organisation;
+        this.name = name;
+    }
+
+    /* --- Getters --- */
+
+    public String getGroupId() {
+        return organisation;
+    }
+
+    public String getArtifactId() {
+        return name;
+    }
+
+    public List<Revision> getRevisions() {
+        return revisionsList;
+    }
+}
@@ -0,0 +1,41 @@
+package org.whitesource.agent.dependency.resolver.sbt;
+
+import java.util.LinkedList;
+import java.util.List;
+
+class Revision {
+
+    private String name;
+
+    private int position;
+
+    private List<Caller> callerList = new LinkedList<>();
+
+    private List<Artifact> artifacts = new LinkedList<>();
+
+    /* --- Constructors --- */
+
+    Revision(String name, int position) {
+        this.name = name;
+        this.position = position;
+    }
+
+    /* --- Getters --- */
+
+    public String getVersion() {
+        return name;
+    }
+
+    // dependencies with multiple versions, only the latest is used.  the others have property 'position=-1"
+    public boolean isIgnored(){
+        return position == -1;
+    }
+
+    public List<Caller> getParentsList() {
+        return callerList;
+    }
+
+    public List<Artifact> getArtifacts() {
+        return artifacts;
+    }
+}
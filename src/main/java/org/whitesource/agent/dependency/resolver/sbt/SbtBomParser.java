@@ -1,7 +1,5 @@
 package org.whitesource.agent.dependency.resolver.sbt;
 
-import org.simpleframework.xml.Serializer;
-import org.simpleframework.xml.core.Persister;
 import org.slf4j.Logger;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.dependency.resolver.BomFile;
@@ -16,12 +14,12 @@ public class SbtBomParser implements IBomParser {
     public BomFile parseBomFile(String bomPath) {
         File bomFile = new File(bomPath);
         if (bomFile.isFile()){
-            Serializer serializer = new Persister();
             try {
-                IvyReport ivyReport = serializer.read(IvyReport.class, bomFile);
-                String groupId = ivyReport.getInfo().getGroupId();
-                String artifactId = ivyReport.getInfo().getArtifactId();
-                String version = ivyReport.getInfo().getVersion();
+                // only the report's info is needed here, stop reading once it was found
+                Info info = new IvyReportReader().readInfo(bomFile);
+                String groupId = info.getGroupId();
+                String artifactId = info.getArtifactId();
+                String version = info.getVersion();
                 return new BomFile(groupId, artifactId, version, bomPath);
             } catch (Exception e) {
                 logger.warn("Couldn't parse {}, {}", bomPath, e.getMessage());
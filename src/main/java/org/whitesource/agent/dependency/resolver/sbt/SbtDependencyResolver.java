@@ -1,8 +1,6 @@
 package org.whitesource.agent.dependency.resolver.sbt;
 
 import org.apache.commons.lang.StringUtils;
-import org.simpleframework.xml.Serializer;
-import org.simpleframework.xml.core.Persister;
 import org.slf4j.Logger;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.Constants;
@@ -105,9 +103,8 @@ public class SbtDependencyResolver extends AbstractDependencyResolver {
         if (xmlFiles.isEmpty() && !sbtRunPreStep) {
             logger.warn("Didn't find compile.xml please try to turn on the flag {}", SBT_TARGET_FOLDER);
         }
-        for (File xmlFile : xmlFiles) {
-            projects.add(parseXmlReport(xmlFile));
-        }
+        // reports of different modules are independent, parse them concurrently
+        projects.addAll(xmlFiles.parallelStream().map(this::parseXmlReport).collect(Collectors.toList()));
         Set<String> excludes = new HashSet<>();
         Map<AgentProjectInfo, Path> projectInfoPathMap = projects.stream().collect(Collectors.toMap(projectInfo -> projectInfo, projectInfo -> {
             if (ignoreSourceFiles) {
@@ -247,11 +244,10 @@ public class SbtDependencyResolver extends AbstractDependencyResolver {
 
     private AgentProjectInfo parseXmlReport(File xmlReportFile) {
         AgentProjectInfo agentProjectInfo = new AgentProjectInfo();
-        Serializer serializer = new Persister();
         Map<String, DependencyInfo> parentsMap = new HashMap<>();
         Map<String, List<String>> childrenMap = new HashMap<>();
         try {
-            IvyReport ivyReport = serializer.read(IvyReport.class, xmlReportFile);
+            IvyReport ivyReport = new IvyReportReader().read(xmlReportFile);
             // using these properties to identify root dependencies (having the project's root as their parent)
             String projectGroupId = ivyReport.getInfo().getGroupId();
             String projectArtifactId = ivyReport.getInfo().getArtifactId();
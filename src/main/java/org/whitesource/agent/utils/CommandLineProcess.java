@@ -34,6 +34,7 @@ public class CommandLineProcess {
     private static final long DEFAULT_TIMEOUT_READLINE_SECONDS = 300;
     private static final long DEFAULT_TIMEOUT_PROCESS_MINUTES = 15;
     private static final String WINDOWS_SEPARATOR = "\\";
+    private static final String COMMAND_LABEL = "command";
     private final Logger logger = LoggerFactory.getLogger(org.whitesource.agent.utils.CommandLineProcess.class);
 
     public CommandLineProcess(String rootDirectory, String[] args) {
@@ -48,6 +49,16 @@ public class CommandLineProcess {
     }
 
     private List<String> executeProcess(boolean includeOutput, boolean includeErrorLines) throws IOException {
+        String command = args.length > 0 ? new File(args[0]).getName() : Constants.EMPTY_STRING;
+        ScanMetrics.Timer timer = ScanMetrics.startTimer(ScanMetrics.EXTERNAL_PROCESS, COMMAND_LABEL, command);
+        try {
+            return runProcess(includeOutput, includeErrorLines);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private List<String> runProcess(boolean includeOutput, boolean includeErrorLines) throws IOException {
         List<String> linesOutput = new LinkedList<>();
         ProcessBuilder pb = new ProcessBuilder(args);
         String osName = System.getProperty(Constants.OS_NAME);
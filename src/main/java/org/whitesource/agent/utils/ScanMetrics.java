@@ -0,0 +1,230 @@
+/**
+ * Copyright (C) 2014 WhiteSource Ltd.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.whitesource.agent.utils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Counters and histograms of the scan phases, kept for the whole process.
+ * Exported in the Prometheus text format by the endpoint, or as a summary for command line runs.
+ */
+public class ScanMetrics {
+
+    /* --- Static members --- */
+
+    public static final String DIRECTORY_WALK = "fsa_directory_walk_seconds";
+    public static final String ARCHIVE_EXTRACTION = "fsa_archive_extraction_seconds";
+    public static final String RESOLVER = "fsa_resolver_seconds";
+    public static final String EXTERNAL_PROCESS = "fsa_external_process_seconds";
+    public static final String HASHING = "fsa_hashing_seconds";
+    public static final String HASHED_FILES = "fsa_hashed_files_total";
+    public static final String HASHED_BYTES = "fsa_hashed_bytes_total";
+    public static final String SERIALIZATION = "fsa_serialization_seconds";
+    public static final String UPLOAD = "fsa_upload_seconds";
+
+    private static final String HISTOGRAM = "histogram";
+    private static final String COUNTER = "counter";
+    private static final double[] BUCKETS = {0.01, 0.05, 0.1, 0.5, 1, 5, 10, 30, 60, 300, 900};
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private static final Map<String, String[]> definitions = new LinkedHashMap<>();
+    private static final ConcurrentMap<String, ConcurrentMap<String, Series>> metrics = new ConcurrentHashMap<>();
+
+    static {
+        definitions.put(DIRECTORY_WALK, new String[]{HISTOGRAM, "Time walking the directories for the files to scan"});
+        definitions.put(ARCHIVE_EXTRACTION, new String[]{HISTOGRAM, "Time extracting the archives of a scanned folder"});
+        definitions.put(RESOLVER, new String[]{HISTOGRAM, "Time of a resolver on a single folder"});
+        definitions.put(EXTERNAL_PROCESS, new String[]{HISTOGRAM, "Time of the external processes run by the resolvers"});
+        definitions.put(HASHING, new String[]{HISTOGRAM, "Time hashing the files of a scan"});
+        definitions.put(HASHED_FILES, new String[]{COUNTER, "Files hashed"});
+        definitions.put(HASHED_BYTES, new String[]{COUNTER, "Bytes of the files hashed"});
+        definitions.put(SERIALIZATION, new String[]{HISTOGRAM, "Time serializing scan results and requests"});
+        definitions.put(UPLOAD, new String[]{HISTOGRAM, "Time sending requests to the server"});
+    }
+
+    /* --- Constructors --- */
+
+    private ScanMetrics() {
+    }
+
+    /* --- Public methods --- */
+
+    /**
+     * @param labels pairs of label names and values
+     * @return a timer to stop once the phase is done
+     */
+    public static Timer startTimer(String name, String... labels) {
+        return new Timer(name, labels);
+    }
+
+    public static void observe(String name, double seconds, String... labels) {
+        getSeries(name, labels).observe(seconds);
+    }
+
+    public static void increment(String name, long amount, String... labels) {
+        getSeries(name, labels).increment(amount);
+    }
+
+    /**
+     * @return the metrics in the Prometheus text exposition format
+     */
+    public static String getPrometheusText() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String[]> definition : definitions.entrySet()) {
+            String name = definition.getKey();
+            String type = definition.getValue()[0];
+            Map<String, Series> allSeries = new TreeMap<>(metrics.getOrDefault(name, new ConcurrentHashMap<>()));
+            sb.append("# HELP ").append(name).append(' ').append(definition.getValue()[1]).append('\n');
+            sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+            for (Map.Entry<String, Series> entry : allSeries.entrySet()) {
+                entry.getValue().append(sb, name, entry.getKey(), HISTOGRAM.equals(type));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return the count and total of each metric, by metric and labels, with the hashing throughput
+     */
+    public static Map<String, Object> getSummary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        for (String name : definitions.keySet()) {
+            Map<String, Object> metricSummary = new TreeMap<>();
+            metrics.getOrDefault(name, new ConcurrentHashMap<>()).forEach((labels, series) -> metricSummary.put(labels, series.getSummary()));
+            if (!metricSummary.isEmpty()) {
+                summary.put(name, metricSummary);
+            }
+        }
+        double hashingSeconds = getTotal(HASHING);
+        if (hashingSeconds > 0) {
+            summary.put("fsa_hashed_files_per_second", getTotal(HASHED_FILES) / hashingSeconds);
+            summary.put("fsa_hashed_bytes_per_second", getTotal(HASHED_BYTES) / hashingSeconds);
+        }
+        return summary;
+    }
+
+    public static void clear() {
+        metrics.clear();
+    }
+
+    /* --- Private methods --- */
+
+    private static Series getSeries(String name, String... labels) {
+        if (!definitions.containsKey(name)) {
+            throw new IllegalArgumentException("Unknown metric " + name);
+        }
+        return metrics.computeIfAbsent(name, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(getLabels(labels), key -> new Series());
+    }
+
+    private static double getTotal(String name) {
+        return metrics.getOrDefault(name, new ConcurrentHashMap<>()).values().stream().mapToDouble(Series::getSum).sum();
+    }
+
+    private static String getLabels(String... labels) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            String value = String.valueOf(labels[i + 1]).replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+            sb.append(labels[i]).append("=\"").append(value).append('"');
+        }
+        return sb.toString();
+    }
+
+    /* --- Nested classes --- */
+
+    /**
+     * Observes the time since it was started in its histogram once stopped.
+     */
+    public static class Timer implements AutoCloseable {
+
+        private final String name;
+        private final String[] labels;
+        private final long startTime = System.nanoTime();
+
+        private Timer(String name, String[] labels) {
+            this.name = name;
+            this.labels = labels;
+        }
+
+        public void stop() {
+            observe(name, (System.nanoTime() - startTime) / NANOS_PER_SECOND, labels);
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+    }
+
+    private static class Series {
+
+        private final long[] bucketCounts = new long[BUCKETS.length];
+        private long count;
+        private double sum;
+
+        private synchronized void observe(double value) {
+            for (int i = 0; i < BUCKETS.length; i++) {
+                if (value <= BUCKETS[i]) {
+                    bucketCounts[i]++;
+                }
+            }
+            count++;
+            sum += value;
+        }
+
+        private synchronized void increment(long amount) {
+            count++;
+            sum += amount;
+        }
+
+        private synchronized double getSum() {
+            return sum;
+        }
+
+        private synchronized Map<String, Object> getSummary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", count);
+            summary.put("sum", sum);
+            return summary;
+        }
+
+        private synchronized void append(StringBuilder sb, String name, String labels, boolean histogram) {
+            if (!histogram) {
+                sb.append(name).append(getLabelsText(labels, null)).append(' ').append((long) sum).append('\n');
+                return;
+            }
+            for (int i = 0; i < BUCKETS.length; i++) {
+                sb.append(name).append("_bucket").append(getLabelsText(labels, String.valueOf(BUCKETS[i]))).append(' ').append(bucketCounts[i]).append('\n');
+            }
+            sb.append(name).append("_bucket").append(getLabelsText(labels, "+Inf")).append(' ').append(count).append('\n');
+            sb.append(name).append("_sum").append(getLabelsText(labels, null)).append(' ').append(sum).append('\n');
+            sb.append(name).append("_count").append(getLabelsText(labels, null)).append(' ').append(count).append('\n');
+        }
+
+        private String getLabelsText(String labels, String bucket) {
+            String allLabels = labels;
+            if (bucket != null) {
+                allLabels = (labels.isEmpty() ? "" : labels + ",") + "le=\"" + bucket + "\"";
+            }
+            return allLabels.isEmpty() ? "" : "{" + allLabels + "}";
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.whitesource.agent.utils;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+
+/**
+ * Helpers for reading xml files with a streaming (StAX) reader instead of building the whole document tree.
+ */
+public class XmlStreamUtils {
+
+    /* --- Static members --- */
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    /* --- Public static methods --- */
+
+    public static XMLStreamReader createReader(InputStream inputStream) throws XMLStreamException {
+        return XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+    }
+
+    /**
+     * Get an attribute of the current start element by its local name, ignoring namespaces
+     * (i.e. old style csproj files declare the msbuild namespace).
+     */
+    public static String getAttribute(XMLStreamReader reader, String localName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (localName.equals(reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return null;
+    }
+
+    public static void closeQuietly(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException e) {
+                // do nothing
+            }
+        }
+    }
+
+    /* --- Private static methods --- */
+
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
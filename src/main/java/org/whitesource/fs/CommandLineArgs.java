@@ -141,6 +141,9 @@ public class CommandLineArgs {
     @Parameter(names = "-logContext", description = "Context id for logger")
     String logContext = null;
 
+    @Parameter(names = "-metricsFile", description = "File to write the timings of the scan phases to, as json")
+    String metricsFile = null;
+
     @Parameter(names = "-requireKnownSha1", description = "User-entry of a flag that overrides default FSA process termination when sha1 is missing in case of via")
     String requireKnownSha1 = null;
 
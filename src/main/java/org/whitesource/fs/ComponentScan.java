@@ -6,6 +6,7 @@ import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.ConfigPropertyKeys;
 import org.whitesource.agent.Constants;
 import org.whitesource.agent.FileSystemScanner;
+import org.whitesource.agent.TempFolders;
 import org.whitesource.agent.api.model.AgentProjectInfo;
 import org.whitesource.agent.api.model.DependencyInfo;
 import org.whitesource.agent.dependency.resolver.docker.DockerResolver;
@@ -68,14 +69,19 @@ public class ComponentScan {
             Map<String, Set<String>> appPathsToDependencyDirs = new HashMap<>();
             appPathsToDependencyDirs.put(FSAConfiguration.DEFAULT_KEY, setDirs);
             Collection<AgentProjectInfo> projects;
-            // scan packageManager||Docker||Regular Scan
-            if (Boolean.valueOf(config.getProperty(ConfigPropertyKeys.SCAN_PACKAGE_MANAGER))) {
-                projects = new PackageManagerExtractor().createProjects();
-            } else if (Boolean.valueOf(config.getProperty(ConfigPropertyKeys.SCAN_DOCKER_IMAGES))) {
-                projects = new DockerResolver(fsaConfiguration).resolveDockerImages();
-            } else {
-                ProjectConfiguration projectConfiguration = new ProjectConfiguration(fsaConfiguration.getAgent(), scannerBaseDirs, appPathsToDependencyDirs, false);
-                projects = new FileSystemScanner(resolverConfiguration, fsaConfiguration.getAgent(), false).createProjects(projectConfiguration).keySet();
+            TempFolders tempFolders = new TempFolders();
+            try {
+                // scan packageManager||Docker||Regular Scan
+                if (Boolean.valueOf(config.getProperty(ConfigPropertyKeys.SCAN_PACKAGE_MANAGER))) {
+                    projects = new PackageManagerExtractor(fsaConfiguration.getPackageManagerRootFolder()).createProjects();
+                } else if (Boolean.valueOf(config.getProperty(ConfigPropertyKeys.SCAN_DOCKER_IMAGES))) {
+                    projects = new DockerResolver(fsaConfiguration, tempFolders).resolveDockerImages();
+                } else {
+                    ProjectConfiguration projectConfiguration = new ProjectConfiguration(fsaConfiguration.getAgent(), scannerBaseDirs, appPathsToDependencyDirs, false);
+                    projects = new FileSystemScanner(resolverConfiguration, fsaConfiguration.getAgent(), false, tempFolders).createProjects(projectConfiguration).keySet();
+                }
+            } finally {
+                tempFolders.deleteTempFolders();
             }
 
             logger.info("Finished dependency resolution");
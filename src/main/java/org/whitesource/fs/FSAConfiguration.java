@@ -24,6 +24,7 @@ import org.whitesource.agent.Constants;
 import org.whitesource.agent.ViaLanguage;
 import org.whitesource.agent.api.dispatch.UpdateType;
 import org.whitesource.agent.client.ClientConstants;
+import org.whitesource.agent.dependency.resolver.dotNet.RestoreCollector;
 import org.whitesource.agent.dependency.resolver.maven.MavenTreeDependencyCollector;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.utils.Pair;
@@ -54,8 +55,9 @@ public class FSAConfiguration {
     /* --- Static members --- */
 
     public static Collection<String> ignoredWebProperties = Arrays.asList(
-            ConfigPropertyKeys.SCM_REPOSITORIES_FILE, ConfigPropertyKeys.LOG_LEVEL_KEY, ConfigPropertyKeys.FOLLOW_SYMBOLIC_LINKS, ConfigPropertyKeys.SHOW_PROGRESS_BAR, ConfigPropertyKeys.PROJECT_CONFIGURATION_PATH, ConfigPropertyKeys.SCAN_PACKAGE_MANAGER, ConfigPropertyKeys.WHITESOURCE_FOLDER_PATH,
-            ConfigPropertyKeys.ENDPOINT_ENABLED, ConfigPropertyKeys.ENDPOINT_PORT, ConfigPropertyKeys.ENDPOINT_CERTIFICATE, ConfigPropertyKeys.ENDPOINT_PASS, ConfigPropertyKeys.ENDPOINT_SSL_ENABLED, ConfigPropertyKeys.OFFLINE_PROPERTY_KEY, ConfigPropertyKeys.OFFLINE_ZIP_PROPERTY_KEY,
+            ConfigPropertyKeys.SCM_REPOSITORIES_FILE, ConfigPropertyKeys.SCM_MIRRORS_PATH, ConfigPropertyKeys.LOG_LEVEL_KEY, ConfigPropertyKeys.FOLLOW_SYMBOLIC_LINKS, ConfigPropertyKeys.SHOW_PROGRESS_BAR, ConfigPropertyKeys.PROJECT_CONFIGURATION_PATH, ConfigPropertyKeys.SCAN_PACKAGE_MANAGER, ConfigPropertyKeys.WHITESOURCE_FOLDER_PATH, ConfigPropertyKeys.METRICS_FILE,
+            ConfigPropertyKeys.ENDPOINT_ENABLED, ConfigPropertyKeys.ENDPOINT_PORT, ConfigPropertyKeys.ENDPOINT_CERTIFICATE, ConfigPropertyKeys.ENDPOINT_PASS, ConfigPropertyKeys.ENDPOINT_SSL_ENABLED,
+            ConfigPropertyKeys.ENDPOINT_JOBS_PARALLELISM, ConfigPropertyKeys.ENDPOINT_JOBS_QUEUE_SIZE, ConfigPropertyKeys.ENDPOINT_JOBS_RETENTION_MINUTES, ConfigPropertyKeys.ENDPOINT_JOBS_CACHE_MINUTES, ConfigPropertyKeys.ENDPOINT_CACHE_MAX_FILES, ConfigPropertyKeys.OFFLINE_PROPERTY_KEY, ConfigPropertyKeys.OFFLINE_ZIP_PROPERTY_KEY,
             ConfigPropertyKeys.OFFLINE_PRETTY_JSON_KEY, ConfigPropertyKeys.WHITESOURCE_CONFIGURATION, ConfigPropertyKeys.SCANNED_FOLDERS);
 
     public static final int VIA_DEFAULT_ANALYSIS_LEVEL = 1;
@@ -112,16 +114,23 @@ public class FSAConfiguration {
     private final List<String> requirementsFileIncludes;
     @FSAConfigProperty
     private final boolean scanPackageManager;
+    private final String packageManagerRootFolder;
     @FSAConfigProperty
     private final boolean scanDockerImages;
     private final boolean scanTarImages;
     private final boolean deleteTarImages;
+    private final String dockerLayersCacheFolder;
+    private final boolean dockerLayersStreaming;
+    private final int dockerScanParallelism;
+    private final long dockerScanDiskBudgetMB;
+    private final int projectPerFolderParallelism;
 
     private final String scannedFolders;
 
     @FSAConfigProperty
     private String logLevel;
     private String logContext;
+    private String metricsFile;
     private boolean useCommandLineProductName;
     private boolean useCommandLineProjectName;
     private List<String> appPaths;
@@ -239,9 +248,15 @@ public class FSAConfiguration {
         }
 
         scanPackageManager = config.getBooleanProperty(ConfigPropertyKeys.SCAN_PACKAGE_MANAGER, false);
+        packageManagerRootFolder = config.getProperty(ConfigPropertyKeys.PACKAGE_MANAGER_ROOT_FOLDER, Constants.FORWARD_SLASH);
         scanDockerImages = config.getBooleanProperty(ConfigPropertyKeys.SCAN_DOCKER_IMAGES, false);
         scanTarImages = config.getBooleanProperty(ConfigPropertyKeys.SCAN_TAR_IMAGES, false);
         deleteTarImages = config.getBooleanProperty(ConfigPropertyKeys.DELETE_TAR_FILES, true);
+        dockerLayersCacheFolder = config.getProperty(ConfigPropertyKeys.DOCKER_LAYERS_CACHE_FOLDER, EMPTY_STRING);
+        dockerLayersStreaming = config.getBooleanProperty(ConfigPropertyKeys.DOCKER_LAYERS_STREAMING, false);
+        dockerScanParallelism = Math.max(1, config.getIntProperty(ConfigPropertyKeys.DOCKER_SCAN_PARALLELISM, 1));
+        dockerScanDiskBudgetMB = config.getLongProperty(ConfigPropertyKeys.DOCKER_SCAN_DISK_BUDGET_MB, 0);
+        projectPerFolderParallelism = Math.max(1, config.getIntProperty(ConfigPropertyKeys.PROJECT_PER_FOLDER_PARALLELISM, 1));
 
         if (dependencyDirs == null)
             dependencyDirs = new ArrayList<>();
@@ -283,6 +298,7 @@ public class FSAConfiguration {
 
         logLevel = config.getProperty(ConfigPropertyKeys.LOG_LEVEL_KEY, INFO);
         logContext = config.getProperty(ConfigPropertyKeys.LOG_CONTEXT);
+        metricsFile = config.getProperty(ConfigPropertyKeys.METRICS_FILE);
         // DO NOT CHANGE THE POSITION OF THE THREE LINES BELOW
         if (StringUtils.isNotEmpty(logContext)) {
             LoggerFactory.contextId = logContext;
@@ -452,7 +468,12 @@ public class FSAConfiguration {
                 config.getProperty(ConfigPropertyKeys.ENDPOINT_CERTIFICATE),
                 config.getProperty(ConfigPropertyKeys.ENDPOINT_PASS),
                 config.getBooleanProperty(ConfigPropertyKeys.ENDPOINT_ENABLED, DEFAULT_ENABLED),
-                config.getBooleanProperty(ConfigPropertyKeys.ENDPOINT_SSL_ENABLED, DEFAULT_SSL));
+                config.getBooleanProperty(ConfigPropertyKeys.ENDPOINT_SSL_ENABLED, DEFAULT_SSL),
+                config.getIntProperty(ConfigPropertyKeys.ENDPOINT_JOBS_PARALLELISM, EndPointConfiguration.DEFAULT_JOBS_PARALLELISM),
+                config.getIntProperty(ConfigPropertyKeys.ENDPOINT_JOBS_QUEUE_SIZE, EndPointConfiguration.DEFAULT_JOBS_QUEUE_SIZE),
+                config.getIntProperty(ConfigPropertyKeys.ENDPOINT_JOBS_RETENTION_MINUTES, EndPointConfiguration.DEFAULT_JOBS_RETENTION_MINUTES),
+                config.getIntProperty(ConfigPropertyKeys.ENDPOINT_JOBS_CACHE_MINUTES, EndPointConfiguration.DEFAULT_JOBS_CACHE_MINUTES),
+                config.getIntProperty(ConfigPropertyKeys.ENDPOINT_CACHE_MAX_FILES, EndPointConfiguration.DEFAULT_CACHE_MAX_FILES));
     }
 
     private ResolverConfiguration getResolver(FSAConfigProperties config) {
@@ -477,6 +498,7 @@ public class FSAConfiguration {
         boolean nugetRunPreStep = config.getBooleanProperty(ConfigPropertyKeys.NUGET_RUN_PRE_STEP, false);
         boolean nugetResolvePakcagesConfigFiles = config.getBooleanProperty(ConfigPropertyKeys.NUGET_RESOLVE_PACKAGES_CONFIG_FILES, true);
         boolean nugetResolveCsProjFiles = config.getBooleanProperty(ConfigPropertyKeys.NUGET_RESOLVE_CS_PROJ_FILES, true);
+        int nugetRestoreParallelism = config.getIntProperty(ConfigPropertyKeys.NUGET_RESTORE_PARALLELISM, RestoreCollector.DEFAULT_RESTORE_PARALLELISM);
 
         boolean mavenResolveDependencies = config.getBooleanProperty(ConfigPropertyKeys.MAVEN_RESOLVE_DEPENDENCIES, resolveAllDependencies);
         String[] mavenIgnoredScopes = config.getListProperty(ConfigPropertyKeys.MAVEN_IGNORED_SCOPES, null);
@@ -600,7 +622,7 @@ public class FSAConfiguration {
         return new ResolverConfiguration(npmRunPreStep, npmResolveDependencies, npmIgnoreScripts, npmIncludeDevDependencies, npmIgnoreSourceFiles,
                 npmTimeoutDependenciesCollector, npmAccessToken, npmIgnoreNpmLsErrors, npmYarnProject,
                 bowerResolveDependencies, bowerRunPreStep, bowerIgnoreSourceFiles,
-                nugetResolveDependencies, nugetRestoreDependencies, nugetRunPreStep, nugetIgnoreSourceFiles, nugetResolvePakcagesConfigFiles, nugetResolveCsProjFiles,
+                nugetResolveDependencies, nugetRestoreDependencies, nugetRunPreStep, nugetIgnoreSourceFiles, nugetResolvePakcagesConfigFiles, nugetResolveCsProjFiles, nugetRestoreParallelism,
                 mavenResolveDependencies, mavenIgnoredScopes, mavenAggregateModules, mavenIgnoredPomModules, mavenIgnoreSourceFiles, mavenRunPreStep, mavenIgnoreDependencyTreeErrors,
                 pythonResolveDependencies, pipPath, pythonPath, pythonIsWssPluginInstalled, pythonUninstallWssPluginInstalled,
                 pythonIgnorePipInstallErrors, pythonInstallVirtualenv, pythonResolveHierarchyTree, pythonRequirementsFileIncludes, pythonResolveSetupPyFiles, pythonIgnoreSourceFiles,
@@ -636,6 +658,7 @@ public class FSAConfiguration {
         String updateTypeValue = config.getProperty(ConfigPropertyKeys.UPDATE_TYPE, UpdateType.OVERRIDE.toString());
         boolean checkPolicies = config.getBooleanProperty(ConfigPropertyKeys.CHECK_POLICIES_PROPERTY_KEY, false);
         boolean forceCheckAllDependencies = config.getBooleanProperty(ConfigPropertyKeys.FORCE_CHECK_ALL_DEPENDENCIES, false);
+        boolean checkPoliciesPerProject = config.getBooleanProperty(ConfigPropertyKeys.CHECK_POLICIES_PER_PROJECT, false);
         boolean updateInventory = config.getBooleanProperty(ConfigPropertyKeys.UPDATE_INVENTORY, true);
         boolean forceUpdate = config.getBooleanProperty(ConfigPropertyKeys.FORCE_UPDATE, false);
         boolean forceUpdateBuildFailed = config.getBooleanProperty(ConfigPropertyKeys.FORCE_UPDATE_FAIL_BUILD_ON_POLICY_VIOLATION, false);
@@ -655,6 +678,9 @@ public class FSAConfiguration {
                 String.valueOf(ClientConstants.DEFAULT_CONNECTION_TIMEOUT_MINUTES)));
         int connectionRetries = config.getIntProperty(ConfigPropertyKeys.CONNECTION_RETRIES, 1);
         int connectionRetriesIntervals = config.getIntProperty(ConfigPropertyKeys.CONNECTION_RETRIES_INTERVALS, 3000);
+        int updateRequestMaxDependencies = config.getIntProperty(ConfigPropertyKeys.UPDATE_REQUEST_MAX_DEPENDENCIES, Constants.MAX_NUMBER_OF_DEPENDENCIES);
+        int updateRequestParallelism = config.getIntProperty(ConfigPropertyKeys.UPDATE_REQUEST_PARALLELISM, SenderConfiguration.DEFAULT_UPDATE_REQUEST_PARALLELISM);
+        String updateRequestSnapshotsFolder = config.getProperty(ConfigPropertyKeys.UPDATE_REQUEST_SNAPSHOTS_FOLDER, EMPTY_STRING);
         String senderPort = config.getProperty(ConfigPropertyKeys.PROXY_PORT_PROPERTY_KEY);
 
         int proxyPort;
@@ -672,7 +698,8 @@ public class FSAConfiguration {
         return new SenderConfiguration(checkPolicies, serviceUrl, connectionTimeOut,
                 proxyHost, proxyPort, proxyUser, proxyPassword,
                 forceCheckAllDependencies, forceUpdate, forceUpdateBuildFailed, updateTypeValue,
-                enableImpactAnalysis, ignoreCertificateCheck, connectionRetries, connectionRetriesIntervals, isSendLogsToWss, updateInventory);
+                enableImpactAnalysis, ignoreCertificateCheck, connectionRetries, connectionRetriesIntervals, isSendLogsToWss, updateInventory,
+                updateRequestMaxDependencies, updateRequestParallelism, updateRequestSnapshotsFolder, checkPoliciesPerProject);
     }
 
     private OfflineConfiguration getOffline(FSAConfigProperties config) {
@@ -751,8 +778,14 @@ public class FSAConfiguration {
         String repositoriesPath = config.getProperty(ConfigPropertyKeys.SCM_REPOSITORIES_FILE);
         boolean npmInstall = config.getBooleanProperty(ConfigPropertyKeys.SCM_NPM_INSTALL, true);
         int npmInstallTimeoutMinutes = config.getIntProperty(ConfigPropertyKeys.SCM_NPM_INSTALL_TIMEOUT_MINUTES, 15);
+        boolean sparseCheckout = config.getBooleanProperty(ConfigPropertyKeys.SCM_SPARSE_CHECKOUT, false);
+        boolean hashBlobs = config.getBooleanProperty(ConfigPropertyKeys.SCM_HASH_BLOBS, false);
+        String mirrorsPath = config.getProperty(ConfigPropertyKeys.SCM_MIRRORS_PATH);
+        int cloneThreads = Math.max(1, config.getIntProperty(ConfigPropertyKeys.SCM_CLONE_THREADS, 1));
+        int scanThreads = Math.max(1, config.getIntProperty(ConfigPropertyKeys.SCM_SCAN_THREADS, 1));
 
-        return new ScmConfiguration(type, user, pass, ppk, url, branch, tag, repositoriesPath, npmInstall, npmInstallTimeoutMinutes);
+        return new ScmConfiguration(type, user, pass, ppk, url, branch, tag, repositoriesPath, npmInstall, npmInstallTimeoutMinutes, sparseCheckout, hashBlobs,
+                mirrorsPath, cloneThreads, scanThreads);
     }
 
     private RemoteDockerConfiguration getRemoteDockerConfiguration(FSAConfigProperties config) {
@@ -781,6 +814,7 @@ public class FSAConfiguration {
         boolean pullForce = config.getBooleanProperty(ConfigPropertyKeys.DOCKER_PULL_FORCE, false);
         RemoteDockerConfiguration result = new RemoteDockerConfiguration(dockerImagesList, dockerTagsList,
                 dockerDigestsList, forceDelete, enablePulling, maxImagesScan, pullForce, maxImagesPull, loginSudo);
+        result.setPullParallelism(Math.max(1, config.getIntProperty(ConfigPropertyKeys.DOCKER_PULL_PARALLELISM, 1)));
 
         // Amazon configuration
         String[] dockerAmazonRegistryIds = config.getListProperty(ConfigPropertyKeys.DOCKER_AWS_REGISTRY_IDS, empty);
@@ -1024,6 +1058,10 @@ public class FSAConfiguration {
         return scanPackageManager;
     }
 
+    public String getPackageManagerRootFolder() {
+        return packageManagerRootFolder;
+    }
+
     @JsonProperty(ConfigPropertyKeys.SCAN_DOCKER_IMAGES)
     public boolean isScanDockerImages() {
         return scanDockerImages;
@@ -1042,6 +1080,26 @@ public class FSAConfiguration {
         return deleteTarImages;
     }
 
+    public String getDockerLayersCacheFolder() {
+        return dockerLayersCacheFolder;
+    }
+
+    public boolean isDockerLayersStreaming() {
+        return dockerLayersStreaming;
+    }
+
+    public int getDockerScanParallelism() {
+        return dockerScanParallelism;
+    }
+
+    public long getDockerScanDiskBudgetMB() {
+        return dockerScanDiskBudgetMB;
+    }
+
+    public int getProjectPerFolderParallelism() {
+        return projectPerFolderParallelism;
+    }
+
     /* --- Public static methods--- */
 
     public static int getIntProperty(Properties config, String propertyKey, int defaultValue) {
@@ -1140,6 +1198,11 @@ public class FSAConfiguration {
         return this.logContext;
     }
 
+    @JsonProperty(ConfigPropertyKeys.METRICS_FILE)
+    public String getMetricsFile() {
+        return metricsFile;
+    }
+
     /* --- Private methods --- */
 
     private List<String> updateProperties(FSAConfigProperties configProps, CommandLineArgs commandLineArgs) {
@@ -1156,6 +1219,7 @@ public class FSAConfiguration {
         readPropertyFromCommandLine(configProps, ConfigPropertyKeys.SEND_LOGS_TO_WSS, commandLineArgs.sendLogsToWss);
         readPropertyFromCommandLine(configProps, ConfigPropertyKeys.SCAN_COMMENT, commandLineArgs.scanComment);
         readPropertyFromCommandLine(configProps, ConfigPropertyKeys.LOG_CONTEXT, commandLineArgs.logContext);
+        readPropertyFromCommandLine(configProps, ConfigPropertyKeys.METRICS_FILE, commandLineArgs.metricsFile);
 //        readPropertyFromCommandLine(configProps, SERVICE_URL_KEYWORD, commandLineArgs.wssUrl);
         // request file
         List<String> offlineRequestFiles = new LinkedList<>();
@@ -22,6 +22,7 @@ import org.slf4j.Logger;
 import org.whitesource.agent.*;
 import org.whitesource.agent.api.model.AgentProjectInfo;
 import org.whitesource.agent.api.model.Coordinates;
+import org.whitesource.agent.dependency.resolver.DependencyResolutionService;
 import org.whitesource.agent.dependency.resolver.ViaMultiModuleAnalyzer;
 import org.whitesource.agent.dependency.resolver.docker.DockerResolver;
 import org.whitesource.agent.dependency.resolver.gradle.GradleDependencyResolver;
@@ -35,11 +36,14 @@ import org.whitesource.agent.utils.Pair;
 import org.whitesource.fs.configuration.ScmConfiguration;
 import org.whitesource.fs.configuration.ScmRepositoriesParser;
 import org.whitesource.scm.ScmConnector;
+import org.whitesource.scm.ScmType;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -62,13 +66,24 @@ public class FileSystemAgent {
 
     private List<String> dependencyDirs;
     private final FSAConfiguration config;
+    private final TempFolders tempFolders;
+    private FileHashCache fileHashCache;
+    private Consumer<AgentProjectInfo> projectListener;
 
     private boolean projectPerSubFolder;
 
     /* --- Constructors --- */
 
     public FileSystemAgent(FSAConfiguration config, List<String> dependencyDirs) {
+        this(config, dependencyDirs, new TempFolders());
+    }
+
+    /**
+     * @param tempFolders the temp folders of the scan, all the temp files of the scan are created under them
+     */
+    public FileSystemAgent(FSAConfiguration config, List<String> dependencyDirs, TempFolders tempFolders) {
         this.config = config;
+        this.tempFolders = tempFolders;
         projectPerSubFolder = config.getRequest().isProjectPerSubFolder();
         if (projectPerSubFolder) {
             this.dependencyDirs = new LinkedList<>();
@@ -93,6 +108,23 @@ public class FileSystemAgent {
         }
     }
 
+    /**
+     * @param fileHashCache the hashes of files kept across scans, null to always calculate them
+     */
+    public FileSystemAgent(FSAConfiguration config, List<String> dependencyDirs, TempFolders tempFolders, FileHashCache fileHashCache) {
+        this(config, dependencyDirs, tempFolders);
+        this.fileHashCache = fileHashCache;
+    }
+
+    /**
+     * @param projectListener called with each project of a folder once it is done, when scanning a project per folder
+     */
+    public FileSystemAgent(FSAConfiguration config, List<String> dependencyDirs, TempFolders tempFolders, FileHashCache fileHashCache,
+                           Consumer<AgentProjectInfo> projectListener) {
+        this(config, dependencyDirs, tempFolders, fileHashCache);
+        this.projectListener = projectListener;
+    }
+
     /* --- Overridden methods --- */
 
     public ProjectsDetails createProjects() {
@@ -101,7 +133,7 @@ public class FileSystemAgent {
 
         // Check if scanPackageManager==true - This is the first priority and overrides other scans
         if (config.isScanProjectManager()) {
-            Collection<AgentProjectInfo> tempProjects = new PackageManagerExtractor().createProjects();
+            Collection<AgentProjectInfo> tempProjects = new PackageManagerExtractor(config.getPackageManagerRootFolder()).createProjects();
             ProjectsDetails projectsDetails = new ProjectsDetails(tempProjects, StatusCode.SUCCESS, Constants.EMPTY_STRING);
             String projectName = config.getRequest().getProjectName();
             addSingleProjectToProjects(projectsDetails, projectName, projects);
@@ -111,7 +143,7 @@ public class FileSystemAgent {
         // Check if docker.scanImages==true - This scans Docker Images, and should not scan any folders, so we exit
         // after the scan is done
         if (config.isScanDockerImages()) {
-            Collection<AgentProjectInfo> tempDockerProjects = new DockerResolver(config).resolveDockerImages();
+            Collection<AgentProjectInfo> tempDockerProjects = new DockerResolver(config, tempFolders).resolveDockerImages();
             return new ProjectsDetails(tempDockerProjects, StatusCode.SUCCESS, Constants.EMPTY_STRING);
         }
 
@@ -122,7 +154,7 @@ public class FileSystemAgent {
             if (viaMultiModuleAnalyzer.getBomFiles().isEmpty()) {
                 viaMultiModuleAnalyzer = new ViaMultiModuleAnalyzer(config.getDependencyDirs().get(0),
                         new GradleDependencyResolver(false, false, false, Constants.EMPTY_STRING, new String[]{Constants.NONE},
-                                Constants.EMPTY_STRING, false),
+                                Constants.EMPTY_STRING, false, tempFolders),
                         Constants.BUILD + File.separator + Constants.LIBS, config.getAnalyzeMultiModule());
             }
             if (!viaMultiModuleAnalyzer.getBomFiles().isEmpty()) {
@@ -141,24 +173,35 @@ public class FileSystemAgent {
                 logger.warn("Could not executing VIA impact analysis with the 'projectPerFolder' flag");
                 return projects;
             }
-            Map<String, Set<String>> appPathsToDependencyDirs = new HashMap<>();
-            Set<String> setDirs = new HashSet<>(1);
-
-            for (String directory : dependencyDirs) {
-                setDirs.add(directory);
-                appPathsToDependencyDirs.put(FSAConfiguration.DEFAULT_KEY, setDirs);
-
-                ProjectsDetails projectsDetails = getProjects(Collections.singletonList(directory), appPathsToDependencyDirs);
-                String projectName = new File(directory).getName();
-                addSingleProjectToProjects(projectsDetails, projectName, projects);
-
-                // return on the first project that fails
-                if (!projectsDetails.getStatusCode().equals(StatusCode.SUCCESS)) {
-                    // return status code if there is a failure
-                    return new ProjectsDetails(new ArrayList<>(), projects.getStatusCode(), projects.getDetails());
+            // the folders are scanned at the same time, and their projects are added in the order of the folders
+            int parallelism = Math.max(1, Math.min(config.getProjectPerFolderParallelism(), dependencyDirs.size()));
+            ExecutorService folderPool = Executors.newFixedThreadPool(parallelism);
+            try {
+                List<Future<ProjectsDetails>> folderScans = new ArrayList<>();
+                for (String directory : dependencyDirs) {
+                    folderScans.add(folderPool.submit(() -> getFolderProjects(directory, parallelism > 1)));
+                }
+                Iterator<Future<ProjectsDetails>> folderScansIterator = folderScans.iterator();
+                for (String directory : dependencyDirs) {
+                    ProjectsDetails projectsDetails = getFolderScanResult(directory, folderScansIterator.next());
+                    String projectName = new File(directory).getName();
+                    addSingleProjectToProjects(projectsDetails, projectName, projects);
+
+                    // return on the first project that fails
+                    if (!projectsDetails.getStatusCode().equals(StatusCode.SUCCESS)) {
+                        // return status code if there is a failure
+                        return new ProjectsDetails(new ArrayList<>(), projects.getStatusCode(), projects.getDetails());
+                    }
+                    if (projectListener != null) {
+                        for (AgentProjectInfo project : projectsDetails.getProjects()) {
+                            if (projects.getProjectToViaComponents().containsKey(project)) {
+                                projectListener.accept(project);
+                            }
+                        }
+                    }
                 }
-                appPathsToDependencyDirs.clear();
-                setDirs.clear();
+            } finally {
+                folderPool.shutdownNow();
             }
             if (CollectionUtils.isEmpty(projects.getProjects())) {
                 logger.warn("projectPerFolder = true, No sub-folders were found in project folder, scanning main project folder");
@@ -169,7 +212,7 @@ public class FileSystemAgent {
         }
         // Scan folders and create one project for all folders together
         if (!projectPerSubFolder) { // This 'if' is always true now, but keep it maybe we will do other checks in the future...
-            projects = getProjects(dependencyDirs, config.getAppPathsToDependencyDirs());
+            projects = getProjects(dependencyDirs, config.getAppPathsToDependencyDirs(), tempFolders);
             if (!projects.getProjects().isEmpty()) {
                 AgentProjectInfo projectInfo = projects.getProjects().stream().findFirst().get();
                 if (projectInfo.getCoordinates() == null) {
@@ -193,6 +236,39 @@ public class FileSystemAgent {
 
     /* --- Private methods --- */
 
+    /**
+     * @param ownTempFolders whether the folder is scanned with temp folders of its own, deleted once it's scanned,
+     *                       needed when folders are scanned at the same time
+     */
+    private ProjectsDetails getFolderProjects(String directory, boolean ownTempFolders) {
+        List<String> scannerBaseDirs = new ArrayList<>(Collections.singletonList(directory));
+        Map<String, Set<String>> appPathsToDependencyDirs = new HashMap<>();
+        appPathsToDependencyDirs.put(FSAConfiguration.DEFAULT_KEY, new HashSet<>(scannerBaseDirs));
+        if (!ownTempFolders) {
+            return getProjects(scannerBaseDirs, appPathsToDependencyDirs, tempFolders);
+        }
+        TempFolders folderTempFolders = new TempFolders();
+        try {
+            return getProjects(scannerBaseDirs, appPathsToDependencyDirs, folderTempFolders);
+        } finally {
+            folderTempFolders.deleteTempFolders();
+        }
+    }
+
+    private ProjectsDetails getFolderScanResult(String directory, Future<ProjectsDetails> folderScan) {
+        try {
+            return folderScan.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ProjectsDetails(new ArrayList<>(), StatusCode.ERROR, "Interrupted while scanning " + directory);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            logger.error("Failed to scan folder {}: {}", directory, cause.getMessage());
+            logger.debug("Failed to scan folder " + directory, cause);
+            return new ProjectsDetails(new ArrayList<>(), StatusCode.ERROR, String.valueOf(cause.getMessage()));
+        }
+    }
+
     private void addSingleProjectToProjects(ProjectsDetails projectsDetails, String projectName, ProjectsDetails projects) {
         if (projectsDetails == null || projects == null || projectName == null) {
             logger.debug("projectsDetails {} , projects {} , projectName {}", projectsDetails, projectName, projects);
@@ -211,27 +287,37 @@ public class FileSystemAgent {
         }
     }
 
-    private ProjectsDetails getProjects(List<String> scannerBaseDirs, Map<String, Set<String>> appPathsToDependencyDirs) {
+    /**
+     * @param scanTempFolders the temp folders of the scan of these folders
+     */
+    private ProjectsDetails getProjects(List<String> scannerBaseDirs, Map<String, Set<String>> appPathsToDependencyDirs, TempFolders scanTempFolders) {
         // create getScm connector
         final StatusCode[] success = new StatusCode[]{StatusCode.SUCCESS};
         String separatorFiles = NpmLsJsonDependencyCollector.isWindows() ? "\\" : "/";
         Collection<String> scmPaths = new ArrayList<>();
         final boolean[] hasScmConnectors = new boolean[1];
+        final boolean hashBlobs = config.getScm().isHashBlobs();
+        Collection<String> gitBlobDirs = new ArrayList<>();
 
         List<ScmConnector> scmConnectors = null;
         if (StringUtils.isNotBlank(config.getScm().getRepositoriesPath())) {
             Collection<ScmConfiguration> scmConfigurations = new ScmRepositoriesParser().parseRepositoriesFile(
                     config.getScm().getRepositoriesPath(), config.getScm().getType(), config.getScm().getPpk(), config.getScm().getUser(), config.getScm().getPass());
-            scmConnectors = scmConfigurations.stream()
-                    .map(scm -> ScmConnector.create(scm.getType(), scm.getUrl(), scm.getPpk(), scm.getUser(), scm.getPass(), scm.getBranch(), scm.getTag()))
+            if (scmConfigurations != null && scmConfigurations.size() > 1) {
+                return getRepositoriesProjects(scannerBaseDirs, appPathsToDependencyDirs, scmConfigurations, scanTempFolders);
+            }
+            scmConnectors = scmConfigurations == null ? null : scmConfigurations.stream()
+                    .map(scm -> ScmConnector.create(scm.getType(), scm.getUrl(), scm.getPpk(), scm.getUser(), scm.getPass(), scm.getBranch(), scm.getTag(), scanTempFolders))
                     .collect(Collectors.toList());
         } else {
             scmConnectors = Arrays.asList(ScmConnector.create(
                     config.getScm().getType(), config.getScm().getUrl(), config.getScm().getPpk(), config.getScm().getUser(),
-                    config.getScm().getPass(), config.getScm().getBranch(), config.getScm().getTag()));
+                    config.getScm().getPass(), config.getScm().getBranch(), config.getScm().getTag(), scanTempFolders));
         }
 
         if (scmConnectors != null && scmConnectors.stream().anyMatch(scm -> scm != null)) {
+            Collection<String> sparsePatterns = getSparsePatterns();
+            scmConnectors.stream().filter(Objects::nonNull).forEach(scmConnector -> configureScmConnector(scmConnector, sparsePatterns));
             //scannerBaseDirs.clear();
             scmConnectors.stream().forEach(scmConnector -> {
                 if (scmConnector != null) {
@@ -249,6 +335,9 @@ public class FileSystemAgent {
                     }
                     appPathsToDependencyDirs.get(FSAConfiguration.DEFAULT_KEY).add(scmPath);
                     hasScmConnectors[0] = true;
+                    if (hashBlobs && scmConnector.getType() == ScmType.GIT) {
+                        gitBlobDirs.add(scmPath);
+                    }
                 }
             });
         }
@@ -261,11 +350,7 @@ public class FileSystemAgent {
             return new ProjectsDetails(new ArrayList<>(), StatusCode.ERROR, config.getAgent().getError()); // TODO this is within a try frame. Throw an exception instead
         }
 
-        Map<AgentProjectInfo, LinkedList<ViaComponents>> projectToAppPathAndLanguage;
-        ViaLanguage viaLanguage = getIaLanguage(config.getRequest().getIaLanguage());
-        ProjectConfiguration projectConfiguration = new ProjectConfiguration(config.getAgent(), scannerBaseDirs, appPathsToDependencyDirs, false);
-        projectToAppPathAndLanguage = new FileSystemScanner(config.getResolver(), config.getAgent() , config.getSender().isEnableImpactAnalysis(), viaLanguage)
-                    .createProjects(projectConfiguration);
+        Map<AgentProjectInfo, LinkedList<ViaComponents>> projectToAppPathAndLanguage = scan(scannerBaseDirs, appPathsToDependencyDirs, gitBlobDirs, scanTempFolders);
         ProjectsDetails projectsDetails = new ProjectsDetails(projectToAppPathAndLanguage, success[0], Constants.EMPTY_STRING);
 
         // delete all temp scm files
@@ -281,6 +366,168 @@ public class FileSystemAgent {
         return projectsDetails;
     }
 
+    /**
+     * Clones the repositories of the repositories file on one pool and scans each of them on another one as soon as it's cloned,
+     * so the next repositories are cloned while the previous ones are scanned.
+     * Every repository has temp folders of its own, deleted once it's scanned.
+     * The results are merged in the order of the repositories in the file, as if all of them were scanned together.
+     */
+    private ProjectsDetails getRepositoriesProjects(List<String> scannerBaseDirs, Map<String, Set<String>> appPathsToDependencyDirs,
+                                                    Collection<ScmConfiguration> scmConfigurations, TempFolders scanTempFolders) {
+        if (StringUtils.isNotBlank(config.getAgent().getError())) {
+            logger.error(config.getAgent().getError());
+            return new ProjectsDetails(new ArrayList<>(), StatusCode.ERROR, config.getAgent().getError());
+        }
+
+        int cloneThreads = Math.max(1, config.getScm().getCloneThreads());
+        int scanThreads = Math.max(1, config.getScm().getScanThreads());
+        logger.info("Scanning {} repositories, cloning {} and scanning {} at a time", scmConfigurations.size(), cloneThreads, scanThreads);
+        // the repositories cloned and not scanned yet are bounded, so the clones don't fill the disk when scanning is slower
+        Semaphore clonedRepositories = new Semaphore(cloneThreads + scanThreads);
+        ExecutorService clonePool = Executors.newFixedThreadPool(cloneThreads);
+        ExecutorService scanPool = Executors.newFixedThreadPool(scanThreads);
+        Collection<String> sparsePatterns = getSparsePatterns();
+        List<CompletableFuture<ProjectsDetails>> scans = new ArrayList<>();
+        try {
+            if (!scannerBaseDirs.isEmpty()) {
+                scans.add(CompletableFuture.supplyAsync(() -> new ProjectsDetails(
+                        scan(scannerBaseDirs, appPathsToDependencyDirs, Collections.emptyList(), scanTempFolders), StatusCode.SUCCESS, Constants.EMPTY_STRING), scanPool));
+            }
+            for (ScmConfiguration scm : scmConfigurations) {
+                TempFolders repositoryTempFolders = new TempFolders();
+                ScmConnector scmConnector = ScmConnector.create(scm.getType(), scm.getUrl(), scm.getPpk(), scm.getUser(), scm.getPass(),
+                        scm.getBranch(), scm.getTag(), repositoryTempFolders);
+                if (scmConnector == null) {
+                    continue;
+                }
+                configureScmConnector(scmConnector, sparsePatterns);
+                CompletableFuture<Pair<String, StatusCode>> clone = CompletableFuture.supplyAsync(() -> {
+                    clonedRepositories.acquireUninterruptibly();
+                    try {
+                        return cloneRepository(scmConnector);
+                    } catch (RuntimeException e) {
+                        clonedRepositories.release();
+                        repositoryTempFolders.deleteTempFolders();
+                        throw e;
+                    }
+                }, clonePool);
+                scans.add(clone.thenApplyAsync(result -> {
+                    try {
+                        return scanRepository(scmConnector, result, repositoryTempFolders);
+                    } finally {
+                        repositoryTempFolders.deleteTempFolders();
+                        clonedRepositories.release();
+                    }
+                }, scanPool));
+            }
+
+            List<ProjectsDetails> results = new ArrayList<>();
+            for (CompletableFuture<ProjectsDetails> scan : scans) {
+                try {
+                    results.add(scan.join());
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause() == null ? e : e.getCause();
+                    logger.error("Failed to scan repository: {}", cause.getMessage());
+                    logger.debug("Failed to scan repository", cause);
+                    results.add(new ProjectsDetails(new ArrayList<>(), StatusCode.ERROR, String.valueOf(cause.getMessage())));
+                }
+            }
+            return mergeProjects(results);
+        } finally {
+            clonePool.shutdownNow();
+            scanPool.shutdownNow();
+        }
+    }
+
+    private Pair<String, StatusCode> cloneRepository(ScmConnector scmConnector) {
+        logger.info("Connecting to SCM");
+        String separatorFiles = NpmLsJsonDependencyCollector.isWindows() ? "\\" : "/";
+        String scmPath = scmConnector.cloneRepository().getPath();
+        return npmInstallScmRepository(config.getScm().isNpmInstall(), config.getScm().getNpmInstallTimeoutMinutes(), scmConnector, separatorFiles, scmPath);
+    }
+
+    private ProjectsDetails scanRepository(ScmConnector scmConnector, Pair<String, StatusCode> clone, TempFolders repositoryTempFolders) {
+        List<String> repositoryDirs = Collections.singletonList(clone.getKey());
+        Map<String, Set<String>> repositoryAppPaths = new HashMap<>();
+        repositoryAppPaths.put(FSAConfiguration.DEFAULT_KEY, new HashSet<>(repositoryDirs));
+        Collection<String> gitBlobDirs = config.getScm().isHashBlobs() && scmConnector.getType() == ScmType.GIT ? repositoryDirs : Collections.emptyList();
+        logger.info("Scanning repository {}", scmConnector.getUrl());
+        return new ProjectsDetails(scan(repositoryDirs, repositoryAppPaths, gitBlobDirs, repositoryTempFolders), clone.getValue(), Constants.EMPTY_STRING);
+    }
+
+    /**
+     * The main projects of all the results are merged to the first one, like the main project of a scan of all their folders together.
+     * The status is the one of the first result that failed.
+     */
+    private ProjectsDetails mergeProjects(List<ProjectsDetails> results) {
+        Map<AgentProjectInfo, LinkedList<ViaComponents>> projectToViaComponents = new LinkedHashMap<>();
+        AgentProjectInfo mainProject = null;
+        StatusCode statusCode = StatusCode.SUCCESS;
+        String details = Constants.EMPTY_STRING;
+        for (ProjectsDetails result : results) {
+            if (statusCode == StatusCode.SUCCESS && result.getStatusCode() != StatusCode.SUCCESS) {
+                statusCode = result.getStatusCode();
+                details = result.getDetails();
+            }
+            boolean resultMainProject = true;
+            for (Map.Entry<AgentProjectInfo, LinkedList<ViaComponents>> entry : result.getProjectToViaComponents().entrySet()) {
+                if (resultMainProject && mainProject != null) {
+                    mainProject.getDependencies().addAll(entry.getKey().getDependencies());
+                    if (entry.getValue() != null) {
+                        projectToViaComponents.computeIfAbsent(mainProject, project -> new LinkedList<>()).addAll(entry.getValue());
+                    }
+                } else {
+                    if (mainProject == null) {
+                        mainProject = entry.getKey();
+                    }
+                    projectToViaComponents.put(entry.getKey(), entry.getValue());
+                }
+                resultMainProject = false;
+            }
+        }
+        return new ProjectsDetails(projectToViaComponents, statusCode, details);
+    }
+
+    private Map<AgentProjectInfo, LinkedList<ViaComponents>> scan(List<String> scannerBaseDirs, Map<String, Set<String>> appPathsToDependencyDirs,
+                                                                  Collection<String> gitBlobDirs, TempFolders scanTempFolders) {
+        ViaLanguage viaLanguage = getIaLanguage(config.getRequest().getIaLanguage());
+        ProjectConfiguration projectConfiguration = new ProjectConfiguration(config.getAgent(), scannerBaseDirs, appPathsToDependencyDirs, false);
+        projectConfiguration.setGitBlobDirs(gitBlobDirs);
+        return new FileSystemScanner(config.getResolver(), config.getAgent(), config.getSender().isEnableImpactAnalysis(), viaLanguage, scanTempFolders, fileHashCache)
+                .createProjects(projectConfiguration);
+    }
+
+    private void configureScmConnector(ScmConnector scmConnector, Collection<String> sparsePatterns) {
+        if (sparsePatterns != null) {
+            logger.debug("Checking out only the files matching {}", sparsePatterns);
+            scmConnector.setSparsePatterns(sparsePatterns);
+        }
+        if (StringUtils.isNotBlank(config.getScm().getMirrorsPath())) {
+            scmConnector.setMirrorsFolder(new File(config.getScm().getMirrorsPath()));
+        }
+    }
+
+    /**
+     * When the scanned files are hashed from the object database,
+     * only the files needed by the resolvers and the archive extraction are checked out.
+     *
+     * @return the patterns of the files to check out, or null to check out all of them
+     */
+    private Collection<String> getSparsePatterns() {
+        boolean hashBlobs = config.getScm().isHashBlobs();
+        if (!hashBlobs && !config.getScm().isSparseCheckout()) {
+            return null;
+        }
+        Collection<String> sparsePatterns = new LinkedHashSet<>();
+        if (!hashBlobs) {
+            sparsePatterns.addAll(Arrays.asList(config.getAgent().getIncludes()));
+        } else if (config.getAgent().getArchiveExtractionDepth() > 0) {
+            sparsePatterns.addAll(Arrays.asList(config.getAgent().getArchiveIncludes()));
+        }
+        sparsePatterns.addAll(new DependencyResolutionService(config.getResolver(), tempFolders).getManifestPatterns());
+        return sparsePatterns;
+    }
+
     private ViaLanguage getIaLanguage(String iaLanguage) {
         ViaLanguage[] values = ViaLanguage.values();
         if (iaLanguage != null) {
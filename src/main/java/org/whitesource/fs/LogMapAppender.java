@@ -2,36 +2,123 @@ package org.whitesource.fs;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.spi.ILoggingEvent;
-import ch.qos.logback.core.AppenderBase;
-import org.slf4j.LoggerFactory;
-import org.whitesource.agent.Constants;
-import java.util.concurrent.ConcurrentSkipListMap;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
 
-public class LogMapAppender extends AppenderBase<ILoggingEvent> {
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
-    // using this collection as its thread-safe and easily sortable
-    private ConcurrentSkipListMap<Long, ILoggingEvent> logEvents = new ConcurrentSkipListMap<>();
-    private Level rootLevel;
+/**
+ * Collects the log events of the run, to be sent with the requests.
+ * Events are kept in bounded lock-free ring buffers, one for info and higher levels and a smaller one for the lower levels,
+ * so a debug run neither grows the memory nor pushes the important events out.
+ * The events below the level of the run are kept out of the console by the {@link LogMapConsoleFilter}.
+ */
+public class LogMapAppender extends UnsynchronizedAppenderBase<ILoggingEvent> {
+
+    /* --- Static members --- */
+
+    public static final int DEFAULT_CAPACITY = 10000;
+    public static final int DEFAULT_DEBUG_CAPACITY = 1000;
+
+    /* --- Members --- */
+
+    // orders the events of both buffers
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile EventsBuffer events = new EventsBuffer(DEFAULT_CAPACITY);
+    private volatile EventsBuffer debugEvents = new EventsBuffer(DEFAULT_DEBUG_CAPACITY);
+
+    /* --- Overridden methods --- */
 
     @Override
     protected void append(ILoggingEvent iLoggingEvent) {
-        // it is possible that multiple events have the same time-stamp.  in such case - increment the time-stamp key
-        long timeStamp = iLoggingEvent.getTimeStamp();
-        while (logEvents.get(timeStamp) != null){
-            timeStamp++;
+        long eventSequence = sequence.getAndIncrement();
+        if (iLoggingEvent.getLevel().levelInt >= Level.INFO.levelInt) {
+            events.add(eventSequence, iLoggingEvent);
+        } else {
+            debugEvents.add(eventSequence, iLoggingEvent);
         }
-        logEvents.put(timeStamp, iLoggingEvent);
-        ch.qos.logback.classic.Logger logsSet = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Constants.MAP_LOG_NAME);
-        // by setting the 'additive' property of this logger dynamically, it allows the pass the incoming event to the
-        // parent logger depending on the event's level and root's level
-        logsSet.setAdditive(iLoggingEvent.getLevel().levelInt >= rootLevel.levelInt);
     }
 
-    public ConcurrentSkipListMap getLogEvents(){
+    /* --- Public methods --- */
+
+    /**
+     * @return the kept events by their logging order
+     */
+    public List<ILoggingEvent> getLogEvents() {
+        List<Entry> entries = events.getEntries();
+        List<Entry> debugEntries = debugEvents.getEntries();
+        // both buffers are ordered, so they are merged in a single pass
+        List<ILoggingEvent> logEvents = new ArrayList<>(entries.size() + debugEntries.size());
+        int index = 0;
+        int debugIndex = 0;
+        while (index < entries.size() || debugIndex < debugEntries.size()) {
+            if (debugIndex == debugEntries.size() ||
+                    (index < entries.size() && entries.get(index).sequence < debugEntries.get(debugIndex).sequence)) {
+                logEvents.add(entries.get(index++).event);
+            } else {
+                logEvents.add(debugEntries.get(debugIndex++).event);
+            }
+        }
         return logEvents;
     }
 
-    public void setRootLevel(Level rootLevel) {
-        this.rootLevel = rootLevel;
+    // set by the 'capacity' and 'debugCapacity' elements of the appender configuration
+    public void setCapacity(int capacity) {
+        this.events = new EventsBuffer(capacity);
+    }
+
+    public void setDebugCapacity(int debugCapacity) {
+        this.debugEvents = new EventsBuffer(debugCapacity);
+    }
+
+    /* --- Nested classes --- */
+
+    private static class Entry {
+        private final long sequence;
+        // the write which claimed the slot of the entry
+        private final long write;
+        private final ILoggingEvent event;
+
+        private Entry(long sequence, long write, ILoggingEvent event) {
+            this.sequence = sequence;
+            this.write = write;
+            this.event = event;
+        }
+    }
+
+    /**
+     * Keeps the latest events, each new event overwrites the oldest one once the buffer is full.
+     */
+    private static class EventsBuffer {
+        private final AtomicReferenceArray<Entry> entries;
+        private final AtomicLong writes = new AtomicLong();
+
+        private EventsBuffer(int capacity) {
+            this.entries = new AtomicReferenceArray<>(Math.max(1, capacity));
+        }
+
+        private void add(long sequence, ILoggingEvent event) {
+            long write = writes.getAndIncrement();
+            entries.set((int) (write % entries.length()), new Entry(sequence, write, event));
+        }
+
+        private List<Entry> getEntries() {
+            long end = writes.get();
+            long start = Math.max(0, end - entries.length());
+            List<Entry> result = new ArrayList<>((int) (end - start));
+            for (long i = start; i < end; i++) {
+                Entry entry = entries.get((int) (i % entries.length()));
+                // skip slots which are not written yet or were already overwritten by newer events
+                if (entry != null && entry.write == i) {
+                    result.add(entry);
+                }
+            }
+            // concurrent events may claim their slots in a different order than their sequence
+            result.sort(Comparator.comparingLong(entry -> entry.sequence));
+            return result;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,33 @@
+package org.whitesource.fs;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.filter.Filter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.whitesource.agent.Constants;
+
+/**
+ * Denies the events of the collected logger below the level of the root logger.
+ * The collected logger logs all the levels for the {@link LogMapAppender}, the console prints only the levels of the run.
+ */
+public class LogMapConsoleFilter extends Filter<ILoggingEvent> {
+
+    /* --- Overridden methods --- */
+
+    @Override
+    public FilterReply decide(ILoggingEvent event) {
+        if (!isCollected(event.getLoggerName())) {
+            return FilterReply.NEUTRAL;
+        }
+        Level rootLevel = ((LoggerContext) getContext()).getLogger(Logger.ROOT_LOGGER_NAME).getLevel();
+        return rootLevel == null || event.getLevel().isGreaterOrEqual(rootLevel) ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    /* --- Private methods --- */
+
+    private boolean isCollected(String loggerName) {
+        return loggerName != null && (loggerName.equals(Constants.MAP_LOG_NAME) || loggerName.startsWith(Constants.MAP_LOG_NAME + Constants.DOT));
+    }
+}
@@ -17,6 +17,7 @@ package org.whitesource.fs;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.util.ContextInitializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
@@ -24,6 +25,7 @@ import io.vertx.core.json.JsonObject;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.whitesource.agent.Constants;
+import org.whitesource.agent.FileHashCache;
 import org.whitesource.agent.ProjectsSender;
 import org.whitesource.agent.TempFolders;
 import org.whitesource.agent.api.dispatch.UpdateInventoryRequest;
@@ -31,12 +33,14 @@ import org.whitesource.agent.api.model.AgentProjectInfo;
 import org.whitesource.agent.api.model.Coordinates;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.utils.Pair;
+import org.whitesource.agent.utils.ScanMetrics;
 import org.whitesource.fs.configuration.ConfigurationSerializer;
 import org.whitesource.fs.configuration.RequestConfiguration;
 import org.whitesource.web.FsaVerticle;
 
 import java.io.*;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -50,21 +54,53 @@ public class Main {
     public static Logger logger; // don't initialize the logger here, only after setting the
     // ContextInitializer.CONFIG_FILE_PROPERTY property (set inside setLoggerConfiguration method)
     public static final long MAX_TIMEOUT = 1000 * 60 * 60;
-    private static ProjectsSender projectsSender = null;
     private static Vertx vertx;
     public static int exitCode = 0;
 
-    ProjectsCalculator projectsCalculator = new ProjectsCalculator();
     public static final String HELP_CONTENT_FILE_NAME = "helpContent.txt";
 
+    /* --- Members --- */
+
+    ProjectsCalculator projectsCalculator = new ProjectsCalculator();
+    // set only by the end to end integration tests
+    private final ProjectsSender projectsSender;
+    private final FileHashCache fileHashCache;
+    private final Consumer<AgentProjectInfo> projectListener;
+
+    /* --- Constructors --- */
+
+    public Main() {
+        this(null, null, null);
+    }
+
+    /**
+     * @param fileHashCache the hashes of files kept across scans, shared by the scans of the endpoint
+     */
+    public Main(FileHashCache fileHashCache) {
+        this(null, fileHashCache, null);
+    }
+
+    /**
+     * @param projectListener called once with each project of the scan, as soon as the project is done
+     */
+    public Main(FileHashCache fileHashCache, Consumer<AgentProjectInfo> projectListener) {
+        this(null, fileHashCache, projectListener);
+    }
+
+    private Main(ProjectsSender projectsSender, FileHashCache fileHashCache, Consumer<AgentProjectInfo> projectListener) {
+        this.projectsSender = projectsSender;
+        this.fileHashCache = fileHashCache;
+        this.projectListener = projectListener;
+    }
+
     /* --- Main --- */
 
     public static void main(String[] args) {
-        int exitCode = mainScan(args);
+        int exitCode = mainScan(args, null);
         exit(exitCode);
     }
 
-    private static int mainScan(String[] args) {
+    private static int mainScan(String[] args, ProjectsSender projectsSender) {
 
         if (isHelpArg(args)) {
             printHelpContent();
@@ -97,16 +133,15 @@ public class Main {
                     fsaConfiguration.getErrors().forEach(error -> logger.error(error));
                     logger.warn("Exiting");
                 } else {
-                    processExitCode = new Main().scanAndSend(fsaConfiguration, true).getStatusCode();
+                    processExitCode = new Main(projectsSender, null, null).scanAndSend(fsaConfiguration, true).getStatusCode();
                 }
             } catch (Exception e) {
                 // catch any exception that may be thrown, return error code
                 logger.warn("Process encountered an error: {}" + e.getMessage(), e);
                 processExitCode = StatusCode.ERROR;
-            } finally {
-                new TempFolders().deleteTempFolders();
             }
 
+            writeMetrics(fsaConfiguration.getMetricsFile());
             logger.info("Process finished with exit code {} ({})", processExitCode.name(), processExitCode.getValue());
             exitCode = getValue(processExitCode);
         } else {
@@ -124,6 +159,18 @@ public class Main {
         return exitCode;
     }
 
+    private static void writeMetrics(String metricsFile) {
+        if (StringUtils.isBlank(metricsFile)) {
+            return;
+        }
+        try {
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(new File(metricsFile), ScanMetrics.getSummary());
+            logger.info("Scan metrics written to {}", metricsFile);
+        } catch (IOException e) {
+            logger.warn("Failed to write the scan metrics to {}: {}", metricsFile, e.getMessage());
+        }
+    }
+
     private static int getValue(StatusCode processExitCode) {
         return processExitCode.getValue();
     }
@@ -138,17 +185,30 @@ public class Main {
         logger = LoggerFactory.getLogger(Main.class);
         // read log level from configuration file
         ch.qos.logback.classic.Logger root = (ch.qos.logback.classic.Logger) org.slf4j.LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
-        ch.qos.logback.classic.Logger mapLog = (ch.qos.logback.classic.Logger) org.slf4j.LoggerFactory.getLogger(Constants.MAP_LOG_NAME);
         root.setLevel(Level.toLevel(logLevel, Level.INFO));
-        ((LogMapAppender) mapLog.getAppender(Constants.MAP_APPENDER_NAME)).setRootLevel(root.getLevel());
     }
 
+    /**
+     * Scans and sends the projects, can be called concurrently as every scan uses temp folders of its own.
+     */
     public ProjectsDetails scanAndSend(FSAConfiguration fsaConfiguration, boolean shouldSend) {
         if (fsaConfiguration.getErrors() != null && fsaConfiguration.getErrors().size() > 0) {
             return new ProjectsDetails(new ArrayList<>(), StatusCode.ERROR, String.join(System.lineSeparator(), fsaConfiguration.getErrors()));
         }
 
-        ProjectsDetails result = projectsCalculator.getAllProjects(fsaConfiguration);
+        TempFolders tempFolders = new TempFolders();
+        try {
+            return scanAndSend(fsaConfiguration, shouldSend, tempFolders);
+        } finally {
+            tempFolders.deleteTempFolders();
+        }
+    }
+
+    private ProjectsDetails scanAndSend(FSAConfiguration fsaConfiguration, boolean shouldSend, TempFolders tempFolders) {
+        Consumer<AgentProjectInfo> projectStream = getProjectStream();
+        // a project that may be renamed below is passed on only once the scan is done
+        Consumer<AgentProjectInfo> scannedProjectListener = fsaConfiguration.getUseCommandLineProjectName() ? null : projectStream;
+        ProjectsDetails result = projectsCalculator.getAllProjects(fsaConfiguration, tempFolders, fileHashCache, scannedProjectListener);
 
         OfflineReader offlineReader = new OfflineReader();
         Collection<UpdateInventoryRequest> updateInventoryRequests = offlineReader.getAgentProjectsFromRequests(fsaConfiguration.getOfflineRequestFiles());
@@ -176,6 +236,10 @@ public class Main {
             }
         }
 
+        if (projectStream != null) {
+            result.getProjects().forEach(projectStream);
+        }
+
         RequestConfiguration req = fsaConfiguration.getRequest();
         // updating the product name and version from the offline file
         if (fsaConfiguration != null && !fsaConfiguration.getUseCommandLineProductName() && updateInventoryRequests.size() > 0) {
@@ -199,12 +263,22 @@ public class Main {
         }
     }
 
+    // passes each project to the project listener only once, whether it was passed on while scanning or not
+    private Consumer<AgentProjectInfo> getProjectStream() {
+        if (projectListener == null) {
+            return null;
+        }
+        Set<AgentProjectInfo> streamedProjects = Collections.newSetFromMap(new IdentityHashMap<>());
+        return project -> {
+            if (streamedProjects.add(project)) {
+                projectListener.accept(project);
+            }
+        };
+    }
+
     private ProjectsSender getProjectsSender(FSAConfiguration fsaConfiguration, RequestConfiguration req) {
-        ProjectsSender projectsSender;
-        if (!projectSenderExist()) {
-            projectsSender = new ProjectsSender(fsaConfiguration.getSender(), fsaConfiguration.getOffline(), req, new FileSystemAgentInfo());
-        } else {
-            projectsSender = Main.projectsSender;
+        if (projectsSender == null) {
+            return new ProjectsSender(fsaConfiguration.getSender(), fsaConfiguration.getOffline(), req, new FileSystemAgentInfo());
         }
         return projectsSender;
     }
@@ -280,13 +354,8 @@ public class Main {
         System.exit(statusCode);
     }
 
-    private boolean projectSenderExist() {
-        return Main.projectsSender != null;
-    }
-
     // end to end integration projectSenderExist
     protected static void endToEndIntegration(String[] args, ProjectsSender testProjectsSender) {
-        projectsSender = testProjectsSender;
-        mainScan(args);
+        mainScan(args, testProjectsSender);
     }
 }
\ No newline at end of file
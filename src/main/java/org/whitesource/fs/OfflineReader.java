@@ -16,29 +16,45 @@
 package org.whitesource.fs;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.google.gson.stream.JsonReader;
-import org.apache.commons.io.IOUtils;
+import com.google.gson.stream.JsonToken;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.whitesource.agent.utils.LoggerFactory;
-import org.whitesource.agent.Constants;
 import org.whitesource.agent.api.dispatch.UpdateInventoryRequest;
+import org.whitesource.agent.api.model.AgentProjectInfo;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.zip.GZIPInputStream;
 
+/**
+ * Reads offline update requests, plain json or gzipped and base64 encoded.
+ * The file is decoded, decompressed and parsed as a stream, so {@link #readRequest} holds a single project in memory at a time.
+ * Sending still needs all the projects at once, the policy check and the update request are made for all of them together,
+ * so {@link #getAgentProjectsFromRequests} collects the projects of all the requests.
+ */
 public class OfflineReader {
 
     /* --- Static members --- */
 
+    private static final String PROJECTS = "projects";
+    private static final char JSON_OBJECT_START = '{';
+
+    /* --- Members --- */
+
     private final Logger logger = LoggerFactory.getLogger(OfflineReader.class);
-    private static final String UTF_8 = "UTF-8";
+    private final Gson gson = new Gson();
+
+    /* --- Public methods --- */
 
     public Collection<UpdateInventoryRequest> getAgentProjectsFromRequests(List<String> offlineRequestFiles){//, FSAConfiguration fsaConfiguration) {
         Collection<UpdateInventoryRequest> projects = new LinkedList<>();
@@ -57,32 +73,14 @@ public class OfflineReader {
                     logger.warn("'{}' is a folder. Enter a valid file path, folder is not acceptable.", requestFile.getName());
                     continue;
                 }
-                Gson gson = new Gson();
-                UpdateInventoryRequest updateRequest;
                 logger.debug("Converting offline request to JSON");
-                try(FileReader fileReader = new FileReader(requestFile);
-                    JsonReader jsonReader = new JsonReader(fileReader)){
-                    updateRequest = gson.fromJson(jsonReader, new TypeToken<UpdateInventoryRequest>() {
-                    }.getType());
+                try {
+                    Collection<AgentProjectInfo> requestProjects = new LinkedList<>();
+                    UpdateInventoryRequest updateRequest = readRequest(requestFile, requestProjects::add);
+                    updateRequest.setProjects(requestProjects);
                     logger.info("Reading information from request file {}", requestFile);
                     projects.add(updateRequest);
-                } catch (JsonSyntaxException e) {
-                    // try to decompress file content
-                    try {
-                        logger.debug("Decompressing zipped offline request");
-                        String fileContent = decompress(requestFile);
-                        logger.debug("Converting offline request to JSON");
-                        updateRequest = gson.fromJson(fileContent, new TypeToken<UpdateInventoryRequest>() {}.getType());
-                        logger.info("Reading information from request file {}", requestFile);
-                        projects.add(updateRequest);
-                    } catch (IOException ioe) {
-                        logger.warn("Error parsing request: " + ioe.getMessage());
-                    } catch (JsonSyntaxException jse) {
-                        logger.warn("Error parsing request: " + jse.getMessage());
-                    }
-                } catch (FileNotFoundException e) {
-                    logger.warn("Error parsing request: " + e.getMessage());
-                } catch (IOException e) {
+                } catch (IOException | JsonParseException e) {
                     logger.warn("Error parsing request: " + e.getMessage());
                 }
             }
@@ -90,21 +88,56 @@ public class OfflineReader {
         return projects;
     }
 
+    /**
+     * @param projectConsumer - receives each project of the request as soon as it is parsed
+     * @return the request without its projects
+     */
+    public UpdateInventoryRequest readRequest(File requestFile, Consumer<AgentProjectInfo> projectConsumer) throws IOException {
+        try (InputStream inputStream = openRequest(requestFile);
+             JsonReader jsonReader = new JsonReader(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8)))) {
+            JsonObject requestJson = new JsonObject();
+            JsonParser jsonParser = new JsonParser();
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                String name = jsonReader.nextName();
+                if (PROJECTS.equals(name) && jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+                    jsonReader.beginArray();
+                    while (jsonReader.hasNext()) {
+                        projectConsumer.accept(gson.fromJson(jsonReader, AgentProjectInfo.class));
+                    }
+                    jsonReader.endArray();
+                } else {
+                    requestJson.add(name, jsonParser.parse(jsonReader));
+                }
+            }
+            jsonReader.endObject();
+            return gson.fromJson(requestJson, UpdateInventoryRequest.class);
+        } catch (IllegalStateException e) {
+            // thrown by the reader on unexpected tokens
+            throw new JsonParseException(e.getMessage(), e);
+        }
+    }
+
     /* --- Private methods --- */
 
-    private static String decompress(File file) throws IOException {
-        if (file == null || !file.exists()) {
-            return Constants.EMPTY_STRING;
+    private InputStream openRequest(File requestFile) throws IOException {
+        BufferedInputStream inputStream = new BufferedInputStream(new FileInputStream(requestFile));
+        // plain json starts with '{', otherwise the request is gzipped and base64 encoded
+        int firstByte;
+        do {
+            inputStream.mark(1);
+            firstByte = inputStream.read();
+        } while (firstByte != -1 && Character.isWhitespace(firstByte));
+        inputStream.reset();
+        if (firstByte == JSON_OBJECT_START) {
+            return inputStream;
         }
-
-        byte[] bytes = Base64.getDecoder().decode(IOUtils.toByteArray(new FileInputStream(file)));
-        GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(bytes));
-        BufferedReader bf = new BufferedReader(new InputStreamReader(gzipInputStream, UTF_8));
-        StringBuilder outStr = new StringBuilder(Constants.EMPTY_STRING);
-        String line;
-        while ((line = bf.readLine()) != null) {
-            outStr.append(line);
+        logger.debug("Decompressing zipped offline request");
+        try {
+            return new GZIPInputStream(Base64.getMimeDecoder().wrap(inputStream));
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
         }
-        return outStr.toString();
     }
 }
@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2014 WhiteSource Ltd.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.whitesource.fs;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import org.whitesource.agent.api.dispatch.UpdateInventoryRequest;
+import org.whitesource.agent.api.model.AgentProjectInfo;
+import org.whitesource.agent.api.model.DependencyInfo;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes offline update requests in the same format as {@link org.whitesource.agent.report.OfflineUpdateRequest}.
+ * Projects and dependencies are serialized one at a time straight into the output stream,
+ * so the request is never held in memory as a single json string.
+ */
+public class OfflineRequestWriter {
+
+    /* --- Static members --- */
+
+    public static final String REQUEST_FOLDER = "whitesource";
+    public static final String REQUEST_FILE = "update-request.txt";
+
+    private static final String PROJECTS = "projects";
+    private static final String DEPENDENCIES = "dependencies";
+    private static final String INDENT = "  ";
+
+    /* --- Members --- */
+
+    private final Gson gson = new Gson();
+
+    /* --- Public methods --- */
+
+    /**
+     * @return the 'whitesource/update-request.txt' file generated in the output folder
+     */
+    public File write(UpdateInventoryRequest request, File outputDir, boolean zip, boolean prettyJson) throws IOException {
+        File requestFolder = new File(outputDir, REQUEST_FOLDER);
+        if (!requestFolder.exists() && !requestFolder.mkdir()) {
+            throw new IOException("Unable to make output directory: " + requestFolder);
+        }
+        File requestFile = new File(requestFolder, REQUEST_FILE);
+        try (OutputStream outputStream = new FileOutputStream(requestFile)) {
+            write(request, outputStream, zip, prettyJson);
+        }
+        return requestFile;
+    }
+
+    /**
+     * @param outputStream - closed once the request is written
+     * @param zip          - gzip and base64 encode the json, pretty printing is ignored
+     */
+    public void write(UpdateInventoryRequest request, OutputStream outputStream, boolean zip, boolean prettyJson) throws IOException {
+        OutputStream jsonStream = new BufferedOutputStream(outputStream);
+        if (zip) {
+            jsonStream = new GZIPOutputStream(Base64.getEncoder().wrap(jsonStream));
+        }
+        try (JsonWriter jsonWriter = new JsonWriter(new BufferedWriter(new OutputStreamWriter(jsonStream, StandardCharsets.UTF_8)))) {
+            if (prettyJson && !zip) {
+                jsonWriter.setIndent(INDENT);
+            }
+            writeRequest(request, jsonWriter);
+        }
+    }
+
+    /* --- Private methods --- */
+
+    private void writeRequest(UpdateInventoryRequest request, JsonWriter jsonWriter) throws IOException {
+        // the request fields are written as gson would, only the projects are streamed
+        Collection<AgentProjectInfo> projects = request.getProjects();
+        JsonObject requestJson;
+        request.setProjects(null);
+        try {
+            requestJson = gson.toJsonTree(request).getAsJsonObject();
+        } finally {
+            request.setProjects(projects);
+        }
+        jsonWriter.beginObject();
+        writeFields(requestJson, jsonWriter);
+        if (projects != null) {
+            jsonWriter.name(PROJECTS).beginArray();
+            for (AgentProjectInfo project : projects) {
+                writeProject(project, jsonWriter);
+            }
+            jsonWriter.endArray();
+        }
+        jsonWriter.endObject();
+    }
+
+    private void writeProject(AgentProjectInfo project, JsonWriter jsonWriter) throws IOException {
+        AgentProjectInfo projectInfo = new AgentProjectInfo();
+        projectInfo.setCoordinates(project.getCoordinates());
+        projectInfo.setParentCoordinates(project.getParentCoordinates());
+        projectInfo.setProjectToken(project.getProjectToken());
+        projectInfo.setProjectSetupStatus(project.getProjectSetupStatus());
+        projectInfo.setProjectSetupDescription(project.getProjectSetupDescription());
+        projectInfo.setDependencies(null);
+        jsonWriter.beginObject();
+        writeFields(gson.toJsonTree(projectInfo).getAsJsonObject(), jsonWriter);
+        Collection<DependencyInfo> dependencies = project.getDependencies();
+        if (dependencies != null) {
+            jsonWriter.name(DEPENDENCIES).beginArray();
+            for (DependencyInfo dependency : dependencies) {
+                gson.toJson(dependency, DependencyInfo.class, jsonWriter);
+            }
+            jsonWriter.endArray();
+        }
+        jsonWriter.endObject();
+    }
+
+    private void writeFields(JsonObject jsonObject, JsonWriter jsonWriter) throws IOException {
+        for (Map.Entry<String, JsonElement> field : jsonObject.entrySet()) {
+            jsonWriter.name(field.getKey());
+            gson.toJson(field.getValue(), jsonWriter);
+        }
+    }
+}
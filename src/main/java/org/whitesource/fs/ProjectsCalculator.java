@@ -19,12 +19,17 @@ import ch.qos.logback.classic.Level;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
+import org.whitesource.agent.FileHashCache;
+import org.whitesource.agent.TempFolders;
+import org.whitesource.agent.api.model.AgentProjectInfo;
 import org.whitesource.agent.utils.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class ProjectsCalculator {
 
@@ -35,6 +40,33 @@ public class ProjectsCalculator {
     /* --- Public methods --- */
 
     public ProjectsDetails getAllProjects(FSAConfiguration fsaConfiguration) {
+        TempFolders tempFolders = new TempFolders();
+        try {
+            return getAllProjects(fsaConfiguration, tempFolders);
+        } finally {
+            tempFolders.deleteTempFolders();
+        }
+    }
+
+    /**
+     * @param tempFolders the temp folders of the scan, deleted by the caller once the scan is done
+     */
+    public ProjectsDetails getAllProjects(FSAConfiguration fsaConfiguration, TempFolders tempFolders) {
+        return getAllProjects(fsaConfiguration, tempFolders, null);
+    }
+
+    /**
+     * @param fileHashCache the hashes of files kept across scans, null to always calculate them
+     */
+    public ProjectsDetails getAllProjects(FSAConfiguration fsaConfiguration, TempFolders tempFolders, FileHashCache fileHashCache) {
+        return getAllProjects(fsaConfiguration, tempFolders, fileHashCache, null);
+    }
+
+    /**
+     * @param projectListener called with each project that is done before the whole scan is, may be null
+     */
+    public ProjectsDetails getAllProjects(FSAConfiguration fsaConfiguration, TempFolders tempFolders, FileHashCache fileHashCache,
+                                          Consumer<AgentProjectInfo> projectListener) {
 
         // read directories and files from list-file
         List<String> files = new ArrayList<>();
@@ -52,11 +84,11 @@ public class ProjectsCalculator {
         // read csv directory list
         files.addAll(fsaConfiguration.getDependencyDirs());
 
-        // add directory list to appPath map - defaultKey
-        fsaConfiguration.getAppPathsToDependencyDirs().get(FSAConfiguration.DEFAULT_KEY).addAll(files);
+        // add directory list to appPath map - defaultKey, missing for configurations without command line arguments
+        fsaConfiguration.getAppPathsToDependencyDirs().computeIfAbsent(FSAConfiguration.DEFAULT_KEY, key -> new HashSet<>()).addAll(files);
 
         // run the agent
-        FileSystemAgent agent = new FileSystemAgent(fsaConfiguration, files);
+        FileSystemAgent agent = new FileSystemAgent(fsaConfiguration, files, tempFolders, fileHashCache, projectListener);
         // create projects as usual
         return agent.createProjects();
     }
@@ -20,11 +20,23 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import static org.whitesource.agent.ConfigPropertyKeys.*;
 
 public class EndPointConfiguration {
+
+    public static final int DEFAULT_JOBS_PARALLELISM = 2;
+    public static final int DEFAULT_JOBS_QUEUE_SIZE = 20;
+    public static final int DEFAULT_JOBS_RETENTION_MINUTES = 60;
+    public static final int DEFAULT_JOBS_CACHE_MINUTES = 10;
+    public static final int DEFAULT_CACHE_MAX_FILES = 50000;
+
     private final int port;
     private final String certificate;
     private final String pass;
     private final boolean enabled;
     private final boolean ssl;
+    private final int jobsParallelism;
+    private final int jobsQueueSize;
+    private final int jobsRetentionMinutes;
+    private final int jobsCacheMinutes;
+    private final int cacheMaxFiles;
 
     @JsonProperty(ENDPOINT_PORT)
     public int getPort() {
@@ -51,17 +63,53 @@ public class EndPointConfiguration {
         return ssl;
     }
 
+    @JsonProperty(ENDPOINT_JOBS_PARALLELISM)
+    public int getJobsParallelism() {
+        return jobsParallelism;
+    }
+
+    @JsonProperty(ENDPOINT_JOBS_QUEUE_SIZE)
+    public int getJobsQueueSize() {
+        return jobsQueueSize;
+    }
+
+    @JsonProperty(ENDPOINT_JOBS_RETENTION_MINUTES)
+    public int getJobsRetentionMinutes() {
+        return jobsRetentionMinutes;
+    }
+
+    @JsonProperty(ENDPOINT_JOBS_CACHE_MINUTES)
+    public int getJobsCacheMinutes() {
+        return jobsCacheMinutes;
+    }
+
+    @JsonProperty(ENDPOINT_CACHE_MAX_FILES)
+    public int getCacheMaxFiles() {
+        return cacheMaxFiles;
+    }
+
     @JsonCreator
     public EndPointConfiguration(
             @JsonProperty(ENDPOINT_PORT) int port,
             @JsonProperty(ENDPOINT_CERTIFICATE) String certificate,
             @JsonProperty(ENDPOINT_PASS) String pass,
             @JsonProperty(ENDPOINT_ENABLED) boolean enabled,
-            @JsonProperty(ENDPOINT_SSL_ENABLED) boolean ssl) {
+            @JsonProperty(ENDPOINT_SSL_ENABLED) boolean ssl,
+            @JsonProperty(ENDPOINT_JOBS_PARALLELISM) int jobsParallelism,
+            @JsonProperty(ENDPOINT_JOBS_QUEUE_SIZE) int jobsQueueSize,
+            @JsonProperty(ENDPOINT_JOBS_RETENTION_MINUTES) int jobsRetentionMinutes,
+            @JsonProperty(ENDPOINT_JOBS_CACHE_MINUTES) int jobsCacheMinutes,
+            @JsonProperty(ENDPOINT_CACHE_MAX_FILES) int cacheMaxFiles) {
         this.port = port;
         this.certificate = certificate;
         this.pass = pass;
         this.enabled = enabled;
         this.ssl = ssl;
+        this.jobsParallelism = jobsParallelism > 0 ? jobsParallelism : DEFAULT_JOBS_PARALLELISM;
+        this.jobsQueueSize = jobsQueueSize > 0 ? jobsQueueSize : DEFAULT_JOBS_QUEUE_SIZE;
+        this.jobsRetentionMinutes = jobsRetentionMinutes > 0 ? jobsRetentionMinutes : DEFAULT_JOBS_RETENTION_MINUTES;
+        // 0 turns off the cache of finished scans, running ones are still shared
+        this.jobsCacheMinutes = jobsCacheMinutes >= 0 ? jobsCacheMinutes : DEFAULT_JOBS_CACHE_MINUTES;
+        this.cacheMaxFiles = cacheMaxFiles > 0 ? cacheMaxFiles : DEFAULT_CACHE_MAX_FILES;
     }
 }
@@ -14,6 +14,8 @@ public class RemoteDockerConfiguration {
     private boolean forcePull;
     private int maxPullImages;
     private boolean loginSudo;
+    // concurrent pulls from each registry
+    private int pullParallelism = 1;
 
     // Amazon ECR configurations
     private List<String> amazonRegistryIds;
@@ -86,6 +88,14 @@ public class RemoteDockerConfiguration {
         return loginSudo;
     }
 
+    public int getPullParallelism() {
+        return pullParallelism;
+    }
+
+    public void setPullParallelism(int pullParallelism) {
+        this.pullParallelism = pullParallelism;
+    }
+
     // ------------- Amazon methods -------------
 
     public List<String> getAmazonRegistryIds() {
@@ -59,6 +59,7 @@ public class ResolverConfiguration {
             @JsonProperty(NUGET_IGNORE_SOURCE_FILES) boolean nugetIgnoreSourceFiles,
             @JsonProperty(NUGET_RESOLVE_PACKAGES_CONFIG_FILES) boolean nugetResolvePackagesConfigFiles,
             @JsonProperty(NUGET_RESOLVE_CS_PROJ_FILES) boolean nugetResolveCsProjFiles,
+            @JsonProperty(NUGET_RESTORE_PARALLELISM) int nugetRestoreParallelism,
 
             @JsonProperty(MAVEN_RESOLVE_DEPENDENCIES) boolean mavenResolveDependencies,
             @JsonProperty(MAVEN_IGNORED_SCOPES) String[] mavenIgnoredScopes,
@@ -153,6 +154,7 @@ public class ResolverConfiguration {
         this.nugetIgnoreSourceFiles = nugetIgnoreSourceFiles;
         this.nugetResolveCsProjFiles = nugetResolveCsProjFiles;
         this.nugetResolvePackagesConfigFiles = nugetResolvePackagesConfigFiles;
+        this.nugetRestoreParallelism = nugetRestoreParallelism;
 
         this.mavenResolveDependencies = mavenResolveDependencies;
         this.mavenIgnoredScopes = mavenIgnoredScopes;
@@ -278,6 +280,8 @@ public class ResolverConfiguration {
     private boolean nugetResolvePackagesConfigFiles;
     @FSAConfigProperty
     private boolean nugetResolveCsProjFiles;
+    @FSAConfigProperty
+    private int nugetRestoreParallelism;
 
     @FSAConfigProperty
     private boolean mavenResolveDependencies;
@@ -506,6 +510,11 @@ public class ResolverConfiguration {
         return nugetIgnoreSourceFiles;
     }
 
+    @JsonProperty(NUGET_RESTORE_PARALLELISM)
+    public int getNugetRestoreParallelism() {
+        return nugetRestoreParallelism;
+    }
+
     @JsonProperty(MAVEN_RESOLVE_DEPENDENCIES)
     public boolean isMavenResolveDependencies() {
         return mavenResolveDependencies;
@@ -27,6 +27,16 @@ public class ScmConfiguration {
 
     /* --- Constructors --- */
 
+    public ScmConfiguration(String type, String user, String pass, String ppk, String url, String branch, String tag, String repositoriesPath,
+                            boolean npmInstall, int npmInstallTimeoutMinutes) {
+        this(type, user, pass, ppk, url, branch, tag, repositoriesPath, npmInstall, npmInstallTimeoutMinutes, false, false, null);
+    }
+
+    public ScmConfiguration(String type, String user, String pass, String ppk, String url, String branch, String tag, String repositoriesPath,
+                            boolean npmInstall, int npmInstallTimeoutMinutes, boolean sparseCheckout, boolean hashBlobs, String mirrorsPath) {
+        this(type, user, pass, ppk, url, branch, tag, repositoriesPath, npmInstall, npmInstallTimeoutMinutes, sparseCheckout, hashBlobs, mirrorsPath, 1, 1);
+    }
+
     @JsonCreator
     public ScmConfiguration(
             @JsonProperty(SCM_TYPE_PROPERTY_KEY) String type,
@@ -38,7 +48,12 @@ public class ScmConfiguration {
             @JsonProperty(SCM_TAG_PROPERTY_KEY) String tag,
             @JsonProperty(SCM_REPOSITORIES_FILE) String repositoriesPath,
             @JsonProperty(SCM_NPM_INSTALL) boolean npmInstall,
-            @JsonProperty(SCM_NPM_INSTALL_TIMEOUT_MINUTES) int npmInstallTimeoutMinutes) {
+            @JsonProperty(SCM_NPM_INSTALL_TIMEOUT_MINUTES) int npmInstallTimeoutMinutes,
+            @JsonProperty(SCM_SPARSE_CHECKOUT) boolean sparseCheckout,
+            @JsonProperty(SCM_HASH_BLOBS) boolean hashBlobs,
+            @JsonProperty(SCM_MIRRORS_PATH) String mirrorsPath,
+            @JsonProperty(SCM_CLONE_THREADS) int cloneThreads,
+            @JsonProperty(SCM_SCAN_THREADS) int scanThreads) {
         this.type = type;
         this.user = user;
         this.pass = pass;
@@ -51,6 +66,11 @@ public class ScmConfiguration {
         this.repositoriesPath = repositoriesPath;
         this.npmInstall = npmInstall;
         this.npmInstallTimeoutMinutes = npmInstallTimeoutMinutes;
+        this.sparseCheckout = sparseCheckout;
+        this.hashBlobs = hashBlobs;
+        this.mirrorsPath = mirrorsPath;
+        this.cloneThreads = cloneThreads;
+        this.scanThreads = scanThreads;
     }
 
     /* --- Members --- */
@@ -66,6 +86,11 @@ public class ScmConfiguration {
     private String repositoriesPath;
     private boolean npmInstall;
     private int npmInstallTimeoutMinutes;
+    private boolean sparseCheckout;
+    private boolean hashBlobs;
+    private String mirrorsPath;
+    private int cloneThreads;
+    private int scanThreads;
 
     /* --- Properties --- */
 
@@ -123,4 +148,29 @@ public class ScmConfiguration {
     public int getNpmInstallTimeoutMinutes() {
         return npmInstallTimeoutMinutes;
     }
-}
\ No newline at end of file
+
+    @JsonProperty(SCM_SPARSE_CHECKOUT)
+    public boolean isSparseCheckout() {
+        return sparseCheckout;
+    }
+
+    @JsonProperty(SCM_HASH_BLOBS)
+    public boolean isHashBlobs() {
+        return hashBlobs;
+    }
+
+    @JsonProperty(SCM_MIRRORS_PATH)
+    public String getMirrorsPath() {
+        return mirrorsPath;
+    }
+
+    @JsonProperty(SCM_CLONE_THREADS)
+    public int getCloneThreads() {
+        return cloneThreads;
+    }
+
+    @JsonProperty(SCM_SCAN_THREADS)
+    public int getScanThreads() {
+        return scanThreads;
+    }
+}
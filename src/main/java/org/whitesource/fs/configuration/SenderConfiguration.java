@@ -16,6 +16,7 @@
 package org.whitesource.fs.configuration;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.whitesource.agent.Constants;
 import org.whitesource.agent.client.ClientConstants;
 import org.whitesource.agent.utils.WsStringUtils;
 import org.whitesource.fs.FSAConfigProperty;
@@ -24,6 +25,8 @@ import static org.whitesource.agent.ConfigPropertyKeys.*;
 
 public class SenderConfiguration {
 
+    public static final int DEFAULT_UPDATE_REQUEST_PARALLELISM = 3;
+
     @FSAConfigProperty
     private final boolean checkPolicies;
     @FSAConfigProperty
@@ -48,6 +51,11 @@ public class SenderConfiguration {
     private final boolean sendLogsToWss;
     @FSAConfigProperty
     private final boolean updateInventory;
+    private final int updateRequestMaxDependencies;
+    private final int updateRequestParallelism;
+    private final String updateRequestSnapshotsFolder;
+    @FSAConfigProperty
+    private final boolean checkPoliciesPerProject;
 
     public SenderConfiguration(
             @JsonProperty(CHECK_POLICIES_PROPERTY_KEY) boolean checkPolicies,
@@ -68,7 +76,11 @@ public class SenderConfiguration {
             @JsonProperty(CONNECTION_RETRIES) int connectionRetries,
             @JsonProperty(CONNECTION_RETRIES_INTERVALS) int connectionRetriesIntervals,
             @JsonProperty(SEND_LOGS_TO_WSS) boolean sendLogsToWss,
-            @JsonProperty(UPDATE_INVENTORY) boolean updateInventory){
+            @JsonProperty(UPDATE_INVENTORY) boolean updateInventory,
+            @JsonProperty(UPDATE_REQUEST_MAX_DEPENDENCIES) int updateRequestMaxDependencies,
+            @JsonProperty(UPDATE_REQUEST_PARALLELISM) int updateRequestParallelism,
+            @JsonProperty(UPDATE_REQUEST_SNAPSHOTS_FOLDER) String updateRequestSnapshotsFolder,
+            @JsonProperty(CHECK_POLICIES_PER_PROJECT) boolean checkPoliciesPerProject){
         this.checkPolicies = checkPolicies;
         this.serviceUrl = serviceUrl;
         this.proxyHost = proxyHost;
@@ -86,6 +98,11 @@ public class SenderConfiguration {
         this.connectionRetriesIntervals = connectionRetriesIntervals;
         this.sendLogsToWss = sendLogsToWss;
         this.updateInventory = updateInventory;
+        // missing values (i.e. in a json configuration) fall back to the defaults
+        this.updateRequestMaxDependencies = updateRequestMaxDependencies > 0 ? updateRequestMaxDependencies : Constants.MAX_NUMBER_OF_DEPENDENCIES;
+        this.updateRequestParallelism = updateRequestParallelism > 0 ? updateRequestParallelism : DEFAULT_UPDATE_REQUEST_PARALLELISM;
+        this.updateRequestSnapshotsFolder = updateRequestSnapshotsFolder;
+        this.checkPoliciesPerProject = checkPoliciesPerProject;
     }
 
     @JsonProperty(ClientConstants.SERVICE_URL_KEYWORD)
@@ -171,6 +188,26 @@ public class SenderConfiguration {
         return updateInventory;
     }
 
+    @JsonProperty(UPDATE_REQUEST_MAX_DEPENDENCIES)
+    public int getUpdateRequestMaxDependencies() {
+        return updateRequestMaxDependencies;
+    }
+
+    @JsonProperty(UPDATE_REQUEST_PARALLELISM)
+    public int getUpdateRequestParallelism() {
+        return updateRequestParallelism;
+    }
+
+    @JsonProperty(UPDATE_REQUEST_SNAPSHOTS_FOLDER)
+    public String getUpdateRequestSnapshotsFolder() {
+        return updateRequestSnapshotsFolder;
+    }
+
+    @JsonProperty(CHECK_POLICIES_PER_PROJECT)
+    public boolean isCheckPoliciesPerProject() {
+        return checkPoliciesPerProject;
+    }
+
     public void setEnableImpactAnalysis(boolean enableImpactAnalysis) { this.enableImpactAnalysis = enableImpactAnalysis; }
 
     @Override
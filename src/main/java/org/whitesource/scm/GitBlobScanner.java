@@ -0,0 +1,135 @@
+package org.whitesource.scm;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.FileMode;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.slf4j.Logger;
+import org.whitesource.agent.DependencyInfoFactory;
+import org.whitesource.agent.SingleFileScanner;
+import org.whitesource.agent.api.model.DependencyInfo;
+import org.whitesource.agent.utils.LoggerFactory;
+import org.whitesource.agent.utils.ScanMetrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.*;
+
+/**
+ * Creates the dependencies of the files of a git clone straight from its object database, so they don't have to be checked out.
+ * The dependency info factory should have a file hash cache, blobs of the same content and name are then hashed once.
+ */
+public class GitBlobScanner {
+
+    /* --- Static members --- */
+
+    private final Logger logger = LoggerFactory.getLogger(GitBlobScanner.class);
+
+    private static final long MAX_IN_MEMORY_BLOB_SIZE = 10 * 1024 * 1024;
+
+    /* --- Members --- */
+
+    private final String repositoryDirectory;
+    private final DependencyInfoFactory dependencyInfoFactory;
+    private final long maxInMemoryBlobSize;
+    private final Set<String> trackedPaths = new HashSet<>();
+
+    /* --- Constructors --- */
+
+    /**
+     * @param repositoryDirectory the work tree of the clone, the commit of its HEAD is scanned
+     */
+    public GitBlobScanner(String repositoryDirectory, DependencyInfoFactory dependencyInfoFactory) {
+        this(repositoryDirectory, dependencyInfoFactory, MAX_IN_MEMORY_BLOB_SIZE);
+    }
+
+    /**
+     * @param maxInMemoryBlobSize larger blobs are streamed to temp files and hashed from there
+     */
+    GitBlobScanner(String repositoryDirectory, DependencyInfoFactory dependencyInfoFactory, long maxInMemoryBlobSize) {
+        this.repositoryDirectory = repositoryDirectory;
+        this.dependencyInfoFactory = dependencyInfoFactory;
+        this.maxInMemoryBlobSize = maxInMemoryBlobSize;
+    }
+
+    /* --- Public methods --- */
+
+    /**
+     * @return the dependencies of the files matching the includes and excludes, with the system paths they would have once checked out
+     */
+    public Collection<DependencyInfo> createDependencies(String[] includes, String[] excludes, boolean globCaseSensitive) {
+        Collection<DependencyInfo> dependencies = new LinkedList<>();
+        SingleFileScanner fileScanner = new SingleFileScanner();
+        fileScanner.setIncludes(includes);
+        fileScanner.setExcludes(excludes);
+        fileScanner.setCaseSensitive(globCaseSensitive);
+
+        long[] hashedBytes = new long[1];
+        ScanMetrics.Timer hashingTimer = ScanMetrics.startTimer(ScanMetrics.HASHING);
+        try (Git git = Git.open(new File(repositoryDirectory))) {
+            Repository repository = git.getRepository();
+            ObjectId treeId = repository.resolve(Constants.HEAD + "^{tree}");
+            if (treeId == null) {
+                logger.warn("No commit checked out in {}", repositoryDirectory);
+                return dependencies;
+            }
+            try (ObjectReader objectReader = repository.newObjectReader();
+                 TreeWalk treeWalk = new TreeWalk(repository, objectReader)) {
+                treeWalk.addTree(treeId);
+                treeWalk.setRecursive(true);
+                while (treeWalk.next()) {
+                    FileMode fileMode = treeWalk.getFileMode(0);
+                    if (fileMode != FileMode.REGULAR_FILE && fileMode != FileMode.EXECUTABLE_FILE) {
+                        continue;
+                    }
+                    String path = treeWalk.getPathString().replace('/', File.separatorChar);
+                    trackedPaths.add(path);
+                    if (!fileScanner.isScanned(path)) {
+                        continue;
+                    }
+                    ObjectId blobId = treeWalk.getObjectId(0);
+                    File file = new File(repositoryDirectory, path);
+                    long size = objectReader.getObjectSize(blobId, Constants.OBJ_BLOB);
+                    DependencyInfo dependency;
+                    if (size > maxInMemoryBlobSize) {
+                        dependency = dependencyInfoFactory.createDependencyInfo(file, blobId.getName(), contentFile -> {
+                            try (OutputStream outputStream = new FileOutputStream(contentFile)) {
+                                objectReader.open(blobId, Constants.OBJ_BLOB).copyTo(outputStream);
+                            }
+                            hashedBytes[0] += size;
+                        });
+                    } else {
+                        dependency = dependencyInfoFactory.createDependencyInfo(file, blobId.getName(), () -> {
+                            byte[] content = objectReader.open(blobId, Constants.OBJ_BLOB).getBytes(Integer.MAX_VALUE);
+                            hashedBytes[0] += content.length;
+                            return content;
+                        });
+                    }
+                    if (dependency != null) {
+                        dependencies.add(dependency);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Error reading git repository {}: {}", repositoryDirectory, e.getMessage());
+        } finally {
+            hashingTimer.stop();
+        }
+        logger.debug("Found {} files of {} in the object database", dependencies.size(), repositoryDirectory);
+        ScanMetrics.increment(ScanMetrics.HASHED_FILES, dependencies.size());
+        ScanMetrics.increment(ScanMetrics.HASHED_BYTES, hashedBytes[0]);
+        return dependencies;
+    }
+
+    /**
+     * @return the paths of all the files of the scanned commit, relative to the work tree
+     */
+    public Set<String> getTrackedPaths() {
+        return trackedPaths;
+    }
+}
@@ -4,20 +4,36 @@ import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
 import org.apache.commons.lang.StringUtils;
-import org.eclipse.jgit.api.CloneCommand;
+import org.apache.tools.ant.types.selectors.SelectorUtils;
 import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.TransportCommand;
 import org.eclipse.jgit.api.TransportConfigCallback;
 import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.api.errors.TransportException;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheCheckout;
 import org.eclipse.jgit.dircache.InvalidPathException;
+import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.*;
+import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.util.FS;
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
+import org.whitesource.agent.utils.FilesUtils;
 import org.whitesource.agent.utils.LoggerFactory;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 
 /**
  * Connector for Git repositories.
+ * Only the scanned branch or tag is fetched, and with sparse patterns only the matching files are checked out.
  *
  * @author tom.shapira
  */
@@ -25,6 +41,15 @@ public class GitConnector extends ScmConnector {
 
     /* --- Static members --- */
 
+    private static final String REMOTE_REFS = "refs/remotes/origin/";
+    private static final String OBJECTS = "objects";
+    private static final String ALTERNATES = OBJECTS + "/info/alternates";
+    private static final String PACKS = OBJECTS + "/pack";
+    private static final String PACK_EXTENSION = ".pack";
+    // every incremental fetch adds a pack to the mirror, lookups slow down with the number of packs
+    static final int MAX_MIRROR_PACKS = 16;
+    private static final String REPACK_MARKER = "repacked";
+
     private Logger logger = LoggerFactory.getLogger(GitConnector.class);
 
     /* --- Constructors --- */
@@ -39,66 +64,51 @@ public class GitConnector extends ScmConnector {
     protected File cloneRepository(File dest) {
         Git git = null;
         try {
-            // set branch name
-            String branchName = MASTER;;
-            String branch = getBranch();
-            if (StringUtils.isNotBlank(branch)) {
-                branchName = branch;
-            }
-            String tag = getTag();
-            if (StringUtils.isNotBlank(tag)) {
-                branchName = tag;
-            }
-
-            CloneCommand cloneCommand = Git.cloneRepository();
-
-            // use private key if available
-            final String privateKey = getPrivateKey();
-            if (StringUtils.isNotBlank(privateKey)) {
-                final SshSessionFactory sshSessionFactory = new JschConfigSessionFactory() {
-                    @Override
-                    protected void configure(OpenSshConfig.Host host, Session session) {
-                        // set password if available
-                        String password = getPassword();
-                        if (StringUtils.isNotBlank(password)) {
-                            session.setPassword(password);
-                        }
-                    }
-
-                    @Override
-                    protected JSch createDefaultJSch(FS fs) throws JSchException {
-                        JSch defaultJSch = super.createDefaultJSch(fs);
-                        defaultJSch.addIdentity(privateKey);
-                        return defaultJSch;
-                    }
-                };
-                cloneCommand.setTransportConfigCallback(new TransportConfigCallback() {
-                    @Override
-                    public void configure(Transport transport) {
-                        if( transport instanceof SshTransport ) {
-                            SshTransport sshTransport = (SshTransport) transport;
-                            sshTransport.setSshSessionFactory(sshSessionFactory);
-                        } else {
-                            logger.warn("you are not using ssh protocol while using scm.ppk");
-                        }
-                    }
-                });
-                cloneCommand.setCredentialsProvider(new passphraseCredentialsProvider(getPassword()));
+            git = initRepository(dest, false);
+            ObjectId commitId = fetch(git, getLocalRef());
+            if (commitId == null) {
+                logger.warn("Error cloning git repository: {} not found in {}", getRemoteRef(), getUrl());
             } else {
-                if (getUrlName() != null && getPassword() != null) {
-                    cloneCommand.setCredentialsProvider(new UsernamePasswordCredentialsProvider(getUsername(), getPassword()));
-                }
+                checkout(git.getRepository(), commitId);
+            }
+        } catch (InvalidPathException e) {
+            logger.warn("Error cloning git repository: {}", e.getMessage());
+        } catch (GitAPIException e) {
+            logger.warn("Error processing git repository: {}", e.getMessage());
+        } catch (IOException e) {
+            logger.warn("Error checking out git repository: {}", e.getMessage());
+        } finally {
+            if (git != null) {
+                git.close();
             }
+        }
+        return dest;
+    }
 
-            // clone repository
-            git = cloneCommand.setURI(getUrl())
-                    .setBranch(branchName)
-                    .setDirectory(dest)
-                    .call();
+    @Override
+    protected File cloneRepository(File dest, File mirror) {
+        ObjectId commitId = updateMirror(mirror);
+        if (commitId == null) {
+            FilesUtils.deleteDirectory(dest);
+            return cloneRepository(dest);
+        }
+        Git git = null;
+        try {
+            // the clone reads the objects from the mirror, nothing is copied
+            initRepository(dest, false).close();
+            File alternates = new File(dest, Constants.DOT_GIT + File.separator + ALTERNATES);
+            FileUtils.write(alternates, new File(mirror, OBJECTS).getAbsolutePath() + System.lineSeparator(), StandardCharsets.UTF_8);
+            git = Git.open(dest);
+            RefUpdate refUpdate = git.getRepository().updateRef(getLocalRef());
+            refUpdate.setNewObjectId(commitId);
+            refUpdate.forceUpdate();
+            checkout(git.getRepository(), commitId);
         } catch (InvalidPathException e) {
             logger.warn("Error cloning git repository: {}", e.getMessage());
         } catch (GitAPIException e) {
             logger.warn("Error processing git repository: {}", e.getMessage());
+        } catch (IOException e) {
+            logger.warn("Error checking out git repository: {}", e.getMessage());
         } finally {
             if (git != null) {
                 git.close();
@@ -111,4 +121,201 @@ public class GitConnector extends ScmConnector {
     public ScmType getType() {
         return ScmType.GIT;
     }
+
+    @Override
+    public String getRemoteRevision() {
+        String remoteRef = getRemoteRef();
+        try {
+            Ref ref = configureTransport(Git.lsRemoteRepository().setRemote(getUrl())).callAsMap().get(remoteRef);
+            if (ref != null) {
+                return ref.getObjectId().getName();
+            }
+            logger.warn("Error listing git repository: {} not found in {}", remoteRef, getUrl());
+        } catch (GitAPIException e) {
+            logger.warn("Error listing git repository {}: {}", getUrl(), e.getMessage());
+        }
+        return null;
+    }
+
+    /* --- Private methods --- */
+
+    /**
+     * Fetches the scanned ref into the bare mirror, only the objects the mirror doesn't have yet are transferred.
+     *
+     * @return the commit to check out, null if the mirror can't be used
+     */
+    private ObjectId updateMirror(File mirror) {
+        boolean exists = new File(mirror, OBJECTS).isDirectory();
+        try (Git git = exists ? Git.open(mirror) : initRepository(mirror, true)) {
+            ObjectId commitId = fetch(git, getRemoteRef());
+            if (commitId == null) {
+                logger.warn("Error updating git mirror: {} not found in {}", getRemoteRef(), getUrl());
+            } else {
+                repackMirror(git, mirror);
+            }
+            return commitId;
+        } catch (TransportException e) {
+            // the repository can't be reached, the mirror is fine
+            logger.warn("Error fetching git repository {}: {}", getUrl(), e.getMessage());
+            return null;
+        } catch (GitAPIException | IOException | RuntimeException e) {
+            // created again by the next scan
+            logger.warn("Error updating git mirror {}, deleting it: {}", mirror, e.getMessage());
+            FilesUtils.deleteDirectory(mirror);
+            return null;
+        }
+    }
+
+    // called with the mirror locked
+    private void repackMirror(Git git, File mirror) {
+        // the packs replaced by the last repack are kept an hour, the clones reading the mirror may still use them
+        File repackMarker = new File(mirror, REPACK_MARKER);
+        long lastRepack = repackMarker.lastModified();
+        File[] packs = new File(mirror, PACKS).listFiles((dir, name) -> name.endsWith(PACK_EXTENSION) && new File(dir, name).lastModified() > lastRepack);
+        if (packs == null || packs.length <= MAX_MIRROR_PACKS) {
+            return;
+        }
+        logger.debug("Repacking git mirror {} with {} new packs", mirror, packs.length);
+        try {
+            git.gc().call();
+            FileUtils.touch(repackMarker);
+        } catch (GitAPIException | IOException | RuntimeException e) {
+            // the mirror is still usable, repacked by the next update
+            logger.warn("Error repacking git mirror {}: {}", mirror, e.getMessage());
+        }
+    }
+
+    private Git initRepository(File directory, boolean bare) throws GitAPIException, IOException {
+        Git git = Git.init().setBare(bare).setDirectory(directory).call();
+        StoredConfig gitConfig = git.getRepository().getConfig();
+        gitConfig.setString(ConfigConstants.CONFIG_REMOTE_SECTION, Constants.DEFAULT_REMOTE_NAME, ConfigConstants.CONFIG_KEY_URL, getUrl());
+        gitConfig.save();
+        return git;
+    }
+
+    // fetch only the scanned branch or tag, without the other branches and tags
+    private ObjectId fetch(Git git, String localRef) throws GitAPIException, IOException {
+        configureTransport(git.fetch()
+                .setRemote(Constants.DEFAULT_REMOTE_NAME)
+                .setRefSpecs(new RefSpec().setForceUpdate(true).setSourceDestination(getRemoteRef(), localRef))
+                .setTagOpt(TagOpt.NO_TAGS))
+                .call();
+        return git.getRepository().resolve(localRef + "^{commit}");
+    }
+
+    private String getRemoteRef() {
+        String tag = getTag();
+        if (StringUtils.isNotBlank(tag)) {
+            return Constants.R_TAGS + tag;
+        }
+        String branch = getBranch();
+        return Constants.R_HEADS + (StringUtils.isNotBlank(branch) ? branch : MASTER);
+    }
+
+    // where the scanned ref is kept in the clone
+    private String getLocalRef() {
+        String remoteRef = getRemoteRef();
+        return remoteRef.startsWith(Constants.R_TAGS) ? remoteRef : REMOTE_REFS + remoteRef.substring(Constants.R_HEADS.length());
+    }
+
+    private <C extends TransportCommand<C, ?>> C configureTransport(C command) {
+        // use private key if available
+        final String privateKey = getPrivateKey();
+        if (StringUtils.isNotBlank(privateKey)) {
+            final SshSessionFactory sshSessionFactory = new JschConfigSessionFactory() {
+                @Override
+                protected void configure(OpenSshConfig.Host host, Session session) {
+                    // set password if available
+                    String password = getPassword();
+                    if (StringUtils.isNotBlank(password)) {
+                        session.setPassword(password);
+                    }
+                }
+
+                @Override
+                protected JSch createDefaultJSch(FS fs) throws JSchException {
+                    JSch defaultJSch = super.createDefaultJSch(fs);
+                    defaultJSch.addIdentity(privateKey);
+                    return defaultJSch;
+                }
+            };
+            command.setTransportConfigCallback(new TransportConfigCallback() {
+                @Override
+                public void configure(Transport transport) {
+                    if( transport instanceof SshTransport ) {
+                        SshTransport sshTransport = (SshTransport) transport;
+                        sshTransport.setSshSessionFactory(sshSessionFactory);
+                    } else {
+                        logger.warn("you are not using ssh protocol while using scm.ppk");
+                    }
+                }
+            });
+            command.setCredentialsProvider(new passphraseCredentialsProvider(getPassword()));
+        } else {
+            if (getUrlName() != null && getPassword() != null) {
+                command.setCredentialsProvider(new UsernamePasswordCredentialsProvider(getUsername(), getPassword()));
+            }
+        }
+        return command;
+    }
+
+    private void checkout(Repository repository, ObjectId commitId) throws IOException {
+        try (RevWalk revWalk = new RevWalk(repository)) {
+            RevCommit commit = revWalk.parseCommit(commitId);
+            Collection<String> sparsePatterns = getSparsePatterns();
+            if (sparsePatterns == null) {
+                DirCache dirCache = repository.lockDirCache();
+                new DirCacheCheckout(repository, dirCache, commit.getTree()).checkout();
+            } else {
+                int files = checkoutSparse(repository, commit, sparsePatterns);
+                logger.info("Checked out {} files matching the sparse checkout patterns", files);
+            }
+            // detached, the scan doesn't need a local branch
+            RefUpdate refUpdate = repository.updateRef(Constants.HEAD, true);
+            refUpdate.setNewObjectId(commit);
+            refUpdate.forceUpdate();
+        }
+    }
+
+    /**
+     * Writes only the files matching the patterns, JGit has no sparse checkout of its own.
+     * The index is left empty, the repository is only read by the scan.
+     */
+    private int checkoutSparse(Repository repository, RevCommit commit, Collection<String> sparsePatterns) throws IOException {
+        int files = 0;
+        try (TreeWalk treeWalk = new TreeWalk(repository)) {
+            treeWalk.addTree(commit.getTree());
+            treeWalk.setRecursive(true);
+            while (treeWalk.next()) {
+                FileMode fileMode = treeWalk.getFileMode(0);
+                if (fileMode != FileMode.REGULAR_FILE && fileMode != FileMode.EXECUTABLE_FILE) {
+                    continue;
+                }
+                String path = treeWalk.getPathString().replace('/', File.separatorChar);
+                if (!matchesAny(sparsePatterns, path)) {
+                    continue;
+                }
+                File file = new File(repository.getWorkTree(), path);
+                file.getParentFile().mkdirs();
+                try (OutputStream outputStream = new FileOutputStream(file)) {
+                    repository.open(treeWalk.getObjectId(0), Constants.OBJ_BLOB).copyTo(outputStream);
+                }
+                if (fileMode == FileMode.EXECUTABLE_FILE) {
+                    file.setExecutable(true);
+                }
+                files++;
+            }
+        }
+        return files;
+    }
+
+    private boolean matchesAny(Collection<String> patterns, String path) {
+        for (String pattern : patterns) {
+            // not case sensitive, checking out a few more files than scanned is harmless
+            if (SelectorUtils.matchPath(pattern.replace('/', File.separatorChar), path, false)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -4,9 +4,14 @@ import com.aragost.javahg.BaseRepository;
 import com.aragost.javahg.Repository;
 import com.aragost.javahg.RepositoryConfiguration;
 import com.aragost.javahg.commands.BranchCommand;
+import com.aragost.javahg.commands.PullCommand;
 import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.whitesource.agent.utils.FilesUtils;
+import org.whitesource.agent.utils.LoggerFactory;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * Connector for Mercurial (hg) repositories.
@@ -15,6 +20,12 @@ import java.io.File;
  */
 public class MercurialConnector extends ScmConnector {
 
+    /* --- Static members --- */
+
+    private final Logger logger = LoggerFactory.getLogger(MercurialConnector.class);
+
+    private static final String HG_FOLDER = ".hg";
+
     /* --- Constructors --- */
 
     public MercurialConnector(String username, String password, String url, String branch, String tag) {
@@ -26,9 +37,46 @@ public class MercurialConnector extends ScmConnector {
     @Override
     protected File cloneRepository(File dest) {
         BaseRepository repo = Repository.clone(RepositoryConfiguration.DEFAULT, dest, getUrl());
+        BranchCommand.on(repo).set(getBranchName());
+        return dest;
+    }
+
+    @Override
+    protected File cloneRepository(File dest, File mirror) {
+        // pull the changesets since the last scan into the mirror, then clone it locally
+        BaseRepository mirrorRepo = null;
+        try {
+            if (new File(mirror, HG_FOLDER).isDirectory()) {
+                mirrorRepo = Repository.open(RepositoryConfiguration.DEFAULT, mirror);
+                PullCommand.on(mirrorRepo).execute();
+            } else {
+                mirrorRepo = Repository.clone(RepositoryConfiguration.DEFAULT, mirror, getUrl());
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Error updating mercurial mirror {}, deleting it: {}", mirror, e.getMessage());
+            FilesUtils.deleteDirectory(mirror);
+            FilesUtils.deleteDirectory(dest);
+            return cloneRepository(dest);
+        } finally {
+            if (mirrorRepo != null) {
+                mirrorRepo.close();
+            }
+        }
+        BaseRepository repo = Repository.clone(RepositoryConfiguration.DEFAULT, dest, mirror.getAbsolutePath());
+        BranchCommand.on(repo).set(getBranchName());
+        return dest;
+    }
+
+    @Override
+    public ScmType getType() {
+        return ScmType.MERCURIAL;
+    }
+
+    /* --- Private methods --- */
 
+    private String getBranchName() {
         // set branch name
-        String branchName = MASTER;;
+        String branchName = MASTER;
         String branch = getBranch();
         if (StringUtils.isNotBlank(branch)) {
             branchName = branch;
@@ -37,12 +85,6 @@ public class MercurialConnector extends ScmConnector {
         if (StringUtils.isNotBlank(tag)) {
             branchName = tag;
         }
-        BranchCommand.on(repo).set(branchName);
-        return dest;
-    }
-
-    @Override
-    public ScmType getType() {
-        return ScmType.MERCURIAL;
+        return branchName;
     }
 }
@@ -8,7 +8,10 @@ import org.whitesource.agent.utils.FilesUtils;
 import org.whitesource.agent.utils.LoggerFactory;
 
 import java.io.File;
-import java.nio.file.Paths;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.UUID;
 
 /**
  * This class holds all components for connecting to repositories using git/svm/mercurial protocol.
@@ -24,6 +27,8 @@ public abstract class ScmConnector {
 
     public static final String MASTER = "master";
 
+    protected static final String INVALID_FILE_NAME_CHARS = "[^\\w.-]";
+
     /* --- Members --- */
 
     private final String username;
@@ -33,6 +38,10 @@ public abstract class ScmConnector {
     private final String tag;
     private final String privateKey;
     private File cloneDirectory;
+    private String scmTempFolder;
+    private TempFolders tempFolders = new TempFolders();
+    private Collection<String> sparsePatterns;
+    private File mirrorsFolder;
 
     /* --- Constructors --- */
 
@@ -48,6 +57,14 @@ public abstract class ScmConnector {
     /* --- Static methods --- */
 
     public static ScmConnector create(String scmType, String url, String privateKey, String username, String password, String branch, String tag) {
+        return create(scmType, url, privateKey, username, password, branch, tag, new TempFolders());
+    }
+
+    /**
+     * @param tempFolders the temp folders of the scan, the repository is cloned under them
+     */
+    public static ScmConnector create(String scmType, String url, String privateKey, String username, String password, String branch, String tag,
+                                      TempFolders tempFolders) {
         ScmConnector scmConnector = null;
         if (StringUtils.isNotBlank(scmType)) {
             ScmType type = ScmType.getValue(scmType);
@@ -71,6 +88,7 @@ public abstract class ScmConnector {
                     break;
                 default: throw new IllegalArgumentException("Unsupported scm type");
             }
+            scmConnector.tempFolders = tempFolders;
         }
         return scmConnector;
     }
@@ -83,18 +101,57 @@ public abstract class ScmConnector {
      * @return The folder in which the specific branch/tag resides.
      */
     public File cloneRepository() {
-        String scmTempFolder = new FilesUtils().createTmpFolder(false, TempFolders.UNIQUE_SCM_TEMP_FOLDER);
+        scmTempFolder = tempFolders.createTempFolder(false, TempFolders.WHITESOURCE_SCM_CONNECTOR_TMP_DIRECTORY);
         cloneDirectory = new File(scmTempFolder, getType().toString().toLowerCase() + Constants.UNDERSCORE +
                 getUrlName() + Constants.UNDERSCORE + getBranch());
         FilesUtils.deleteDirectory(cloneDirectory); // delete just in case it's not empty
 
-        logger.info("Cloning repository {} ...this may take a few minutes", getUrl());
-        File branchDirectory = cloneRepository(cloneDirectory);
-        return branchDirectory;
+        if (mirrorsFolder == null) {
+            logger.info("Cloning repository {} ...this may take a few minutes", getUrl());
+            return cloneRepository(cloneDirectory);
+        }
+
+        File mirror = new File(mirrorsFolder, getMirrorName());
+        logger.info("Updating the mirror {} of repository {} ...this may take a few minutes", mirror, getUrl());
+        ScmMirrorLock mirrorLock;
+        try {
+            mirrorLock = ScmMirrorLock.acquire(mirror);
+        } catch (IOException e) {
+            logger.warn("Failed to lock the mirror {}, cloning without it: {}", mirror, e.getMessage());
+            return cloneRepository(cloneDirectory);
+        }
+        try {
+            return cloneRepository(cloneDirectory, mirror);
+        } finally {
+            try {
+                mirrorLock.close();
+            } catch (IOException e) {
+                logger.warn("Failed to unlock the mirror {}: {}", mirror, e.getMessage());
+            }
+        }
     }
 
     public void deleteCloneDirectory() {
-        new TempFolders().deleteTempFoldersHelper(Paths.get(System.getProperty("java.io.tmpdir"), TempFolders.UNIQUE_SCM_TEMP_FOLDER).toString());
+        tempFolders.deleteTempFoldersHelper(scmTempFolder);
+    }
+
+    /**
+     * @return the revision the scanned branch or tag points to in the repository, or null if it can't be resolved without cloning
+     */
+    public String getRemoteRevision() {
+        return null;
+    }
+
+    /* --- Protected methods --- */
+
+    /**
+     * Updates the persistent mirror of the repository, creating it on the first time, and checks out from it.
+     * Called with the mirror locked, connectors without mirrors clone from the repository.
+     *
+     * @param mirror the folder of the mirror, shared by all the scans of the repository
+     */
+    protected File cloneRepository(File dest, File mirror) {
+        return cloneRepository(dest);
     }
 
     /* --- Abstract methods --- */
@@ -105,6 +162,13 @@ public abstract class ScmConnector {
 
     /* --- Private methods --- */
 
+    // unique per url, with the name of the repository to tell the mirrors apart
+    private String getMirrorName() {
+        String urlHash = UUID.nameUUIDFromBytes(url.getBytes(StandardCharsets.UTF_8)).toString();
+        return getType().toString().toLowerCase() + Constants.UNDERSCORE + getUrlName().replaceAll(INVALID_FILE_NAME_CHARS, Constants.UNDERSCORE) +
+                Constants.UNDERSCORE + urlHash;
+    }
+
 //    private void deleteDirectory(File directory) {
 //        if (directory != null) {
 //            try {
@@ -144,4 +208,26 @@ public abstract class ScmConnector {
     public String getPrivateKey() {
         return privateKey;
     }
+
+    public Collection<String> getSparsePatterns() {
+        return sparsePatterns;
+    }
+
+    public File getMirrorsFolder() {
+        return mirrorsFolder;
+    }
+
+    /**
+     * @param mirrorsFolder where the persistent mirrors of the repositories are kept, null to clone from the repository every time
+     */
+    public void setMirrorsFolder(File mirrorsFolder) {
+        this.mirrorsFolder = mirrorsFolder;
+    }
+
+    /**
+     * @param sparsePatterns the paths to check out, null to check out all the files (supported by git only)
+     */
+    public void setSparsePatterns(Collection<String> sparsePatterns) {
+        this.sparsePatterns = sparsePatterns;
+    }
 }
@@ -0,0 +1,73 @@
+package org.whitesource.scm;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Exclusive lock of a persistent mirror, held while the mirror is updated and checked out from.
+ * Locks both the scans of this process and other processes sharing the mirrors folder.
+ */
+class ScmMirrorLock implements AutoCloseable {
+
+    /* --- Static members --- */
+
+    private static final String LOCK_EXTENSION = ".lock";
+
+    // file locks are held by the whole process, the scans of the process wait on these
+    private static final ConcurrentMap<String, ReentrantLock> processLocks = new ConcurrentHashMap<>();
+
+    /* --- Members --- */
+
+    private final ReentrantLock processLock;
+    private final FileChannel channel;
+    private final FileLock fileLock;
+
+    /* --- Constructors --- */
+
+    private ScmMirrorLock(ReentrantLock processLock, FileChannel channel, FileLock fileLock) {
+        this.processLock = processLock;
+        this.channel = channel;
+        this.fileLock = fileLock;
+    }
+
+    /* --- Static methods --- */
+
+    /**
+     * Waits until the mirror isn't used by other scans.
+     */
+    static ScmMirrorLock acquire(File mirror) throws IOException {
+        File lockFile = new File(mirror.getParentFile(), mirror.getName() + LOCK_EXTENSION);
+        lockFile.getParentFile().mkdirs();
+        ReentrantLock processLock = processLocks.computeIfAbsent(lockFile.getCanonicalPath(), path -> new ReentrantLock());
+        processLock.lock();
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            return new ScmMirrorLock(processLock, channel, channel.lock());
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            processLock.unlock();
+            throw e;
+        }
+    }
+
+    /* --- Public methods --- */
+
+    @Override
+    public void close() throws IOException {
+        try {
+            fileLock.release();
+            channel.close();
+        } finally {
+            processLock.unlock();
+        }
+    }
+}
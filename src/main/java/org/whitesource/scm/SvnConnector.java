@@ -1,7 +1,10 @@
 package org.whitesource.scm;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
+import org.whitesource.agent.Constants;
+import org.whitesource.agent.utils.FilesUtils;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.tmatesoft.svn.core.SVNException;
 import org.tmatesoft.svn.core.SVNURL;
@@ -12,8 +15,10 @@ import org.tmatesoft.svn.core.wc.SVNWCUtil;
 import org.tmatesoft.svn.core.wc2.SvnCheckout;
 import org.tmatesoft.svn.core.wc2.SvnOperationFactory;
 import org.tmatesoft.svn.core.wc2.SvnTarget;
+import org.tmatesoft.svn.core.wc2.SvnUpdate;
 
 import java.io.File;
+import java.io.IOException;
 
 /**
  * Connector for SVN repositories.
@@ -30,6 +35,8 @@ public class SvnConnector extends ScmConnector {
     private static final String URL_TAGS = "/tags/";
     private static final String URL_TRUNK = "/trunk";
     private static final String TRUNK = "trunk";
+    private static final String SVN_FOLDER = ".svn";
+    private static final String WORKING_COPY = "wc";
 
     /* --- Constructors --- */
 
@@ -41,7 +48,36 @@ public class SvnConnector extends ScmConnector {
 
     @Override
     protected File cloneRepository(File dest) {
-        // build url
+        checkout(dest);
+        return dest;
+    }
+
+    @Override
+    protected File cloneRepository(File dest, File mirror) {
+        // a working copy for each branch / tag, updated with the changes since the last scan
+        File workingCopy = new File(mirror, WORKING_COPY + getCheckoutUrl().substring(getUrl().length()).replaceAll(INVALID_FILE_NAME_CHARS, Constants.UNDERSCORE));
+        boolean updated = new File(workingCopy, SVN_FOLDER).isDirectory() ? update(workingCopy) : checkout(workingCopy);
+        if (!updated) {
+            FilesUtils.deleteDirectory(workingCopy);
+            checkout(dest);
+            return dest;
+        }
+        try {
+            FileUtils.copyDirectory(workingCopy, dest, file -> !SVN_FOLDER.equals(file.getName()));
+        } catch (IOException e) {
+            logger.error("error copying the working copy {}: {}", workingCopy, e.getMessage());
+        }
+        return dest;
+    }
+
+    @Override
+    public ScmType getType() {
+        return ScmType.SVN;
+    }
+
+    /* --- Private methods --- */
+
+    private String getCheckoutUrl() {
         String url = getUrl();
         String branch = getBranch();
         String tag = getTag();
@@ -60,7 +96,10 @@ public class SvnConnector extends ScmConnector {
             urlBuilder.append(URL_TAGS);
             urlBuilder.append(tag);
         }
+        return urlBuilder.toString();
+    }
 
+    private boolean checkout(File dest) {
         // setup svn client
         SVNClientManager clientManager = SVNClientManager.newInstance(SVNWCUtil.createDefaultOptions(true), getUsername(), getPassword());
         SVNUpdateClient updateClient = clientManager.getUpdateClient();
@@ -70,20 +109,31 @@ public class SvnConnector extends ScmConnector {
         try {
             final SvnCheckout checkout = svnOperationFactory.createCheckout();
             checkout.setSingleTarget(SvnTarget.fromFile(dest));
-            checkout.setSource(SvnTarget.fromURL(SVNURL.parseURIEncoded(urlBuilder.toString())));
+            checkout.setSource(SvnTarget.fromURL(SVNURL.parseURIEncoded(getCheckoutUrl())));
             checkout.setRevision(SVNRevision.HEAD);
             checkout.run();
+            return true;
         } catch (SVNException e) {
             logger.error("error during checkout: {}", e.getMessage());
+            return false;
         } finally {
             svnOperationFactory.dispose();
         }
-
-        return dest;
     }
 
-    @Override
-    public ScmType getType() {
-        return ScmType.SVN;
+    private boolean update(File workingCopy) {
+        final SvnOperationFactory svnOperationFactory = new SvnOperationFactory();
+        try {
+            final SvnUpdate update = svnOperationFactory.createUpdate();
+            update.setSingleTarget(SvnTarget.fromFile(workingCopy));
+            update.setRevision(SVNRevision.HEAD);
+            update.run();
+            return true;
+        } catch (SVNException e) {
+            logger.error("error during update of {}: {}", workingCopy, e.getMessage());
+            return false;
+        } finally {
+            svnOperationFactory.dispose();
+        }
     }
 }
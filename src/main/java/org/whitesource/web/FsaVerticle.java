@@ -15,10 +15,16 @@
  */
 package org.whitesource.web;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Context;
 import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.net.JksOptions;
 import io.vertx.ext.web.Router;
@@ -29,33 +35,72 @@ import org.apache.commons.lang.SystemUtils;
 import org.slf4j.Logger;
 import org.whitesource.agent.utils.LoggerFactory;
 import org.whitesource.agent.Constants;
+import org.whitesource.agent.FileHashCache;
+import org.whitesource.agent.api.model.AgentProjectInfo;
 import org.whitesource.agent.utils.CommandLineProcess;
+import org.whitesource.agent.utils.ScanMetrics;
 import org.whitesource.fs.*;
 import org.whitesource.fs.configuration.ConfigurationSerializer;
+import org.whitesource.fs.configuration.EndPointConfiguration;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static org.whitesource.agent.ConfigPropertyKeys.ENDPOINT_PORT;
 
 /**
- * Blocking Verticle that does the work on top of the FSA
+ * Verticle that does the work on top of the FSA.
+ * Scans run as jobs on a bounded pool, either waited for (/analyze, /send) or polled and streamed by their id (/jobs).
+ * /analyze/stream writes each project as a json line as soon as it is done, and a last line with the status of the scan.
  */
 public class FsaVerticle extends AbstractVerticle {
 
     private final Logger logger = LoggerFactory.getLogger(FsaVerticle.class);
     public static final String API_ANALYZE = "/analyze";
     public static final String API_SEND = "/send";
+    public static final String API_ANALYZE_STREAM = "/analyze/stream";
+    public static final String API_METRICS = "/metrics";
+    public static final String API_JOBS_ANALYZE = "/jobs/analyze";
+    public static final String API_JOBS_SEND = "/jobs/send";
+    public static final String API_JOB = "/jobs/:id";
+    public static final String API_JOB_STREAM = "/jobs/:id/stream";
+    public static final String JOBS = "/jobs/";
+    public static final String JOB_ID = "id";
+    public static final String ANALYZE = "analyze";
+    public static final String SEND = "send";
     public static final String HOME = "/";
     public static final String WELCOME_MESSAGE = "<h1>File system agent is up and running </h1>";
     public static final String CONFIGURATION = "configuration";
     public static final String KEYSTORE_JKS = "keystore.jks";
+    private static final String CONTENT_TYPE = "content-type";
+    private static final String APPLICATION_JSON = "application/json";
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4";
+    private static final String OUTPUT_LABEL = "output";
+    private static final String RESPONSE_OUTPUT = "response";
+    private static final String LOCATION = "location";
+    private static final int NEW_LINE = '\n';
+    private static final int ACCEPTED = 202;
+    private static final int NOT_FOUND = 404;
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private static final String QUEUE_FULL_MESSAGE = "Too many scans are waiting, please try again later";
+    private static final String SCAN_FAILED_MESSAGE = "Scanning has failed";
+    // shared by all the responses, writes straight to their buffers
+    private static final ObjectMapper objectMapper = new ObjectMapper().configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, false);
+
     private FSAConfiguration localFsaConfiguration;
+    private ScanJobs scanJobs;
+    // kept as long as the endpoint is up, so repeated scans of the same trees don't hash unchanged files again
+    private FileHashCache fileHashCache;
 
     @Override
     public void start(Future<Void> fut) {
@@ -64,10 +109,22 @@ public class FsaVerticle extends AbstractVerticle {
         router.route().handler(BodyHandler.create());
 
         // expose a POST method endpoint on the URI: /analyze
-        router.post(API_ANALYZE).blockingHandler(this::analyze);
+        router.post(API_ANALYZE).handler(this::analyze);
 
         // expose a POST method endpoint on the URI: /send
-        router.post(API_SEND).blockingHandler(this::send);
+        router.post(API_SEND).handler(this::send);
+
+        // the projects of the scan as json lines, each one written once it is done
+        router.post(API_ANALYZE_STREAM).handler(this::streamAnalyze);
+
+        // the same scans as jobs, answered right away with the job to poll or stream
+        router.post(API_JOBS_ANALYZE).handler(context -> submitJob(context, false));
+        router.post(API_JOBS_SEND).handler(context -> submitJob(context, true));
+        router.get(API_JOB).handler(this::getJob);
+        router.get(API_JOB_STREAM).handler(this::streamJob);
+
+        // the timings of the scan phases, in the Prometheus text format
+        router.get(API_METRICS).handler(this::metrics);
 
         router.get(HOME).handler(this::welcome);
 
@@ -77,6 +134,10 @@ public class FsaVerticle extends AbstractVerticle {
         } else {
             localFsaConfiguration = ConfigurationSerializer.getFromString(config, FSAConfiguration.class, false);
         }
+        EndPointConfiguration endpoint = localFsaConfiguration.getEndpoint();
+        scanJobs = new ScanJobs(endpoint.getJobsParallelism(), endpoint.getJobsQueueSize(),
+                TimeUnit.MINUTES.toMillis(endpoint.getJobsRetentionMinutes()), TimeUnit.MINUTES.toMillis(endpoint.getJobsCacheMinutes()));
+        fileHashCache = new FileHashCache(endpoint.getCacheMaxFiles());
 
         String certificate = localFsaConfiguration.getEndpoint().getCertificate();
         String pass = localFsaConfiguration.getEndpoint().getPass();
@@ -136,54 +197,207 @@ public class FsaVerticle extends AbstractVerticle {
         }
     }
 
+    @Override
+    public void stop() {
+        if (scanJobs != null) {
+            scanJobs.shutdown();
+        }
+        if (fileHashCache != null) {
+            logger.debug("File hash cache: {} files, {} hits, {} misses", fileHashCache.size(), fileHashCache.getHits(), fileHashCache.getMisses());
+            fileHashCache.clear();
+        }
+    }
+
     private void send(RoutingContext context) {
-        vertx.executeBlocking(future -> {
-            ProjectsDetails resultProjects = getProjects(context, true);
-            future.complete(resultProjects);
-        }, false, res -> {
-            if (res.failed()) {
-                logger.error("error running blocking request:", res.cause().getMessage());
-            } else {
-                ProjectsDetails resultProjects = (ProjectsDetails)res.result();
-                ResultDto resultDto = new ResultDto(resultProjects.getDetails(), resultProjects.getStatusCode());
-                handleResponse(context, resultDto);
+        runJob(context, true);
+    }
+
+    public void analyze(RoutingContext context) {
+        runJob(context, false);
+    }
+
+    // waits for the job and answers with its result, like the scan used to be answered
+    private void runJob(RoutingContext context, boolean shouldSend) {
+        submit(context, shouldSend, null, job -> {
+            Context vertxContext = vertx.getOrCreateContext();
+            job.addListener(changedJob -> {
+                if (changedJob.isDone()) {
+                    vertxContext.runOnContext(v -> {
+                        if (changedJob.getStatus() == ScanJob.Status.FAILED) {
+                            logger.error("error running blocking request: {}", changedJob.getError());
+                            context.response().end(SCAN_FAILED_MESSAGE);
+                        } else {
+                            handleResponse(context, changedJob.getResult());
+                        }
+                    });
+                }
+            });
+        });
+    }
+
+    private void submitJob(RoutingContext context, boolean shouldSend) {
+        submit(context, shouldSend, null, job -> {
+            context.response().setStatusCode(ACCEPTED).putHeader(LOCATION, JOBS + job.getId());
+            handleResponse(context, job);
+        });
+    }
+
+    /**
+     * Identical analyze requests share one job, the trees to scan are fingerprinted off the event loop to find it.
+     *
+     * @param projectListener called with each project once it is done, the result of the job then holds only the status of the scan
+     * @param jobHandler      called on the event loop with the job, unless the request was already answered with an error
+     */
+    private void submit(RoutingContext context, boolean shouldSend, Consumer<AgentProjectInfo> projectListener, Consumer<ScanJob> jobHandler) {
+        final FSAConfiguration webFsaConfiguration = getConfiguration(context);
+        boolean onlyStatus = shouldSend || projectListener != null;
+        String type = shouldSend ? SEND : ANALYZE;
+        Supplier<ResultDto<?, StatusCode>> scan;
+        if (webFsaConfiguration == null) {
+            scan = () -> getResult(new ProjectsDetails(new ArrayList<>(), StatusCode.ERROR, "Error parsing the request"), onlyStatus);
+        } else {
+            scan = () -> getResult(new Main(fileHashCache, projectListener).scanAndSend(webFsaConfiguration, shouldSend), onlyStatus);
+        }
+        if (webFsaConfiguration == null || onlyStatus) {
+            handleJob(context, scanJobs.submit(type, scan), jobHandler);
+        } else {
+            vertx.<String>executeBlocking(future -> future.complete(ScanFingerprint.getKey(webFsaConfiguration)), false,
+                    key -> handleJob(context, scanJobs.submit(type, key.result(), scan), jobHandler));
+        }
+    }
+
+    private void handleJob(RoutingContext context, ScanJob job, Consumer<ScanJob> jobHandler) {
+        if (job == null) {
+            context.response().setStatusCode(SERVICE_UNAVAILABLE).end(QUEUE_FULL_MESSAGE);
+        } else {
+            jobHandler.accept(job);
+        }
+    }
+
+    private void getJob(RoutingContext context) {
+        ScanJob job = scanJobs.getJob(context.request().getParam(JOB_ID));
+        if (job == null) {
+            context.response().setStatusCode(NOT_FOUND).end();
+        } else {
+            handleResponse(context, job);
+        }
+    }
+
+    // writes a json line on each status change of the job, the last one holds the result
+    private void streamJob(RoutingContext context) {
+        ScanJob job = scanJobs.getJob(context.request().getParam(JOB_ID));
+        if (job == null) {
+            context.response().setStatusCode(NOT_FOUND).end();
+            return;
+        }
+        HttpServerResponse response = context.response().setChunked(true).putHeader(CONTENT_TYPE, APPLICATION_NDJSON);
+        Context vertxContext = vertx.getOrCreateContext();
+        Consumer<ScanJob> listener = changedJob -> vertxContext.runOnContext(v -> {
+            if (!response.ended() && !response.closed()) {
+                writeLine(response, changedJob);
+                if (changedJob.isDone()) {
+                    response.end();
+                }
             }
         });
+        response.closeHandler(v -> job.removeListener(listener));
+        if (!job.isDone()) {
+            writeLine(response, job);
+        }
+        job.addListener(listener);
+    }
 
+    // the projects are serialized on the worker of the scan, and written by the event loop in the order they are done
+    private void streamAnalyze(RoutingContext context) {
+        HttpServerResponse response = context.response();
+        Context vertxContext = vertx.getOrCreateContext();
+        submit(context, false, project -> {
+            Buffer line = toJsonLine(project);
+            if (line != null) {
+                vertxContext.runOnContext(v -> {
+                    if (!response.ended() && !response.closed()) {
+                        response.write(line);
+                    }
+                });
+            }
+        }, job -> {
+            response.setChunked(true).putHeader(CONTENT_TYPE, APPLICATION_NDJSON);
+            job.addListener(changedJob -> {
+                if (changedJob.isDone()) {
+                    ResultDto<?, StatusCode> status = changedJob.getStatus() == ScanJob.Status.FAILED ?
+                            new ResultDto<>(SCAN_FAILED_MESSAGE, StatusCode.ERROR) : changedJob.getResult();
+                    vertxContext.runOnContext(v -> {
+                        if (!response.ended() && !response.closed()) {
+                            writeLine(response, status);
+                            response.end();
+                        }
+                    });
+                }
+            });
+        });
     }
 
-    public void analyze(RoutingContext context) {
-        ProjectsDetails result = getProjects(context, false);
-        ResultDto resultDto = new ResultDto(new ProjectsDetails(result.getProjects(),result.getStatusCode(),result.getDetails()), result.getStatusCode());
-        handleResponse(context, resultDto);
+    private ResultDto<?, StatusCode> getResult(ProjectsDetails result, boolean shouldSend) {
+        if (shouldSend) {
+            return new ResultDto<>(result.getDetails(), result.getStatusCode());
+        }
+        return new ResultDto<>(new ProjectsDetails(result.getProjects(), result.getStatusCode(), result.getDetails()), result.getStatusCode());
     }
 
-    private void handleResponse(RoutingContext context, ResultDto resultDto) {
-        String result = null;
-        try {
-            result = new ObjectMapper().writeValueAsString(resultDto);
-        } catch (JsonProcessingException e) {
+    private void handleResponse(RoutingContext context, Object resultDto) {
+        Buffer result = toJson(resultDto, false);
+        if (result == null) {
+            context.response().end(SCAN_FAILED_MESSAGE);
+        } else {
+            context.response().putHeader(CONTENT_TYPE, APPLICATION_JSON).end(result);
+        }
+    }
+
+    private void writeLine(HttpServerResponse response, Object value) {
+        Buffer line = toJsonLine(value);
+        if (line != null) {
+            response.write(line);
+        }
+    }
+
+    private Buffer toJsonLine(Object value) {
+        return toJson(value, true);
+    }
+
+    private Buffer toJson(Object value, boolean newLine) {
+        ByteBuf byteBuf = Unpooled.buffer();
+        ScanMetrics.Timer serializationTimer = ScanMetrics.startTimer(ScanMetrics.SERIALIZATION, OUTPUT_LABEL, RESPONSE_OUTPUT);
+        try (OutputStream outputStream = new ByteBufOutputStream(byteBuf)) {
+            objectMapper.writeValue(outputStream, value);
+            if (newLine) {
+                outputStream.write(NEW_LINE);
+            }
+            return Buffer.buffer(byteBuf);
+        } catch (IOException e) {
             logger.error("Error writing json:", e);
-            context.response().end("Scanning has failed");
+            byteBuf.release();
+            return null;
+        } finally {
+            serializationTimer.stop();
         }
-        context.response().end(result);
+    }
+
+    private void metrics(RoutingContext context) {
+        context.response().putHeader(CONTENT_TYPE, PROMETHEUS_TEXT).end(ScanMetrics.getPrometheusText());
     }
 
     private void welcome(RoutingContext context) {
         context.response().end(WELCOME_MESSAGE);
     }
 
-    private ProjectsDetails getProjects(RoutingContext context, boolean shouldSend) {
+    private FSAConfiguration getConfiguration(RoutingContext context) {
         final FSAConfiguration webFsaConfiguration = ConfigurationSerializer.getFromString(context.getBodyAsString(), FSAConfiguration.class, false);
 
         if (webFsaConfiguration != null) {
             HashMap<String, Object> result = ConfigurationSerializer.getFromString(context.getBodyAsString(), HashMap.class, false);
-            FSAConfiguration mergedFsaConfiguration = mergeConfigurations(localFsaConfiguration, result);
-
-            Main main = new Main();
-            return main.scanAndSend(mergedFsaConfiguration, shouldSend);
+            return mergeConfigurations(localFsaConfiguration, result);
         }
-        return new ProjectsDetails(new ArrayList<>(), StatusCode.ERROR, "Error parsing the request");
+        return null;
     }
 
     private FSAConfiguration mergeConfigurations(FSAConfiguration baseFsaConfiguration, HashMap<String, Object> parameterMap) {
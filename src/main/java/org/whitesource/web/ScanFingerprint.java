@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2014 WhiteSource Ltd.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.whitesource.web;
+
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.whitesource.agent.Constants;
+import org.whitesource.agent.utils.LoggerFactory;
+import org.whitesource.fs.FSAConfiguration;
+import org.whitesource.fs.configuration.ConfigurationSerializer;
+import org.whitesource.fs.configuration.ScmConfiguration;
+import org.whitesource.fs.configuration.ScmRepositoriesParser;
+import org.whitesource.scm.ScmConnector;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * The key of a scan request, the same for requests with the same configuration on trees that weren't changed.
+ * A tree is fingerprinted by the path, size and modification time of its files, the files themselves aren't read.
+ * A repository is fingerprinted by the revision of its scanned branch or tag, docker images aren't fingerprinted.
+ */
+public class ScanFingerprint {
+
+    /* --- Static members --- */
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanFingerprint.class);
+
+    private static final String SHA_1 = "SHA-1";
+    private static final String GIT_FOLDER = ".git";
+
+    /* --- Constructors --- */
+
+    private ScanFingerprint() {
+    }
+
+    /* --- Public methods --- */
+
+    /**
+     * @return the key of the scan, or null if it can't be calculated and the scan shouldn't be shared
+     */
+    public static String getKey(FSAConfiguration fsaConfiguration) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance(SHA_1);
+            // sorted, so the order of the properties in the request doesn't matter
+            Map<Object, Object> properties = new TreeMap<>(ConfigurationSerializer.getAsProperties(fsaConfiguration));
+            update(digest, properties.toString());
+
+            if (isDockerScan(fsaConfiguration)) {
+                logger.info("Docker images can change under the same name, the scan will not be shared");
+                return null;
+            }
+            for (ScmConfiguration scm : getScmConfigurations(fsaConfiguration)) {
+                ScmConnector scmConnector = ScmConnector.create(scm.getType(), scm.getUrl(), scm.getPpk(), scm.getUser(), scm.getPass(), scm.getBranch(), scm.getTag());
+                if (scmConnector == null) {
+                    continue;
+                }
+                String revision = scmConnector.getRemoteRevision();
+                if (revision == null) {
+                    logger.info("Failed to resolve the revision of {}, the scan will not be shared", scm.getUrl());
+                    return null;
+                }
+                update(digest, revision);
+            }
+
+            Set<String> paths = new TreeSet<>(fsaConfiguration.getDependencyDirs());
+            if (StringUtils.isNotBlank(fsaConfiguration.getFileListPath())) {
+                paths.add(fsaConfiguration.getFileListPath());
+                File listFile = new File(fsaConfiguration.getFileListPath());
+                if (listFile.isFile()) {
+                    paths.addAll(Files.readAllLines(listFile.toPath()));
+                }
+            }
+            for (String path : paths) {
+                update(digest, path);
+                addTree(digest, Paths.get(path));
+            }
+            return new BigInteger(1, digest.digest()).toString(16);
+        } catch (NoSuchAlgorithmException | IOException | RuntimeException e) {
+            logger.warn("Failed to fingerprint the scan, it will not be shared: {}", e.getMessage());
+            logger.debug("Failed to fingerprint the scan", e);
+            return null;
+        }
+    }
+
+    /* --- Private methods --- */
+
+    private static boolean isDockerScan(FSAConfiguration fsaConfiguration) {
+        return fsaConfiguration.isScanDockerImages() || fsaConfiguration.isScanImagesTar() ||
+                (fsaConfiguration.getRemoteDocker() != null && fsaConfiguration.getRemoteDocker().isRemoteDockerEnabled());
+    }
+
+    private static Collection<ScmConfiguration> getScmConfigurations(FSAConfiguration fsaConfiguration) {
+        ScmConfiguration scm = fsaConfiguration.getScm();
+        if (scm == null) {
+            return Collections.emptyList();
+        }
+        if (StringUtils.isBlank(scm.getRepositoriesPath())) {
+            return Collections.singletonList(scm);
+        }
+        Collection<ScmConfiguration> scmConfigurations = new ScmRepositoriesParser().parseRepositoriesFile(
+                scm.getRepositoriesPath(), scm.getType(), scm.getPpk(), scm.getUser(), scm.getPass());
+        return scmConfigurations == null ? Collections.emptyList() : scmConfigurations;
+    }
+
+    private static void addTree(MessageDigest digest, Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        // the files are visited in a fixed order, so the same tree always gets the same fingerprint
+        List<String> files = new ArrayList<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return GIT_FOLDER.equals(String.valueOf(dir.getFileName())) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                files.add(root.relativize(file) + Constants.COLON + attrs.size() + Constants.COLON + attrs.lastModifiedTime().toMillis());
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                files.add(root.relativize(file) + Constants.COLON + e.getClass().getSimpleName());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        Collections.sort(files);
+        for (String file : files) {
+            update(digest, file);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
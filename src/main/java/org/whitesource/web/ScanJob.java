@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2014 WhiteSource Ltd.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.whitesource.web;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.slf4j.Logger;
+import org.whitesource.agent.utils.LoggerFactory;
+import org.whitesource.fs.StatusCode;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A scan requested through the endpoint, run by {@link ScanJobs}.
+ * Listeners are notified on every status change, the result is set once the job is finished.
+ */
+public class ScanJob {
+
+    /* --- Static members --- */
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanJob.class);
+
+    public enum Status {
+        QUEUED, RUNNING, FINISHED, FAILED
+    }
+
+    /* --- Members --- */
+
+    private final String id = UUID.randomUUID().toString();
+    private final String type;
+    private final long submittedTime = System.currentTimeMillis();
+    private volatile Status status = Status.QUEUED;
+    private volatile long startTime;
+    private volatile long endTime;
+    private volatile ResultDto<?, StatusCode> result;
+    private volatile String error;
+    private final List<Consumer<ScanJob>> listeners = new CopyOnWriteArrayList<>();
+
+    /* --- Constructors --- */
+
+    public ScanJob(String type) {
+        this.type = type;
+    }
+
+    /* --- Public methods --- */
+
+    /**
+     * Adds a listener to the status changes of the job, a listener of a finished job is called right away.
+     */
+    public void addListener(Consumer<ScanJob> listener) {
+        listeners.add(listener);
+        if (isDone() && listeners.remove(listener)) {
+            listener.accept(this);
+        }
+    }
+
+    public void removeListener(Consumer<ScanJob> listener) {
+        listeners.remove(listener);
+    }
+
+    @JsonIgnore
+    public boolean isDone() {
+        return status == Status.FINISHED || status == Status.FAILED;
+    }
+
+    /* --- Package methods --- */
+
+    void run(Supplier<ResultDto<?, StatusCode>> scan) {
+        startTime = System.currentTimeMillis();
+        setStatus(Status.RUNNING);
+        try {
+            result = scan.get();
+            endTime = System.currentTimeMillis();
+            setStatus(Status.FINISHED);
+        } catch (Exception e) {
+            logger.error("Scan job {} failed: {}", id, e.getMessage());
+            logger.debug("Scan job {} failed", id, e);
+            error = e.getMessage();
+            endTime = System.currentTimeMillis();
+            setStatus(Status.FAILED);
+        }
+    }
+
+    void fail(String error) {
+        this.error = error;
+        endTime = System.currentTimeMillis();
+        setStatus(Status.FAILED);
+    }
+
+    /* --- Private methods --- */
+
+    private void setStatus(Status status) {
+        this.status = status;
+        for (Consumer<ScanJob> listener : listeners) {
+            if (isDone()) {
+                // a finished job notifies each listener only once
+                if (!listeners.remove(listener)) {
+                    continue;
+                }
+            }
+            try {
+                listener.accept(this);
+            } catch (Exception e) {
+                logger.warn("Failed to notify on scan job {}: {}", id, e.getMessage());
+            }
+        }
+    }
+
+    /* --- Getters --- */
+
+    public String getId() {
+        return id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getSubmittedTime() {
+        return submittedTime;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public ResultDto<?, StatusCode> getResult() {
+        return result;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2014 WhiteSource Ltd.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.whitesource.web;
+
+import org.slf4j.Logger;
+import org.whitesource.agent.utils.LoggerFactory;
+import org.whitesource.fs.StatusCode;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs the scan jobs of the endpoint on a bounded pool of workers with a bounded queue.
+ * Finished jobs are kept for the retention time, so their results can be fetched.
+ * Jobs submitted with the same key share one run, and a finished one is reused for the cache time.
+ */
+public class ScanJobs {
+
+    /* --- Static members --- */
+
+    private static final Logger logger = LoggerFactory.getLogger(ScanJobs.class);
+
+    /* --- Members --- */
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ScanJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, ScanJob> sharedJobs = new ConcurrentHashMap<>();
+    private final long retentionMillis;
+    private final long cacheMillis;
+
+    /* --- Constructors --- */
+
+    public ScanJobs(int parallelism, int queueSize, long retentionMillis) {
+        this(parallelism, queueSize, retentionMillis, 0);
+    }
+
+    /**
+     * @param cacheMillis how long a finished job is reused by the jobs with its key, 0 to share only running jobs
+     */
+    public ScanJobs(int parallelism, int queueSize, long retentionMillis, long cacheMillis) {
+        this.executor = new ThreadPoolExecutor(parallelism, parallelism, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize));
+        this.retentionMillis = retentionMillis;
+        this.cacheMillis = Math.min(cacheMillis, retentionMillis);
+    }
+
+    /* --- Public methods --- */
+
+    /**
+     * @return the queued job, or null if the queue is full
+     */
+    public ScanJob submit(String type, Supplier<ResultDto<?, StatusCode>> scan) {
+        removeExpiredJobs();
+        ScanJob job = new ScanJob(type);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> job.run(scan));
+            logger.info("Scan job {} ({}) queued, {} jobs waiting", job.getId(), type, executor.getQueue().size());
+            return job;
+        } catch (RejectedExecutionException e) {
+            logger.warn("Scan job {} ({}) rejected, the queue is full", job.getId(), type);
+            jobs.remove(job.getId());
+            return null;
+        }
+    }
+
+    /**
+     * @param key the key of the scan, a job with the same key that is still running or cached is returned instead of a new one
+     * @return the shared or queued job, or null if the queue is full
+     */
+    public synchronized ScanJob submit(String type, String key, Supplier<ResultDto<?, StatusCode>> scan) {
+        if (key == null) {
+            return submit(type, scan);
+        }
+        String sharedKey = type + key;
+        ScanJob sharedJob = sharedJobs.get(sharedKey);
+        if (sharedJob != null && isShared(sharedJob)) {
+            logger.info("Scan job {} ({}) is shared by an identical request", sharedJob.getId(), type);
+            return sharedJob;
+        }
+        ScanJob job = submit(type, scan);
+        if (job != null) {
+            sharedJobs.put(sharedKey, job);
+        }
+        return job;
+    }
+
+    public ScanJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+        jobs.values().stream().filter(job -> !job.isDone()).forEach(job -> job.fail("The endpoint was stopped"));
+    }
+
+    /* --- Private methods --- */
+
+    private void removeExpiredJobs() {
+        long expiredTime = System.currentTimeMillis() - retentionMillis;
+        jobs.values().removeIf(job -> job.isDone() && job.getEndTime() < expiredTime);
+        sharedJobs.values().removeIf(job -> !isShared(job));
+    }
+
+    // a failed scan isn't shared once it is done, the next identical request runs it again
+    private boolean isShared(ScanJob job) {
+        if (!job.isDone()) {
+            return true;
+        }
+        return job.getStatus() == ScanJob.Status.FINISHED && job.getResult() != null && job.getResult().getDetails() == StatusCode.SUCCESS &&
+                job.getEndTime() >= System.currentTimeMillis() - cacheMillis;
+    }
+}
@@ -1,11 +1,22 @@
 package org.whitesource.agent;
 
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.whitesource.agent.api.model.DependencyInfo;
 import org.whitesource.agent.dependency.resolver.npm.TestHelper;
+import org.whitesource.agent.hash.HashCalculator;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Test class for creadur-rat.
@@ -22,4 +33,36 @@ public class DependencyInfoFactoryTest {
         DependencyInfo dependencyInfo = factory.createDependencyInfo(file.getParentFile(),file.getName());
         dependencyInfo.getCopyrights();
     }
+
+    @Test
+    public void shouldHashFilesWithTheSameNameConcurrently() throws Exception {
+        File folder = Files.createTempDirectory("DependencyInfoFactoryTest").toFile();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<File> files = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                File file = new File(folder, "project" + i + "/package.json");
+                FileUtils.write(file, "{\n  \"name\": \"project" + i + "\"\n}\n", StandardCharsets.UTF_8);
+                files.add(file);
+            }
+            DependencyInfoFactory factory = new DependencyInfoFactory();
+            List<Future<DependencyInfo>> dependencies = new ArrayList<>();
+            for (File file : files) {
+                dependencies.add(executorService.submit(() -> factory.createDependencyInfo(file.getParentFile(), file.getName())));
+            }
+            for (int i = 0; i < files.size(); i++) {
+                DependencyInfo dependency = dependencies.get(i).get();
+                Assert.assertNotNull(dependency);
+                Assert.assertEquals(getOtherPlatformSha1(files.get(i)), dependency.getOtherPlatformSha1());
+            }
+        } finally {
+            executorService.shutdownNow();
+            FileUtils.deleteQuietly(folder);
+        }
+    }
+
+    private String getOtherPlatformSha1(File file) throws IOException {
+        String text = FileUtils.readFileToString(file, StandardCharsets.UTF_8);
+        return new HashCalculator().calculateByteArraySHA1(text.replace("\n", "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,65 @@
+package org.whitesource.agent;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.whitesource.agent.api.model.DependencyInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FileHashCacheTest {
+
+    @Test
+    public void shouldHashAgainOnlyChangedFiles() throws IOException {
+        File folder = Files.createTempDirectory("FileHashCacheTest").toFile();
+        try {
+            File file = new File(folder, "index.js");
+            FileUtils.write(file, "var a = 1;", StandardCharsets.UTF_8);
+            FileHashCache fileHashCache = new FileHashCache(10);
+            AtomicInteger loads = new AtomicInteger();
+            FileHashCache.HashLoader<String> loader = changedFile -> loads.incrementAndGet() + Constants.EMPTY_STRING;
+
+            Assert.assertEquals("1", fileHashCache.get(file, "test", loader));
+            Assert.assertEquals("1", fileHashCache.get(file, "test", loader));
+            // the same file hashed in another way
+            Assert.assertEquals("2", fileHashCache.get(file, "other", loader));
+
+            FileUtils.write(file, "var a = 12;", StandardCharsets.UTF_8);
+            Assert.assertEquals("3", fileHashCache.get(file, "test", loader));
+            Assert.assertEquals(1, fileHashCache.getHits());
+            Assert.assertEquals(3, fileHashCache.getMisses());
+
+            DependencyInfoFactory factory = new DependencyInfoFactory(null, false, false, true, fileHashCache);
+            DependencyInfo first = factory.createDependencyInfo(folder, file.getName());
+            DependencyInfo second = factory.createDependencyInfo(folder, file.getName());
+            DependencyInfo expected = new DependencyInfoFactory(null, false, false, true).createDependencyInfo(folder, file.getName());
+            Assert.assertNotSame(first, second);
+            Assert.assertEquals(expected.getSha1(), second.getSha1());
+            Assert.assertEquals(expected.getChecksums(), second.getChecksums());
+            Assert.assertEquals(expected.getSystemPath(), second.getSystemPath());
+            Assert.assertEquals(2, fileHashCache.getHits());
+        } finally {
+            FileUtils.deleteQuietly(folder);
+        }
+    }
+
+    @Test
+    public void shouldDropLeastRecentlyUsedFiles() throws IOException {
+        File folder = Files.createTempDirectory("FileHashCacheTest").toFile();
+        try {
+            FileHashCache fileHashCache = new FileHashCache(2);
+            for (int i = 0; i < 3; i++) {
+                File file = new File(folder, i + ".txt");
+                FileUtils.write(file, String.valueOf(i), StandardCharsets.UTF_8);
+                fileHashCache.get(file, "test", File::getName);
+            }
+            Assert.assertEquals(2, fileHashCache.size());
+        } finally {
+            FileUtils.deleteQuietly(folder);
+        }
+    }
+}
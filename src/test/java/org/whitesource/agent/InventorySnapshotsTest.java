@@ -0,0 +1,89 @@
+package org.whitesource.agent;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.whitesource.agent.api.dispatch.UpdateType;
+import org.whitesource.agent.api.model.AgentProjectInfo;
+import org.whitesource.agent.api.model.Coordinates;
+import org.whitesource.agent.api.model.DependencyInfo;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class InventorySnapshotsTest {
+
+    private File snapshotsFolder;
+
+    @Before
+    public void setUp() throws Exception {
+        snapshotsFolder = Files.createTempDirectory("inventory-snapshots").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(snapshotsFolder);
+    }
+
+    @Test
+    public void shouldSendOnlyChangesSinceLastUpdate() throws Exception {
+        InventorySnapshots snapshots = new InventorySnapshots(snapshotsFolder.getPath(), "product");
+        AgentProjectInfo unchanged = project("unchanged", dependency("a.jar", "1"), dependency("b.jar", "2"));
+        AgentProjectInfo changed = project("changed", dependency("c.jar", "3"), dependency("d.jar", "4"));
+        List<AgentProjectInfo> projects = Arrays.asList(unchanged, changed);
+        // no snapshots yet
+        Assert.assertEquals(projects, new ArrayList<>(snapshots.getChangedProjects(projects, UpdateType.OVERRIDE)));
+        snapshots.save(projects);
+
+        DependencyInfo modified = dependency("d.jar", "4");
+        modified.setSha1("other-sha1");
+        changed.setDependencies(Arrays.asList(dependency("c.jar", "3"), modified, dependency("e.jar", "5")));
+        // a newer modification time doesn't change a dependency
+        unchanged.getDependencies().forEach(dependency -> dependency.setLastModified(new Date()));
+
+        Collection<AgentProjectInfo> changedProjects = snapshots.getChangedProjects(projects, UpdateType.OVERRIDE);
+        Assert.assertEquals(Collections.singletonList(changed), new ArrayList<>(changedProjects));
+
+        changedProjects = snapshots.getChangedProjects(projects, UpdateType.APPEND);
+        Assert.assertEquals(1, changedProjects.size());
+        AgentProjectInfo delta = changedProjects.iterator().next();
+        Assert.assertEquals("changed", delta.getCoordinates().getArtifactId());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("d.jar", "e.jar")),
+                delta.getDependencies().stream().map(DependencyInfo::getArtifactId).collect(Collectors.toSet()));
+
+        snapshots.save(projects);
+        Assert.assertTrue(snapshots.getChangedProjects(projects, UpdateType.APPEND).isEmpty());
+        // snapshots of another product are not used
+        Assert.assertEquals(2, new InventorySnapshots(snapshotsFolder.getPath(), "other product").getChangedProjects(projects, UpdateType.APPEND).size());
+    }
+
+    @Test
+    public void shouldSendFullProjectWhenSnapshotIsInconsistent() throws Exception {
+        InventorySnapshots snapshots = new InventorySnapshots(snapshotsFolder.getPath(), "product");
+        List<AgentProjectInfo> projects = Collections.singletonList(project("project", dependency("a.jar", "1")));
+        snapshots.save(projects);
+        for (File snapshotFile : snapshotsFolder.listFiles()) {
+            String snapshot = new String(Files.readAllBytes(snapshotFile.toPath()), StandardCharsets.UTF_8);
+            Files.write(snapshotFile.toPath(), snapshot.replace("\"checksum\":\"", "\"checksum\":\"0").getBytes(StandardCharsets.UTF_8));
+        }
+        Assert.assertEquals(projects, new ArrayList<>(snapshots.getChangedProjects(projects, UpdateType.APPEND)));
+    }
+
+    private AgentProjectInfo project(String name, DependencyInfo... dependencies) {
+        AgentProjectInfo project = new AgentProjectInfo();
+        project.setCoordinates(new Coordinates(null, name, "1.0"));
+        project.setDependencies(new ArrayList<>(Arrays.asList(dependencies)));
+        return project;
+    }
+
+    private DependencyInfo dependency(String name, String sha1) {
+        DependencyInfo dependency = new DependencyInfo(null, name, null);
+        dependency.setSha1(sha1);
+        return dependency;
+    }
+}
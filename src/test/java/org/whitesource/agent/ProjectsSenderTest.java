@@ -0,0 +1,184 @@
+package org.whitesource.agent;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+import org.whitesource.agent.api.dispatch.CheckPolicyComplianceResult;
+import org.whitesource.agent.api.dispatch.UpdateInventoryResult;
+import org.whitesource.agent.api.dispatch.UpdateType;
+import org.whitesource.agent.api.model.AgentProjectInfo;
+import org.whitesource.agent.api.model.Coordinates;
+import org.whitesource.agent.api.model.DependencyInfo;
+import org.whitesource.agent.api.model.PolicyCheckResourceNode;
+import org.whitesource.agent.api.model.RequestPolicyInfo;
+import org.whitesource.agent.api.model.ResourceInfo;
+import org.whitesource.agent.client.WhitesourceService;
+import org.whitesource.agent.client.WssServiceException;
+import org.whitesource.fs.FSAConfigProperties;
+import org.whitesource.fs.FSAConfiguration;
+import org.whitesource.fs.FileSystemAgentInfo;
+import org.whitesource.fs.ProjectsDetails;
+import org.whitesource.fs.StatusCode;
+import org.whitesource.agent.utils.Pair;
+
+import java.io.File;
+import java.net.ConnectException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ProjectsSenderTest {
+
+    private static final int MAX_DEPENDENCIES = 10;
+    private static final String VIOLATING_PROJECT = "violating";
+    private static final String REJECT = "Reject";
+
+    @Test(timeout = 30000)
+    public void shouldSendLargeInventoryInChunksAndRetryFailedChunk() {
+        List<AgentProjectInfo> projects = Arrays.asList(project("small1", 4), project("small2", 5), project("small3", 3), project("large", 25));
+        FSAConfigProperties properties = new FSAConfigProperties();
+        properties.setProperty(ConfigPropertyKeys.UPDATE_REQUEST_MAX_DEPENDENCIES, String.valueOf(MAX_DEPENDENCIES));
+        properties.setProperty(ConfigPropertyKeys.UPDATE_REQUEST_PARALLELISM, "3");
+        properties.setProperty(ConfigPropertyKeys.CONNECTION_RETRIES_INTERVALS, "10");
+        FSAConfiguration config = new FSAConfiguration(properties, new String[]{"-d", "."});
+        StandInService service = new StandInService(true);
+        Pair<String, StatusCode> result = send(config, service, projects);
+
+        Assert.assertEquals(StatusCode.SUCCESS, result.getValue());
+        // small1 + small2, small3, large 1/3 and then large 2/3, large 3/3 appended
+        Assert.assertEquals(5, service.requests.size());
+        for (List<AgentProjectInfo> request : service.requests) {
+            Assert.assertTrue(request.stream().mapToInt(project -> project.getDependencies().size()).sum() <= MAX_DEPENDENCIES);
+        }
+        Map<String, Integer> sentDependencies = new HashMap<>();
+        for (List<AgentProjectInfo> request : service.requests) {
+            for (AgentProjectInfo project : request) {
+                sentDependencies.merge(project.getCoordinates().getArtifactId(), project.getDependencies().size(), Integer::sum);
+            }
+        }
+        Assert.assertEquals(Integer.valueOf(25), sentDependencies.get("large"));
+        Assert.assertEquals(9, sentDependencies.get("small1") + sentDependencies.get("small2"));
+        // the failed request was sent again
+        Assert.assertEquals(1, service.failures);
+        Assert.assertTrue(result.getKey().contains("large"));
+    }
+
+    @Test(timeout = 30000)
+    public void shouldCheckPoliciesAndUpdateEachProjectConcurrently() throws Exception {
+        List<AgentProjectInfo> projects = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            projects.add(project("project" + i, 3));
+        }
+        projects.add(project(VIOLATING_PROJECT, 3));
+        File outputFolder = Files.createTempDirectory("policies-report").toFile();
+        try {
+            FSAConfigProperties properties = new FSAConfigProperties();
+            properties.setProperty(ConfigPropertyKeys.CHECK_POLICIES_PROPERTY_KEY, "true");
+            properties.setProperty(ConfigPropertyKeys.CHECK_POLICIES_PER_PROJECT, "true");
+            properties.setProperty(ConfigPropertyKeys.UPDATE_REQUEST_PARALLELISM, "2");
+            properties.setProperty(ConfigPropertyKeys.WHITESOURCE_FOLDER_PATH, outputFolder.getPath());
+            FSAConfiguration config = new FSAConfiguration(properties, new String[]{"-d", "."});
+            StandInService service = new StandInService(false);
+            Pair<String, StatusCode> result = send(config, service, projects);
+
+            Assert.assertEquals(StatusCode.POLICY_VIOLATION, result.getValue());
+            Assert.assertEquals(projects.size(), service.policyChecks.get());
+            Set<String> updatedProjects = new HashSet<>();
+            service.requests.forEach(request -> request.forEach(project -> updatedProjects.add(project.getCoordinates().getArtifactId())));
+            Assert.assertEquals(5, updatedProjects.size());
+            Assert.assertFalse(updatedProjects.contains(VIOLATING_PROJECT));
+            Assert.assertTrue(service.maxInFlight.get() <= 2);
+        } finally {
+            FileUtils.deleteQuietly(outputFolder);
+        }
+    }
+
+    private Pair<String, StatusCode> send(FSAConfiguration config, StandInService service, List<AgentProjectInfo> projects) {
+        ProjectsSender projectsSender = new ProjectsSender(config.getSender(), config.getOffline(), config.getRequest(), new FileSystemAgentInfo()) {
+            @Override
+            protected WhitesourceService createService() {
+                return service;
+            }
+        };
+        return projectsSender.sendRequest(new ProjectsDetails(projects, StatusCode.SUCCESS, Constants.EMPTY_STRING));
+    }
+
+    private AgentProjectInfo project(String name, int dependenciesCount) {
+        AgentProjectInfo project = new AgentProjectInfo();
+        project.setCoordinates(new Coordinates(null, name, null));
+        List<DependencyInfo> dependencies = new ArrayList<>();
+        for (int i = 0; i < dependenciesCount; i++) {
+            dependencies.add(new DependencyInfo(null, name + "-dependency-" + i + ".jar", null));
+        }
+        project.setDependencies(dependencies);
+        return project;
+    }
+
+    /**
+     * Stands in for the server, rejects the policies of the violating project and optionally fails the first update on a connection error.
+     */
+    private static class StandInService extends WhitesourceService {
+
+        private final List<List<AgentProjectInfo>> requests = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicBoolean failed;
+        private final AtomicInteger policyChecks = new AtomicInteger(0);
+        private final AtomicInteger inFlight = new AtomicInteger(0);
+        private final AtomicInteger maxInFlight = new AtomicInteger(0);
+        private volatile int failures = 0;
+
+        private StandInService(boolean failFirstUpdate) {
+            super("fs-agent", "1.0", "1.0", "http://localhost/agent", false, 1, false);
+            failed = new AtomicBoolean(!failFirstUpdate);
+        }
+
+        @Override
+        public CheckPolicyComplianceResult checkPolicyCompliance(String orgToken, String product, String productVersion,
+                                                                 Collection<AgentProjectInfo> projectInfos, boolean forceCheckAllDependencies,
+                                                                 String userKey, String requesterEmail, String logData, String productToken) {
+            request();
+            policyChecks.incrementAndGet();
+            CheckPolicyComplianceResult result = new CheckPolicyComplianceResult("test-organization");
+            for (AgentProjectInfo project : projectInfos) {
+                String projectName = project.getCoordinates().getArtifactId();
+                RequestPolicyInfo policy = new RequestPolicyInfo(projectName);
+                policy.setActionType(VIOLATING_PROJECT.equals(projectName) ? REJECT : "Approve");
+                result.getExistingProjects().put(projectName, new PolicyCheckResourceNode(new ResourceInfo(), policy));
+            }
+            inFlight.decrementAndGet();
+            return result;
+        }
+
+        private void request() {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public UpdateInventoryResult update(String orgToken, String requesterEmail, UpdateType updateType, String product, String productVersion,
+                                            Collection<AgentProjectInfo> projectInfos, String userKey, String logData, String scanComment,
+                                            String productToken) throws WssServiceException {
+            if (failed.compareAndSet(false, true)) {
+                failures++;
+                throw new WssServiceException(new ConnectException("Connection refused"));
+            }
+            request();
+            inFlight.decrementAndGet();
+            List<AgentProjectInfo> request = new ArrayList<>(projectInfos);
+            requests.add(request);
+            UpdateInventoryResult result = new UpdateInventoryResult("test-organization");
+            Collection<String> projectNames = new ArrayList<>();
+            request.forEach(project -> projectNames.add(project.getCoordinates().getArtifactId()));
+            if (updateType == UpdateType.APPEND) {
+                result.setUpdatedProjects(projectNames);
+            } else {
+                result.setCreatedProjects(projectNames);
+            }
+            return result;
+        }
+    }
+}
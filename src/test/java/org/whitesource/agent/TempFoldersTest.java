@@ -0,0 +1,30 @@
+package org.whitesource.agent;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+
+public class TempFoldersTest {
+
+    @Test
+    public void shouldKeepTempFoldersOfEachScanApart() {
+        TempFolders firstScan = new TempFolders();
+        TempFolders secondScan = new TempFolders();
+        try {
+            String firstFolder = firstScan.createTempFolder(false, TempFolders.WHITESOURCE_HTML_RESOLVER);
+            String secondFolder = secondScan.createTempFolder(false, TempFolders.WHITESOURCE_HTML_RESOLVER);
+            Assert.assertNotEquals(firstFolder, secondFolder);
+            Assert.assertTrue(firstFolder.startsWith(firstScan.getTempRoot()));
+            Assert.assertTrue(new File(secondFolder).isDirectory());
+
+            firstScan.deleteTempFolders();
+            Assert.assertFalse(new File(firstScan.getTempRoot()).exists());
+            // deleting the folders of one scan doesn't touch the other scan
+            Assert.assertTrue(new File(secondFolder).isDirectory());
+        } finally {
+            firstScan.deleteTempFolders();
+            secondScan.deleteTempFolders();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.whitesource.agent.dependency.resolver.docker;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.junit.Assert;
+import org.junit.Test;
+import org.whitesource.agent.api.model.DependencyInfo;
+import org.whitesource.fs.FSAConfigProperties;
+import org.whitesource.fs.FSAConfiguration;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DockerImageStreamScannerTest {
+
+    private static final String DPKG_AVAILABLE = "Package: bash\nVersion: 4.4-5\nArchitecture: amd64\n\n";
+
+    @Test
+    public void shouldScanLayersWithoutExtraction() throws IOException {
+        Map<String, byte[]> baseLayer = new LinkedHashMap<>();
+        baseLayer.put("var/lib/dpkg/available", DPKG_AVAILABLE.getBytes(StandardCharsets.UTF_8));
+        baseLayer.put("usr/share/java/app.jar", "jar content".getBytes(StandardCharsets.UTF_8));
+        baseLayer.put("usr/share/doc/readme.txt", "not included".getBytes(StandardCharsets.UTF_8));
+        Map<String, byte[]> topLayer = new LinkedHashMap<>();
+        topLayer.put("opt/app/lib.jar", "another jar".getBytes(StandardCharsets.UTF_8));
+
+        Map<String, byte[]> image = new LinkedHashMap<>();
+        // the manifest lists the layers from the base layer, regardless of their order in the stream
+        image.put("top/layer.tar", tar(topLayer));
+        image.put("base/layer.tar", tar(baseLayer));
+        image.put("manifest.json", "[{\"Config\":\"config.json\",\"Layers\":[\"base/layer.tar\",\"top/layer.tar\"]}]".getBytes(StandardCharsets.UTF_8));
+
+        FSAConfigProperties properties = new FSAConfigProperties();
+        properties.setProperty("includes", "**/*.jar");
+        DockerImageStreamScanner scanner = new DockerImageStreamScanner(new FSAConfiguration(properties).getAgent(), new DockerLayerCache(null, ""));
+        List<DockerLayerScanResult> layers = scanner.scan(new ByteArrayInputStream(tar(image)));
+
+        Assert.assertEquals(2, layers.size());
+        DockerLayerScanResult base = layers.get(0);
+        Assert.assertEquals("bash_4.4-5_amd64.deb", base.getPackages().get("var/lib/dpkg/available").iterator().next().getArtifactId());
+        Assert.assertEquals(1, base.getFiles().size());
+        DependencyInfo jar = base.getFiles().get("usr/share/java/app.jar").iterator().next();
+        // sha1 of 'jar content'
+        Assert.assertEquals("98e8c388609d8eb82fa1fe3ab08dfe892c4f4c95", jar.getSha1());
+        Assert.assertEquals("/usr/share/java/app.jar", jar.getSystemPath());
+        Assert.assertTrue(layers.get(1).getFiles().containsKey("opt/app/lib.jar"));
+        Assert.assertTrue(base.getDiffId().startsWith("sha256:"));
+    }
+
+    private byte[] tar(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tarStream = new TarArchiveOutputStream(outputStream)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                TarArchiveEntry tarEntry = new TarArchiveEntry(entry.getKey());
+                tarEntry.setSize(entry.getValue().length);
+                tarStream.putArchiveEntry(tarEntry);
+                tarStream.write(entry.getValue());
+                tarStream.closeArchiveEntry();
+            }
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,54 @@
+package org.whitesource.agent.dependency.resolver.docker;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.whitesource.agent.api.model.DependencyInfo;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Collections;
+
+public class DockerLayerCacheTest {
+
+    private static final String DIFF_ID = "sha256:4fc242d58285699eca05db3cc7c7122a2b8e014d9481f323bd9277baacfa0628";
+    private static final String SCAN_CONFIGURATION = "includes=**/*.jar";
+
+    private File cacheFolder;
+
+    @Before
+    public void setUp() throws Exception {
+        cacheFolder = Files.createTempDirectory("docker-layers-cache").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(cacheFolder);
+    }
+
+    @Test
+    public void shouldReadLayersCachedByPreviousRun() {
+        DockerLayerScanResult layerResult = new DockerLayerScanResult(DIFF_ID);
+        DependencyInfo jar = new DependencyInfo(null, "commons-io-2.5.jar", null);
+        jar.setSha1("2852e6e05fbb95076fc091f6d1780f1f8fe35e0f");
+        layerResult.addFileDependency("usr/share/java/commons-io-2.5.jar", jar);
+        layerResult.addPackages("var/lib/dpkg/available", Collections.singletonList(new DependencyInfo(null, "bash_4.4_amd64.deb", "4.4")));
+        new DockerLayerCache(cacheFolder.getPath(), SCAN_CONFIGURATION).put(layerResult);
+
+        DockerLayerScanResult cachedResult = new DockerLayerCache(cacheFolder.getPath(), SCAN_CONFIGURATION).get(DIFF_ID);
+        Assert.assertNotNull(cachedResult);
+        Assert.assertEquals("2852e6e05fbb95076fc091f6d1780f1f8fe35e0f",
+                cachedResult.getFiles().get("usr/share/java/commons-io-2.5.jar").iterator().next().getSha1());
+        Assert.assertEquals("bash_4.4_amd64.deb", cachedResult.getPackages().get("var/lib/dpkg/available").iterator().next().getArtifactId());
+    }
+
+    @Test
+    public void shouldNotReuseLayersScannedWithAnotherConfiguration() {
+        new DockerLayerCache(cacheFolder.getPath(), SCAN_CONFIGURATION).put(new DockerLayerScanResult(DIFF_ID));
+
+        Assert.assertNull(new DockerLayerCache(cacheFolder.getPath(), "includes=**/*.dll").get(DIFF_ID));
+        Assert.assertNull(new DockerLayerCache(null, SCAN_CONFIGURATION).get(DIFF_ID));
+    }
+}
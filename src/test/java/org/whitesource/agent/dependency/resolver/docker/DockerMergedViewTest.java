@@ -0,0 +1,58 @@
+package org.whitesource.agent.dependency.resolver.docker;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.whitesource.agent.api.model.DependencyInfo;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class DockerMergedViewTest {
+
+    @Test
+    public void shouldComposeOnlyFilesVisibleInTheImage() {
+        DockerLayerScanResult baseLayer = new DockerLayerScanResult("sha256:base");
+        baseLayer.addFileDependency("usr/lib/removed.jar", dependency("removed.jar", "1"));
+        baseLayer.addFileDependency("usr/lib/replaced.jar", dependency("replaced.jar", "2"));
+        baseLayer.addFileDependency("opt/build/tool.jar", dependency("tool.jar", "3"));
+        baseLayer.addFileDependency("srv/app/old.jar", dependency("old.jar", "4"));
+        DockerLayerScanResult topLayer = new DockerLayerScanResult("sha256:top");
+        topLayer.getWhiteouts().addAll(Arrays.asList("usr/lib/removed.jar", "opt/build"));
+        topLayer.getOpaqueFolders().add("srv/app");
+        topLayer.addFileDependency("usr/lib/replaced.jar", dependency("replaced.jar", "5"));
+        topLayer.addFileDependency("srv/app/new.jar", dependency("new.jar", "6"));
+
+        Collection<DependencyInfo> dependencies = DockerMergedView.compose(Arrays.asList(baseLayer, topLayer));
+
+        Set<String> sha1s = dependencies.stream().map(DependencyInfo::getSha1).collect(Collectors.toSet());
+        Assert.assertEquals(2, sha1s.size());
+        Assert.assertTrue(sha1s.contains("5"));
+        Assert.assertTrue(sha1s.contains("6"));
+    }
+
+    @Test
+    public void shouldHideFilesOfLowerLayers() {
+        DockerLayerFiles upperLayer = new DockerLayerFiles();
+        upperLayer.addEntry("usr/lib/replaced.jar", false);
+        upperLayer.addEntry("usr/lib/.wh.removed.jar", false);
+        upperLayer.addEntry("opt/.wh.build", false);
+        upperLayer.addEntry("srv/app/.wh..wh..opq", false);
+        DockerMergedView mergedView = new DockerMergedView();
+        mergedView.addUpperLayer(upperLayer);
+
+        Assert.assertTrue(mergedView.isHidden("usr/lib/replaced.jar"));
+        Assert.assertTrue(mergedView.isHidden("usr/lib/removed.jar"));
+        Assert.assertTrue(mergedView.isHidden("opt/build/lib/tool.jar"));
+        Assert.assertTrue(mergedView.isHidden("srv/app/old.jar"));
+        Assert.assertFalse(mergedView.isHidden("usr/lib/kept.jar"));
+        Assert.assertFalse(mergedView.isHidden("opt/buildkit.jar"));
+    }
+
+    private DependencyInfo dependency(String artifactId, String sha1) {
+        DependencyInfo dependencyInfo = new DependencyInfo(sha1);
+        dependencyInfo.setArtifactId(artifactId);
+        return dependencyInfo;
+    }
+}
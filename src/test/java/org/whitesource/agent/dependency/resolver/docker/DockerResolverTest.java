@@ -0,0 +1,114 @@
+package org.whitesource.agent.dependency.resolver.docker;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.whitesource.agent.api.model.AgentProjectInfo;
+import org.whitesource.agent.api.model.DependencyInfo;
+import org.whitesource.fs.FSAConfigProperties;
+import org.whitesource.fs.FSAConfiguration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class DockerResolverTest {
+
+    private static final int IMAGES_COUNT = 3;
+    private static final int JAR_SIZE = 700 * 1024;
+
+    private File imagesFolder;
+
+    @Before
+    public void setUp() throws Exception {
+        imagesFolder = Files.createTempDirectory("docker-images").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(imagesFolder);
+    }
+
+    @Test
+    public void shouldScanSavedImagesConcurrentlyWithinDiskBudget() throws IOException {
+        // images saved by 'docker save', named 'id repository (tag).tar' like the agent expects
+        for (int i = 0; i < IMAGES_COUNT; i++) {
+            byte[] jar = new byte[JAR_SIZE];
+            new Random(i).nextBytes(jar);
+            Map<String, byte[]> layer = new LinkedHashMap<>();
+            layer.put("var/lib/dpkg/available", "Package: bash\nVersion: 4.4-5\nArchitecture: amd64\n\n".getBytes(StandardCharsets.UTF_8));
+            layer.put("opt/app/app" + i + ".jar", jar);
+            Map<String, byte[]> image = new LinkedHashMap<>();
+            image.put("manifest.json", "[{\"Config\":\"config.json\",\"Layers\":[\"layer/layer.tar\"]}]".getBytes(StandardCharsets.UTF_8));
+            image.put("config.json", ("{\"rootfs\":{\"diff_ids\":[\"sha256:layer" + i + "\"]}}").getBytes(StandardCharsets.UTF_8));
+            image.put("layer/layer.tar", tar(layer));
+            Files.write(new File(imagesFolder, "id" + i + " repository" + i + " (latest).tar").toPath(), tar(image));
+        }
+
+        FSAConfigProperties properties = new FSAConfigProperties();
+        properties.setProperty("docker.scanImages", "true");
+        properties.setProperty("docker.tarImages", "true");
+        properties.setProperty("docker.deleteTar", "false");
+        properties.setProperty("docker.scan.parallelism", String.valueOf(IMAGES_COUNT));
+        // each image needs more than half of the budget, so only one image is extracted at a time
+        properties.setProperty("docker.scan.diskBudgetMB", "1");
+        properties.setProperty("includes", "**/*.jar");
+        FSAConfiguration config = new FSAConfiguration(properties, new String[]{"-d", imagesFolder.getPath()});
+        Collection<AgentProjectInfo> projects = new DockerResolver(config).resolveDockerImages();
+        try {
+            Assert.assertEquals(IMAGES_COUNT, projects.size());
+            for (AgentProjectInfo project : projects) {
+                String artifactId = project.getCoordinates().getArtifactId();
+                String imageIndex = artifactId.substring(artifactId.indexOf("repository") + "repository".length(), artifactId.indexOf(" ("));
+                Set<String> dependencies = project.getDependencies().stream().map(DependencyInfo::getArtifactId).collect(Collectors.toSet());
+                Assert.assertEquals(new HashSet<>(Arrays.asList("bash_4.4-5_amd64.deb", "app" + imageIndex + ".jar")), dependencies);
+            }
+        } finally {
+            projects.clear();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldWaitForDiskSpaceOfOtherImages() throws Exception {
+        DockerDiskBudget diskBudget = new DockerDiskBudget(100);
+        long reserved = diskBudget.acquire(60);
+        Thread otherImage = new Thread(() -> {
+            try {
+                diskBudget.release(diskBudget.acquire(60));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        otherImage.start();
+        otherImage.join(200);
+        Assert.assertTrue(otherImage.isAlive());
+
+        diskBudget.release(reserved);
+        otherImage.join();
+        Assert.assertEquals(0, diskBudget.getUsedBytes());
+        // an image larger than the budget takes all of it
+        Assert.assertEquals(100, diskBudget.acquire(Long.MAX_VALUE));
+    }
+
+    private byte[] tar(Map<String, byte[]> entries) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (TarArchiveOutputStream tarStream = new TarArchiveOutputStream(outputStream)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                TarArchiveEntry tarEntry = new TarArchiveEntry(entry.getKey());
+                tarEntry.setSize(entry.getValue().length);
+                tarStream.putArchiveEntry(tarEntry);
+                tarStream.write(entry.getValue());
+                tarStream.closeArchiveEntry();
+            }
+        }
+        return outputStream.toByteArray();
+    }
+}
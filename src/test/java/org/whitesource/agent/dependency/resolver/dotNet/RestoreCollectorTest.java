@@ -0,0 +1,97 @@
+package org.whitesource.agent.dependency.resolver.dotNet;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.whitesource.agent.api.model.AgentProjectInfo;
+import org.whitesource.agent.api.model.DependencyInfo;
+import org.whitesource.agent.dependency.resolver.DependencyCollector;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class RestoreCollectorTest {
+
+    private static final String BROKEN = "broken";
+    private static final String SHARED = "shared";
+
+    private File folder;
+
+    @Before
+    public void setUp() throws IOException {
+        // the stubbed restore command is a shell script
+        Assume.assumeFalse(DependencyCollector.isWindows());
+        folder = Files.createTempDirectory("RestoreCollectorTest").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(folder);
+    }
+
+    @Test
+    public void shouldRestoreEveryProjectWhenOneRestoreFails() {
+        Set<String> projectFiles = new LinkedHashSet<>();
+        for (int i = 0; i < 8; i++) {
+            projectFiles.add(new File(folder, (i == 3 ? BROKEN : "project" + i) + ".csproj").getAbsolutePath());
+        }
+        RestoreCollector restoreCollector = new StubRestoreCollector(new File(folder, "restore").getAbsolutePath(), 4);
+        restoreCollector.executeRestore(folder.getAbsolutePath(), projectFiles);
+
+        Collection<AgentProjectInfo> projects = restoreCollector.collectDependencies(folder.getAbsolutePath());
+        Assert.assertEquals(1, projects.size());
+        Map<String, List<String>> packageToProjects = new TreeMap<>();
+        for (DependencyInfo dependency : projects.iterator().next().getDependencies()) {
+            packageToProjects.computeIfAbsent(dependency.getArtifactId(), key -> new ArrayList<>()).add(new File(dependency.getSystemPath()).getName());
+        }
+        packageToProjects.values().forEach(Collections::sort);
+
+        // the shared package is attributed to every restored project, the failed one restored nothing
+        List<String> restoredProjects = projectFiles.stream().map(file -> new File(file).getName())
+                .filter(name -> !name.startsWith(BROKEN)).sorted().collect(Collectors.toList());
+        Assert.assertEquals(restoredProjects, packageToProjects.remove(SHARED + ".1.0.nupkg"));
+        Assert.assertEquals(restoredProjects.size(), packageToProjects.size());
+        for (String project : restoredProjects) {
+            String name = project.substring(0, project.indexOf('.'));
+            Assert.assertEquals(Collections.singletonList(project), packageToProjects.get(name + ".1.0.nupkg"));
+        }
+    }
+
+    // restores the package of the project and the shared package, the broken project fails to restore
+    private static class StubRestoreCollector extends RestoreCollector {
+
+        StubRestoreCollector(String tempDirectory, int restoreParallelism) {
+            super(tempDirectory, "stub", restoreParallelism);
+        }
+
+        @Override
+        protected String[] getInstallParams(String pathToDownloadPackages, String csprojFile) {
+            String name = getName(csprojFile);
+            if (name.equals(BROKEN)) {
+                return new String[]{"sh", "-c", "exit 1"};
+            }
+            return new String[]{"sh", "-c", getWritePackage(pathToDownloadPackages, SHARED) + " && " + getWritePackage(pathToDownloadPackages, name)};
+        }
+
+        @Override
+        protected Collection<String> getRestoredPackages(String projectFile) {
+            return Arrays.asList(SHARED + "/1.0", getName(projectFile) + "/1.0");
+        }
+
+        private String getName(String projectFile) {
+            String fileName = new File(projectFile).getName();
+            return fileName.substring(0, fileName.indexOf('.'));
+        }
+
+        private String getWritePackage(String packagesDirectory, String name) {
+            String packageFolder = packagesDirectory + "/" + name + "/1.0";
+            return "mkdir -p '" + packageFolder + "' && echo " + name + " > '" + packageFolder + "/" + name + ".1.0.nupkg'";
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.whitesource.agent.dependency.resolver.packageManger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.whitesource.agent.api.model.AgentProjectInfo;
+import org.whitesource.agent.api.model.DependencyInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class PackageManagerExtractorTest {
+
+    private static final String DPKG_STATUS = "Package: bash\n" +
+            "Status: install ok installed\n" +
+            "Version: 4.4-5\n" +
+            "Architecture: amd64\n" +
+            "Description: GNU Bourne Again SHell\n" +
+            " Bash is an sh-compatible command language interpreter: it has extra features.\n" +
+            "\n" +
+            "Package: removed\n" +
+            "Status: deinstall ok config-files\n" +
+            "Version: 1.0\n" +
+            "Architecture: amd64\n" +
+            "\n" +
+            "Package: perl-base\n" +
+            "Status: hold ok installed\n" +
+            "Version: 1:5.24.1-3\n" +
+            "Architecture: amd64";
+    private static final String APK_INSTALLED = "C:Q1abc=\nP:musl\nV:1.1.20-r4\nA:x86_64\nT:the musl c library\n\nP:busybox\nV:1.29.3-r10\nA:x86_64\n";
+    private static final String PACMAN_DESC = "%NAME%\nzlib\n\n%VERSION%\n1:1.2.11-3\n\n%ARCH%\nx86_64\n";
+
+    private File rootFolder;
+
+    @Before
+    public void setUp() throws Exception {
+        rootFolder = Files.createTempDirectory("root-file-system").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(rootFolder);
+    }
+
+    @Test
+    public void shouldReadInstalledPackagesOfMountedFileSystem() throws IOException {
+        write(DpkgDatabaseReader.STATUS_FILE, DPKG_STATUS);
+        write(ApkDatabaseReader.INSTALLED_FILE, APK_INSTALLED);
+        write(PacmanDescReader.LOCAL_DATABASE_FOLDER + "/zlib-1:1.2.11-3/" + PacmanDescReader.DESC, PACMAN_DESC);
+
+        Collection<AgentProjectInfo> projects = new PackageManagerExtractor(rootFolder.getPath()).createProjects();
+
+        Set<String> packages = projects.stream().flatMap(project -> project.getDependencies().stream())
+                .map(DependencyInfo::getArtifactId).collect(Collectors.toSet());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("bash_4.4-5_amd64.deb", "perl-base_5.24.1-3_amd64.deb",
+                "musl-1.1.20-r4.apk", "busybox-1.29.3-r10.apk", "zlib-1:1.2.11-3-x86_64.pkg.tar.xz")), packages);
+    }
+
+    private void write(String path, String content) throws IOException {
+        File file = new File(rootFolder, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
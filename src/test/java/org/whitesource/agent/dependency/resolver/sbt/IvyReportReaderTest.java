@@ -0,0 +1,44 @@
+package org.whitesource.agent.dependency.resolver.sbt;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.whitesource.agent.dependency.resolver.npm.TestHelper;
+
+import java.io.File;
+import java.util.List;
+
+public class IvyReportReaderTest {
+
+    private static final File IVY_REPORT = TestHelper.getFileFromResources("resolver/sbt/ivy-report.xml");
+
+    @Test
+    public void shouldReadModulesRevisionsAndArtifacts() throws Exception {
+        IvyReport ivyReport = new IvyReportReader().read(IVY_REPORT);
+
+        Assert.assertEquals("default", ivyReport.getInfo().getGroupId());
+        Assert.assertEquals("sample_2.12", ivyReport.getInfo().getArtifactId());
+        Assert.assertEquals("0.1", ivyReport.getInfo().getVersion());
+
+        List<Module> modules = ivyReport.getDependencies();
+        Assert.assertEquals(2, modules.size());
+
+        Revision scalaLibrary = modules.get(0).getRevisions().get(0);
+        Assert.assertEquals("2.12.6", scalaLibrary.getVersion());
+        Assert.assertFalse(scalaLibrary.isIgnored());
+        Assert.assertEquals(1, scalaLibrary.getParentsList().size());
+        // the metadata artifact and the origin location must not be read as artifacts
+        Assert.assertEquals(1, scalaLibrary.getArtifacts().size());
+        Assert.assertTrue(scalaLibrary.getArtifacts().get(0).getPathToJar().endsWith("scala-library-2.12.6.jar"));
+
+        List<Revision> configRevisions = modules.get(1).getRevisions();
+        Assert.assertEquals(2, configRevisions.size());
+        Assert.assertTrue(configRevisions.get(1).isIgnored());
+        Assert.assertEquals("com.example", configRevisions.get(1).getParentsList().get(0).getGroupId());
+    }
+
+    @Test
+    public void shouldReadOnlyInfo() throws Exception {
+        Info info = new IvyReportReader().readInfo(IVY_REPORT);
+        Assert.assertEquals("sample_2.12", info.getArtifactId());
+    }
+}
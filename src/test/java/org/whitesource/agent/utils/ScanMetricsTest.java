@@ -0,0 +1,41 @@
+package org.whitesource.agent.utils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class ScanMetricsTest {
+
+    // the metrics are kept for the whole process, so the other tests add to them too
+    @Before
+    @After
+    public void clear() {
+        ScanMetrics.clear();
+    }
+
+    @Test
+    public void shouldExportHistogramsAndCounters() {
+        ScanMetrics.observe(ScanMetrics.RESOLVER, 0.2, "resolver", "NPM");
+        ScanMetrics.observe(ScanMetrics.RESOLVER, 20, "resolver", "NPM");
+        ScanMetrics.observe(ScanMetrics.HASHING, 2);
+        ScanMetrics.increment(ScanMetrics.HASHED_FILES, 10);
+        ScanMetrics.increment(ScanMetrics.HASHED_BYTES, 1000);
+        ScanMetrics.startTimer(ScanMetrics.EXTERNAL_PROCESS, "command", "npm").stop();
+
+        String text = ScanMetrics.getPrometheusText();
+        Assert.assertTrue(text.contains("# TYPE fsa_resolver_seconds histogram"));
+        Assert.assertTrue(text.contains("fsa_resolver_seconds_bucket{resolver=\"NPM\",le=\"0.5\"} 1"));
+        Assert.assertTrue(text.contains("fsa_resolver_seconds_bucket{resolver=\"NPM\",le=\"+Inf\"} 2"));
+        Assert.assertTrue(text.contains("fsa_resolver_seconds_count{resolver=\"NPM\"} 2"));
+        Assert.assertTrue(text.contains("fsa_hashed_files_total 10"));
+        Assert.assertTrue(text.contains("fsa_external_process_seconds_count{command=\"npm\"} 1"));
+
+        Map<String, Object> summary = ScanMetrics.getSummary();
+        Assert.assertEquals(5.0, (Double) summary.get("fsa_hashed_files_per_second"), 0.001);
+        Assert.assertEquals(500.0, (Double) summary.get("fsa_hashed_bytes_per_second"), 0.001);
+        Assert.assertFalse(summary.containsKey(ScanMetrics.UPLOAD));
+    }
+}
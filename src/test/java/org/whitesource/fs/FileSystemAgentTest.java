@@ -0,0 +1,108 @@
+package org.whitesource.fs;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.whitesource.agent.ConfigPropertyKeys;
+import org.whitesource.agent.TempFolders;
+import org.whitesource.agent.api.model.AgentProjectInfo;
+import org.whitesource.agent.api.model.DependencyInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class FileSystemAgentTest {
+
+    @Test
+    public void shouldMergeRepositoriesInTheirOrder() throws IOException, GitAPIException {
+        File folder = Files.createTempDirectory("FileSystemAgentTest").toFile();
+        try {
+            List<String> repositories = Arrays.asList("first", "second", "third", "fourth");
+            StringBuilder repositoriesJson = new StringBuilder("{\"scmRepositories\":[");
+            for (String repository : repositories) {
+                File workTree = new File(folder, repository);
+                try (Git git = Git.init().setDirectory(workTree).call()) {
+                    FileUtils.write(new File(workTree, repository + ".js"), "var " + repository + " = 1;", StandardCharsets.UTF_8);
+                    git.add().addFilepattern(".").call();
+                    git.commit().setMessage(repository).call();
+                }
+                if (repositoriesJson.charAt(repositoriesJson.length() - 1) != '[') {
+                    repositoriesJson.append(',');
+                }
+                repositoriesJson.append("{\"url\":\"").append(workTree.getAbsolutePath().replace("\\", "\\\\"))
+                        .append("\",\"branch\":\"master\",\"tag\":\"\"}");
+            }
+            File repositoriesFile = new File(folder, "repositories.json");
+            FileUtils.write(repositoriesFile, repositoriesJson.append("]}").toString(), StandardCharsets.UTF_8);
+
+            FSAConfigProperties properties = new FSAConfigProperties();
+            properties.setProperty(ConfigPropertyKeys.ORG_TOKEN_PROPERTY_KEY, "token");
+            properties.setProperty(ConfigPropertyKeys.PROJECT_NAME_PROPERTY_KEY, "project");
+            properties.setProperty(ConfigPropertyKeys.INCLUDES_PATTERN_PROPERTY_KEY, "**/*.js");
+            properties.setProperty(ConfigPropertyKeys.SCM_TYPE_PROPERTY_KEY, "git");
+            properties.setProperty(ConfigPropertyKeys.SCM_REPOSITORIES_FILE, repositoriesFile.getAbsolutePath());
+            properties.setProperty(ConfigPropertyKeys.SCM_NPM_INSTALL, "false");
+            properties.setProperty(ConfigPropertyKeys.SCM_CLONE_THREADS, "3");
+            properties.setProperty(ConfigPropertyKeys.SCM_SCAN_THREADS, "2");
+
+            ProjectsDetails projectsDetails = new FileSystemAgent(new FSAConfiguration(properties), new ArrayList<>()).createProjects();
+            Assert.assertEquals(StatusCode.SUCCESS, projectsDetails.getStatusCode());
+            Assert.assertEquals(1, projectsDetails.getProjects().size());
+            AgentProjectInfo project = projectsDetails.getProjects().iterator().next();
+            List<String> files = project.getDependencies().stream().map(DependencyInfo::getArtifactId).collect(Collectors.toList());
+            Assert.assertEquals(repositories.stream().map(repository -> repository + ".js").collect(Collectors.toList()), files);
+        } finally {
+            FileUtils.deleteQuietly(folder);
+        }
+    }
+
+    @Test
+    public void shouldScanSubFoldersAtTheSameTime() throws IOException {
+        File folder = Files.createTempDirectory("FileSystemAgentTest").toFile();
+        try {
+            // sibling projects usually have files with the same names
+            for (int i = 0; i < 6; i++) {
+                FileUtils.write(new File(folder, "project" + i + "/index.js"), "var a = " + i + ";\nvar b = a;\n", StandardCharsets.UTF_8);
+                FileUtils.write(new File(folder, "project" + i + "/package.json"), "{\n  \"name\": \"project" + i + "\"\n}\n", StandardCharsets.UTF_8);
+            }
+            List<String> sequential = getSubFolderProjects(folder, 1);
+            Assert.assertEquals(12, sequential.size());
+            Assert.assertTrue(sequential.contains("project0:index.js,package.json"));
+            // the same projects, handed to the listener in the same order
+            Assert.assertEquals(sequential, getSubFolderProjects(folder, 4));
+        } finally {
+            FileUtils.deleteQuietly(folder);
+        }
+    }
+
+    private List<String> getSubFolderProjects(File folder, int parallelism) {
+        FSAConfigProperties properties = new FSAConfigProperties();
+        properties.setProperty(ConfigPropertyKeys.ORG_TOKEN_PROPERTY_KEY, "token");
+        properties.setProperty(ConfigPropertyKeys.PROJECT_NAME_PROPERTY_KEY, "project");
+        properties.setProperty(ConfigPropertyKeys.INCLUDES_PATTERN_PROPERTY_KEY, "**/*.js **/*.json");
+        properties.setProperty(ConfigPropertyKeys.RESOLVE_ALL_DEPENDENCIES, "false");
+        properties.setProperty(ConfigPropertyKeys.PROJECT_PER_SUBFOLDER, "true");
+        properties.setProperty(ConfigPropertyKeys.PROJECT_PER_FOLDER_PARALLELISM, String.valueOf(parallelism));
+
+        List<String> listenedProjects = new ArrayList<>();
+        ProjectsDetails projectsDetails = new FileSystemAgent(new FSAConfiguration(properties), Collections.singletonList(folder.getAbsolutePath()),
+                new TempFolders(), null, project -> listenedProjects.add(project.getCoordinates().getArtifactId())).createProjects();
+        Assert.assertEquals(StatusCode.SUCCESS, projectsDetails.getStatusCode());
+        List<String> projects = projectsDetails.getProjects().stream()
+                .map(project -> project.getCoordinates().getArtifactId() + ":" + project.getDependencies().stream()
+                        .map(DependencyInfo::getArtifactId).sorted().collect(Collectors.joining(",")))
+                .sorted()
+                .collect(Collectors.toList());
+        listenedProjects.addAll(projects);
+        return listenedProjects;
+    }
+}
@@ -0,0 +1,103 @@
+package org.whitesource.fs;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.Assert;
+import org.junit.Test;
+import org.whitesource.agent.Constants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+public class LogMapAppenderTest {
+
+    @Test
+    public void shouldKeepLatestEventsByLevel() {
+        LogMapAppender appender = new LogMapAppender();
+        appender.setCapacity(3);
+        appender.setDebugCapacity(2);
+        appender.start();
+
+        Logger logger = new LoggerContext().getLogger(LogMapAppenderTest.class);
+        for (int i = 0; i < 10; i++) {
+            appender.doAppend(new LoggingEvent(null, logger, Level.DEBUG, "debug " + i, null, null));
+        }
+        appender.doAppend(new LoggingEvent(null, logger, Level.INFO, "info 0", null, null));
+        appender.doAppend(new LoggingEvent(null, logger, Level.DEBUG, "debug 10", null, null));
+        appender.doAppend(new LoggingEvent(null, logger, Level.WARN, "warn 0", null, null));
+        appender.doAppend(new LoggingEvent(null, logger, Level.ERROR, "error 0", null, null));
+        appender.doAppend(new LoggingEvent(null, logger, Level.INFO, "info 1", null, null));
+
+        List<String> messages = appender.getLogEvents().stream().map(ILoggingEvent::getMessage).collect(Collectors.toList());
+        // the debug events don't push out the more important ones
+        Assert.assertEquals(Arrays.asList("debug 9", "debug 10", "warn 0", "error 0", "info 1"), messages);
+    }
+
+    @Test
+    public void shouldKeepEventsOfConcurrentThreads() throws InterruptedException {
+        LogMapAppender appender = new LogMapAppender();
+        appender.setCapacity(50000);
+        appender.start();
+
+        Logger logger = new LoggerContext().getLogger(LogMapAppenderTest.class);
+        int threadsCount = 8;
+        int threadEvents = 5000;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadsCount; t++) {
+            String thread = "thread " + t;
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < threadEvents; i++) {
+                    appender.doAppend(new LoggingEvent(null, logger, Level.INFO, thread + " " + i, null, null));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<String> messages = appender.getLogEvents().stream().map(ILoggingEvent::getMessage).collect(Collectors.toList());
+        // fewer events than the capacity, none is lost
+        Assert.assertEquals(threadsCount * threadEvents, messages.size());
+        Assert.assertEquals(threadsCount * threadEvents, new HashSet<>(messages).size());
+        // the events of each thread keep their order
+        for (int t = 0; t < threadsCount; t++) {
+            String thread = "thread " + t + " ";
+            List<String> threadMessages = messages.stream().filter(message -> message.startsWith(thread)).collect(Collectors.toList());
+            for (int i = 0; i < threadEvents; i++) {
+                Assert.assertEquals(thread + i, threadMessages.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void shouldPrintCollectedEventsOfTheRootLevel() {
+        LoggerContext loggerContext = new LoggerContext();
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+        LogMapConsoleFilter filter = new LogMapConsoleFilter();
+        filter.setContext(loggerContext);
+        filter.start();
+
+        Logger collectedLogger = loggerContext.getLogger(Constants.MAP_LOG_NAME + ".fs.Main");
+        Logger otherLogger = loggerContext.getLogger("com.wss.Other");
+        Assert.assertEquals(FilterReply.DENY, filter.decide(new LoggingEvent(null, collectedLogger, Level.DEBUG, "debug", null, null)));
+        Assert.assertEquals(FilterReply.NEUTRAL, filter.decide(new LoggingEvent(null, collectedLogger, Level.INFO, "info", null, null)));
+        // the levels of other loggers are their own
+        Assert.assertEquals(FilterReply.NEUTRAL, filter.decide(new LoggingEvent(null, otherLogger, Level.DEBUG, "debug", null, null)));
+    }
+}
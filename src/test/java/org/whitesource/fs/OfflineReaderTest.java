@@ -0,0 +1,77 @@
+package org.whitesource.fs;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.whitesource.agent.api.dispatch.UpdateInventoryRequest;
+import org.whitesource.agent.api.model.AgentProjectInfo;
+import org.whitesource.agent.api.model.Coordinates;
+import org.whitesource.agent.api.model.DependencyInfo;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+public class OfflineReaderTest {
+
+    private static final int PROJECTS_COUNT = 5;
+    private static final int DEPENDENCIES_COUNT = 1000;
+
+    private File outputFolder;
+
+    @Before
+    public void setUp() throws Exception {
+        outputFolder = Files.createTempDirectory("offline-request").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(outputFolder);
+    }
+
+    @Test
+    public void shouldStreamProjectsOfZippedRequest() throws Exception {
+        File requestFile = new OfflineRequestWriter().write(createRequest(), outputFolder, true, false);
+
+        List<String> projectNames = new LinkedList<>();
+        UpdateInventoryRequest request = new OfflineReader().readRequest(requestFile, project -> {
+            Assert.assertEquals(DEPENDENCIES_COUNT, project.getDependencies().size());
+            projectNames.add(project.getCoordinates().getArtifactId());
+        });
+
+        Assert.assertEquals(Arrays.asList("project0", "project1", "project2", "project3", "project4"), projectNames);
+        Assert.assertEquals("product", request.product());
+        Assert.assertEquals("1.0", request.productVersion());
+    }
+
+    @Test
+    public void shouldReadPlainRequestsAndSkipInvalidFiles() throws Exception {
+        File requestFile = new OfflineRequestWriter().write(createRequest(), outputFolder, false, true);
+        File invalidFile = new File(outputFolder, "invalid-request.txt");
+        Files.write(invalidFile.toPath(), "not a request".getBytes(StandardCharsets.UTF_8));
+
+        Collection<UpdateInventoryRequest> requests = new OfflineReader().getAgentProjectsFromRequests(
+                Arrays.asList(invalidFile.getPath(), requestFile.getPath()));
+
+        Assert.assertEquals(1, requests.size());
+        Assert.assertEquals(PROJECTS_COUNT, requests.iterator().next().getProjects().size());
+    }
+
+    private UpdateInventoryRequest createRequest() {
+        List<AgentProjectInfo> projects = new ArrayList<>();
+        for (int i = 0; i < PROJECTS_COUNT; i++) {
+            AgentProjectInfo project = new AgentProjectInfo();
+            project.setCoordinates(new Coordinates(null, "project" + i, null));
+            List<DependencyInfo> dependencies = new ArrayList<>();
+            for (int j = 0; j < DEPENDENCIES_COUNT; j++) {
+                dependencies.add(new DependencyInfo("group", "dependency-" + j + ".jar", "1.0"));
+            }
+            project.setDependencies(dependencies);
+            projects.add(project);
+        }
+        return new UpdateInventoryRequest("token", "product", "1.0", projects, "userKey", "comment");
+    }
+}
@@ -0,0 +1,81 @@
+package org.whitesource.fs;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.whitesource.agent.api.dispatch.UpdateInventoryRequest;
+import org.whitesource.agent.api.dispatch.UpdateType;
+import org.whitesource.agent.api.model.AgentProjectInfo;
+import org.whitesource.agent.api.model.Coordinates;
+import org.whitesource.agent.api.model.DependencyInfo;
+import org.whitesource.agent.report.OfflineUpdateRequest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+public class OfflineRequestWriterTest {
+
+    private File outputFolder;
+
+    @Before
+    public void setUp() throws Exception {
+        outputFolder = Files.createTempDirectory("offline-request").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(outputFolder);
+    }
+
+    @Test
+    public void shouldWriteSameRequestAsOfflineUpdateRequest() throws Exception {
+        UpdateInventoryRequest request = createRequest();
+        String expectedJson = new Gson().toJson(request);
+
+        File plainFile = new OfflineRequestWriter().write(request, outputFolder, false, true);
+        Assert.assertEquals(new JsonParser().parse(expectedJson),
+                new JsonParser().parse(new String(Files.readAllBytes(plainFile.toPath()), StandardCharsets.UTF_8)));
+
+        // the zipped request is read back like the files generated by OfflineUpdateRequest
+        File zippedFile = new OfflineRequestWriter().write(request, outputFolder, true, true);
+        Collection<UpdateInventoryRequest> requests = new OfflineReader().getAgentProjectsFromRequests(Collections.singletonList(zippedFile.getPath()));
+        Assert.assertEquals(1, requests.size());
+        Assert.assertEquals(new JsonParser().parse(expectedJson), new JsonParser().parse(new Gson().toJson(requests.iterator().next())));
+
+        // both requests decode to the same json
+        File legacyFolder = new File(outputFolder, "legacy");
+        Assert.assertTrue(legacyFolder.mkdir());
+        File legacyFile = new OfflineUpdateRequest(request).generate(legacyFolder, true, false);
+        Assert.assertEquals(new File(legacyFolder, OfflineRequestWriter.REQUEST_FOLDER + File.separator + OfflineRequestWriter.REQUEST_FILE), legacyFile);
+        Assert.assertEquals(new JsonParser().parse(readZipped(legacyFile)), new JsonParser().parse(readZipped(zippedFile)));
+    }
+
+    private String readZipped(File file) throws IOException {
+        try (InputStream inputStream = new GZIPInputStream(Base64.getMimeDecoder().wrap(new FileInputStream(file)))) {
+            return IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+        }
+    }
+
+    private UpdateInventoryRequest createRequest() {
+        AgentProjectInfo project = new AgentProjectInfo();
+        project.setCoordinates(new Coordinates(null, "project", "1.0"));
+        DependencyInfo parent = new DependencyInfo("group", "parent.jar", "1.0");
+        parent.setSha1("sha1");
+        parent.getChildren().add(new DependencyInfo("group", "child.jar", "2.0"));
+        project.setDependencies(new ArrayList<>(Arrays.asList(parent, new DependencyInfo(null, "other \"<name>\".jar", null))));
+        UpdateInventoryRequest request = new UpdateInventoryRequest("token", "product", "1.0", Collections.singletonList(project), "userKey", "comment");
+        request.setUpdateType(UpdateType.APPEND);
+        return request;
+    }
+}
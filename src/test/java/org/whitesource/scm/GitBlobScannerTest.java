@@ -0,0 +1,101 @@
+package org.whitesource.scm;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.whitesource.agent.DependencyInfoFactory;
+import org.whitesource.agent.FileHashCache;
+import org.whitesource.agent.api.model.DependencyInfo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+
+public class GitBlobScannerTest {
+
+    private static final String[] INCLUDES = {"**/*.js", "**/*.xml"};
+    private static final String[] EXCLUDES = {"**/test/**"};
+
+    private File folder;
+    private File workTree;
+    private String cloneDirectory;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        folder = Files.createTempDirectory("GitBlobScannerTest").toFile();
+        workTree = new File(folder, "work");
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            script.append("function f").append(i).append("(a) {\r\n    return a + ").append(i).append(";\r\n}\r\n");
+        }
+        try (Git git = Git.init().setDirectory(workTree).call()) {
+            for (String path : Arrays.asList("a/lib.js", "b/lib.js", "test/lib.js")) {
+                FileUtils.write(new File(workTree, path), script, StandardCharsets.UTF_8);
+            }
+            FileUtils.write(new File(workTree, "pom.xml"), "<project>\n</project>\n", StandardCharsets.UTF_8);
+            FileUtils.write(new File(workTree, "README.md"), "readme", StandardCharsets.UTF_8);
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("files").call();
+        }
+        ScmConnector scmConnector = ScmConnector.create("git", workTree.getAbsolutePath(), null, null, null, null, null);
+        scmConnector.setSparsePatterns(Arrays.asList("**/pom.xml"));
+        cloneDirectory = scmConnector.cloneRepository().getPath();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(folder);
+        FileUtils.deleteQuietly(new File(cloneDirectory));
+    }
+
+    @Test
+    public void shouldHashBlobsLikeFiles() {
+        Assert.assertFalse(new File(cloneDirectory, "a/lib.js").exists());
+        FileHashCache fileHashCache = new FileHashCache(100);
+        GitBlobScanner gitBlobScanner = new GitBlobScanner(cloneDirectory, new DependencyInfoFactory(null, false, false, true, fileHashCache));
+        Collection<DependencyInfo> dependencies = gitBlobScanner.createDependencies(INCLUDES, EXCLUDES, false);
+
+        Assert.assertEquals(3, dependencies.size());
+        Assert.assertEquals(5, gitBlobScanner.getTrackedPaths().size());
+        // the two copies of lib.js are hashed once
+        Assert.assertEquals(2, fileHashCache.getMisses());
+        Assert.assertEquals(1, fileHashCache.getHits());
+        assertHashedLikeFiles(dependencies);
+    }
+
+    @Test
+    public void shouldHashLargeBlobsLikeFiles() {
+        FileHashCache fileHashCache = new FileHashCache(100);
+        // every blob is larger than this, so all of them are streamed to temp files
+        GitBlobScanner gitBlobScanner = new GitBlobScanner(cloneDirectory, new DependencyInfoFactory(null, false, false, true, fileHashCache), 16);
+        Collection<DependencyInfo> dependencies = gitBlobScanner.createDependencies(INCLUDES, EXCLUDES, false);
+
+        Assert.assertEquals(3, dependencies.size());
+        Assert.assertEquals(1, fileHashCache.getHits());
+        assertHashedLikeFiles(dependencies);
+    }
+
+    private void assertHashedLikeFiles(Collection<DependencyInfo> dependencies) {
+        DependencyInfoFactory fileFactory = new DependencyInfoFactory(null, false, false, true);
+        for (DependencyInfo dependency : dependencies) {
+            String path = dependency.getSystemPath().substring(cloneDirectory.length() + 1);
+            DependencyInfo expected = fileFactory.createDependencyInfo(workTree, path);
+            Assert.assertEquals(expected.getSha1(), dependency.getSha1());
+            Assert.assertEquals(expected.getChecksums(), dependency.getChecksums());
+            Assert.assertEquals(expected.getOtherPlatformSha1(), dependency.getOtherPlatformSha1());
+            Assert.assertEquals(expected.getFullHash(), dependency.getFullHash());
+            Assert.assertEquals(expected.getFilename(), dependency.getFilename());
+            Assert.assertNotNull(dependency.getOtherPlatformSha1());
+            if (path.endsWith(".js")) {
+                Assert.assertNotNull(dependency.getFullHash());
+            }
+        }
+    }
+}
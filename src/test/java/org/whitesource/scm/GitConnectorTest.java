@@ -0,0 +1,194 @@
+package org.whitesource.scm;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.PackFile;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class GitConnectorTest {
+
+    private File folder;
+    private File workTree;
+    private String remoteUrl;
+
+    @Before
+    public void setUp() throws IOException, GitAPIException {
+        folder = Files.createTempDirectory("GitConnectorTest").toFile();
+        workTree = new File(folder, "work");
+        try (Git git = Git.init().setDirectory(workTree).call()) {
+            commit(git, "README.md", "master");
+            commit(git, "pom.xml", "<project/>");
+            git.tag().setName("v1").call();
+            git.checkout().setCreateBranch(true).setName("feature").call();
+            commit(git, "src/main/index.js", "var a = 1;");
+        }
+        File remote = new File(folder, "remote.git");
+        Git.cloneRepository().setURI(workTree.getAbsolutePath()).setDirectory(remote).setBare(true).setCloneAllBranches(true).call().close();
+        remoteUrl = remote.getAbsolutePath();
+    }
+
+    @After
+    public void tearDown() {
+        FileUtils.deleteQuietly(folder);
+    }
+
+    @Test
+    public void shouldFetchOnlyTheScannedBranch() throws IOException {
+        ScmConnector scmConnector = ScmConnector.create("git", remoteUrl, null, null, null, "feature", null);
+        try {
+            File cloneDirectory = scmConnector.cloneRepository();
+            Assert.assertTrue(new File(cloneDirectory, "README.md").isFile());
+            Assert.assertTrue(new File(cloneDirectory, "src/main/index.js").isFile());
+            try (Git git = Git.open(cloneDirectory)) {
+                Set<String> refs = git.getRepository().getAllRefs().keySet();
+                Assert.assertTrue(refs.contains("refs/remotes/origin/feature"));
+                Assert.assertFalse(refs.contains("refs/remotes/origin/master"));
+                Assert.assertFalse(refs.contains(Constants.R_TAGS + "v1"));
+            }
+        } finally {
+            scmConnector.deleteCloneDirectory();
+        }
+    }
+
+    @Test
+    public void shouldCheckOutTag() {
+        ScmConnector scmConnector = ScmConnector.create("git", remoteUrl, null, null, null, null, "v1");
+        try {
+            File cloneDirectory = scmConnector.cloneRepository();
+            Assert.assertTrue(new File(cloneDirectory, "pom.xml").isFile());
+            Assert.assertFalse(new File(cloneDirectory, "src/main/index.js").exists());
+        } finally {
+            scmConnector.deleteCloneDirectory();
+        }
+    }
+
+    @Test
+    public void shouldCheckOutOnlySparsePatterns() throws IOException {
+        ScmConnector scmConnector = ScmConnector.create("git", remoteUrl, null, null, null, "feature", null);
+        scmConnector.setSparsePatterns(Arrays.asList("**/*.js", "**/pom.xml"));
+        try {
+            File cloneDirectory = scmConnector.cloneRepository();
+            Assert.assertTrue(new File(cloneDirectory, "pom.xml").isFile());
+            Assert.assertEquals("var a = 1;", FileUtils.readFileToString(new File(cloneDirectory, "src/main/index.js"), StandardCharsets.UTF_8));
+            Assert.assertFalse(new File(cloneDirectory, "README.md").exists());
+        } finally {
+            scmConnector.deleteCloneDirectory();
+        }
+    }
+
+    @Test
+    public void shouldUpdateMirrorIncrementally() throws IOException, GitAPIException {
+        File mirrorsFolder = new File(folder, "mirrors");
+        ScmConnector scmConnector = ScmConnector.create("git", remoteUrl, null, null, null, "feature", null);
+        scmConnector.setMirrorsFolder(mirrorsFolder);
+        try {
+            File cloneDirectory = scmConnector.cloneRepository();
+            Assert.assertTrue(new File(cloneDirectory, "src/main/index.js").isFile());
+            // the objects are kept in the mirror only
+            Assert.assertTrue(new File(cloneDirectory, ".git/objects/info/alternates").isFile());
+            Assert.assertEquals(0, new File(cloneDirectory, ".git/objects/pack").list().length);
+            scmConnector.deleteCloneDirectory();
+
+            try (Git git = Git.open(workTree)) {
+                commit(git, "src/main/other.js", "var b = 2;");
+                git.push().setRemote(remoteUrl).add("feature").call();
+            }
+            cloneDirectory = scmConnector.cloneRepository();
+            Assert.assertTrue(new File(cloneDirectory, "src/main/other.js").isFile());
+            File[] mirrors = mirrorsFolder.listFiles(File::isDirectory);
+            Assert.assertEquals(1, mirrors.length);
+            try (Git mirror = Git.open(mirrors[0])) {
+                Assert.assertNotNull(mirror.getRepository().exactRef(Constants.R_HEADS + "feature"));
+                Assert.assertNull(mirror.getRepository().exactRef(Constants.R_HEADS + "master"));
+            }
+        } finally {
+            scmConnector.deleteCloneDirectory();
+        }
+    }
+
+    @Test
+    public void shouldRepackMirror() throws IOException, GitAPIException {
+        File mirrorsFolder = new File(folder, "mirrors");
+        ScmConnector scmConnector = ScmConnector.create("git", remoteUrl, null, null, null, "feature", null);
+        scmConnector.setMirrorsFolder(mirrorsFolder);
+        ObjectId firstBlob;
+        ObjectId lastBlob;
+        try (Git git = Git.open(workTree)) {
+            // the initial clone and the following fetches add a pack each, the last update repacks the mirror
+            int updates = GitConnector.MAX_MIRROR_PACKS;
+            for (int i = 0; i <= updates; i++) {
+                commit(git, "src/main/file" + i + ".js", "var a = " + i + ";");
+                git.push().setRemote(remoteUrl).add("feature").call();
+                File cloneDirectory = scmConnector.cloneRepository();
+                Assert.assertTrue(new File(cloneDirectory, "src/main/file" + i + ".js").isFile());
+                scmConnector.deleteCloneDirectory();
+            }
+            firstBlob = git.getRepository().resolve("feature:src/main/file0.js");
+            lastBlob = git.getRepository().resolve("feature:src/main/file" + updates + ".js");
+        }
+        File[] mirrors = mirrorsFolder.listFiles(File::isDirectory);
+        Assert.assertEquals(1, mirrors.length);
+        // a single pack holds the objects of all the fetches, the replaced packs are kept for the clones still reading them
+        try (Git mirror = Git.open(mirrors[0])) {
+            Collection<PackFile> packs = ((FileRepository) mirror.getRepository()).getObjectDatabase().getPacks();
+            Assert.assertTrue(packs.size() > GitConnector.MAX_MIRROR_PACKS);
+            Assert.assertTrue(packs.stream().anyMatch(pack -> hasObjects(pack, firstBlob, lastBlob)));
+        }
+    }
+
+    @Test
+    public void shouldLockMirror() throws Exception {
+        File mirror = new File(folder, "mirrors/git_remote");
+        AtomicBoolean locked = new AtomicBoolean();
+        Thread thread;
+        try (ScmMirrorLock mirrorLock = ScmMirrorLock.acquire(mirror)) {
+            thread = new Thread(() -> {
+                try (ScmMirrorLock otherLock = ScmMirrorLock.acquire(mirror)) {
+                    locked.set(true);
+                } catch (IOException e) {
+                    // the assertion fails
+                }
+            });
+            thread.start();
+            thread.join(500);
+            Assert.assertFalse(locked.get());
+        }
+        thread.join(5000);
+        Assert.assertTrue(locked.get());
+    }
+
+    private boolean hasObjects(PackFile pack, ObjectId... objectIds) {
+        try {
+            for (ObjectId objectId : objectIds) {
+                if (!pack.hasObject(objectId)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void commit(Git git, String path, String content) throws IOException, GitAPIException {
+        FileUtils.write(new File(git.getRepository().getWorkTree(), path), content, StandardCharsets.UTF_8);
+        git.add().addFilepattern(path).call();
+        git.commit().setMessage("add " + path).call();
+    }
+}
@@ -2,47 +2,72 @@ package org.whitesource.web;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.unit.Async;
 import io.vertx.ext.unit.TestContext;
 import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
 import org.junit.*;
 import org.junit.runner.RunWith;
 import org.whitesource.agent.ConfigPropertyKeys;
 import org.whitesource.agent.Constants;
 import org.whitesource.agent.api.model.AgentProjectInfo;
+import org.whitesource.agent.api.model.DependencyInfo;
 import org.whitesource.fs.FSAConfiguration;
 import org.whitesource.fs.FSAConfigProperties;
 import org.whitesource.fs.ProjectsDetails;
 import org.whitesource.fs.StatusCode;
 import org.whitesource.fs.configuration.ConfigurationSerializer;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Collection;
 import java.util.Properties;
+import java.util.stream.Collectors;
 
 @RunWith(VertxUnitRunner.class)
 public class FsaVerticleTest {
 
     private static final String GIT_SAMPLE = "https://github.com/adutra/maven-dependency-tree-parser.git";
     private Vertx vertx;
+    private int port;
+    private File folder;
 
     @Before
-    public void setUp(TestContext context) {
+    public void setUp(TestContext context) throws IOException {
         //VertxOptions options = new VertxOptions();
         //options.setMaxEventLoopExecuteTime(Long.MAX_VALUE);
         //vertx = Vertx.vertx(options);
         //new DeploymentOptions().setWorker(true);
         vertx = Vertx.vertx();
+        folder = Files.createTempDirectory("FsaVerticleTest").toFile();
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
 
-        vertx.deployVerticle(FsaVerticle.class.getName(),
+        // plain http on a free port, the certificate isn't used without ssl
+        FSAConfigProperties properties = new FSAConfigProperties();
+        properties.setProperty(ConfigPropertyKeys.ENDPOINT_PORT, String.valueOf(port));
+        properties.setProperty(ConfigPropertyKeys.ENDPOINT_SSL_ENABLED, "false");
+        properties.setProperty(ConfigPropertyKeys.ENDPOINT_CERTIFICATE, FsaVerticle.KEYSTORE_JKS);
+        properties.setProperty(ConfigPropertyKeys.ENDPOINT_PASS, "pass");
+        JsonObject config = new JsonObject().put(FsaVerticle.CONFIGURATION, new ConfigurationSerializer().getAsString(new FSAConfiguration(properties), false));
+        vertx.deployVerticle(FsaVerticle.class.getName(), new DeploymentOptions().setConfig(config),
                 context.asyncAssertSuccess());
     }
 
     @After
     public void tearDown(TestContext context) {
+        FileUtils.deleteQuietly(folder);
         vertx.close(context.asyncAssertSuccess());
     }
 
@@ -52,7 +77,7 @@ public class FsaVerticleTest {
     public void testHome(TestContext context) {
         final Async async = context.async();
 
-        vertx.createHttpClient().getNow(FSAConfiguration.DEFAULT_PORT, "localhost", FsaVerticle.HOME,
+        vertx.createHttpClient().getNow(port, "localhost", FsaVerticle.HOME,
                 response -> response.handler(body -> {
                     context.assertTrue(body.toString().equals(FsaVerticle.WELCOME_MESSAGE));
                     async.complete();
@@ -64,7 +89,7 @@ public class FsaVerticleTest {
     @Test
     public void testAnalyzeApi(TestContext context) {
         final Async async = context.async();
-        vertx.createHttpClient().post("localhost:" + FSAConfiguration.DEFAULT_PORT + "\\analyze",
+        vertx.createHttpClient().post("localhost:" + port + "\\analyze",
                 response -> response.handler(body -> {
                     context.assertTrue(body.toString().contains("Hello"));
                     async.complete();
@@ -94,7 +119,7 @@ public class FsaVerticleTest {
         options.setKeepAlive(true);
         options.setMaxPoolSize(500);
 
-        vertx.createHttpClient(options).post(FSAConfiguration.DEFAULT_PORT, "localhost", FsaVerticle.API_ANALYZE)
+        vertx.createHttpClient(options).post(port, "localhost", FsaVerticle.API_ANALYZE)
                 .putHeader("content-type", "application/json")
                 .putHeader("content-length", length)
                 .handler(response -> {
@@ -113,6 +138,54 @@ public class FsaVerticleTest {
                 .end();
     }
 
+    @Test
+    public void testAnalyzeStreamApiOfLocalRepository(TestContext context) throws IOException, GitAPIException {
+        File workTree = new File(folder, "repository");
+        try (Git git = Git.init().setDirectory(workTree).call()) {
+            FileUtils.write(new File(workTree, "stream-index.js"), "var a = 1;", StandardCharsets.UTF_8);
+            FileUtils.write(new File(workTree, "lib/stream-util.js"), "var b = 2;", StandardCharsets.UTF_8);
+            git.add().addFilepattern(".").call();
+            git.commit().setMessage("add sources").call();
+        }
+        FSAConfigProperties properties = new FSAConfigProperties();
+        properties.setProperty(ConfigPropertyKeys.SCM_TYPE_PROPERTY_KEY, "git");
+        properties.setProperty(ConfigPropertyKeys.SCM_URL_PROPERTY_KEY, workTree.getAbsolutePath());
+        properties.setProperty(ConfigPropertyKeys.SCM_BRANCH_PROPERTY_KEY, "master");
+        properties.setProperty(ConfigPropertyKeys.SCM_NPM_INSTALL, "false");
+        properties.setProperty(ConfigPropertyKeys.RESOLVE_ALL_DEPENDENCIES, "false");
+        properties.setProperty(ConfigPropertyKeys.ORG_TOKEN_PROPERTY_KEY, "token");
+        properties.setProperty(ConfigPropertyKeys.PROJECT_NAME_PROPERTY_KEY, "projectName");
+        // the working folder is scanned too, none of its files match
+        properties.setProperty(ConfigPropertyKeys.INCLUDES_PATTERN_PROPERTY_KEY, "**/stream-*.js");
+        String json = new ConfigurationSerializer().getAsString(new FSAConfiguration(properties), false);
+
+        final Async async = context.async();
+        vertx.createHttpClient().post(port, "localhost", FsaVerticle.API_ANALYZE_STREAM)
+                .putHeader("content-type", "application/json")
+                .handler(response -> {
+                    context.assertEquals(200, response.statusCode());
+                    context.assertTrue(response.headers().get("content-type").contains("application/x-ndjson"));
+                    response.bodyHandler(body -> {
+                        String[] lines = body.toString().split("\n");
+                        // the project of the repository, then the status of the scan
+                        context.assertEquals(2, lines.length);
+                        try {
+                            AgentProjectInfo project = new ObjectMapper().readValue(lines[0], AgentProjectInfo.class);
+                            context.assertEquals("projectName", project.getCoordinates().getArtifactId());
+                            context.assertEquals("stream-index.js,stream-util.js", project.getDependencies().stream()
+                                    .map(DependencyInfo::getArtifactId).sorted().collect(Collectors.joining(",")));
+                            ResultDto<String, StatusCode> status = new ObjectMapper().readValue(lines[1], new TypeReference<ResultDto<String, StatusCode>>() {
+                            });
+                            context.assertEquals(StatusCode.SUCCESS, status.getDetails());
+                        } catch (IOException e) {
+                            context.fail(e);
+                        }
+                        async.complete();
+                    });
+                })
+                .end(json);
+    }
+
     private ResultDto<ProjectsDetails, StatusCode> getProjects(Buffer body) {
         String result = body.toString();
         try {
@@ -0,0 +1,82 @@
+package org.whitesource.web;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.whitesource.agent.ConfigPropertyKeys;
+import org.whitesource.fs.FSAConfigProperties;
+import org.whitesource.fs.FSAConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class ScanFingerprintTest {
+
+    @Test
+    public void shouldChangeKeyOnlyWhenTreeOrConfigurationChange() throws IOException {
+        File folder = Files.createTempDirectory("ScanFingerprintTest").toFile();
+        try {
+            File file = new File(folder, "index.js");
+            FileUtils.write(file, "var a = 1;", StandardCharsets.UTF_8);
+
+            String key = ScanFingerprint.getKey(getConfiguration(folder, "project"));
+            Assert.assertNotNull(key);
+            Assert.assertEquals(key, ScanFingerprint.getKey(getConfiguration(folder, "project")));
+            Assert.assertNotEquals(key, ScanFingerprint.getKey(getConfiguration(folder, "otherProject")));
+
+            FileUtils.write(file, "var a = 12;", StandardCharsets.UTF_8);
+            Assert.assertNotEquals(key, ScanFingerprint.getKey(getConfiguration(folder, "project")));
+        } finally {
+            FileUtils.deleteQuietly(folder);
+        }
+    }
+
+    @Test
+    public void shouldChangeKeyWhenRemoteBranchChanges() throws IOException, GitAPIException {
+        File folder = Files.createTempDirectory("ScanFingerprintTest").toFile();
+        try (Git git = Git.init().setDirectory(folder).call()) {
+            commit(git, "index.js", "var a = 1;");
+            String url = folder.getAbsolutePath();
+
+            String key = ScanFingerprint.getKey(getScmConfiguration(url, "master"));
+            Assert.assertNotNull(key);
+            Assert.assertEquals(key, ScanFingerprint.getKey(getScmConfiguration(url, "master")));
+
+            commit(git, "index.js", "var a = 12;");
+            Assert.assertNotEquals(key, ScanFingerprint.getKey(getScmConfiguration(url, "master")));
+            // a branch that can't be resolved isn't shared
+            Assert.assertNull(ScanFingerprint.getKey(getScmConfiguration(url, "missing")));
+        } finally {
+            FileUtils.deleteQuietly(folder);
+        }
+    }
+
+    private FSAConfiguration getScmConfiguration(String url, String branch) {
+        FSAConfigProperties properties = new FSAConfigProperties();
+        properties.setProperty(ConfigPropertyKeys.ORG_TOKEN_PROPERTY_KEY, "token");
+        properties.setProperty(ConfigPropertyKeys.PROJECT_NAME_PROPERTY_KEY, "project");
+        properties.setProperty(ConfigPropertyKeys.SCM_TYPE_PROPERTY_KEY, "git");
+        properties.setProperty(ConfigPropertyKeys.SCM_URL_PROPERTY_KEY, url);
+        properties.setProperty(ConfigPropertyKeys.SCM_BRANCH_PROPERTY_KEY, branch);
+        return new FSAConfiguration(properties);
+    }
+
+    private void commit(Git git, String path, String content) throws IOException, GitAPIException {
+        FileUtils.write(new File(git.getRepository().getWorkTree(), path), content, StandardCharsets.UTF_8);
+        git.add().addFilepattern(path).call();
+        git.commit().setMessage(path).call();
+    }
+
+    private FSAConfiguration getConfiguration(File folder, String projectName) {
+        FSAConfigProperties properties = new FSAConfigProperties();
+        properties.setProperty(ConfigPropertyKeys.ORG_TOKEN_PROPERTY_KEY, "token");
+        properties.setProperty(ConfigPropertyKeys.PROJECT_NAME_PROPERTY_KEY, projectName);
+        FSAConfiguration fsaConfiguration = new FSAConfiguration(properties);
+        fsaConfiguration.getDependencyDirs().add(folder.getAbsolutePath());
+        return fsaConfiguration;
+    }
+}
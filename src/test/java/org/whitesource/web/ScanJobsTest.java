@@ -0,0 +1,104 @@
+package org.whitesource.web;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.whitesource.fs.StatusCode;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class ScanJobsTest {
+
+    @Test
+    public void shouldQueueJobsAndRejectWhenQueueIsFull() throws Exception {
+        ScanJobs scanJobs = new ScanJobs(1, 1, TimeUnit.MINUTES.toMillis(1));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            ScanJob running = scanJobs.submit(FsaVerticle.ANALYZE, () -> {
+                started.countDown();
+                await(release);
+                return new ResultDto<>("result", StatusCode.SUCCESS);
+            });
+            Assert.assertTrue(started.await(10, TimeUnit.SECONDS));
+            ScanJob queued = scanJobs.submit(FsaVerticle.SEND, () -> {
+                throw new IllegalStateException("failed");
+            });
+            Assert.assertNull(scanJobs.submit(FsaVerticle.ANALYZE, () -> null));
+
+            List<ScanJob.Status> statuses = new CopyOnWriteArrayList<>();
+            CountDownLatch done = new CountDownLatch(2);
+            running.addListener(job -> {
+                statuses.add(job.getStatus());
+                if (job.isDone()) {
+                    done.countDown();
+                }
+            });
+            queued.addListener(job -> {
+                if (job.isDone()) {
+                    done.countDown();
+                }
+            });
+            Assert.assertEquals(ScanJob.Status.RUNNING, scanJobs.getJob(running.getId()).getStatus());
+            Assert.assertEquals(ScanJob.Status.QUEUED, scanJobs.getJob(queued.getId()).getStatus());
+
+            release.countDown();
+            Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(ScanJob.Status.FINISHED, running.getStatus());
+            Assert.assertEquals("result", running.getResult().getResult());
+            Assert.assertEquals(ScanJob.Status.FAILED, queued.getStatus());
+            Assert.assertEquals("failed", queued.getError());
+
+            // a listener of a finished job is called right away, and only once
+            running.addListener(job -> statuses.add(job.getStatus()));
+            Assert.assertEquals(2, statuses.size());
+        } finally {
+            release.countDown();
+            scanJobs.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldShareJobsWithTheSameKey() throws Exception {
+        ScanJobs scanJobs = new ScanJobs(1, 5, TimeUnit.MINUTES.toMillis(1), TimeUnit.MINUTES.toMillis(1));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        Supplier<ResultDto<?, StatusCode>> scan = () -> {
+            runs.incrementAndGet();
+            await(release);
+            return new ResultDto<>("result", StatusCode.SUCCESS);
+        };
+        try {
+            ScanJob first = scanJobs.submit(FsaVerticle.ANALYZE, "key", scan);
+            Assert.assertSame(first, scanJobs.submit(FsaVerticle.ANALYZE, "key", scan));
+            Assert.assertNotSame(first, scanJobs.submit(FsaVerticle.ANALYZE, "other", scan));
+            Assert.assertNotSame(first, scanJobs.submit(FsaVerticle.ANALYZE, null, scan));
+
+            CountDownLatch done = new CountDownLatch(1);
+            first.addListener(job -> {
+                if (job.isDone()) {
+                    done.countDown();
+                }
+            });
+            release.countDown();
+            Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+            // the finished job is reused until the cache time is over
+            Assert.assertSame(first, scanJobs.submit(FsaVerticle.ANALYZE, "key", scan));
+        } finally {
+            release.countDown();
+            scanJobs.shutdown();
+        }
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}